@@ -0,0 +1,4 @@
+-- Versión de los pagos a proveedor: sube al editar o anular y es la marca del cache de PDF de la orden de pago.
+-- Las filas existentes arrancan en 0.
+
+ALTER TABLE pago_proveedor ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Estado de cuenta del proveedor: cursor de pagos por (proveedor_id, fecha, id).
+
+CREATE INDEX idx_pago_proveedor_proveedor_fecha_id ON pago_proveedor (proveedor_id, fecha, id);
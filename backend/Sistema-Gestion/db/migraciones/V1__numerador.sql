@@ -0,0 +1,15 @@
+-- Numeración de remitos, compras y notas por bloques (NumeradorService).
+-- Las filas se cargan desde el último número usado, así la primera reserva no tiene que crearlas.
+
+CREATE TABLE numerador (
+    tipo VARCHAR(20) NOT NULL PRIMARY KEY,
+    proximo BIGINT NOT NULL,
+    updated_at DATETIME(6) NULL
+);
+
+INSERT INTO numerador (tipo, proximo, updated_at)
+SELECT 'REMITO', COALESCE(MAX(numero), 0) + 1, NOW(6) FROM remito;
+INSERT INTO numerador (tipo, proximo, updated_at)
+SELECT 'COMPRA', COALESCE(MAX(numero), 0) + 1, NOW(6) FROM compra;
+INSERT INTO numerador (tipo, proximo, updated_at)
+SELECT 'NOTA', COALESCE(MAX(numero), 0) + 1, NOW(6) FROM notas;
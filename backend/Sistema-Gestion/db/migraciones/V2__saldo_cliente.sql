@@ -0,0 +1,9 @@
+-- Cuenta corriente materializada de clientes (SaldoClienteService).
+-- No hace falta cargarla: cada fila se crea recalculando desde los documentos la primera vez que
+-- el cliente tiene un movimiento, y la conciliación nocturna corrige cualquier desvío.
+
+CREATE TABLE saldo_cliente (
+    cliente_id BIGINT NOT NULL PRIMARY KEY,
+    saldo DECIMAL(14,2) NOT NULL,
+    updated_at DATETIME(6) NULL
+);
@@ -0,0 +1,8 @@
+-- Acumulados diarios de ventas y cobros para el tablero (VentasDiariasService).
+-- Con la tabla vacía, DataInitializer la reconstruye desde remitos y cobros al arrancar.
+
+CREATE TABLE ventas_diarias (
+    fecha DATE NOT NULL PRIMARY KEY,
+    total_ventas DECIMAL(14,2) NOT NULL,
+    total_cobrado DECIMAL(14,2) NOT NULL
+);
@@ -0,0 +1,4 @@
+-- Índice para la acreditación diaria de cheques vencidos (TesoreriaTask).
+
+CREATE INDEX idx_movimiento_cheque_pendiente
+    ON movimiento_tesoreria (medio_pago, cobrado, anulado, fecha_cobro);
@@ -0,0 +1,20 @@
+-- Trabajos de importación de productos en segundo plano (ImportacionProductoService).
+
+CREATE TABLE importacion_producto (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    estado VARCHAR(20) NOT NULL,
+    nombre_archivo VARCHAR(255) NULL,
+    filas_leidas INT NOT NULL,
+    insertados INT NOT NULL,
+    actualizados INT NOT NULL,
+    total_errores INT NOT NULL,
+    filas_por_segundo DOUBLE NOT NULL,
+    duracion_ms BIGINT NOT NULL,
+    errores MEDIUMTEXT NULL,
+    mensaje_error VARCHAR(1000) NULL,
+    created_at DATETIME(6) NOT NULL,
+    started_at DATETIME(6) NULL,
+    finished_at DATETIME(6) NULL,
+    updated_at DATETIME(6) NULL,
+    INDEX idx_importacion_producto_estado (estado)
+);
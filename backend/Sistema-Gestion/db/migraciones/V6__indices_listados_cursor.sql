@@ -0,0 +1,16 @@
+-- Índices (fecha, id) para los listados por cursor de remitos, compras, cobros y tesorería.
+-- Los compuestos reemplazan a los índices de una sola columna sobre fecha.
+
+DROP INDEX idx_remito_fecha ON remito;
+CREATE INDEX idx_remito_fecha_id ON remito (fecha, id);
+CREATE INDEX idx_remito_estado_fecha_id ON remito (estado, fecha, id);
+
+DROP INDEX idx_compra_fecha ON compra;
+CREATE INDEX idx_compra_fecha_id ON compra (fecha, id);
+CREATE INDEX idx_compra_proveedor_fecha_id ON compra (proveedor_id, fecha, id);
+
+CREATE INDEX idx_cobro_fecha_id ON cobro (fecha, id);
+CREATE INDEX idx_cobro_cliente_fecha_id ON cobro (cliente_id, fecha, id);
+
+DROP INDEX idx_movimiento_fecha ON movimiento_tesoreria;
+CREATE INDEX idx_movimiento_fecha_id ON movimiento_tesoreria (fecha, id);
@@ -0,0 +1,7 @@
+-- Ids por bloques (pooled-lo) de las tablas hijas de alto volumen. Las filas las completa
+-- IdGeneradorInicializador al arrancar, por encima del MAX(id) de cada tabla.
+
+CREATE TABLE id_generador (
+    entidad VARCHAR(255) NOT NULL PRIMARY KEY,
+    proximo BIGINT NULL
+);
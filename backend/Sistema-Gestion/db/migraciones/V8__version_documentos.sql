@@ -0,0 +1,6 @@
+-- Versión para bloqueo optimista de remitos, compras y notas (cobros y pagos concurrentes).
+-- Las filas existentes arrancan en 0.
+
+ALTER TABLE remito ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE compra ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE notas ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
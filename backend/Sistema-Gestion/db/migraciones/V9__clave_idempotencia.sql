@@ -0,0 +1,14 @@
+-- Claves Idempotency-Key de los POST de cobros, pagos a proveedor y venta rápida (IdempotenciaService).
+-- created_at identifica la reserva EN_PROCESO; expira_en se usa para purgarlas en lotes.
+
+CREATE TABLE clave_idempotencia (
+    clave VARCHAR(100) NOT NULL PRIMARY KEY,
+    operacion VARCHAR(50) NOT NULL,
+    hash_solicitud VARCHAR(64) NOT NULL,
+    estado VARCHAR(20) NOT NULL,
+    codigo_estado INT NULL,
+    respuesta MEDIUMTEXT NULL,
+    created_at DATETIME(6) NOT NULL,
+    expira_en DATETIME(6) NOT NULL,
+    INDEX idx_clave_idempotencia_expira (expira_en)
+);
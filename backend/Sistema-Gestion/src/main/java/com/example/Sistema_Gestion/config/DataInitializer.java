@@ -2,6 +2,7 @@ package com.example.Sistema_Gestion.config;
 
 import com.example.Sistema_Gestion.model.Usuario;
 import com.example.Sistema_Gestion.repository.UsuarioRepository;
+import com.example.Sistema_Gestion.service.VentasDiariasService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -11,10 +12,13 @@ public class DataInitializer implements CommandLineRunner {
 
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final VentasDiariasService ventasDiariasService;
 
-    public DataInitializer(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder) {
+    public DataInitializer(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder,
+            VentasDiariasService ventasDiariasService) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.ventasDiariasService = ventasDiariasService;
     }
 
     @Override
@@ -27,5 +31,10 @@ public class DataInitializer implements CommandLineRunner {
             usuarioRepository.save(admin);
             System.out.println(">>> Usuario administrador por defecto creado: admin / admin123");
         }
+
+        // Carga inicial de los acumulados del dashboard a partir del historial existente
+        if (ventasDiariasService.estaVacio()) {
+            ventasDiariasService.reconstruir();
+        }
     }
 }
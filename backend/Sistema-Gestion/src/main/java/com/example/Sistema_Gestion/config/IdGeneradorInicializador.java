@@ -0,0 +1,45 @@
+package com.example.Sistema_Gestion.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Completa la tabla id_generador antes de que arranque JPA. Las tablas hijas de alto volumen
+ * (ítems, imputaciones de cobros y pagos) toman sus ids de ahí en bloques (pooled-lo), y
+ * cada fila debe apuntar por encima del MAX(id) actual de su tabla, que venía de IDENTITY.
+ * Nunca baja un valor: si otra instancia ya reservó bloques, la fila se deja como está.
+ *
+ * La tabla se crea con db/migraciones/V7__id_generador.sql. El SQL es de MySQL (8.0.19 o posterior,
+ * por el alias de fila): con {@code app.id-generador.inicializar=false} no se ejecuta, p. ej. en los
+ * tests sobre H2, donde Hibernate crea la tabla vacía.
+ */
+@Component
+@ConditionalOnProperty(name = "app.id-generador.inicializar", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class IdGeneradorInicializador {
+
+    /** pkColumnValue de cada @TableGenerator; coincide con el nombre de la tabla. */
+    private static final List<String> TABLAS = List.of(
+            "remito_item", "compra_item", "cobro_remito", "cobro_medio_pago", "cobro_nota", "pago_proveedor_compra");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdGeneradorInicializador(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void inicializar() {
+        for (String tabla : TABLAS) {
+            Long siguiente = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + tabla, Long.class);
+            jdbcTemplate.update("INSERT INTO id_generador (entidad, proximo) VALUES (?, ?) AS nuevo " +
+                    "ON DUPLICATE KEY UPDATE proximo = GREATEST(COALESCE(proximo, 0), nuevo.proximo)", tabla, siguiente);
+        }
+        log.debug("id_generador verificado para {} tablas", TABLAS.size());
+    }
+}
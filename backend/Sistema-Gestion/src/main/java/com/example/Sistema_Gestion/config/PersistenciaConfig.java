@@ -0,0 +1,34 @@
+package com.example.Sistema_Gestion.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Ajustes de Hibernate que no dependen del application.properties de cada instalación:
+ * batch JDBC de inserts/updates y optimizador pooled-lo para los ids de la tabla id_generador.
+ */
+@Configuration
+public class PersistenciaConfig {
+
+    /** Mismo valor que el allocationSize de los @TableGenerator: un bloque de ids por batch. */
+    private static final int TAMANIO_BATCH = 50;
+
+    @Bean
+    public HibernatePropertiesCustomizer batchYGeneradorDeIds() {
+        return propiedades -> {
+            propiedades.putIfAbsent("hibernate.jdbc.batch_size", TAMANIO_BATCH);
+            propiedades.putIfAbsent("hibernate.order_inserts", true);
+            propiedades.putIfAbsent("hibernate.order_updates", true);
+            // id_generador guarda el próximo id libre (ver IdGeneradorInicializador): no es configurable
+            propiedades.put("hibernate.id.optimizer.pooled.preferred", "pooled-lo");
+        };
+    }
+
+    /** El EntityManagerFactory arranca después de completar id_generador. */
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependeDeIdGenerador() {
+        return new EntityManagerFactoryDependsOnPostProcessor(IdGeneradorInicializador.class);
+    }
+}
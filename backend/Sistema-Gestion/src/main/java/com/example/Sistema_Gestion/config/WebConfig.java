@@ -1,8 +1,10 @@
 package com.example.Sistema_Gestion.config;
 
+import com.example.Sistema_Gestion.service.GeneracionDocumentosService;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.resource.PathResourceResolver;
@@ -12,6 +14,18 @@ import java.io.IOException;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final GeneracionDocumentosService generacionDocumentosService;
+
+    public WebConfig(GeneracionDocumentosService generacionDocumentosService) {
+        this.generacionDocumentosService = generacionDocumentosService;
+    }
+
+    /** Las descargas en streaming (PDF, Excel, exportaciones) corren en el pool acotado de documentos. */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(generacionDocumentosService.getExecutor());
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         registry.addResourceHandler("/**")
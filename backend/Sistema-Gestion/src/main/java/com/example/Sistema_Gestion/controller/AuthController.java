@@ -3,6 +3,7 @@ package com.example.Sistema_Gestion.controller;
 import com.example.Sistema_Gestion.model.Usuario;
 import com.example.Sistema_Gestion.repository.UsuarioRepository;
 import com.example.Sistema_Gestion.security.JwtUtils;
+import com.example.Sistema_Gestion.service.CustomUserDetailsService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -27,13 +28,16 @@ public class AuthController {
     private final JwtUtils jwtUtils;
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
 
     public AuthController(AuthenticationManager authenticationManager, JwtUtils jwtUtils,
-            UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder) {
+            UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder,
+            CustomUserDetailsService userDetailsService) {
         this.authenticationManager = authenticationManager;
         this.jwtUtils = jwtUtils;
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userDetailsService = userDetailsService;
     }
 
     @PostMapping("/login")
@@ -104,6 +108,9 @@ public class AuthController {
 
         if (updated) {
             usuarioRepository.save(usuario);
+            // Los tokens del nombre anterior dejan de autenticar y el nuevo no arrastra datos viejos
+            userDetailsService.invalidar(currentAuthenticatedUsername);
+            userDetailsService.invalidar(usuario.getUsername());
             log.info("Credenciales actualizadas para el usuario (previo): {}", currentAuthenticatedUsername);
             return ResponseEntity.ok(
                     Map.of("message", "Credenciales actualizadas correctamente. Por favor inicie sesión nuevamente."));
@@ -1,17 +1,19 @@
 package com.example.Sistema_Gestion.controller;
 
+import com.example.Sistema_Gestion.dto.CobroResumenView;
+import com.example.Sistema_Gestion.dto.PaginaCursor;
+import com.example.Sistema_Gestion.dto.VersionPdf;
 import com.example.Sistema_Gestion.model.Cobro;
 import com.example.Sistema_Gestion.model.CobroMedioPago;
 import com.example.Sistema_Gestion.service.CobroService;
+import com.example.Sistema_Gestion.service.IdempotenciaService;
+import com.example.Sistema_Gestion.service.PdfCacheService;
 import com.example.Sistema_Gestion.service.RemitoService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
-import java.io.ByteArrayOutputStream;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
@@ -23,10 +25,15 @@ public class CobroController {
 
     private final CobroService cobroService;
     private final RemitoService remitoService;
+    private final IdempotenciaService idempotenciaService;
+    private final PdfCacheService pdfCacheService;
 
-    public CobroController(CobroService cobroService, RemitoService remitoService) {
+    public CobroController(CobroService cobroService, RemitoService remitoService,
+            IdempotenciaService idempotenciaService, PdfCacheService pdfCacheService) {
         this.cobroService = cobroService;
         this.remitoService = remitoService;
+        this.idempotenciaService = idempotenciaService;
+        this.pdfCacheService = pdfCacheService;
     }
 
     /**
@@ -41,20 +48,24 @@ public class CobroController {
      * { "medio": "CHEQUE", "importe": 0, "banco": "Nacion", ... }
      * ]
      * }
+     *
+     * Con el header Idempotency-Key, los reintentos del mismo cobro devuelven el cobro ya registrado.
      */
     @PostMapping
-    public Cobro registrarCobro(@RequestBody RegistrarCobroRequest req) {
+    public ResponseEntity<?> registrarCobro(@RequestBody RegistrarCobroRequest req,
+            @RequestHeader(value = IdempotenciaService.HEADER, required = false) String idempotencyKey) {
         String clienteInfo = req.getCobro().getCliente() != null
                 ? (req.getCobro().getCliente().getNombre() != null
                         ? req.getCobro().getCliente().getNombre()
                         : "ID: " + req.getCobro().getCliente().getId())
                 : "desconocido";
         log.info("Registrando nuevo cobro para el cliente: {}", clienteInfo);
-        return cobroService.registrarCobro(
-                req.getCobro(),
-                req.getImportesPorRemito(),
-                req.getImportesPorNotaDebito(),
-                req.getMediosPago());
+        return idempotenciaService.ejecutar(idempotencyKey, "COBRO", req,
+                () -> cobroService.registrarCobroConReintentos(
+                        req.getCobro(),
+                        req.getImportesPorRemito(),
+                        req.getImportesPorNotaDebito(),
+                        req.getMediosPago()));
     }
 
     /** GET /api/cobros/cliente/{clienteId} — historial de cobros del cliente */
@@ -63,6 +74,15 @@ public class CobroController {
         return ResponseEntity.ok(cobroService.listarPorCliente(clienteId));
     }
 
+    /** GET /api/cobros/cursor?limite=50[&clienteId=..][&cursor=...] — listado por cursor */
+    @GetMapping("/cursor")
+    public PaginaCursor<CobroResumenView> listarPorCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite,
+            @RequestParam(value = "clienteId", required = false) Long clienteId) {
+        return cobroService.listarPorCursor(cursor, limite, clienteId);
+    }
+
     /**
      * GET /api/cobros/cliente/{clienteId}/movimientos — historial unificado
      * (Remitos + Cobros)
@@ -107,28 +127,14 @@ public class CobroController {
         return ResponseEntity.ok(cobroService.getDashboardSummary());
     }
 
-    /** GET /api/cobros/{id}/recibo/pdf */
+    /** GET /api/cobros/{id}/recibo/pdf, desde el cache si no cambió (ETag / If-None-Match) */
     @GetMapping("/{id}/recibo/pdf")
-    public ResponseEntity<byte[]> descargarRecibo(@PathVariable("id") Long id) {
-        try {
-            byte[] logo = null;
-            try {
-                String logoPath = "C:\\Users\\leone\\OneDrive\\Desktop\\Sistema-Gestion-Comercial\\frontend\\public\\Copia de Copia de Leonel.png";
-                java.io.File logoFile = new java.io.File(logoPath);
-                if (logoFile.exists()) {
-                    logo = java.nio.file.Files.readAllBytes(logoFile.toPath());
-                }
-            } catch (Exception ignored) {}
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            cobroService.generarPdfRecibo(id, baos, logo);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "recibo_cobro_" + id + ".pdf");
-            return new ResponseEntity<>(baos.toByteArray(), headers, HttpStatus.OK);
-        } catch (Exception e) {
-            log.error("Error generando recibo PDF para cobro {}", id, e);
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error generando PDF");
-        }
+    public ResponseEntity<StreamingResponseBody> descargarRecibo(@PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        VersionPdf version = cobroService.versionPdfRecibo(id)
+                .orElseThrow(() -> new RuntimeException("Cobro no encontrado: " + id));
+        return pdfCacheService.servir("recibo", id, version, "recibo_cobro_" + id + ".pdf", ifNoneMatch,
+                os -> cobroService.generarPdfRecibo(id, os));
     }
 
     // ---- Inner class para el request body ----
@@ -1,6 +1,7 @@
 package com.example.Sistema_Gestion.controller;
 
 import com.example.Sistema_Gestion.dto.CompraResumenDTO;
+import com.example.Sistema_Gestion.dto.PaginaCursor;
 import com.example.Sistema_Gestion.model.Compra;
 import com.example.Sistema_Gestion.service.CompraService;
 import lombok.extern.slf4j.Slf4j;
@@ -42,6 +43,15 @@ public class CompraController {
                 .map(CompraResumenDTO::new);
     }
 
+    /** Listado por cursor: GET /api/compras/cursor?limite=20[&proveedorId=..][&cursor=...]. */
+    @GetMapping("/cursor")
+    public PaginaCursor<CompraResumenDTO> listarPorCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite,
+            @RequestParam(value = "proveedorId", required = false) Long proveedorId) {
+        return compraService.listarPorCursor(cursor, limite, proveedorId).map(CompraResumenDTO::new);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> eliminar(@PathVariable("id") Long id) {
         log.info("Eliminando compra ID: {}", id);
@@ -2,6 +2,8 @@ package com.example.Sistema_Gestion.controller;
 
 import com.example.Sistema_Gestion.model.Configuracion;
 import com.example.Sistema_Gestion.service.ConfiguracionService;
+import com.example.Sistema_Gestion.service.PdfCacheService;
+import com.example.Sistema_Gestion.service.SincronizacionPreciosService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,9 +17,14 @@ import java.util.Map;
 public class ConfiguracionController {
 
     private final ConfiguracionService configuracionService;
+    private final SincronizacionPreciosService sincronizacionPreciosService;
+    private final PdfCacheService pdfCacheService;
 
-    public ConfiguracionController(ConfiguracionService configuracionService) {
+    public ConfiguracionController(ConfiguracionService configuracionService,
+            SincronizacionPreciosService sincronizacionPreciosService, PdfCacheService pdfCacheService) {
         this.configuracionService = configuracionService;
+        this.sincronizacionPreciosService = sincronizacionPreciosService;
+        this.pdfCacheService = pdfCacheService;
     }
 
     @GetMapping
@@ -42,4 +49,16 @@ public class ConfiguracionController {
         log.info("Actualizando configuración del sistema: cotización={}", configuracion.getCotizacionDolar());
         return configuracionService.actualizarConfiguracion(configuracion);
     }
+
+    /** Estado de la resincronización de precios en pesos que dispara un cambio de cotización. */
+    @GetMapping("/sincronizacion-precios")
+    public ResponseEntity<Map<String, Object>> getSincronizacionPrecios() {
+        return ResponseEntity.ok(sincronizacionPreciosService.getEstado());
+    }
+
+    /** Aciertos, 304, fallos y ocupación del cache de PDF de documentos. */
+    @GetMapping("/pdf-cache")
+    public ResponseEntity<Map<String, Object>> getPdfCache() {
+        return ResponseEntity.ok(pdfCacheService.getEstadisticas());
+    }
 }
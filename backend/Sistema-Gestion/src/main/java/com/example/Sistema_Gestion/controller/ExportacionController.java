@@ -0,0 +1,59 @@
+package com.example.Sistema_Gestion.controller;
+
+import com.example.Sistema_Gestion.model.Remito.EstadoRemito;
+import com.example.Sistema_Gestion.service.ExportacionPdfService;
+import com.example.Sistema_Gestion.service.ExportacionPdfService.Documentos;
+import com.example.Sistema_Gestion.service.ExportacionPdfService.Filtro;
+import com.example.Sistema_Gestion.service.ExportacionPdfService.Formato;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/exportaciones")
+@Slf4j
+public class ExportacionController {
+
+    private final ExportacionPdfService exportacionPdfService;
+
+    public ExportacionController(ExportacionPdfService exportacionPdfService) {
+        this.exportacionPdfService = exportacionPdfService;
+    }
+
+    /**
+     * GET /api/exportaciones/pdf?documentos=TODOS&clienteId=&estado=&desde=&hasta=&formato=ZIP
+     * Remitos y recibos del filtro en un ZIP (un PDF por documento) o, con formato=PDF, en un solo PDF.
+     * Los parámetros omitidos no filtran; estado sólo aplica a remitos.
+     * Con demasiadas exportaciones ZIP en curso responde 429; el PDF único tiene un máximo de documentos.
+     */
+    @GetMapping("/pdf")
+    public ResponseEntity<StreamingResponseBody> exportarPdf(
+            @RequestParam(value = "documentos", defaultValue = "TODOS") Documentos documentos,
+            @RequestParam(value = "clienteId", required = false) Long clienteId,
+            @RequestParam(value = "estado", required = false) EstadoRemito estado,
+            @RequestParam(value = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(value = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(value = "formato", defaultValue = "ZIP") Formato formato) {
+        Filtro filtro = new Filtro(documentos, clienteId, estado, desde, hasta);
+        exportacionPdfService.validar(filtro, formato);
+        exportacionPdfService.verificarCapacidad(formato);
+        log.info("Exportando {} en {} (cliente {}, estado {}, {} a {})", documentos, formato, clienteId, estado, desde, hasta);
+
+        StreamingResponseBody body = os -> exportacionPdfService.exportar(filtro, formato, os);
+        boolean pdf = formato == Formato.PDF;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=documentos_" + LocalDate.now() + (pdf ? ".pdf" : ".zip"))
+                .contentType(pdf ? MediaType.APPLICATION_PDF : MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.Sistema_Gestion.controller;
 
+import com.example.Sistema_Gestion.dto.VersionPdf;
 import com.example.Sistema_Gestion.model.Nota;
 import com.example.Sistema_Gestion.service.NotaService;
+import com.example.Sistema_Gestion.service.PdfCacheService;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -12,9 +15,11 @@ import java.util.List;
 public class NotaController {
 
     private final NotaService notaService;
+    private final PdfCacheService pdfCacheService;
 
-    public NotaController(NotaService notaService) {
+    public NotaController(NotaService notaService, PdfCacheService pdfCacheService) {
         this.notaService = notaService;
+        this.pdfCacheService = pdfCacheService;
     }
 
     @GetMapping("/cliente/{clienteId}")
@@ -37,28 +42,14 @@ public class NotaController {
         );
     }
 
+    /** PDF de la nota, desde el cache si no cambió (ETag / If-None-Match). */
     @GetMapping("/{id}/pdf")
-    public org.springframework.http.ResponseEntity<byte[]> descargarPdf(@PathVariable Long id) {
-        try {
-            byte[] logo = null;
-            try {
-                String logoPath = "C:\\Users\\leone\\OneDrive\\Desktop\\Sistema-Gestion-Comercial\\frontend\\public\\Copia de Copia de Leonel.png";
-                java.io.File logoFile = new java.io.File(logoPath);
-                if (logoFile.exists()) {
-                    logo = java.nio.file.Files.readAllBytes(logoFile.toPath());
-                }
-            } catch (Exception ignored) {}
-
-            java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-            notaService.generarPdfNota(id, baos, logo);
-
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            headers.setContentType(org.springframework.http.MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "nota-" + id + ".pdf");
-            return org.springframework.http.ResponseEntity.ok().headers(headers).body(baos.toByteArray());
-        } catch (Exception e) {
-            return org.springframework.http.ResponseEntity.internalServerError().build();
-        }
+    public org.springframework.http.ResponseEntity<StreamingResponseBody> descargarPdf(@PathVariable Long id,
+            @RequestHeader(value = org.springframework.http.HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        VersionPdf version = notaService.versionPdf(id)
+                .orElseThrow(() -> new RuntimeException("Nota no encontrada: " + id));
+        return pdfCacheService.servir("nota", id, version, "nota-" + id + ".pdf", ifNoneMatch,
+                os -> notaService.generarPdfNota(id, os));
     }
 
     @DeleteMapping("/{id}/anular")
@@ -1,15 +1,15 @@
 package com.example.Sistema_Gestion.controller;
 
+import com.example.Sistema_Gestion.dto.VersionPdf;
 import com.example.Sistema_Gestion.model.PagoProveedor;
+import com.example.Sistema_Gestion.service.IdempotenciaService;
 import com.example.Sistema_Gestion.service.PagoProveedorService;
+import com.example.Sistema_Gestion.service.PdfCacheService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
-import java.io.ByteArrayOutputStream;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.math.BigDecimal;
 import java.util.Map;
 
@@ -19,9 +19,14 @@ import java.util.Map;
 public class PagoProveedorController {
 
     private final PagoProveedorService pagoProveedorService;
+    private final IdempotenciaService idempotenciaService;
+    private final PdfCacheService pdfCacheService;
 
-    public PagoProveedorController(PagoProveedorService pagoProveedorService) {
+    public PagoProveedorController(PagoProveedorService pagoProveedorService,
+            IdempotenciaService idempotenciaService, PdfCacheService pdfCacheService) {
         this.pagoProveedorService = pagoProveedorService;
+        this.idempotenciaService = idempotenciaService;
+        this.pdfCacheService = pdfCacheService;
     }
 
     /**
@@ -33,14 +38,18 @@ public class PagoProveedorController {
      * },
      * "importesPorCompra": { "3": 40000.00, "4": 60000.00 }
      * }
+     *
+     * Con el header Idempotency-Key, los reintentos del mismo pago devuelven el pago ya registrado.
      */
     @PostMapping
-    public PagoProveedor registrarPago(@RequestBody RegistrarPagoRequest req) {
+    public ResponseEntity<?> registrarPago(@RequestBody RegistrarPagoRequest req,
+            @RequestHeader(value = IdempotenciaService.HEADER, required = false) String idempotencyKey) {
         log.info("Registrando nuevo pago para el proveedor: {}",
                 req.getPago().getProveedor() != null ? req.getPago().getProveedor().getNombre() : "N/A");
-        return pagoProveedorService.registrarPago(
-                req.getPago(),
-                req.getImportesPorCompra());
+        return idempotenciaService.ejecutar(idempotencyKey, "PAGO_PROVEEDOR", req,
+                () -> pagoProveedorService.registrarPagoConReintentos(
+                        req.getPago(),
+                        req.getImportesPorCompra()));
     }
 
     /** GET /api/pagos-proveedor/proveedor/{proveedorId} */
@@ -80,28 +89,14 @@ public class PagoProveedorController {
                 : ResponseEntity.notFound().build();
     }
 
-    /** GET /api/pagos-proveedor/{id}/orden-pago/pdf */
+    /** GET /api/pagos-proveedor/{id}/orden-pago/pdf, desde el cache si no cambió (ETag / If-None-Match) */
     @GetMapping("/{id}/orden-pago/pdf")
-    public ResponseEntity<byte[]> descargarOrdenPago(@PathVariable("id") Long id) {
-        try {
-            byte[] logo = null;
-            try {
-                String logoPath = "C:\\Users\\leone\\OneDrive\\Desktop\\Sistema-Gestion-Comercial\\frontend\\public\\Copia de Copia de Leonel.png";
-                java.io.File logoFile = new java.io.File(logoPath);
-                if (logoFile.exists()) {
-                    logo = java.nio.file.Files.readAllBytes(logoFile.toPath());
-                }
-            } catch (Exception ignored) {}
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            pagoProveedorService.generarPdfOrdenPago(id, baos, logo);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "orden_pago_" + id + ".pdf");
-            return new ResponseEntity<>(baos.toByteArray(), headers, HttpStatus.OK);
-        } catch (Exception e) {
-            log.error("Error generando orden de pago PDF para pago {}", id, e);
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error generando PDF");
-        }
+    public ResponseEntity<StreamingResponseBody> descargarOrdenPago(@PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        VersionPdf version = pagoProveedorService.versionPdfOrdenPago(id)
+                .orElseThrow(() -> new RuntimeException("Pago no encontrado: " + id));
+        return pdfCacheService.servir("orden-pago", id, version, "orden_pago_" + id + ".pdf", ifNoneMatch,
+                os -> pagoProveedorService.generarPdfOrdenPago(id, os));
     }
 
     // ---- Inner DTO ----
@@ -1,19 +1,23 @@
 package com.example.Sistema_Gestion.controller;
 
+import com.example.Sistema_Gestion.model.ImportacionProducto;
 import com.example.Sistema_Gestion.model.Producto;
+import com.example.Sistema_Gestion.service.ImportacionProductoService;
 import com.example.Sistema_Gestion.service.ProductoService;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/productos")
@@ -21,9 +25,11 @@ import java.util.List;
 public class ProductoController {
 
     private final ProductoService productoService;
+    private final ImportacionProductoService importacionService;
 
-    public ProductoController(ProductoService productoService) {
+    public ProductoController(ProductoService productoService, ImportacionProductoService importacionService) {
         this.productoService = productoService;
+        this.importacionService = importacionService;
     }
 
     @GetMapping
@@ -81,28 +87,40 @@ public class ProductoController {
     }
 
     @PostMapping("/actualizar-precios")
-    public ResponseEntity<Void> actualizarPrecios(@RequestParam("porcentaje") Double porcentaje,
-            @RequestParam("tipo") String tipo) {
-        productoService.actualizarPreciosMasivo(porcentaje, tipo);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Map<String, Integer>> actualizarPrecios(@RequestParam("porcentaje") Double porcentaje,
+            @RequestParam("tipo") String tipo,
+            @RequestParam(value = "skuPrefijo", required = false) String skuPrefijo,
+            @RequestParam(value = "proveedorId", required = false) Long proveedorId) {
+        int actualizados = productoService.actualizarPreciosMasivo(porcentaje, tipo, skuPrefijo, proveedorId);
+        return ResponseEntity.ok(Map.of("actualizados", actualizados));
     }
 
     @GetMapping("/exportar-excel")
-    public ResponseEntity<Resource> exportarExcel() throws IOException {
-        byte[] data = productoService.exportarExcel();
-        ByteArrayResource resource = new ByteArrayResource(data);
+    public ResponseEntity<StreamingResponseBody> exportarExcel() {
+        StreamingResponseBody body = productoService::exportarExcel;
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=productos.xlsx")
                 .contentType(
                         MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .contentLength(data.length)
-                .body(resource);
+                .body(body);
     }
 
+    /** Encola la importación y responde 202 con el id del trabajo; el progreso se consulta en /importaciones/{id}. */
     @PostMapping("/importar-excel")
-    public ResponseEntity<Void> importarExcel(@RequestParam("file") MultipartFile file) throws IOException {
-        productoService.importarExcel(file.getInputStream());
-        return ResponseEntity.ok().build();
+    public ResponseEntity<?> importarExcel(@RequestParam("file") MultipartFile file) throws IOException {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(importacionService.iniciar(file));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Map.of("error", "Hay demasiadas importaciones en curso, intente más tarde"));
+        }
+    }
+
+    @GetMapping("/importaciones/{id}")
+    public ResponseEntity<ImportacionProducto> estadoImportacion(@PathVariable("id") Long id) {
+        return importacionService.buscarPorId(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 }
\ No newline at end of file
@@ -1,13 +1,18 @@
 package com.example.Sistema_Gestion.controller;
 
 import com.example.Sistema_Gestion.model.Proveedor;
+import com.example.Sistema_Gestion.service.CuentaCorrienteProveedorService;
+import com.example.Sistema_Gestion.service.GeneracionDocumentosService;
+import com.example.Sistema_Gestion.service.GeneracionDocumentosService.TrabajoReporte;
 import com.example.Sistema_Gestion.service.ProveedorService;
 import jakarta.validation.Valid;
 import org.springframework.http.MediaType;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.time.LocalDate;
 
 import java.util.List;
@@ -18,9 +23,14 @@ import java.util.List;
 public class ProveedorController {
 
     private final ProveedorService proveedorService;
+    private final GeneracionDocumentosService generacionDocumentosService;
+    private final CuentaCorrienteProveedorService cuentaCorrienteService;
 
-    public ProveedorController(ProveedorService proveedorService) {
+    public ProveedorController(ProveedorService proveedorService, GeneracionDocumentosService generacionDocumentosService,
+            CuentaCorrienteProveedorService cuentaCorrienteService) {
         this.proveedorService = proveedorService;
+        this.generacionDocumentosService = generacionDocumentosService;
+        this.cuentaCorrienteService = cuentaCorrienteService;
     }
 
     @GetMapping
@@ -57,46 +67,43 @@ public class ProveedorController {
         return ResponseEntity.ok(proveedorService.getDashboardSummary());
     }
 
+    /** Estado de cuenta en JSON, escrito en la respuesta a medida que se recorren compras y pagos. */
     @GetMapping("/{id}/reporte-cuenta-corriente")
-    public ResponseEntity<?> getReporteCuentaCorriente(
+    public ResponseEntity<StreamingResponseBody> getReporteCuentaCorriente(
             @PathVariable("id") Long id,
             @RequestParam("desde") String desdeStr,
-            @RequestParam("hasta") String hastaStr,
-            @RequestParam(value = "format", defaultValue = "json") String format) {
-        try {
-            LocalDate desde = LocalDate.parse(desdeStr);
-            LocalDate hasta = LocalDate.parse(hastaStr);
-
-            if ("pdf".equalsIgnoreCase(format)) {
-                byte[] pdfBytes = generatePdfBytes(id, desde, hasta);
-                return ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_PDF)
-                        .header("Content-Disposition", "attachment; filename=reporte-cta-cte.pdf")
-                        .header("Content-Length", String.valueOf(pdfBytes.length))
-                        .body(new org.springframework.core.io.ByteArrayResource(pdfBytes));
-            }
-
-            return ResponseEntity.ok(proveedorService.generarReporteCuentaCorriente(id, desde, hasta));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+            @RequestParam("hasta") String hastaStr) {
+        LocalDate desde = LocalDate.parse(desdeStr);
+        LocalDate hasta = LocalDate.parse(hastaStr);
+        cuentaCorrienteService.validar(id, desde, hasta);
+        StreamingResponseBody body = os -> cuentaCorrienteService.escribirJson(id, desde, hasta, os);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
-    private byte[] generatePdfBytes(Long id, LocalDate desde, LocalDate hasta) throws Exception {
-        java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-
-        byte[] logoBytes = null;
-        try {
-            String logoPath = "C:\\Users\\leone\\OneDrive\\Desktop\\Sistema-Gestion-Comercial\\frontend\\public\\Copia de Copia de Leonel.png";
-            java.io.File logoFile = new java.io.File(logoPath);
-            if (logoFile.exists()) {
-                logoBytes = java.nio.file.Files.readAllBytes(logoFile.toPath());
-            }
-        } catch (Exception e) {
-            System.err.println("Error cargando logo para PDF: " + e.getMessage());
+    /**
+     * El mismo reporte con format=pdf: se escribe directo en la respuesta. Un período largo se encola:
+     * 202 con Location al trabajo (/api/reportes/trabajos/{id}), que se descarga cuando está listo.
+     */
+    @GetMapping(value = "/{id}/reporte-cuenta-corriente", params = "format=pdf")
+    public ResponseEntity<StreamingResponseBody> descargarReporteCuentaCorrientePdf(
+            @PathVariable("id") Long id,
+            @RequestParam("desde") String desdeStr,
+            @RequestParam("hasta") String hastaStr) {
+        LocalDate desde = LocalDate.parse(desdeStr);
+        LocalDate hasta = LocalDate.parse(hastaStr);
+        cuentaCorrienteService.validar(id, desde, hasta);
+        if (generacionDocumentosService.esReportePesado(desde, hasta)) {
+            TrabajoReporte trabajo = generacionDocumentosService.encolar("reporte-cta-cte.pdf",
+                    os -> proveedorService.exportarReportePdf(id, desde, hasta, os));
+            log.info("Reporte de cuenta corriente del proveedor {} ({} a {}) encolado: {}", id, desde, hasta, trabajo.getId());
+            return ResponseEntity.accepted().location(URI.create("/api/reportes/trabajos/" + trabajo.getId())).build();
         }
-
-        proveedorService.exportarReportePdf(id, desde, hasta, baos, logoBytes);
-        return baos.toByteArray();
+        StreamingResponseBody body = os -> proveedorService.exportarReportePdf(id, desde, hasta, os);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header("Content-Disposition", "attachment; filename=reporte-cta-cte.pdf")
+                .body(body);
     }
 }
@@ -1,7 +1,11 @@
 package com.example.Sistema_Gestion.controller;
 
+import com.example.Sistema_Gestion.dto.PaginaCursor;
+import com.example.Sistema_Gestion.dto.RemitoListView;
 import com.example.Sistema_Gestion.dto.RemitoResumenDTO;
+import com.example.Sistema_Gestion.dto.VersionPdf;
 import com.example.Sistema_Gestion.model.Remito;
+import com.example.Sistema_Gestion.service.PdfCacheService;
 import com.example.Sistema_Gestion.service.RemitoService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -9,12 +13,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
@@ -26,9 +29,11 @@ import java.util.stream.Collectors;
 public class RemitoController {
 
     private final RemitoService remitoService;
+    private final PdfCacheService pdfCacheService;
 
-    public RemitoController(RemitoService remitoService) {
+    public RemitoController(RemitoService remitoService, PdfCacheService pdfCacheService) {
         this.remitoService = remitoService;
+        this.pdfCacheService = pdfCacheService;
     }
 
     @GetMapping
@@ -37,18 +42,42 @@ public class RemitoController {
                 .map(RemitoResumenDTO::new);
     }
 
+    /**
+     * Listado por cursor: GET /api/remitos/cursor?limite=50[&estado=VALORIZADO][&cursor=...].
+     * Para la página siguiente se reenvía el {@code siguienteCursor} de la respuesta.
+     */
+    @GetMapping("/cursor")
+    public PaginaCursor<RemitoResumenDTO> listarPorCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite,
+            @RequestParam(value = "estado", required = false) String estado) {
+        Remito.EstadoRemito estadoEnum = null;
+        if (estado != null && !estado.isBlank()) {
+            try {
+                estadoEnum = Remito.EstadoRemito.valueOf(estado.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Estado inválido: " + estado);
+            }
+        }
+        return remitoService.listarPorCursor(cursor, limite, estadoEnum).map(RemitoResumenDTO::new);
+    }
+
+    /** Cabeceras de los remitos del cliente; los ítems se piden por remito en GET /{id}. */
     @GetMapping("/cliente/{clienteId}")
-    public List<RemitoResumenDTO> listarPorCliente(@PathVariable("clienteId") Long clienteId) {
-        return remitoService.listarPorCliente(clienteId).stream()
-                .map(RemitoResumenDTO::new)
-                .collect(Collectors.toList());
+    public List<RemitoListView> listarPorCliente(@PathVariable("clienteId") Long clienteId) {
+        return remitoService.listarPorCliente(clienteId);
     }
 
     @GetMapping("/cliente/{clienteId}/pendientes")
-    public List<RemitoResumenDTO> listarPendientesPorCliente(@PathVariable("clienteId") Long clienteId) {
-        return remitoService.listarPendientesPorCliente(clienteId).stream()
+    public List<RemitoListView> listarPendientesPorCliente(@PathVariable("clienteId") Long clienteId) {
+        return remitoService.listarPendientesPorCliente(clienteId);
+    }
+
+    @GetMapping("/{id}")
+    public RemitoResumenDTO buscarPorId(@PathVariable("id") Long id) {
+        return remitoService.buscarPorIdConItems(id)
                 .map(RemitoResumenDTO::new)
-                .collect(Collectors.toList());
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Remito no encontrado"));
     }
 
     @GetMapping(params = "estado")
@@ -83,42 +112,16 @@ public class RemitoController {
         return ResponseEntity.noContent().build();
     }
 
+    /** PDF del remito, desde el cache si no cambió (ETag / If-None-Match). */
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> descargarPdf(@PathVariable("id") Long id) {
-        Remito remito = remitoService.buscarPorIdConItems(id)
+    public ResponseEntity<StreamingResponseBody> descargarPdf(@PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        VersionPdf version = remitoService.versionPdf(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Remito no encontrado"));
 
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            byte[] logo = null;
-            try {
-                String logoPath = "C:\\Users\\leone\\OneDrive\\Desktop\\Sistema-Gestion-Comercial\\frontend\\public\\Copia de Copia de Leonel.png";
-                java.io.File logoFile = new java.io.File(logoPath);
-                if (logoFile.exists()) {
-                    logo = java.nio.file.Files.readAllBytes(logoFile.toPath());
-                }
-            } catch (Exception ex) {
-                log.warn("No se pudo cargar el logo para el PDF del remito {}", id);
-            }
-
-            remitoService.generarPdfRemito(remito, baos, logo);
-            byte[] pdfBytes = baos.toByteArray();
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "remito_" + remito.getNumero() + ".pdf");
-            headers.setContentLength(pdfBytes.length);
-
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
-        } catch (Exception e) {
-            log.error("Error al generar PDF para remito ID: {}", id, e);
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error generando PDF");
-        }
-    }
-
-    @PostMapping("/{id}/valorizar")
-    public Remito valorizar(@PathVariable("id") Long id, @RequestBody ValorizarRequest req) {
-        log.info("Valorizando remito ID: {}", id);
-        return remitoService.valorizar(id, req.getPrecios(), req.getCotizacionDolar());
+        return pdfCacheService.servir("remito", id, version, "remito_" + version.getNumero() + ".pdf", ifNoneMatch,
+                os -> remitoService.generarPdfRemito(remitoService.buscarPorIdConItems(id)
+                        .orElseThrow(() -> new RuntimeException("Remito no encontrado: " + id)), os));
     }
 
     @PostMapping("/{id}/cobrar")
@@ -1,5 +1,6 @@
 package com.example.Sistema_Gestion.controller;
 
+import com.example.Sistema_Gestion.dto.PaginaCursor;
 import com.example.Sistema_Gestion.model.MovimientoTesoreria;
 import com.example.Sistema_Gestion.service.TesoreriaService;
 import lombok.extern.slf4j.Slf4j;
@@ -34,6 +35,14 @@ public class TesoreriaController {
         return tesoreriaService.listarTodosPaginado(pageable);
     }
 
+    /** Listado por cursor: GET /api/tesoreria/cursor?limite=50[&cursor=...]. */
+    @GetMapping("/cursor")
+    public PaginaCursor<MovimientoTesoreria> listarPorCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite) {
+        return tesoreriaService.listarPorCursor(cursor, limite);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<MovimientoTesoreria> buscarPorId(@PathVariable("id") Long id) {
         return tesoreriaService.buscarPorId(id)
@@ -0,0 +1,53 @@
+package com.example.Sistema_Gestion.controller;
+
+import com.example.Sistema_Gestion.service.GeneracionDocumentosService;
+import com.example.Sistema_Gestion.service.GeneracionDocumentosService.TrabajoReporte;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/** Estado y descarga de los reportes encolados (ver GeneracionDocumentosService). */
+@RestController
+@RequestMapping("/api/reportes/trabajos")
+public class TrabajoReporteController {
+
+    private final GeneracionDocumentosService generacionDocumentosService;
+
+    public TrabajoReporteController(GeneracionDocumentosService generacionDocumentosService) {
+        this.generacionDocumentosService = generacionDocumentosService;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<TrabajoReporte> estado(@PathVariable("id") String id) {
+        return generacionDocumentosService.buscar(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /** El archivo del trabajo: 404 si no existe o ya se borró, 409 si todavía no está listo. */
+    @GetMapping("/{id}/archivo")
+    public ResponseEntity<Resource> descargar(@PathVariable("id") String id) {
+        Optional<TrabajoReporte> trabajo = generacionDocumentosService.buscar(id);
+        if (trabajo.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Optional<Path> archivo = trabajo.get().archivoListo();
+        if (archivo.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + trabajo.get().getNombreArchivo())
+                .body(new FileSystemResource(archivo.get()));
+    }
+}
@@ -2,8 +2,10 @@ package com.example.Sistema_Gestion.controller;
 
 import com.example.Sistema_Gestion.model.CobroMedioPago;
 import com.example.Sistema_Gestion.model.Remito;
+import com.example.Sistema_Gestion.service.IdempotenciaService;
 import com.example.Sistema_Gestion.service.VentaRapidaService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
@@ -16,20 +18,25 @@ import java.util.Map;
 public class VentaRapidaController {
 
     private final VentaRapidaService ventaRapidaService;
+    private final IdempotenciaService idempotenciaService;
 
-    public VentaRapidaController(VentaRapidaService ventaRapidaService) {
+    public VentaRapidaController(VentaRapidaService ventaRapidaService, IdempotenciaService idempotenciaService) {
         this.ventaRapidaService = ventaRapidaService;
+        this.idempotenciaService = idempotenciaService;
     }
 
+    /** Con el header Idempotency-Key, los reintentos de la misma venta devuelven el remito ya creado. */
     @PostMapping
-    public Remito registrarVentaRapida(@RequestBody VentaRapidaRequest req) {
+    public ResponseEntity<?> registrarVentaRapida(@RequestBody VentaRapidaRequest req,
+            @RequestHeader(value = IdempotenciaService.HEADER, required = false) String idempotencyKey) {
         log.info("Registrando venta rápida");
-        return ventaRapidaService.registrarVentaRapida(
-                req.getRemito(),
-                req.getPrecios(),
-                req.getMediosPago(),
-                req.getCotizacionDolar()
-        );
+        return idempotenciaService.ejecutar(idempotencyKey, "VENTA_RAPIDA", req,
+                () -> ventaRapidaService.registrarVentaRapida(
+                        req.getRemito(),
+                        req.getPrecios(),
+                        req.getMediosPago(),
+                        req.getCotizacionDolar()
+                ));
     }
 
     public static class VentaRapidaRequest {
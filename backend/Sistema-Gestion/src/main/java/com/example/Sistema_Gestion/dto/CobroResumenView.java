@@ -0,0 +1,51 @@
+package com.example.Sistema_Gestion.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fila de listado de cobros armada directamente por JPQL (constructor expression):
+ * cabecera del cobro y cantidad de remitos imputados, sin colecciones.
+ */
+public class CobroResumenView {
+    private Long id;
+    private LocalDate fecha;
+    private Long clienteId;
+    private String clienteNombre;
+    private BigDecimal totalCobrado;
+    private String observaciones;
+    private Boolean anulado;
+    private int cantidadRemitos;
+
+    public CobroResumenView() {}
+
+    public CobroResumenView(Long id, LocalDate fecha, Long clienteId, String clienteNombre, BigDecimal totalCobrado,
+            String observaciones, Boolean anulado, Integer cantidadRemitos) {
+        this.id = id;
+        this.fecha = fecha;
+        this.clienteId = clienteId;
+        this.clienteNombre = clienteNombre;
+        this.totalCobrado = totalCobrado;
+        this.observaciones = observaciones;
+        this.anulado = anulado;
+        this.cantidadRemitos = (cantidadRemitos != null) ? cantidadRemitos : 0;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public LocalDate getFecha() { return fecha; }
+    public void setFecha(LocalDate fecha) { this.fecha = fecha; }
+    public Long getClienteId() { return clienteId; }
+    public void setClienteId(Long clienteId) { this.clienteId = clienteId; }
+    public String getClienteNombre() { return clienteNombre; }
+    public void setClienteNombre(String clienteNombre) { this.clienteNombre = clienteNombre; }
+    public BigDecimal getTotalCobrado() { return totalCobrado; }
+    public void setTotalCobrado(BigDecimal totalCobrado) { this.totalCobrado = totalCobrado; }
+    public String getObservaciones() { return observaciones; }
+    public void setObservaciones(String observaciones) { this.observaciones = observaciones; }
+    public Boolean getAnulado() { return anulado; }
+    public void setAnulado(Boolean anulado) { this.anulado = anulado; }
+    public int getCantidadRemitos() { return cantidadRemitos; }
+    public void setCantidadRemitos(int cantidadRemitos) { this.cantidadRemitos = cantidadRemitos; }
+}
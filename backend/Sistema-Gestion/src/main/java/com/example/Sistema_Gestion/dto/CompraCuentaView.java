@@ -0,0 +1,54 @@
+package com.example.Sistema_Gestion.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cabecera de compra para el estado de cuenta del proveedor, armada por JPQL (constructor expression).
+ * Los ítems se agregan después, con una consulta por lote de compras.
+ */
+public class CompraCuentaView {
+    private final Long id;
+    private final LocalDateTime fecha;
+    private final Long numero;
+    private final String anotaciones;
+    private final String moneda;
+    private final BigDecimal total;
+    private final BigDecimal totalDolares;
+    private final Boolean incluyeIva;
+    private final BigDecimal ivaImporte;
+    private final BigDecimal porcentajeIva;
+    private final BigDecimal tipoCambio;
+    private final List<CompraItemCuentaView> items = new ArrayList<>();
+
+    public CompraCuentaView(Long id, LocalDateTime fecha, Long numero, String anotaciones, String moneda,
+            BigDecimal total, BigDecimal totalDolares, Boolean incluyeIva, BigDecimal ivaImporte,
+            BigDecimal porcentajeIva, BigDecimal tipoCambio) {
+        this.id = id;
+        this.fecha = fecha;
+        this.numero = numero;
+        this.anotaciones = anotaciones;
+        this.moneda = moneda;
+        this.total = total;
+        this.totalDolares = totalDolares;
+        this.incluyeIva = incluyeIva;
+        this.ivaImporte = ivaImporte;
+        this.porcentajeIva = porcentajeIva;
+        this.tipoCambio = tipoCambio;
+    }
+
+    public Long getId() { return id; }
+    public LocalDateTime getFecha() { return fecha; }
+    public Long getNumero() { return numero; }
+    public String getAnotaciones() { return anotaciones; }
+    public String getMoneda() { return moneda; }
+    public BigDecimal getTotal() { return total; }
+    public BigDecimal getTotalDolares() { return totalDolares; }
+    public Boolean getIncluyeIva() { return incluyeIva; }
+    public BigDecimal getIvaImporte() { return ivaImporte; }
+    public BigDecimal getPorcentajeIva() { return porcentajeIva; }
+    public BigDecimal getTipoCambio() { return tipoCambio; }
+    public List<CompraItemCuentaView> getItems() { return items; }
+}
@@ -0,0 +1,30 @@
+package com.example.Sistema_Gestion.dto;
+
+import java.math.BigDecimal;
+
+/** Ítem de compra para el estado de cuenta del proveedor (JPQL), con el nombre del producto. */
+public class CompraItemCuentaView {
+    private final Long compraId;
+    private final String productoNombre;
+    private final Integer cantidad;
+    private final BigDecimal precioUnitario;
+    private final BigDecimal precioUnitarioUSD;
+    private final BigDecimal subtotal;
+
+    public CompraItemCuentaView(Long compraId, String productoNombre, Integer cantidad, BigDecimal precioUnitario,
+            BigDecimal precioUnitarioUSD, BigDecimal subtotal) {
+        this.compraId = compraId;
+        this.productoNombre = productoNombre;
+        this.cantidad = cantidad;
+        this.precioUnitario = precioUnitario;
+        this.precioUnitarioUSD = precioUnitarioUSD;
+        this.subtotal = subtotal;
+    }
+
+    public Long getCompraId() { return compraId; }
+    public String getProductoNombre() { return productoNombre; }
+    public Integer getCantidad() { return cantidad; }
+    public BigDecimal getPrecioUnitario() { return precioUnitario; }
+    public BigDecimal getPrecioUnitarioUSD() { return precioUnitarioUSD; }
+    public BigDecimal getSubtotal() { return subtotal; }
+}
@@ -0,0 +1,82 @@
+package com.example.Sistema_Gestion.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumen de una importación de productos desde Excel: contadores, errores por fila y rendimiento.
+ */
+public class ImportacionResultado {
+
+    /** Máximo de errores detallados que se devuelven; el resto sólo se cuenta. */
+    public static final int MAX_ERRORES_DETALLADOS = 500;
+
+    /** Largo máximo del mensaje y del SKU de cada error detallado (los del driver pueden traer el SQL completo). */
+    public static final int MAX_LARGO_MENSAJE = 500;
+
+    private int filasLeidas;
+    private int insertados;
+    private int actualizados;
+    private int totalErrores;
+    private List<ErrorFila> errores = new ArrayList<>();
+    private long duracionMs;
+    private double filasPorSegundo;
+
+    public void agregarError(int fila, String sku, String mensaje) {
+        totalErrores++;
+        if (errores.size() < MAX_ERRORES_DETALLADOS) {
+            errores.add(new ErrorFila(fila, recortar(sku), recortar(mensaje)));
+        }
+    }
+
+    private static String recortar(String texto) {
+        return texto != null && texto.length() > MAX_LARGO_MENSAJE ? texto.substring(0, MAX_LARGO_MENSAJE - 3) + "..." : texto;
+    }
+
+    /** Actualiza la duración y el ritmo; se puede llamar durante la importación para informar progreso. */
+    public void registrarDuracion(long duracionMs) {
+        this.duracionMs = duracionMs;
+        this.filasPorSegundo = duracionMs > 0 ? filasLeidas * 1000.0 / duracionMs : filasLeidas;
+    }
+
+    public void sumarFilaLeida() { filasLeidas++; }
+    public void sumarInsertados(int cantidad) { insertados += cantidad; }
+    public void sumarActualizados(int cantidad) { actualizados += cantidad; }
+
+    // Getters and Setters
+    public int getFilasLeidas() { return filasLeidas; }
+    public void setFilasLeidas(int filasLeidas) { this.filasLeidas = filasLeidas; }
+    public int getInsertados() { return insertados; }
+    public void setInsertados(int insertados) { this.insertados = insertados; }
+    public int getActualizados() { return actualizados; }
+    public void setActualizados(int actualizados) { this.actualizados = actualizados; }
+    public int getTotalErrores() { return totalErrores; }
+    public void setTotalErrores(int totalErrores) { this.totalErrores = totalErrores; }
+    public List<ErrorFila> getErrores() { return errores; }
+    public void setErrores(List<ErrorFila> errores) { this.errores = errores; }
+    public long getDuracionMs() { return duracionMs; }
+    public void setDuracionMs(long duracionMs) { this.duracionMs = duracionMs; }
+    public double getFilasPorSegundo() { return filasPorSegundo; }
+    public void setFilasPorSegundo(double filasPorSegundo) { this.filasPorSegundo = filasPorSegundo; }
+
+    public static class ErrorFila {
+        private int fila;
+        private String sku;
+        private String mensaje;
+
+        public ErrorFila() {}
+
+        public ErrorFila(int fila, String sku, String mensaje) {
+            this.fila = fila;
+            this.sku = sku;
+            this.mensaje = mensaje;
+        }
+
+        public int getFila() { return fila; }
+        public void setFila(int fila) { this.fila = fila; }
+        public String getSku() { return sku; }
+        public void setSku(String sku) { this.sku = sku; }
+        public String getMensaje() { return mensaje; }
+        public void setMensaje(String mensaje) { this.mensaje = mensaje; }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.Sistema_Gestion.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+/**
+ * Fila del estado de cuenta de un proveedor: cabecera de compra (COMPRA) o de pago (PAGO), y debajo de
+ * cada compra sus filas de detalle (ITEM, IVA). El saldo es el acumulado en la moneda de la fila.
+ * Los campos que no aplican a la fila quedan en null y no se envían en el JSON.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MovimientoCuentaProveedor {
+    private String fecha;
+    private String tipo;
+    private String numeroDocumento;
+    private String descripcion;
+    private boolean header;
+    private Long idOriginal;
+    private String tipoOriginal;
+    private Integer cantidad;
+    private BigDecimal precioUnitario;
+    private BigDecimal debe;
+    private BigDecimal haber;
+    private String moneda;
+    private BigDecimal saldo;
+    private String medio;
+    private String monedaPago;
+    private String banco;
+    private String numeroCheque;
+    private String fechaVenc;
+
+    private MovimientoCuentaProveedor() {}
+
+    public static MovimientoCuentaProveedor compra(String fecha, String remito, Long compraId, String moneda,
+            BigDecimal saldo) {
+        MovimientoCuentaProveedor m = new MovimientoCuentaProveedor();
+        m.fecha = fecha;
+        m.tipo = "COMPRA";
+        m.numeroDocumento = remito;
+        m.descripcion = "REMITO N° " + remito;
+        m.header = true;
+        m.idOriginal = compraId;
+        m.tipoOriginal = "COMPRA";
+        m.debe = BigDecimal.ZERO;
+        m.haber = BigDecimal.ZERO;
+        m.moneda = moneda;
+        m.saldo = saldo;
+        return m;
+    }
+
+    /** Fila de detalle de una compra (ítem, IVA o la compra sin ítems); cantidad y precio pueden ser null. */
+    public static MovimientoCuentaProveedor detalle(String tipo, String descripcion, Integer cantidad,
+            BigDecimal precioUnitario, BigDecimal debe, String moneda, BigDecimal saldo) {
+        MovimientoCuentaProveedor m = new MovimientoCuentaProveedor();
+        m.fecha = "";
+        m.tipo = tipo;
+        m.numeroDocumento = "";
+        m.descripcion = descripcion;
+        m.cantidad = cantidad;
+        m.precioUnitario = precioUnitario;
+        m.debe = debe;
+        m.haber = BigDecimal.ZERO;
+        m.moneda = moneda;
+        m.saldo = saldo;
+        return m;
+    }
+
+    public static MovimientoCuentaProveedor pago(String fecha, Long pagoId, String descripcion, BigDecimal haber,
+            String moneda, BigDecimal saldo) {
+        MovimientoCuentaProveedor m = new MovimientoCuentaProveedor();
+        m.fecha = fecha;
+        m.tipo = "PAGO";
+        m.numeroDocumento = "PAGO-" + pagoId;
+        m.descripcion = descripcion;
+        m.header = true;
+        m.idOriginal = pagoId;
+        m.tipoOriginal = "PAGO";
+        m.debe = BigDecimal.ZERO;
+        m.haber = haber;
+        m.moneda = moneda;
+        m.saldo = saldo;
+        return m;
+    }
+
+    /** Medio de pago y, si es cheque, sus datos; sólo para filas PAGO. */
+    public MovimientoCuentaProveedor conMedio(String medio, String monedaPago, String banco, String numeroCheque,
+            String fechaVenc) {
+        this.medio = medio;
+        this.monedaPago = monedaPago;
+        this.banco = banco;
+        this.numeroCheque = numeroCheque;
+        this.fechaVenc = fechaVenc;
+        return this;
+    }
+
+    public String getFecha() { return fecha; }
+    public String getTipo() { return tipo; }
+    public String getNumeroDocumento() { return numeroDocumento; }
+    public String getDescripcion() { return descripcion; }
+    @JsonProperty("isHeader")
+    public boolean isHeader() { return header; }
+    public Long getIdOriginal() { return idOriginal; }
+    public String getTipoOriginal() { return tipoOriginal; }
+    public Integer getCantidad() { return cantidad; }
+    public BigDecimal getPrecioUnitario() { return precioUnitario; }
+    public BigDecimal getDebe() { return debe; }
+    public BigDecimal getHaber() { return haber; }
+    public String getMoneda() { return moneda; }
+    public BigDecimal getSaldo() { return saldo; }
+    public String getMedio() { return medio; }
+    public String getMonedaPago() { return monedaPago; }
+    public String getBanco() { return banco; }
+    public String getNumeroCheque() { return numeroCheque; }
+    public String getFechaVenc() { return fechaVenc; }
+}
@@ -0,0 +1,116 @@
+package com.example.Sistema_Gestion.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de un listado por cursor (keyset) ordenado por (fecha, id) descendente.
+ * El cursor es opaco para el cliente: codifica la fecha y el id de la última fila devuelta
+ * y la página siguiente se busca con "fecha/id menores que el cursor", sin OFFSET.
+ * Las filas sin fecha quedan al final (en MySQL NULL ordena como el menor valor) y se recorren por id.
+ */
+public class PaginaCursor<T> {
+
+    public static final int LIMITE_DEFAULT = 50;
+    public static final int LIMITE_MAXIMO = 200;
+
+    private List<T> items;
+    private String siguienteCursor;
+    private boolean hayMas;
+
+    public PaginaCursor() {}
+
+    public PaginaCursor(List<T> items, String siguienteCursor, boolean hayMas) {
+        this.items = items;
+        this.siguienteCursor = siguienteCursor;
+        this.hayMas = hayMas;
+    }
+
+    /**
+     * Arma la página a partir de hasta {@code limite + 1} filas: la fila extra sólo indica que hay más
+     * y no se devuelve. {@code posicion} extrae el cursor de una fila.
+     */
+    public static <T> PaginaCursor<T> de(List<T> filas, int limite, Function<T, Posicion> posicion) {
+        boolean hayMas = filas.size() > limite;
+        List<T> items = hayMas ? filas.subList(0, limite) : filas;
+        String siguiente = hayMas ? posicion.apply(items.get(items.size() - 1)).codificar() : null;
+        return new PaginaCursor<>(items, siguiente, hayMas);
+    }
+
+    public <R> PaginaCursor<R> map(Function<T, R> conversor) {
+        return new PaginaCursor<>(items.stream().map(conversor).toList(), siguienteCursor, hayMas);
+    }
+
+    /** Normaliza el tamaño pedido por el cliente. */
+    public static int limitar(Integer limite) {
+        if (limite == null || limite <= 0) return LIMITE_DEFAULT;
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    // Getters and Setters
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+    public String getSiguienteCursor() { return siguienteCursor; }
+    public void setSiguienteCursor(String siguienteCursor) { this.siguienteCursor = siguienteCursor; }
+    public boolean isHayMas() { return hayMas; }
+    public void setHayMas(boolean hayMas) { this.hayMas = hayMas; }
+
+    /** Fecha (ISO) e id de la última fila vista. La fecha es null si la fila no tiene (se codifica vacía). */
+    public static class Posicion {
+        private final String fecha;
+        private final Long id;
+
+        public Posicion(Object fecha, Long id) {
+            this.fecha = fecha != null ? fecha.toString() : null;
+            this.id = id;
+        }
+
+        public String codificar() {
+            String valor = (fecha != null ? fecha : "") + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** Devuelve null si no hay cursor (primera página). */
+        public static Posicion decodificar(String cursor) {
+            if (cursor == null || cursor.isBlank()) return null;
+            try {
+                String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separador = valor.lastIndexOf('|');
+                String fecha = valor.substring(0, separador);
+                return new Posicion(fecha.isEmpty() ? null : fecha, Long.parseLong(valor.substring(separador + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+        }
+
+        /** false si la última fila no tenía fecha: la página siguiente sigue sólo entre las filas sin fecha. */
+        public boolean tieneFecha() {
+            return fecha != null;
+        }
+
+        public LocalDate getFechaComoDia() {
+            if (fecha == null) return null;
+            try {
+                return LocalDate.parse(fecha);
+            } catch (DateTimeParseException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+        }
+
+        public LocalDateTime getFechaComoMomento() {
+            if (fecha == null) return null;
+            try {
+                return LocalDateTime.parse(fecha);
+            } catch (DateTimeParseException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+        }
+
+        public Long getId() { return id; }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.Sistema_Gestion.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Pago a proveedor para el estado de cuenta, armado por JPQL sin cargar la entidad. */
+public class PagoCuentaView {
+    private final Long id;
+    private final LocalDate fecha;
+    private final String moneda;
+    private final BigDecimal importe;
+    private final BigDecimal importeDolares;
+    private final String observaciones;
+    private final String medio;
+    private final String monedaPago;
+    private final String banco;
+    private final String numeroCheque;
+    private final LocalDate fechaVenc;
+
+    public PagoCuentaView(Long id, LocalDate fecha, String moneda, BigDecimal importe, BigDecimal importeDolares,
+            String observaciones, String medio, String monedaPago, String banco, String numeroCheque,
+            LocalDate fechaVenc) {
+        this.id = id;
+        this.fecha = fecha;
+        this.moneda = moneda;
+        this.importe = importe;
+        this.importeDolares = importeDolares;
+        this.observaciones = observaciones;
+        this.medio = medio;
+        this.monedaPago = monedaPago;
+        this.banco = banco;
+        this.numeroCheque = numeroCheque;
+        this.fechaVenc = fechaVenc;
+    }
+
+    public Long getId() { return id; }
+    public LocalDate getFecha() { return fecha; }
+    public String getMoneda() { return moneda; }
+    public BigDecimal getImporte() { return importe; }
+    public BigDecimal getImporteDolares() { return importeDolares; }
+    public String getObservaciones() { return observaciones; }
+    public String getMedio() { return medio; }
+    public String getMonedaPago() { return monedaPago; }
+    public String getBanco() { return banco; }
+    public String getNumeroCheque() { return numeroCheque; }
+    public LocalDate getFechaVenc() { return fechaVenc; }
+}
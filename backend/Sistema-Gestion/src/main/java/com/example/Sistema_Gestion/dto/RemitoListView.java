@@ -0,0 +1,56 @@
+package com.example.Sistema_Gestion.dto;
+
+import com.example.Sistema_Gestion.model.Remito;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fila de listado de remitos armada directamente por JPQL (constructor expression):
+ * sólo cabecera y cantidad de ítems, sin cargar entidades ni ítems.
+ */
+public class RemitoListView {
+    private Long id;
+    private Long numero;
+    private LocalDate fecha;
+    private Long clienteId;
+    private String clienteNombre;
+    private BigDecimal total;
+    private String estado;
+    private String observaciones;
+    private int cantidadItems;
+
+    public RemitoListView() {}
+
+    public RemitoListView(Long id, Long numero, LocalDate fecha, Long clienteId, String clienteNombre,
+            BigDecimal total, Remito.EstadoRemito estado, String observaciones, Integer cantidadItems) {
+        this.id = id;
+        this.numero = numero;
+        this.fecha = fecha;
+        this.clienteId = clienteId;
+        this.clienteNombre = clienteNombre;
+        this.total = total;
+        this.estado = (estado != null) ? estado.name() : "PENDIENTE";
+        this.observaciones = observaciones;
+        this.cantidadItems = (cantidadItems != null) ? cantidadItems : 0;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getNumero() { return numero; }
+    public void setNumero(Long numero) { this.numero = numero; }
+    public LocalDate getFecha() { return fecha; }
+    public void setFecha(LocalDate fecha) { this.fecha = fecha; }
+    public Long getClienteId() { return clienteId; }
+    public void setClienteId(Long clienteId) { this.clienteId = clienteId; }
+    public String getClienteNombre() { return clienteNombre; }
+    public void setClienteNombre(String clienteNombre) { this.clienteNombre = clienteNombre; }
+    public BigDecimal getTotal() { return total; }
+    public void setTotal(BigDecimal total) { this.total = total; }
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+    public String getObservaciones() { return observaciones; }
+    public void setObservaciones(String observaciones) { this.observaciones = observaciones; }
+    public int getCantidadItems() { return cantidadItems; }
+    public void setCantidadItems(int cantidadItems) { this.cantidadItems = cantidadItems; }
+}
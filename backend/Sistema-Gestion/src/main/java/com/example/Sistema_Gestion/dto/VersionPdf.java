@@ -0,0 +1,19 @@
+package com.example.Sistema_Gestion.dto;
+
+/**
+ * Lo necesario para servir el PDF de un documento desde PdfCacheService sin cargarlo:
+ * el número para el nombre del archivo y una marca que cambia cuando cambia algo de lo que se imprime
+ * (versión del documento, anulación, datos del cliente o proveedor).
+ */
+public class VersionPdf {
+    private final Long numero;
+    private final String marca;
+
+    public VersionPdf(Long numero, String marca) {
+        this.numero = numero;
+        this.marca = marca;
+    }
+
+    public Long getNumero() { return numero; }
+    public String getMarca() { return marca; }
+}
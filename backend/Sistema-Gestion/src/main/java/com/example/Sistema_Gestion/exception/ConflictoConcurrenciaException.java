@@ -0,0 +1,12 @@
+package com.example.Sistema_Gestion.exception;
+
+/**
+ * Otra operación simultánea siguió modificando los mismos documentos después de agotar los
+ * reintentos. Se responde 409 Conflict: el pedido es válido y puede repetirse.
+ */
+public class ConflictoConcurrenciaException extends RuntimeException {
+
+    public ConflictoConcurrenciaException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
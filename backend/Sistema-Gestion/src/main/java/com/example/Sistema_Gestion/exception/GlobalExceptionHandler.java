@@ -2,6 +2,7 @@ package com.example.Sistema_Gestion.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -9,12 +10,29 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
     private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    // Pool de generación de documentos lleno (GeneracionDocumentosService) → 429 Too Many Requests
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<?> handleRejectedExecution(RejectedExecutionException ex) {
+        log.warn("Generación de documentos saturada (429): {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "10")
+                .body(Map.of("error", "Hay demasiados documentos generándose, intente en unos segundos"));
+    }
+
+    // Conflicto de concurrencia que siguió tras los reintentos (ReintentoConcurrencia) → 409 Conflict
+    @ExceptionHandler(ConflictoConcurrenciaException.class)
+    public ResponseEntity<?> handleConflictoConcurrencia(ConflictoConcurrenciaException ex) {
+        log.warn("Conflicto de concurrencia (409): {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+
     // Más específico primero: errores de negocio controlados → 400 Bad Request
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<?> handleRuntimeException(RuntimeException ex) {
@@ -0,0 +1,115 @@
+package com.example.Sistema_Gestion.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Header Idempotency-Key recibido en un POST que registra documentos (cobro, pago, venta rápida).
+ * Mientras la operación corre queda EN_PROCESO; al terminar bien guarda la respuesta para
+ * devolverla tal cual a los reintentos con la misma clave hasta {@code expiraEn}
+ * (ver IdempotenciaService).
+ */
+@Entity
+@Table(name = "clave_idempotencia", indexes = {
+    @Index(name = "idx_clave_idempotencia_expira", columnList = "expira_en")
+})
+public class ClaveIdempotencia {
+
+    public enum Estado {
+        EN_PROCESO, COMPLETADA
+    }
+
+    @Id
+    @Column(length = 100)
+    private String clave;
+
+    @Column(nullable = false, length = 50)
+    private String operacion;
+
+    /** SHA-256 del body: la misma clave con otros datos se rechaza. */
+    @Column(name = "hash_solicitud", nullable = false, length = 64)
+    private String hashSolicitud;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Estado estado;
+
+    @Column(name = "codigo_estado")
+    private Integer codigoEstado;
+
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String respuesta;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    public ClaveIdempotencia() {
+    }
+
+    public String getClave() {
+        return clave;
+    }
+
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+
+    public String getOperacion() {
+        return operacion;
+    }
+
+    public void setOperacion(String operacion) {
+        this.operacion = operacion;
+    }
+
+    public String getHashSolicitud() {
+        return hashSolicitud;
+    }
+
+    public void setHashSolicitud(String hashSolicitud) {
+        this.hashSolicitud = hashSolicitud;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Estado estado) {
+        this.estado = estado;
+    }
+
+    public Integer getCodigoEstado() {
+        return codigoEstado;
+    }
+
+    public void setCodigoEstado(Integer codigoEstado) {
+        this.codigoEstado = codigoEstado;
+    }
+
+    public String getRespuesta() {
+        return respuesta;
+    }
+
+    public void setRespuesta(String respuesta) {
+        this.respuesta = respuesta;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getExpiraEn() {
+        return expiraEn;
+    }
+
+    public void setExpiraEn(LocalDateTime expiraEn) {
+        this.expiraEn = expiraEn;
+    }
+}
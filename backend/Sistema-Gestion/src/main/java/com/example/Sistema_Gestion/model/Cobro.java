@@ -2,6 +2,7 @@ package com.example.Sistema_Gestion.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -12,9 +13,18 @@ import java.util.List;
  * Representa un cobro realizado a un cliente.
  * Un cobro puede cubrir uno o más remitos (ver CobroRemito)
  * y puede pagarse con múltiples medios (ver CobroMedioPago).
+ * Las colecciones son lazy: el grafo "Cobro.detalle" trae cliente y remitos aplicados;
+ * medios de pago y notas se inicializan en lotes (@BatchSize) desde el servicio.
  */
 @Entity
-@Table(name = "cobro")
+@NamedEntityGraph(name = "Cobro.detalle", attributeNodes = {
+    @NamedAttributeNode("cliente"),
+    @NamedAttributeNode(value = "remitos", subgraph = "remitos")
+}, subgraphs = @NamedSubgraph(name = "remitos", attributeNodes = @NamedAttributeNode("remito")))
+@Table(name = "cobro", indexes = {
+    @Index(name = "idx_cobro_fecha_id", columnList = "fecha, id"),
+    @Index(name = "idx_cobro_cliente_fecha_id", columnList = "cliente_id, fecha, id")
+})
 public class Cobro {
 
     @Id
@@ -42,16 +52,19 @@ public class Cobro {
     private LocalDateTime createdAt;
 
     /** Remitos que cubre este cobro (con el importe aplicado a cada uno) */
-    @OneToMany(mappedBy = "cobro", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "cobro", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @JsonManagedReference("cobro-remitos")
     private List<CobroRemito> remitos = new ArrayList<>();
 
     /** Medios de pago usados en este cobro (puede ser mixto) */
-    @OneToMany(mappedBy = "cobro", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "cobro", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @JsonManagedReference("cobro-medios")
     private List<CobroMedioPago> mediosPago = new ArrayList<>();
 
-    @OneToMany(mappedBy = "cobro", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "cobro", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @JsonManagedReference("cobro-notas")
     private List<CobroNota> notas = new ArrayList<>();
 
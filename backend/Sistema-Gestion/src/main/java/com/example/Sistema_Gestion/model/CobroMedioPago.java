@@ -23,11 +23,14 @@ public class CobroMedioPago {
         FISICO, ELECTRONICO
     }
 
+    // Id por tabla (pooled-lo) en lugar de IDENTITY: permite agrupar los inserts en batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cobro_medio_pago_id")
+    @TableGenerator(name = "cobro_medio_pago_id", table = "id_generador", pkColumnName = "entidad",
+            valueColumnName = "proximo", pkColumnValue = "cobro_medio_pago", allocationSize = 50)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cobro_id", nullable = false)
     @JsonBackReference("cobro-medios")
     private Cobro cobro;
@@ -1,6 +1,7 @@
 package com.example.Sistema_Gestion.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 
@@ -8,8 +9,11 @@ import java.math.BigDecimal;
 @Table(name = "cobro_nota")
 public class CobroNota {
 
+    // Id por tabla (pooled-lo) en lugar de IDENTITY: permite agrupar los inserts en batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cobro_nota_id")
+    @TableGenerator(name = "cobro_nota_id", table = "id_generador", pkColumnName = "entidad",
+            valueColumnName = "proximo", pkColumnValue = "cobro_nota", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -19,6 +23,7 @@ public class CobroNota {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "nota_id", nullable = false)
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private Nota nota;
 
     @Column(precision = 14, scale = 2, nullable = false)
@@ -1,6 +1,7 @@
 package com.example.Sistema_Gestion.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 
@@ -13,17 +14,21 @@ import java.math.BigDecimal;
 @Table(name = "cobro_remito")
 public class CobroRemito {
 
+    // Id por tabla (pooled-lo) en lugar de IDENTITY: permite agrupar los inserts en batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cobro_remito_id")
+    @TableGenerator(name = "cobro_remito_id", table = "id_generador", pkColumnName = "entidad",
+            valueColumnName = "proximo", pkColumnValue = "cobro_remito", allocationSize = 50)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cobro_id", nullable = false)
     @JsonBackReference("cobro-remitos")
     private Cobro cobro;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "remito_id", nullable = false)
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "items"})
     private Remito remito;
 
     /** Importe aplicado de este cobro a este remito */
@@ -2,13 +2,23 @@ package com.example.Sistema_Gestion.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * Los ítems se cargan bajo demanda: el grafo "Compra.detalle" (proveedor + ítems + productos)
+ * se usa en listados sin paginar; los paginados inicializan ítems en lotes.
+ */
 @Entity
+@NamedEntityGraph(name = "Compra.detalle", attributeNodes = {
+    @NamedAttributeNode("proveedor"),
+    @NamedAttributeNode(value = "items", subgraph = "items")
+}, subgraphs = @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode("producto")))
 @Table(name = "compra", indexes = {
-    @Index(name = "idx_compra_fecha", columnList = "fecha")
+    @Index(name = "idx_compra_fecha_id", columnList = "fecha, id"),
+    @Index(name = "idx_compra_proveedor_fecha_id", columnList = "proveedor_id, fecha, id")
 })
 
 public class Compra {
@@ -16,6 +26,10 @@ public class Compra {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /** Versión para bloqueo optimista: cobros/pagos simultáneos sobre el mismo documento no se pisan. */
+    @Version
+    private Long version;
+
     @Column(nullable = false, unique = true)
     private Long numero;
 
@@ -60,7 +74,8 @@ public class Compra {
     @Column(columnDefinition = "TEXT")
     private String anotaciones;
 
-    @OneToMany(mappedBy = "compra", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "compra", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @JsonManagedReference
     private List<CompraItem> items;
 
@@ -120,6 +135,14 @@ public class Compra {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public List<CompraItem> getItems() {
         return items;
     }
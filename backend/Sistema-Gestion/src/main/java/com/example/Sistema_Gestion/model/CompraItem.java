@@ -8,8 +8,11 @@ import java.math.BigDecimal;
 @Table(name = "compra_item")
 public class CompraItem {
 
+    // Id por tabla (pooled-lo) en lugar de IDENTITY: permite agrupar los inserts en batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "compra_item_id")
+    @TableGenerator(name = "compra_item_id", table = "id_generador", pkColumnName = "entidad",
+            valueColumnName = "proximo", pkColumnValue = "compra_item", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -0,0 +1,206 @@
+package com.example.Sistema_Gestion.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Trabajo de importación de productos desde Excel. Se guarda al recibir el archivo y se
+ * actualiza después de cada lote, así el progreso se puede consultar y sobrevive a un reinicio.
+ */
+@Entity
+@Table(name = "importacion_producto", indexes = {
+        @Index(name = "idx_importacion_producto_estado", columnList = "estado")
+})
+public class ImportacionProducto {
+
+    public enum EstadoImportacion {
+        PENDIENTE,
+        EN_PROCESO,
+        COMPLETADA,
+        FALLIDA
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoImportacion estado = EstadoImportacion.PENDIENTE;
+
+    @Column(name = "nombre_archivo")
+    private String nombreArchivo;
+
+    @Column(name = "filas_leidas", nullable = false)
+    private int filasLeidas;
+
+    @Column(nullable = false)
+    private int insertados;
+
+    @Column(nullable = false)
+    private int actualizados;
+
+    @Column(name = "total_errores", nullable = false)
+    private int totalErrores;
+
+    @Column(name = "filas_por_segundo", nullable = false)
+    private double filasPorSegundo;
+
+    @Column(name = "duracion_ms", nullable = false)
+    private long duracionMs;
+
+    /**
+     * Detalle de errores por fila en JSON (se completa al terminar). MEDIUMTEXT: hasta
+     * ImportacionResultado.MAX_ERRORES_DETALLADOS errores de hasta MAX_LARGO_MENSAJE caracteres
+     * no entran en TEXT (64 KB).
+     */
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String errores;
+
+    @Column(name = "mensaje_error", length = 1000)
+    private String mensajeError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /** Último guardado (alta o lote procesado); sirve para detectar trabajos abandonados. */
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public ImportacionProducto() {
+    }
+
+    public ImportacionProducto(String nombreArchivo) {
+        this.nombreArchivo = nombreArchivo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public EstadoImportacion getEstado() {
+        return estado;
+    }
+
+    public void setEstado(EstadoImportacion estado) {
+        this.estado = estado;
+    }
+
+    public String getNombreArchivo() {
+        return nombreArchivo;
+    }
+
+    public void setNombreArchivo(String nombreArchivo) {
+        this.nombreArchivo = nombreArchivo;
+    }
+
+    public int getFilasLeidas() {
+        return filasLeidas;
+    }
+
+    public void setFilasLeidas(int filasLeidas) {
+        this.filasLeidas = filasLeidas;
+    }
+
+    public int getInsertados() {
+        return insertados;
+    }
+
+    public void setInsertados(int insertados) {
+        this.insertados = insertados;
+    }
+
+    public int getActualizados() {
+        return actualizados;
+    }
+
+    public void setActualizados(int actualizados) {
+        this.actualizados = actualizados;
+    }
+
+    public int getTotalErrores() {
+        return totalErrores;
+    }
+
+    public void setTotalErrores(int totalErrores) {
+        this.totalErrores = totalErrores;
+    }
+
+    public double getFilasPorSegundo() {
+        return filasPorSegundo;
+    }
+
+    public void setFilasPorSegundo(double filasPorSegundo) {
+        this.filasPorSegundo = filasPorSegundo;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public void setDuracionMs(long duracionMs) {
+        this.duracionMs = duracionMs;
+    }
+
+    @JsonRawValue
+    public String getErrores() {
+        return errores;
+    }
+
+    public void setErrores(String errores) {
+        this.errores = errores;
+    }
+
+    public String getMensajeError() {
+        return mensajeError;
+    }
+
+    public void setMensajeError(String mensajeError) {
+        this.mensajeError = mensajeError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -8,7 +8,8 @@ import java.time.LocalDate;
 @Entity
 @Table(name = "movimiento_tesoreria", indexes = {
     @Index(name = "idx_movimiento_referencia", columnList = "referencia"),
-    @Index(name = "idx_movimiento_fecha", columnList = "fecha")
+    @Index(name = "idx_movimiento_fecha_id", columnList = "fecha, id"),
+    @Index(name = "idx_movimiento_cheque_pendiente", columnList = "medio_pago, cobrado, anulado, fecha_cobro")
 })
 public class MovimientoTesoreria {
 
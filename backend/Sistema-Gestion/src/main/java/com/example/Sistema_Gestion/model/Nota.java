@@ -25,6 +25,10 @@ public class Nota {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /** Versión para bloqueo optimista: cobros/pagos simultáneos sobre el mismo documento no se pisan. */
+    @Version
+    private Long version;
+
     @Column(nullable = false, unique = true)
     private Long numero;
 
@@ -76,6 +80,14 @@ public class Nota {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Long getNumero() {
         return numero;
     }
@@ -0,0 +1,65 @@
+package com.example.Sistema_Gestion.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Próximo número libre por tipo de documento. Cada instancia de la aplicación
+ * reserva bloques de números sobre esta fila (ver NumeradorService).
+ */
+@Entity
+@Table(name = "numerador")
+public class Numerador {
+
+    public enum TipoDocumento {
+        REMITO, COMPRA, NOTA
+    }
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private TipoDocumento tipo;
+
+    @Column(nullable = false)
+    private Long proximo;
+
+    private LocalDateTime updatedAt;
+
+    public Numerador() {
+    }
+
+    public Numerador(TipoDocumento tipo, Long proximo) {
+        this.tipo = tipo;
+        this.proximo = proximo;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public TipoDocumento getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(TipoDocumento tipo) {
+        this.tipo = tipo;
+    }
+
+    public Long getProximo() {
+        return proximo;
+    }
+
+    public void setProximo(Long proximo) {
+        this.proximo = proximo;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
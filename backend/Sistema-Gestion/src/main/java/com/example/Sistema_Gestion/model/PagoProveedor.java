@@ -14,13 +14,19 @@ import java.util.List;
  * Soporta cheques de terceros como medio de pago.
  */
 @Entity
-@Table(name = "pago_proveedor")
+@Table(name = "pago_proveedor", indexes = {
+    @Index(name = "idx_pago_proveedor_proveedor_fecha_id", columnList = "proveedor_id, fecha, id")
+})
 public class PagoProveedor {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /** Sube con cada modificación (edición de datos, anulación): el cache de PDF la usa como marca. */
+    @Version
+    private Long version;
+
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "proveedor_id", nullable = false)
     @com.fasterxml.jackson.annotation.JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
@@ -97,6 +103,14 @@ public class PagoProveedor {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Proveedor getProveedor() {
         return proveedor;
     }
@@ -12,8 +12,11 @@ import java.math.BigDecimal;
 @Table(name = "pago_proveedor_compra")
 public class PagoProveedorCompra {
 
+    // Id por tabla (pooled-lo) en lugar de IDENTITY: permite agrupar los inserts en batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "pago_proveedor_compra_id")
+    @TableGenerator(name = "pago_proveedor_compra_id", table = "id_generador", pkColumnName = "entidad",
+            valueColumnName = "proximo", pkColumnValue = "pago_proveedor_compra", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -2,15 +2,26 @@ package com.example.Sistema_Gestion.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Los ítems se cargan bajo demanda. Detalle, PDF y listados sin paginar usan el grafo
+ * "Remito.detalle" (cliente + ítems + productos); los listados paginados traen sólo la cabecera
+ * y los ítems se inicializan en lotes (@BatchSize) para no paginar en memoria.
+ */
 @Entity
+@NamedEntityGraph(name = "Remito.detalle", attributeNodes = {
+    @NamedAttributeNode("cliente"),
+    @NamedAttributeNode(value = "items", subgraph = "items")
+}, subgraphs = @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode("producto")))
 @Table(name = "remito", indexes = {
-    @Index(name = "idx_remito_fecha", columnList = "fecha")
+    @Index(name = "idx_remito_fecha_id", columnList = "fecha, id"),
+    @Index(name = "idx_remito_estado_fecha_id", columnList = "estado, fecha, id")
 })
 public class Remito {
 
@@ -25,6 +36,10 @@ public class Remito {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /** Versión para bloqueo optimista: cobros/pagos simultáneos sobre el mismo documento no se pisan. */
+    @Version
+    private Long version;
+
     @Column(nullable = false, unique = true)
     private Long numero;
 
@@ -70,7 +85,8 @@ public class Remito {
 
     // ===================================================
 
-    @OneToMany(mappedBy = "remito", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "remito", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @JsonManagedReference
     private List<RemitoItem> items = new ArrayList<>();
 
@@ -100,6 +116,14 @@ public class Remito {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Long getNumero() {
         return numero;
     }
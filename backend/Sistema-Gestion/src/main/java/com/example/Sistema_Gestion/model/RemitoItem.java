@@ -7,8 +7,11 @@ import java.math.BigDecimal;
 @Entity
 @Table(name = "remito_item")
 public class RemitoItem {
+    // Id por tabla (pooled-lo) en lugar de IDENTITY: permite agrupar los inserts en batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "remito_item_id")
+    @TableGenerator(name = "remito_item_id", table = "id_generador", pkColumnName = "entidad",
+            valueColumnName = "proximo", pkColumnValue = "remito_item", allocationSize = 50)
     private Long id;
 
     @ManyToOne
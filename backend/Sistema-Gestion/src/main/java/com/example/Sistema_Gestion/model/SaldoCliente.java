@@ -0,0 +1,62 @@
+package com.example.Sistema_Gestion.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Saldo de cuenta corriente materializado por cliente (positivo = deuda, negativo = a favor).
+ * Se actualiza en la misma transacción que remitos, cobros y notas, y se concilia
+ * todas las noches contra los documentos de origen (ver SaldoClienteService).
+ */
+@Entity
+@Table(name = "saldo_cliente")
+public class SaldoCliente {
+
+    @Id
+    @Column(name = "cliente_id")
+    private Long clienteId;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal saldo = BigDecimal.ZERO;
+
+    private LocalDateTime updatedAt;
+
+    public SaldoCliente() {
+    }
+
+    public SaldoCliente(Long clienteId, BigDecimal saldo) {
+        this.clienteId = clienteId;
+        this.saldo = saldo;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+
+    public BigDecimal getSaldo() {
+        return saldo;
+    }
+
+    public void setSaldo(BigDecimal saldo) {
+        this.saldo = saldo;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
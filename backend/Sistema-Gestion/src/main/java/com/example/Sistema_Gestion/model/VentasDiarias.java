@@ -0,0 +1,54 @@
+package com.example.Sistema_Gestion.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Acumulado diario de ventas (remitos valorizados) y cobros no anulados.
+ * Alimenta el dashboard sin recorrer el historial completo (ver VentasDiariasService).
+ */
+@Entity
+@Table(name = "ventas_diarias")
+public class VentasDiarias {
+
+    @Id
+    private LocalDate fecha;
+
+    @Column(name = "total_ventas", precision = 14, scale = 2, nullable = false)
+    private BigDecimal totalVentas = BigDecimal.ZERO;
+
+    @Column(name = "total_cobrado", precision = 14, scale = 2, nullable = false)
+    private BigDecimal totalCobrado = BigDecimal.ZERO;
+
+    public VentasDiarias() {
+    }
+
+    public VentasDiarias(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+
+    public BigDecimal getTotalVentas() {
+        return totalVentas;
+    }
+
+    public void setTotalVentas(BigDecimal totalVentas) {
+        this.totalVentas = totalVentas;
+    }
+
+    public BigDecimal getTotalCobrado() {
+        return totalCobrado;
+    }
+
+    public void setTotalCobrado(BigDecimal totalCobrado) {
+        this.totalCobrado = totalCobrado;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.Sistema_Gestion.repository;
+
+import com.example.Sistema_Gestion.model.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, String> {
+
+    /**
+     * Reserva la clave para la operación. Devuelve 0 si ya existe (otra solicitud con la misma
+     * clave la reservó antes); el INSERT espera si esa solicitud todavía no confirmó.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO clave_idempotencia "
+            + "(clave, operacion, hash_solicitud, estado, created_at, expira_en) "
+            + "VALUES (:clave, :operacion, :hash, 'EN_PROCESO', :ahora, :expiraEn)", nativeQuery = true)
+    int reservar(@Param("clave") String clave, @Param("operacion") String operacion, @Param("hash") String hash,
+            @Param("ahora") LocalDateTime ahora, @Param("expiraEn") LocalDateTime expiraEn);
+
+    /**
+     * Toma una reserva EN_PROCESO hecha antes de {@code limite} (la solicitud original se cortó sin
+     * completarla ni liberarla) para la misma operación y los mismos datos. Devuelve 0 si no correspondía.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE clave_idempotencia SET created_at = :ahora, expira_en = :expiraEn "
+            + "WHERE clave = :clave AND operacion = :operacion AND hash_solicitud = :hash "
+            + "AND estado = 'EN_PROCESO' AND created_at < :limite", nativeQuery = true)
+    int reclamarAbandonada(@Param("clave") String clave, @Param("operacion") String operacion,
+            @Param("hash") String hash, @Param("limite") LocalDateTime limite, @Param("ahora") LocalDateTime ahora,
+            @Param("expiraEn") LocalDateTime expiraEn);
+
+    /** Guarda la respuesta; {@code reservadaEn} identifica la reserva, por si otra solicitud la reclamó. */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE clave_idempotencia SET estado = 'COMPLETADA', codigo_estado = :codigo, respuesta = :respuesta "
+            + "WHERE clave = :clave AND estado = 'EN_PROCESO' AND created_at = :reservadaEn", nativeQuery = true)
+    int completar(@Param("clave") String clave, @Param("reservadaEn") LocalDateTime reservadaEn,
+            @Param("codigo") int codigo, @Param("respuesta") String respuesta);
+
+    /** Libera la clave de una operación que falló para que el reintento se ejecute de nuevo. */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM clave_idempotencia WHERE clave = :clave AND estado = 'EN_PROCESO' "
+            + "AND created_at = :reservadaEn", nativeQuery = true)
+    int liberar(@Param("clave") String clave, @Param("reservadaEn") LocalDateTime reservadaEn);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM clave_idempotencia WHERE clave = :clave AND expira_en < :ahora", nativeQuery = true)
+    int borrarSiVencida(@Param("clave") String clave, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM clave_idempotencia WHERE expira_en < :ahora LIMIT :lote", nativeQuery = true)
+    int borrarVencidas(@Param("ahora") LocalDateTime ahora, @Param("lote") int lote);
+}
@@ -6,9 +6,16 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 public interface CobroNotaRepository extends JpaRepository<CobroNota, Long> {
     
     @Query("SELECT COALESCE(SUM(cn.importe), 0) FROM CobroNota cn WHERE cn.nota.id = :notaId AND cn.cobro.anulado = false")
     BigDecimal totalCobradoPorNota(@Param("notaId") Long notaId);
+
+    /** [notaId, total] ya cobrado (cobros no anulados) de varias notas en una consulta */
+    @Query("SELECT cn.nota.id, COALESCE(SUM(cn.importe), 0) FROM CobroNota cn " +
+            "WHERE cn.nota.id IN :notaIds AND cn.cobro.anulado = false GROUP BY cn.nota.id")
+    List<Object[]> totalCobradoAgrupadoPorNota(@Param("notaIds") Collection<Long> notaIds);
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,4 +19,9 @@ public interface CobroRemitoRepository extends JpaRepository<CobroRemito, Long>
     /** Suma de lo ya cobrado sobre un remito específico */
     @Query("SELECT COALESCE(SUM(cr.importe), 0) FROM CobroRemito cr WHERE cr.remito.id = :remitoId AND cr.cobro.anulado = false")
     BigDecimal totalCobradoPorRemito(@Param("remitoId") Long remitoId);
+
+    /** [remitoId, total] ya cobrado (cobros no anulados) de varios remitos en una consulta */
+    @Query("SELECT cr.remito.id, COALESCE(SUM(cr.importe), 0) FROM CobroRemito cr " +
+            "WHERE cr.remito.id IN :remitoIds AND cr.cobro.anulado = false GROUP BY cr.remito.id")
+    List<Object[]> totalCobradoAgrupadoPorRemito(@Param("remitoIds") Collection<Long> remitoIds);
 }
@@ -1,20 +1,82 @@
 package com.example.Sistema_Gestion.repository;
 
+import com.example.Sistema_Gestion.dto.CobroResumenView;
+import com.example.Sistema_Gestion.dto.VersionPdf;
 import com.example.Sistema_Gestion.model.Cobro;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CobroRepository extends JpaRepository<Cobro, Long> {
 
+    String VISTA = "SELECT new com.example.Sistema_Gestion.dto.CobroResumenView(c.id, c.fecha, cl.id, cl.nombre, " +
+            "c.totalCobrado, c.observaciones, c.anulado, SIZE(c.remitos)) FROM Cobro c JOIN c.cliente cl ";
+
+    /** Sólo cabeceras (cuenta corriente). */
     List<Cobro> findByClienteIdOrderByFechaDesc(Long clienteId);
 
+    /** Listado de cobros del cliente en una consulta, sin entidades ni colecciones. */
+    @Query(VISTA + "WHERE cl.id = :clienteId ORDER BY c.fecha DESC, c.id DESC")
+    List<CobroResumenView> listarVistaPorCliente(@Param("clienteId") Long clienteId);
+
+    /*
+     * Listado por cursor (keyset) sobre (fecha, id) descendente, con idx_cobro_fecha_id /
+     * idx_cobro_cliente_fecha_id. El Pageable sólo limita la cantidad de filas.
+     */
+    @Query(VISTA + "ORDER BY c.fecha DESC, c.id DESC")
+    List<CobroResumenView> listarVista(Pageable limite);
+
+    @Query(VISTA + "WHERE c.fecha < :fecha OR (c.fecha = :fecha AND c.id < :id) ORDER BY c.fecha DESC, c.id DESC")
+    List<CobroResumenView> listarVistaAntesDe(@Param("fecha") LocalDate fecha, @Param("id") Long id, Pageable limite);
+
+    @Query(VISTA + "WHERE cl.id = :clienteId ORDER BY c.fecha DESC, c.id DESC")
+    List<CobroResumenView> listarVistaPorCliente(@Param("clienteId") Long clienteId, Pageable limite);
+
+    @Query(VISTA + "WHERE cl.id = :clienteId AND (c.fecha < :fecha OR (c.fecha = :fecha AND c.id < :id)) " +
+            "ORDER BY c.fecha DESC, c.id DESC")
+    List<CobroResumenView> listarVistaPorClienteAntesDe(@Param("clienteId") Long clienteId, @Param("fecha") LocalDate fecha,
+            @Param("id") Long id, Pageable limite);
+
+    @EntityGraph("Cobro.detalle")
+    Optional<Cobro> findDetalleById(Long id);
+
+    /** Marca para el cache de PDF: el cobro no se edita, sólo se anula; del cliente se imprimen nombre y documento. */
+    @Query("SELECT new com.example.Sistema_Gestion.dto.VersionPdf(c.id, CONCAT(CAST(COALESCE(c.anulado, false) AS String), " +
+            "'|', COALESCE(cl.nombre, ''), '|', COALESCE(cl.documento, ''))) FROM Cobro c LEFT JOIN c.cliente cl WHERE c.id = :id")
+    Optional<VersionPdf> versionPdf(@Param("id") Long id);
+
+    /*
+     * Exportación en lote de recibos no anulados: ids por cursor sobre id ascendente con filtros
+     * opcionales (null = todos); cada lote se carga después con findDetalleByIdInOrderByIdAsc.
+     */
+    @Query("SELECT c.id FROM Cobro c WHERE c.id > :despuesDe AND c.anulado = false " +
+            "AND (:clienteId IS NULL OR c.cliente.id = :clienteId) " +
+            "AND (:desde IS NULL OR c.fecha >= :desde) AND (:hasta IS NULL OR c.fecha <= :hasta) ORDER BY c.id")
+    List<Long> idsParaExportar(@Param("despuesDe") Long despuesDe, @Param("clienteId") Long clienteId,
+            @Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta, Pageable limite);
+
+    @EntityGraph("Cobro.detalle")
+    List<Cobro> findDetalleByIdInOrderByIdAsc(Collection<Long> ids);
+
     List<Cobro> findByAnulado(Boolean anulado);
 
     /** Total cobrado a un cliente (suma de todos los cobros no anulados) */
     @Query("SELECT COALESCE(SUM(c.totalCobrado), 0) FROM Cobro c WHERE c.cliente.id = :clienteId AND c.anulado = false")
     java.math.BigDecimal totalCobradoPorCliente(@Param("clienteId") Long clienteId);
+
+    /** [clienteId, total] cobrado no anulado, agrupado por cliente (conciliación de saldos) */
+    @Query("SELECT c.cliente.id, COALESCE(SUM(c.totalCobrado), 0) FROM Cobro c WHERE c.anulado = false GROUP BY c.cliente.id")
+    List<Object[]> totalCobradoAgrupadoPorCliente();
+
+    /** [fecha, total] cobrado no anulado, agrupado por día (reconstrucción de ventas_diarias) */
+    @Query("SELECT c.fecha, COALESCE(SUM(c.totalCobrado), 0) FROM Cobro c WHERE c.anulado = false AND c.fecha IS NOT NULL GROUP BY c.fecha")
+    List<Object[]> totalCobradoAgrupadoPorFecha();
 }
@@ -1,13 +1,21 @@
 package com.example.Sistema_Gestion.repository;
 
+import com.example.Sistema_Gestion.dto.CompraCuentaView;
+import com.example.Sistema_Gestion.dto.CompraItemCuentaView;
 import com.example.Sistema_Gestion.model.Compra;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CompraRepository extends JpaRepository<Compra, Long> {
@@ -15,8 +23,52 @@ public interface CompraRepository extends JpaRepository<Compra, Long> {
     @Query("SELECT COALESCE(MAX(c.numero), 0) FROM Compra c")
     Long findMaxNumero();
 
+    /** Listado paginado: cabecera y proveedor, los ítems se inicializan en lotes desde el servicio. */
+    @EntityGraph(attributePaths = "proveedor")
     org.springframework.data.domain.Page<Compra> findByProveedorId(Long proveedorId, org.springframework.data.domain.Pageable pageable);
 
+    /*
+     * Listado por cursor (keyset) sobre (fecha, id) descendente, con idx_compra_fecha_id /
+     * idx_compra_proveedor_fecha_id. El Pageable sólo limita la cantidad de filas.
+     * Las compras sin fecha ordenan al final y se recorren por id (ver RemitoRepository).
+     */
+    @EntityGraph(attributePaths = "proveedor")
+    List<Compra> findAllByOrderByFechaDescIdDesc(Pageable limite);
+
+    @EntityGraph(attributePaths = "proveedor")
+    @Query("SELECT c FROM Compra c WHERE c.fecha < :fecha OR (c.fecha = :fecha AND c.id < :id) OR c.fecha IS NULL " +
+            "ORDER BY c.fecha DESC, c.id DESC")
+    List<Compra> buscarAntesDe(@Param("fecha") LocalDateTime fecha, @Param("id") Long id, Pageable limite);
+
+    @EntityGraph(attributePaths = "proveedor")
+    @Query("SELECT c FROM Compra c WHERE c.fecha IS NULL AND c.id < :id ORDER BY c.id DESC")
+    List<Compra> buscarSinFechaAntesDe(@Param("id") Long id, Pageable limite);
+
+    @EntityGraph(attributePaths = "proveedor")
+    List<Compra> findByProveedorIdOrderByFechaDescIdDesc(Long proveedorId, Pageable limite);
+
+    @EntityGraph(attributePaths = "proveedor")
+    @Query("SELECT c FROM Compra c WHERE c.proveedor.id = :proveedorId " +
+            "AND (c.fecha < :fecha OR (c.fecha = :fecha AND c.id < :id) OR c.fecha IS NULL) " +
+            "ORDER BY c.fecha DESC, c.id DESC")
+    List<Compra> buscarPorProveedorAntesDe(@Param("proveedorId") Long proveedorId, @Param("fecha") LocalDateTime fecha,
+            @Param("id") Long id, Pageable limite);
+
+    @EntityGraph(attributePaths = "proveedor")
+    @Query("SELECT c FROM Compra c WHERE c.proveedor.id = :proveedorId AND c.fecha IS NULL AND c.id < :id " +
+            "ORDER BY c.id DESC")
+    List<Compra> buscarPorProveedorSinFechaAntesDe(@Param("proveedorId") Long proveedorId, @Param("id") Long id,
+            Pageable limite);
+
+    @EntityGraph("Compra.detalle")
+    Optional<Compra> findDetalleById(Long id);
+
+    /** Compras a imputar en un pago; sube la versión aunque el estado no cambie (pagos simultáneos). */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT c FROM Compra c WHERE c.id IN :ids")
+    List<Compra> buscarParaPago(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph("Compra.detalle")
     List<Compra> findByProveedorIdOrderByFechaDesc(Long proveedorId);
 
     List<Compra> findByProveedorIdAndEstadoOrderByFechaDesc(Long proveedorId, String estado);
@@ -27,8 +79,26 @@ public interface CompraRepository extends JpaRepository<Compra, Long> {
     @Query("SELECT COALESCE(SUM(c.totalDolares), 0) FROM Compra c WHERE c.proveedor.id = :proveedorId AND c.moneda = 'USD'")
     BigDecimal findTotalCompradoUSD(@Param("proveedorId") Long proveedorId);
 
-    List<Compra> findByProveedorIdAndFechaBetweenOrderByFechaAsc(Long proveedorId, LocalDateTime desde,
-            LocalDateTime hasta);
+    /** [proveedorId, moneda, total ARS, total USD] agrupado por proveedor y moneda; ignora compras sin proveedor */
+    @Query("SELECT c.proveedor.id, c.moneda, COALESCE(SUM(c.total), 0), COALESCE(SUM(c.totalDolares), 0) FROM Compra c WHERE c.proveedor.id IS NOT NULL GROUP BY c.proveedor.id, c.moneda")
+    List<Object[]> totalesAgrupadosPorProveedorYMoneda();
+
+    /*
+     * Estado de cuenta: cursor (keyset) sobre (fecha, id) ascendente hasta :hasta, con
+     * idx_compra_proveedor_fecha_id. Para el primer lote, fecha = inicio del período e id = 0.
+     */
+    @Query("SELECT new com.example.Sistema_Gestion.dto.CompraCuentaView(c.id, c.fecha, c.numero, c.anotaciones, " +
+            "c.moneda, c.total, c.totalDolares, c.incluyeIva, c.ivaImporte, c.porcentajeIva, c.tipoCambio) " +
+            "FROM Compra c WHERE c.proveedor.id = :proveedorId AND c.fecha <= :hasta " +
+            "AND (c.fecha > :fecha OR (c.fecha = :fecha AND c.id > :id)) ORDER BY c.fecha, c.id")
+    List<CompraCuentaView> cuentaCorrienteDespuesDe(@Param("proveedorId") Long proveedorId,
+            @Param("fecha") LocalDateTime fecha, @Param("id") Long id, @Param("hasta") LocalDateTime hasta,
+            Pageable limite);
+
+    @Query("SELECT new com.example.Sistema_Gestion.dto.CompraItemCuentaView(i.compra.id, p.nombre, i.cantidad, " +
+            "i.precioUnitario, i.precioUnitarioUSD, i.subtotal) FROM CompraItem i LEFT JOIN i.producto p " +
+            "WHERE i.compra.id IN :compraIds ORDER BY i.compra.id, i.id")
+    List<CompraItemCuentaView> itemsCuentaCorriente(@Param("compraIds") Collection<Long> compraIds);
 
     @Query("SELECT COALESCE(SUM(c.total), 0) FROM Compra c WHERE c.proveedor.id = :proveedorId AND c.fecha < :fecha AND (c.moneda = 'ARS' OR c.moneda IS NULL)")
     BigDecimal totalCompradoARSAntesDe(@Param("proveedorId") Long proveedorId, @Param("fecha") LocalDateTime fecha);
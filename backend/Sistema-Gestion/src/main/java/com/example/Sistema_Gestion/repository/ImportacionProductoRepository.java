@@ -0,0 +1,31 @@
+package com.example.Sistema_Gestion.repository;
+
+import com.example.Sistema_Gestion.model.ImportacionProducto;
+import com.example.Sistema_Gestion.model.ImportacionProducto.EstadoImportacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface ImportacionProductoRepository extends JpaRepository<ImportacionProducto, Long> {
+
+    /**
+     * Cierra en bloque las importaciones que siguen en alguno de los estados dados pero no se guardan
+     * desde antes de {@code limite}: su hilo ya no existe (reinicio o caída de la instancia que las tomó).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImportacionProducto i SET i.estado = :nuevoEstado, i.mensajeError = :mensaje, i.finishedAt = :ahora, " +
+            "i.updatedAt = :ahora WHERE i.estado IN :estados AND COALESCE(i.updatedAt, i.createdAt) < :limite")
+    int cerrarAbandonadas(@Param("estados") Collection<EstadoImportacion> estados,
+                          @Param("limite") LocalDateTime limite,
+                          @Param("nuevoEstado") EstadoImportacion nuevoEstado,
+                          @Param("mensaje") String mensaje,
+                          @Param("ahora") LocalDateTime ahora);
+}
@@ -1,8 +1,14 @@
 package com.example.Sistema_Gestion.repository;
 
 import com.example.Sistema_Gestion.model.MovimientoTesoreria;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -22,6 +28,37 @@ public interface MovimientoTesoreriaRepository
                         String medioPago,
                         LocalDateTime fecha);
 
+        /*
+         * Listado por cursor (keyset) sobre (fecha, id) descendente, con idx_movimiento_fecha_id.
+         * El Pageable sólo limita la cantidad de filas.
+         */
+        List<MovimientoTesoreria> findAllByOrderByFechaDescIdDesc(Pageable limite);
+
+        @Query("SELECT m FROM MovimientoTesoreria m WHERE m.fecha < :fecha OR (m.fecha = :fecha AND m.id < :id) " +
+                        "ORDER BY m.fecha DESC, m.id DESC")
+        List<MovimientoTesoreria> buscarAntesDe(@Param("fecha") LocalDateTime fecha,
+                        @Param("id") Long id,
+                        Pageable limite);
+
         List<MovimientoTesoreria> findByReferencia(String referencia);
         List<MovimientoTesoreria> findByReferenciaContaining(String referencia);
+
+        /** Cheques en cartera con fecha de cobro alcanzada (usa idx_movimiento_cheque_pendiente) */
+        @Query("SELECT COUNT(m), MIN(m.fechaCobro) FROM MovimientoTesoreria m " +
+                        "WHERE m.medioPago IN ('CHEQUE', 'CHEQUE_ELECTRONICO') AND m.cobrado = false " +
+                        "AND m.anulado = false AND m.fechaCobro <= :hasta")
+        List<Object[]> resumenChequesACobrar(@Param("hasta") LocalDate hasta);
+
+        /**
+         * Marca como cobrado un lote de hasta {@code limite} cheques con fecha de cobro alcanzada.
+         * Cada llamada es una transacción corta; se repite hasta que devuelve 0.
+         */
+        @Transactional
+        @Modifying
+        @Query(value = "UPDATE movimiento_tesoreria SET cobrado = true, updated_at = :ahora " +
+                        "WHERE medio_pago IN ('CHEQUE', 'CHEQUE_ELECTRONICO') AND cobrado = false " +
+                        "AND anulado = false AND fecha_cobro <= :hasta LIMIT :limite", nativeQuery = true)
+        int marcarChequesCobrados(@Param("hasta") LocalDate hasta,
+                        @Param("ahora") LocalDateTime ahora,
+                        @Param("limite") int limite);
 }
\ No newline at end of file
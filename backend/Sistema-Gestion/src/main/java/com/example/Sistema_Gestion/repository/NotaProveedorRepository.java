@@ -20,4 +20,8 @@ public interface NotaProveedorRepository extends JpaRepository<Nota, Long> {
 
     @Query("SELECT COALESCE(SUM(n.monto), 0) FROM Nota n WHERE n.proveedor.id = :id AND n.tipo = 'CREDITO' AND n.estado != 'ANULADA' AND n.moneda = 'USD'")
     BigDecimal totalCreditosUSDPorProveedor(@Param("id") Long proveedorId);
+
+    /** [proveedorId, moneda, monto] de notas de crédito vigentes, agrupado por proveedor y moneda */
+    @Query("SELECT n.proveedor.id, n.moneda, COALESCE(SUM(n.monto), 0) FROM Nota n WHERE n.proveedor IS NOT NULL AND n.tipo = 'CREDITO' AND n.estado != 'ANULADA' GROUP BY n.proveedor.id, n.moneda")
+    List<Object[]> totalCreditosAgrupadosPorProveedorYMoneda();
 }
@@ -1,17 +1,37 @@
 package com.example.Sistema_Gestion.repository;
 
+import com.example.Sistema_Gestion.dto.VersionPdf;
 import com.example.Sistema_Gestion.model.Nota;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface NotaRepository extends JpaRepository<Nota, Long> {
     List<Nota> findByClienteId(Long clienteId);
     List<Nota> findByClienteIdAndEstado(Long clienteId, Nota.EstadoNota estado);
 
-    @org.springframework.data.jpa.repository.Query("SELECT COALESCE(SUM(n.monto), 0) FROM Nota n WHERE n.cliente.id = :clienteId AND n.tipo = 'DEBITO'")
+    /** Número y marca para el cache de PDF: versión de la nota y nombre y documento del cliente. */
+    @org.springframework.data.jpa.repository.Query("SELECT new com.example.Sistema_Gestion.dto.VersionPdf(n.numero, " +
+            "CONCAT(CAST(COALESCE(n.version, 0) AS String), '|', COALESCE(cl.nombre, ''), '|', COALESCE(cl.documento, ''))) " +
+            "FROM Nota n LEFT JOIN n.cliente cl WHERE n.id = :id")
+    Optional<VersionPdf> versionPdf(@org.springframework.data.repository.query.Param("id") Long id);
+
+    /** Notas a imputar en un cobro; sube la versión aunque no cambien (ver RemitoRepository.buscarParaCobro). */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @org.springframework.data.jpa.repository.Query("SELECT n FROM Nota n WHERE n.id IN :ids")
+    List<Nota> buscarParaCobro(@org.springframework.data.repository.query.Param("ids") Collection<Long> ids);
+
+    @org.springframework.data.jpa.repository.Query("SELECT COALESCE(SUM(n.monto), 0) FROM Nota n WHERE n.cliente.id = :clienteId AND n.tipo = 'DEBITO' AND n.estado <> 'ANULADA'")
     java.math.BigDecimal totalDebitoPorCliente(@org.springframework.data.repository.query.Param("clienteId") Long clienteId);
 
-    @org.springframework.data.jpa.repository.Query("SELECT COALESCE(SUM(n.monto), 0) FROM Nota n WHERE n.cliente.id = :clienteId AND n.tipo = 'CREDITO'")
+    @org.springframework.data.jpa.repository.Query("SELECT COALESCE(SUM(n.monto), 0) FROM Nota n WHERE n.cliente.id = :clienteId AND n.tipo = 'CREDITO' AND n.estado <> 'ANULADA'")
     java.math.BigDecimal totalCreditoPorCliente(@org.springframework.data.repository.query.Param("clienteId") Long clienteId);
+
+    /** [clienteId, débitos - créditos] de notas vigentes, agrupado por cliente (conciliación de saldos) */
+    @org.springframework.data.jpa.repository.Query("SELECT n.cliente.id, COALESCE(SUM(CASE WHEN n.tipo = 'DEBITO' THEN n.monto ELSE -n.monto END), 0) FROM Nota n WHERE n.cliente IS NOT NULL AND n.estado <> 'ANULADA' GROUP BY n.cliente.id")
+    List<Object[]> netoNotasAgrupadoPorCliente();
 }
@@ -0,0 +1,27 @@
+package com.example.Sistema_Gestion.repository;
+
+import com.example.Sistema_Gestion.model.Numerador;
+import com.example.Sistema_Gestion.model.Numerador.TipoDocumento;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface NumeradorRepository extends JpaRepository<Numerador, TipoDocumento> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n FROM Numerador n WHERE n.tipo = :tipo")
+    Optional<Numerador> findByTipoForUpdate(@Param("tipo") TipoDocumento tipo);
+
+    /** Alta de la fila; si otra instancia la creó al mismo tiempo falla por clave duplicada. */
+    @Modifying
+    @Query(value = "INSERT INTO numerador (tipo, proximo, updated_at) VALUES (:tipo, :proximo, CURRENT_TIMESTAMP)",
+            nativeQuery = true)
+    int crear(@Param("tipo") String tipo, @Param("proximo") long proximo);
+}
@@ -1,6 +1,9 @@
 package com.example.Sistema_Gestion.repository;
 
+import com.example.Sistema_Gestion.dto.PagoCuentaView;
+import com.example.Sistema_Gestion.dto.VersionPdf;
 import com.example.Sistema_Gestion.model.PagoProveedor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,20 +11,39 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PagoProveedorRepository extends JpaRepository<PagoProveedor, Long> {
 
     List<PagoProveedor> findByProveedorIdOrderByFechaDesc(Long proveedorId);
 
+    /** Marca para el cache de PDF: versión del pago (edición o anulación) y nombre y CUIT del proveedor. */
+    @Query("SELECT new com.example.Sistema_Gestion.dto.VersionPdf(p.id, CONCAT(CAST(COALESCE(p.version, 0) AS String), " +
+            "'|', COALESCE(pr.nombre, ''), '|', COALESCE(pr.cuit, ''))) FROM PagoProveedor p LEFT JOIN p.proveedor pr WHERE p.id = :id")
+    Optional<VersionPdf> versionPdf(@Param("id") Long id);
+
     @Query("SELECT COALESCE(SUM(p.importe), 0) FROM PagoProveedor p WHERE p.proveedor.id = :proveedorId AND p.anulado = false AND (p.moneda = 'ARS' OR p.moneda IS NULL)")
     BigDecimal totalPagadoARSPorProveedor(@Param("proveedorId") Long proveedorId);
 
     @Query("SELECT COALESCE(SUM(p.importeDolares), 0) FROM PagoProveedor p WHERE p.proveedor.id = :proveedorId AND p.anulado = false AND p.moneda = 'USD'")
     BigDecimal totalPagadoUSDPorProveedor(@Param("proveedorId") Long proveedorId);
 
-    List<PagoProveedor> findByProveedorIdAndFechaBetweenOrderByFechaAsc(Long proveedorId, LocalDate desde,
-            LocalDate hasta);
+    /** [proveedorId, moneda, importe ARS, importe USD] de pagos no anulados con proveedor, agrupado por proveedor y moneda */
+    @Query("SELECT p.proveedor.id, p.moneda, COALESCE(SUM(p.importe), 0), COALESCE(SUM(p.importeDolares), 0) FROM PagoProveedor p WHERE p.anulado = false AND p.proveedor.id IS NOT NULL GROUP BY p.proveedor.id, p.moneda")
+    List<Object[]> totalesAgrupadosPorProveedorYMoneda();
+
+    /*
+     * Estado de cuenta: pagos no anulados por cursor (keyset) sobre (fecha, id) ascendente hasta :hasta,
+     * con idx_pago_proveedor_proveedor_fecha_id. Para el primer lote, fecha = desde e id = 0.
+     */
+    @Query("SELECT new com.example.Sistema_Gestion.dto.PagoCuentaView(p.id, p.fecha, p.moneda, p.importe, " +
+            "p.importeDolares, p.observaciones, p.medio, p.monedaPago, p.banco, p.numeroCheque, p.fechaVenc) " +
+            "FROM PagoProveedor p WHERE p.proveedor.id = :proveedorId AND (p.anulado IS NULL OR p.anulado = false) " +
+            "AND p.fecha <= :hasta AND (p.fecha > :fecha OR (p.fecha = :fecha AND p.id > :id)) ORDER BY p.fecha, p.id")
+    List<PagoCuentaView> cuentaCorrienteDespuesDe(@Param("proveedorId") Long proveedorId,
+            @Param("fecha") LocalDate fecha, @Param("id") Long id, @Param("hasta") LocalDate hasta,
+            Pageable limite);
 
     @Query("SELECT COALESCE(SUM(p.importe), 0) FROM PagoProveedor p WHERE p.proveedor.id = :proveedorId AND p.anulado = false AND p.fecha < :fecha AND (p.moneda = 'ARS' OR p.moneda IS NULL)")
     BigDecimal totalPagadoARSAntesDe(@Param("proveedorId") Long proveedorId, @Param("fecha") LocalDate fecha);
@@ -1,10 +1,40 @@
 package com.example.Sistema_Gestion.repository;
 
 import com.example.Sistema_Gestion.model.Producto;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
    Optional<Producto> findBySku(String sku);
-}
\ No newline at end of file
+
+   /** Carga y bloquea (SELECT ... FOR UPDATE) los productos indicados, siempre en orden de ID. */
+   @Lock(LockModeType.PESSIMISTIC_WRITE)
+   @Query("SELECT p FROM Producto p WHERE p.id IN :ids ORDER BY p.id")
+   List<Producto> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+   /**
+    * Descuenta stock en un solo UPDATE condicional: solo afecta la fila si hay stock suficiente.
+    * Devuelve 1 si se descontó, 0 si el producto no existe o no alcanza el stock.
+    */
+   @Modifying
+   @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad WHERE p.id = :id AND p.stock >= :cantidad")
+   int descontarStockSiDisponible(@Param("id") Long id, @Param("cantidad") Integer cantidad);
+
+   /** Suma stock de forma atómica. Devuelve la cantidad de filas afectadas. */
+   @Modifying
+   @Query("UPDATE Producto p SET p.stock = p.stock + :cantidad WHERE p.id = :id")
+   int aumentarStock(@Param("id") Long id, @Param("cantidad") Integer cantidad);
+
+   /** Resta stock sin validar el mínimo (permite negativos técnicos en reversiones). */
+   @Modifying
+   @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad WHERE p.id = :id")
+   int forzarDescontarStock(@Param("id") Long id, @Param("cantidad") Integer cantidad);
+}
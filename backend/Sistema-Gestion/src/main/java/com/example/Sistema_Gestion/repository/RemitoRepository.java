@@ -1,12 +1,22 @@
 package com.example.Sistema_Gestion.repository;
 
+import com.example.Sistema_Gestion.dto.RemitoListView;
+import com.example.Sistema_Gestion.dto.VersionPdf;
 import com.example.Sistema_Gestion.model.Remito;
 import com.example.Sistema_Gestion.model.Remito.EstadoRemito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RemitoRepository extends JpaRepository<Remito, Long> {
@@ -14,15 +24,107 @@ public interface RemitoRepository extends JpaRepository<Remito, Long> {
     @Query("SELECT COALESCE(MAX(r.numero), 0) FROM Remito r")
     Long findMaxNumero();
 
+    /** Listado paginado: sólo cabecera y cliente, los ítems se inicializan en lotes desde el servicio. */
+    @Override
+    @EntityGraph(attributePaths = "cliente")
+    Page<Remito> findAll(Pageable pageable);
+
+    /*
+     * Listado por cursor (keyset) sobre (fecha, id) descendente, con idx_remito_fecha_id /
+     * idx_remito_estado_fecha_id. El Pageable sólo limita la cantidad de filas (sin OFFSET ni COUNT).
+     * Los remitos sin fecha ordenan al final: después de un cursor con fecha siguen todos ellos,
+     * y después de uno sin fecha sólo los sin fecha de id menor (buscarSinFechaAntesDe).
+     */
+    @EntityGraph(attributePaths = "cliente")
+    List<Remito> findAllByOrderByFechaDescIdDesc(Pageable limite);
+
+    @EntityGraph(attributePaths = "cliente")
+    @Query("SELECT r FROM Remito r WHERE r.fecha < :fecha OR (r.fecha = :fecha AND r.id < :id) OR r.fecha IS NULL " +
+            "ORDER BY r.fecha DESC, r.id DESC")
+    List<Remito> buscarAntesDe(@Param("fecha") LocalDate fecha, @Param("id") Long id, Pageable limite);
+
+    @EntityGraph(attributePaths = "cliente")
+    @Query("SELECT r FROM Remito r WHERE r.fecha IS NULL AND r.id < :id ORDER BY r.id DESC")
+    List<Remito> buscarSinFechaAntesDe(@Param("id") Long id, Pageable limite);
+
+    @EntityGraph(attributePaths = "cliente")
+    List<Remito> findByEstadoOrderByFechaDescIdDesc(EstadoRemito estado, Pageable limite);
+
+    @EntityGraph(attributePaths = "cliente")
+    @Query("SELECT r FROM Remito r WHERE r.estado = :estado " +
+            "AND (r.fecha < :fecha OR (r.fecha = :fecha AND r.id < :id) OR r.fecha IS NULL) " +
+            "ORDER BY r.fecha DESC, r.id DESC")
+    List<Remito> buscarPorEstadoAntesDe(@Param("estado") EstadoRemito estado, @Param("fecha") LocalDate fecha,
+            @Param("id") Long id, Pageable limite);
+
+    @EntityGraph(attributePaths = "cliente")
+    @Query("SELECT r FROM Remito r WHERE r.estado = :estado AND r.fecha IS NULL AND r.id < :id ORDER BY r.id DESC")
+    List<Remito> buscarPorEstadoSinFechaAntesDe(@Param("estado") EstadoRemito estado, @Param("id") Long id,
+            Pageable limite);
+
+    /**
+     * Remitos a imputar en un cobro. OPTIMISTIC_FORCE_INCREMENT sube la versión aunque el estado
+     * no cambie (cobro parcial): dos cobros simultáneos sobre el mismo remito no pueden confirmar ambos.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT r FROM Remito r WHERE r.id IN :ids")
+    List<Remito> buscarParaCobro(@Param("ids") Collection<Long> ids);
+
+    /** Remito con cliente, ítems y productos en una consulta (detalle, PDF, edición). */
+    @EntityGraph("Remito.detalle")
+    Optional<Remito> findDetalleById(Long id);
+
+    /** Número y versión para el cache de PDF: toda modificación del remito sube la versión. */
+    @Query("SELECT new com.example.Sistema_Gestion.dto.VersionPdf(r.numero, CAST(COALESCE(r.version, 0) AS String)) " +
+            "FROM Remito r WHERE r.id = :id")
+    Optional<VersionPdf> versionPdf(@Param("id") Long id);
+
+    /** Nombres de los productos de los ítems, como se imprimen en el PDF (cambian sin tocar el remito). */
+    @Query("SELECT p.nombre FROM RemitoItem ri LEFT JOIN ri.producto p WHERE ri.remito.id = :id ORDER BY ri.id")
+    List<String> nombresProductos(@Param("id") Long id);
+
+    @EntityGraph("Remito.detalle")
     List<Remito> findByEstadoOrderByFechaDesc(EstadoRemito estado);
 
-    List<Remito> findByClienteIdOrderByFechaDesc(Long clienteId);
+    /*
+     * Exportación en lote: ids por cursor sobre id ascendente con filtros opcionales (null = todos);
+     * cada lote se carga después completo con findDetalleByIdInOrderByIdAsc.
+     */
+    @Query("SELECT r.id FROM Remito r WHERE r.id > :despuesDe " +
+            "AND (:clienteId IS NULL OR r.cliente.id = :clienteId) AND (:estado IS NULL OR r.estado = :estado) " +
+            "AND (:desde IS NULL OR r.fecha >= :desde) AND (:hasta IS NULL OR r.fecha <= :hasta) ORDER BY r.id")
+    List<Long> idsParaExportar(@Param("despuesDe") Long despuesDe, @Param("clienteId") Long clienteId,
+            @Param("estado") EstadoRemito estado, @Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta,
+            Pageable limite);
+
+    @EntityGraph("Remito.detalle")
+    List<Remito> findDetalleByIdInOrderByIdAsc(Collection<Long> ids);
 
+    /** Sólo cabeceras (cuenta corriente). */
     List<Remito> findByClienteIdAndEstadoOrderByFechaDesc(Long clienteId, EstadoRemito estado);
 
+    /** Listado de remitos del cliente en una consulta, sin entidades ni ítems. */
+    @Query("SELECT new com.example.Sistema_Gestion.dto.RemitoListView(r.id, r.numero, r.fecha, c.id, " +
+            "COALESCE(c.nombre, r.clienteNombre), r.total, r.estado, r.observaciones, SIZE(r.items)) " +
+            "FROM Remito r JOIN r.cliente c WHERE c.id = :clienteId ORDER BY r.fecha DESC, r.id DESC")
+    List<RemitoListView> listarVistaPorCliente(@Param("clienteId") Long clienteId);
+
+    @Query("SELECT new com.example.Sistema_Gestion.dto.RemitoListView(r.id, r.numero, r.fecha, c.id, " +
+            "COALESCE(c.nombre, r.clienteNombre), r.total, r.estado, r.observaciones, SIZE(r.items)) " +
+            "FROM Remito r JOIN r.cliente c WHERE c.id = :clienteId AND r.estado = :estado ORDER BY r.fecha DESC, r.id DESC")
+    List<RemitoListView> listarVistaPorClienteYEstado(@Param("clienteId") Long clienteId, @Param("estado") EstadoRemito estado);
+
     @Query("SELECT COALESCE(SUM(r.total), 0) FROM Remito r WHERE r.cliente.id = :clienteId AND r.estado IN ('VALORIZADO', 'COBRADO')")
     java.math.BigDecimal totalContabilizadoPorCliente(@Param("clienteId") Long clienteId);
 
     @Query("SELECT COALESCE(SUM(r.total), 0) FROM Remito r WHERE r.cliente.id = :clienteId AND r.estado = 'VALORIZADO'")
     java.math.BigDecimal totalValorizadoPorClientePendiente(@Param("clienteId") Long clienteId);
+
+    /** [clienteId, total] de remitos contabilizados, agrupado por cliente (conciliación de saldos) */
+    @Query("SELECT r.cliente.id, COALESCE(SUM(r.total), 0) FROM Remito r WHERE r.cliente IS NOT NULL AND r.estado IN ('VALORIZADO', 'COBRADO') GROUP BY r.cliente.id")
+    List<Object[]> totalContabilizadoAgrupadoPorCliente();
+
+    /** [fecha, total] de remitos contabilizados, agrupado por día (reconstrucción de ventas_diarias) */
+    @Query("SELECT r.fecha, COALESCE(SUM(r.total), 0) FROM Remito r WHERE r.fecha IS NOT NULL AND r.estado IN ('VALORIZADO', 'COBRADO') GROUP BY r.fecha")
+    List<Object[]> totalContabilizadoAgrupadoPorFecha();
 }
@@ -0,0 +1,38 @@
+package com.example.Sistema_Gestion.repository;
+
+import com.example.Sistema_Gestion.model.SaldoCliente;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface SaldoClienteRepository extends JpaRepository<SaldoCliente, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SaldoCliente s WHERE s.clienteId = :clienteId")
+    Optional<SaldoCliente> findByClienteIdForUpdate(@Param("clienteId") Long clienteId);
+
+    /**
+     * Crea la fila del cliente en cero si no existe. Si otra transacción la está creando, espera su commit
+     * y no inserta nada (INSERT IGNORE, sin error de clave duplicada). Devuelve 1 si la insertó.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO saldo_cliente (cliente_id, saldo, updated_at) VALUES (:clienteId, 0, :ahora)",
+            nativeQuery = true)
+    int insertarSiNoExiste(@Param("clienteId") Long clienteId, @Param("ahora") LocalDateTime ahora);
+
+    /** Suma el delta sobre el saldo actual. Devuelve 0 si el cliente todavía no tiene fila. */
+    @Modifying
+    @Query("UPDATE SaldoCliente s SET s.saldo = s.saldo + :delta, s.updatedAt = :ahora WHERE s.clienteId = :clienteId")
+    int sumarSaldo(@Param("clienteId") Long clienteId,
+                   @Param("delta") BigDecimal delta,
+                   @Param("ahora") LocalDateTime ahora);
+}
@@ -0,0 +1,36 @@
+package com.example.Sistema_Gestion.repository;
+
+import com.example.Sistema_Gestion.model.VentasDiarias;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Repository
+public interface VentasDiariasRepository extends JpaRepository<VentasDiarias, LocalDate> {
+
+    /**
+     * Suma los deltas sobre la fila del día, creándola si no existe (atómico en MySQL).
+     * Usa el alias de fila de MySQL 8.0.19+; VALUES(col) en ON DUPLICATE KEY está deprecado.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ventas_diarias (fecha, total_ventas, total_cobrado) VALUES (:fecha, :ventas, :cobrado) AS nuevo " +
+            "ON DUPLICATE KEY UPDATE total_ventas = total_ventas + nuevo.total_ventas, " +
+            "total_cobrado = total_cobrado + nuevo.total_cobrado", nativeQuery = true)
+    void sumar(@Param("fecha") LocalDate fecha,
+               @Param("ventas") BigDecimal ventas,
+               @Param("cobrado") BigDecimal cobrado);
+
+    @Query("SELECT COALESCE(SUM(v.totalVentas), 0) FROM VentasDiarias v WHERE v.fecha BETWEEN :desde AND :hasta")
+    BigDecimal totalVentasEntre(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    @Query("SELECT COALESCE(SUM(v.totalVentas), 0) FROM VentasDiarias v WHERE v.fecha >= :desde")
+    BigDecimal totalVentasDesde(@Param("desde") LocalDate desde);
+
+    @Query("SELECT COALESCE(SUM(v.totalVentas), 0) - COALESCE(SUM(v.totalCobrado), 0) FROM VentasDiarias v")
+    BigDecimal cuentasPorCobrar();
+}
@@ -2,6 +2,7 @@ package com.example.Sistema_Gestion.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -20,9 +21,18 @@ public class JwtUtils {
 
     private final int jwtExpirationMs = 86400000; // 24 horas
 
+    // Clave y parser son inmutables y thread-safe: se arman una sola vez
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecretString.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
+    }
+
     private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecretString.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
     public String generateJwtToken(UserDetails userPrincipal) {
@@ -35,21 +45,25 @@ public class JwtUtils {
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
+        return parser.parseSignedClaims(token)
                 .getPayload()
                 .getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
+        return getUserNameFromValidToken(authToken) != null;
+    }
+
+    /**
+     * Valida el token y devuelve el usuario en un solo parseo (camino del filtro por request).
+     * Devuelve null si el token es inválido o expiró.
+     */
+    public String getUserNameFromValidToken(String authToken) {
         try {
-            Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(authToken);
-            return true;
+            return parser.parseSignedClaims(authToken).getPayload().getSubject();
         } catch (JwtException | IllegalArgumentException e) {
             log.warn("Token JWT inválido [{}]: {}", e.getClass().getSimpleName(), e.getMessage());
         }
-        return false;
+        return null;
     }
 }
@@ -2,7 +2,13 @@ package com.example.Sistema_Gestion.service;
 
 import com.example.Sistema_Gestion.model.*;
 import com.example.Sistema_Gestion.repository.*;
+import com.example.Sistema_Gestion.dto.CobroResumenView;
 import com.example.Sistema_Gestion.dto.MovimientoDto;
+import com.example.Sistema_Gestion.dto.PaginaCursor;
+import com.example.Sistema_Gestion.dto.VersionPdf;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,10 +38,13 @@ public class CobroService {
     private final RemitoService remitoService;
     private final TesoreriaService tesoreriaService;
     private final ClienteRepository clienteRepository;
-    private final ConfiguracionService configuracionService;
+    private final PdfRecursosService pdfRecursosService;
     private final NotaRepository notaRepository;
     private final CobroNotaRepository cobroNotaRepository;
     private final NotaService notaService;
+    private final SaldoClienteService saldoClienteService;
+    private final VentasDiariasService ventasDiariasService;
+    private final ReintentoConcurrencia reintentoConcurrencia;
 
     public CobroService(CobroRepository cobroRepository,
             CobroRemitoRepository cobroRemitoRepository,
@@ -43,20 +52,54 @@ public class CobroService {
             RemitoService remitoService,
             TesoreriaService tesoreriaService,
             ClienteRepository clienteRepository,
-            ConfiguracionService configuracionService,
+            PdfRecursosService pdfRecursosService,
             NotaRepository notaRepository,
             CobroNotaRepository cobroNotaRepository,
-            NotaService notaService) {
+            NotaService notaService,
+            SaldoClienteService saldoClienteService,
+            VentasDiariasService ventasDiariasService,
+            ReintentoConcurrencia reintentoConcurrencia) {
         this.cobroRepository = cobroRepository;
         this.cobroRemitoRepository = cobroRemitoRepository;
         this.remitoRepository = remitoRepository;
         this.remitoService = remitoService;
         this.tesoreriaService = tesoreriaService;
         this.clienteRepository = clienteRepository;
-        this.configuracionService = configuracionService;
+        this.pdfRecursosService = pdfRecursosService;
         this.notaRepository = notaRepository;
         this.cobroNotaRepository = cobroNotaRepository;
         this.notaService = notaService;
+        this.saldoClienteService = saldoClienteService;
+        this.ventasDiariasService = ventasDiariasService;
+        this.reintentoConcurrencia = reintentoConcurrencia;
+    }
+
+    /**
+     * {@link #registrarCobro} en su propia transacción, repetido si otro cobro simultáneo modificó
+     * los mismos remitos o notas (conflicto de versión). Cada intento vuelve a validar los estados.
+     */
+    public Cobro registrarCobroConReintentos(
+            Cobro cobro,
+            Map<Long, BigDecimal> importesPorRemito,
+            Map<Long, BigDecimal> importesPorNotaDebito,
+            List<CobroMedioPago> mediosPago) {
+        return reintentoConcurrencia.ejecutar("Registrar cobro",
+                () -> registrarCobro(cobro, importesPorRemito, importesPorNotaDebito, mediosPago),
+                () -> descartarIntento(cobro, mediosPago));
+    }
+
+    /** Quita lo que asignó el intento que hizo rollback (ids y colecciones) para volver a persistir. */
+    private void descartarIntento(Cobro cobro, List<CobroMedioPago> mediosPago) {
+        cobro.setId(null);
+        cobro.setRemitos(new ArrayList<>());
+        cobro.setNotas(new ArrayList<>());
+        cobro.setMediosPago(new ArrayList<>());
+        if (mediosPago != null) {
+            for (CobroMedioPago medio : mediosPago) {
+                medio.setId(null);
+                medio.setCobro(null);
+            }
+        }
     }
 
     /**
@@ -88,8 +131,9 @@ public class CobroService {
                     .reduce(BigDecimal.ZERO, BigDecimal::add);
 
             if (saldoUsado.compareTo(BigDecimal.ZERO) > 0) {
-                // El saldo bruto es la cuenta corriente dinámica (negativo = a favor)
-                BigDecimal saldoBruto = calcularSaldoCliente(cobro.getCliente().getId());
+                // El saldo bruto es la cuenta corriente (negativo = a favor). Se bloquea la fila
+                // para que dos cobros simultáneos no consuman el mismo saldo a favor.
+                BigDecimal saldoBruto = saldoClienteService.bloquearSaldo(cobro.getCliente().getId());
 
                 // Calculamos el total de deuda (remitos) que se están cubriendo en ESTE pago
                 BigDecimal totalRemitosCobrados = importesPorRemito != null ? importesPorRemito.values().stream()
@@ -139,14 +183,22 @@ public class CobroService {
         // 2. Persistir el cobro principal
         Cobro savedCobro = cobroRepository.save(cobro);
 
-        // Distribuir el cobro entre los remitos indicados
-        if (importesPorRemito != null) {
+        // Distribuir el cobro entre los remitos indicados: los remitos y lo ya cobrado de cada uno
+        // se leen con una consulta por tabla; los estados se cambian en memoria y se guardan en el flush final
+        if (importesPorRemito != null && !importesPorRemito.isEmpty()) {
+            Map<Long, Remito> remitos = remitoRepository.buscarParaCobro(importesPorRemito.keySet()).stream()
+                    .collect(Collectors.toMap(Remito::getId, r -> r));
+            Map<Long, BigDecimal> yaCobrado = totalesPorId(
+                    cobroRemitoRepository.totalCobradoAgrupadoPorRemito(importesPorRemito.keySet()));
+
             for (Map.Entry<Long, BigDecimal> entry : importesPorRemito.entrySet()) {
                 Long remitoId = entry.getKey();
                 BigDecimal importe = entry.getValue();
 
-                Remito remito = remitoRepository.findById(remitoId)
-                        .orElseThrow(() -> new RuntimeException("Remito no encontrado: " + remitoId));
+                Remito remito = remitos.get(remitoId);
+                if (remito == null) {
+                    throw new RuntimeException("Remito no encontrado: " + remitoId);
+                }
 
                 if (remito.getEstado() != Remito.EstadoRemito.VALORIZADO) {
                     throw new IllegalStateException(
@@ -160,23 +212,27 @@ public class CobroService {
                 cobroRemito.setImporte(importe);
                 savedCobro.getRemitos().add(cobroRemito);
 
-                // Calcular total cobrado acumulado en este remito
-                BigDecimal yaCobradobAntes = cobroRemitoRepository.totalCobradoPorRemito(remitoId);
-                BigDecimal totalCobradoAhora = yaCobradobAntes.add(importe);
-
                 // Actualizar estado del remito si quedó saldado
-                remitoService.actualizarEstadoPostCobro(remito, totalCobradoAhora);
+                BigDecimal totalCobradoAhora = yaCobrado.getOrDefault(remitoId, BigDecimal.ZERO).add(importe);
+                remitoService.aplicarEstadoPostCobro(remito, totalCobradoAhora);
             }
         }
 
-        // Distribuir el cobro entre las notas de débito indicadas
-        if (importesPorNotaDebito != null) {
+        // Distribuir el cobro entre las notas de débito indicadas (mismo esquema que los remitos)
+        if (importesPorNotaDebito != null && !importesPorNotaDebito.isEmpty()) {
+            Map<Long, Nota> notas = notaRepository.buscarParaCobro(importesPorNotaDebito.keySet()).stream()
+                    .collect(Collectors.toMap(Nota::getId, n -> n));
+            Map<Long, BigDecimal> yaCobrado = totalesPorId(
+                    cobroNotaRepository.totalCobradoAgrupadoPorNota(importesPorNotaDebito.keySet()));
+
             for (Map.Entry<Long, BigDecimal> entry : importesPorNotaDebito.entrySet()) {
                 Long notaId = entry.getKey();
                 BigDecimal importe = entry.getValue();
 
-                Nota nota = notaRepository.findById(notaId)
-                        .orElseThrow(() -> new RuntimeException("Nota no encontrada: " + notaId));
+                Nota nota = notas.get(notaId);
+                if (nota == null) {
+                    throw new RuntimeException("Nota no encontrada: " + notaId);
+                }
 
                 if (nota.getEstado() != Nota.EstadoNota.PENDIENTE) {
                     throw new IllegalStateException(
@@ -189,14 +245,13 @@ public class CobroService {
                 cobroNota.setImporte(importe);
                 savedCobro.getNotas().add(cobroNota);
 
-                BigDecimal yaCobradoAntes = cobroNotaRepository.totalCobradoPorNota(notaId);
-                BigDecimal totalCobradoAhora = yaCobradoAntes.add(importe);
-
-                notaService.actualizarEstadoPostCobro(nota, totalCobradoAhora);
+                BigDecimal totalCobradoAhora = yaCobrado.getOrDefault(notaId, BigDecimal.ZERO).add(importe);
+                notaService.aplicarEstadoPostCobro(nota, totalCobradoAhora);
             }
         }
 
-        // 4. Registrar los medios de pago y movimientos de tesorería
+        // 4. Registrar los medios de pago y movimientos de tesorería (se guardan juntos al final)
+        List<MovimientoTesoreria> movimientos = new ArrayList<>();
         if (mediosPago != null) {
             for (CobroMedioPago medio : mediosPago) {
                 medio.setCobro(savedCobro);
@@ -245,16 +300,52 @@ public class CobroService {
                         }
                     }
 
-                    tesoreriaService.registrarMovimiento(mov);
+                    movimientos.add(mov);
                 }
             }
         }
+        if (!movimientos.isEmpty()) {
+            tesoreriaService.registrarMovimientos(movimientos);
+        }
+
+        Cobro resultado = cobroRepository.save(savedCobro);
+        if (resultado.getCliente() != null) {
+            saldoClienteService.registrarMovimiento(resultado.getCliente().getId(), saldoClienteService.impacto(resultado));
+        }
+        ventasDiariasService.registrarCobro(resultado.getFecha(), resultado.getTotalCobrado());
+        return resultado;
+    }
+
+    /** Convierte filas [id, total] de una consulta agrupada en un mapa id -> total. */
+    private Map<Long, BigDecimal> totalesPorId(List<Object[]> filas) {
+        Map<Long, BigDecimal> totales = new HashMap<>();
+        for (Object[] fila : filas) {
+            totales.put((Long) fila[0], (BigDecimal) fila[1]);
+        }
+        return totales;
+    }
 
-        return cobroRepository.save(savedCobro);
+    public List<CobroResumenView> listarPorCliente(Long clienteId) {
+        return cobroRepository.listarVistaPorCliente(clienteId);
     }
 
-    public List<Cobro> listarPorCliente(Long clienteId) {
-        return cobroRepository.findByClienteIdOrderByFechaDesc(clienteId);
+    /** Listado por cursor (fecha, id) descendente; {@code clienteId} es opcional. */
+    public PaginaCursor<CobroResumenView> listarPorCursor(String cursor, Integer limite, Long clienteId) {
+        int tamanio = PaginaCursor.limitar(limite);
+        PaginaCursor.Posicion desde = PaginaCursor.Posicion.decodificar(cursor);
+        Pageable filas = PageRequest.of(0, tamanio + 1);
+
+        List<CobroResumenView> cobros;
+        if (clienteId == null) {
+            cobros = desde == null
+                    ? cobroRepository.listarVista(filas)
+                    : cobroRepository.listarVistaAntesDe(desde.getFechaComoDia(), desde.getId(), filas);
+        } else {
+            cobros = desde == null
+                    ? cobroRepository.listarVistaPorCliente(clienteId, filas)
+                    : cobroRepository.listarVistaPorClienteAntesDe(clienteId, desde.getFechaComoDia(), desde.getId(), filas);
+        }
+        return PaginaCursor.de(cobros, tamanio, c -> new PaginaCursor.Posicion(c.getFecha(), c.getId()));
     }
 
     /**
@@ -325,22 +416,32 @@ public class CobroService {
         }
     }
 
+    @Transactional(readOnly = true)
     public Optional<Cobro> buscarPorId(Long id) {
-        return cobroRepository.findById(id);
+        Optional<Cobro> cobro = cobroRepository.findDetalleById(id);
+        cobro.ifPresent(this::completarDetalle);
+        return cobro;
+    }
+
+    /**
+     * Inicializa medios de pago y notas (el grafo "Cobro.detalle" sólo trae remitos, Hibernate no
+     * permite más de una lista por join). Con @BatchSize, varios cobros se completan en pocas consultas.
+     */
+    private void completarDetalle(Cobro cobro) {
+        Hibernate.initialize(cobro.getMediosPago());
+        Hibernate.initialize(cobro.getNotas());
+        for (CobroNota cn : cobro.getNotas()) {
+            Hibernate.initialize(cn.getNota());
+        }
     }
 
     /**
      * Devuelve el saldo pendiente de un cliente:
-     * total de remitos (VALORIZADO o COBRADO) - total cobrado efectivamente.
+     * total de remitos (VALORIZADO o COBRADO) + notas de débito - total cobrado - notas de crédito.
+     * Se lee de la cuenta corriente materializada (saldo_cliente).
      */
     public BigDecimal calcularSaldoCliente(Long clienteId) {
-        BigDecimal deudaTotal = remitoRepository.totalContabilizadoPorCliente(clienteId);
-        BigDecimal totalCobrado = cobroRepository.totalCobradoPorCliente(clienteId);
-
-        BigDecimal notasDebito = notaRepository.totalDebitoPorCliente(clienteId);
-        BigDecimal notasCredito = notaRepository.totalCreditoPorCliente(clienteId);
-
-        return deudaTotal.add(notasDebito).subtract(totalCobrado).subtract(notasCredito);
+        return saldoClienteService.obtenerSaldo(clienteId);
     }
 
     @Transactional
@@ -350,13 +451,19 @@ public class CobroService {
                 return true; // Ya anulado
             }
 
+            BigDecimal impactoAnterior = saldoClienteService.impacto(cobro);
+            BigDecimal importeCobro = cobro.getTotalCobrado() != null ? cobro.getTotalCobrado() : BigDecimal.ZERO;
             cobro.setAnulado(true);
             cobroRepository.save(cobro);
+            if (cobro.getCliente() != null) {
+                saldoClienteService.registrarMovimiento(cobro.getCliente().getId(), impactoAnterior.negate());
+            }
+            ventasDiariasService.registrarCobro(cobro.getFecha(), importeCobro.negate());
 
             // 1. Revertir impacto en Saldo a Favor del cliente (AF-09)
             if (cobro.getCliente() != null && cobro.getCliente().getId() != null) {
                 // Recalcular el excedente original que se acreditó
-                BigDecimal sumaAplicadaRemitos = cobro.getTotalCobrado();
+                BigDecimal sumaAplicadaRemitos = importeCobro;
                 BigDecimal deudaTotalCubierta = cobro.getRemitos().stream()
                         .map(cr -> cr.getRemito().getTotal() != null ? cr.getRemito().getTotal() : BigDecimal.ZERO)
                         .reduce(BigDecimal.ZERO, BigDecimal::add);
@@ -386,391 +493,345 @@ public class CobroService {
         }).orElse(false);
     }
 
+    /** Resumen para el dashboard, calculado sobre los acumulados de ventas_diarias. */
     public Map<String, Object> getDashboardSummary() {
-        LocalDate hoy = LocalDate.now();
-        LocalDate haceUnaSemana = hoy.minusDays(7);
-        LocalDate inicioMes = hoy.withDayOfMonth(1);
-
-        List<Remito> remitoss = remitoRepository.findAll();
-
-        // 1. Calcular Cuentas por Cobrar Total (ARS)
-        BigDecimal deudaTotal = remitoss.stream()
-                .filter(r -> r.getEstado() == Remito.EstadoRemito.VALORIZADO
-                        || r.getEstado() == Remito.EstadoRemito.COBRADO)
-                .map(r -> r.getTotal() != null ? r.getTotal() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal cobradoTotal = cobroRepository.findAll().stream()
-                .filter(c -> c.getAnulado() != null && !c.getAnulado())
-                .map(c -> c.getTotalCobrado() != null ? c.getTotalCobrado() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal cuentasPorCobrar = deudaTotal.subtract(cobradoTotal);
-
-        // 2. Métricas de Ventas por Período
-        BigDecimal ventasHoy = remitoss.stream()
-                .filter(r -> r.getFecha() != null && r.getFecha().isEqual(hoy))
-                .map(r -> r.getTotal() != null ? r.getTotal() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal ventasSemana = remitoss.stream()
-                .filter(r -> r.getFecha() != null && !r.getFecha().isBefore(haceUnaSemana))
-                .map(r -> r.getTotal() != null ? r.getTotal() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal ventasMes = remitoss.stream()
-                .filter(r -> r.getFecha() != null && !r.getFecha().isBefore(inicioMes))
-                .map(r -> r.getTotal() != null ? r.getTotal() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        Map<String, Object> summary = new HashMap<>();
-        summary.put("cuentasPorCobrar", cuentasPorCobrar);
-        summary.put("ventasHoy", ventasHoy);
-        summary.put("ventasSemana", ventasSemana);
-        summary.put("ventasMes", ventasMes);
-
-        return summary;
+        return ventasDiariasService.getDashboardSummary();
     }
 
     // =================== PDF: RECIBO DE COBRO ===================
 
-    public void generarPdfRecibo(Long cobroId, java.io.OutputStream os, byte[] logoBytes) throws Exception {
-        Cobro cobro = cobroRepository.findById(cobroId)
+    /** Marca de versión del recibo para servirlo desde el cache sin cargar el cobro. */
+    public Optional<VersionPdf> versionPdfRecibo(Long cobroId) {
+        return cobroRepository.versionPdf(cobroId);
+    }
+
+    @Transactional(readOnly = true)
+    public void generarPdfRecibo(Long cobroId, java.io.OutputStream os) throws java.io.IOException {
+        Cobro cobro = cobroRepository.findDetalleById(cobroId)
                 .orElseThrow(() -> new RuntimeException("Cobro no encontrado: " + cobroId));
 
         try (org.apache.pdfbox.pdmodel.PDDocument doc = new org.apache.pdfbox.pdmodel.PDDocument()) {
-            org.apache.pdfbox.pdmodel.PDPage page = new org.apache.pdfbox.pdmodel.PDPage(
-                    org.apache.pdfbox.pdmodel.common.PDRectangle.A4);
-            doc.addPage(page);
-            org.apache.pdfbox.pdmodel.PDPageContentStream cs = new org.apache.pdfbox.pdmodel.PDPageContentStream(doc,
-                    page);
-
-            float w = page.getMediaBox().getWidth();
-            float h = page.getMediaBox().getHeight();
-            float margin = 40f;
-            float y = h - margin;
-
-            // ----- LOGO -----
-            if (logoBytes != null) {
-                try {
-                    org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject logo = org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject
-                            .createFromByteArray(doc, logoBytes, "logo");
-                    cs.drawImage(logo, margin, y - 120, 140, 140);
-                } catch (Exception ignored) {
-                }
-            }
+            agregarPaginasRecibo(doc, cobro);
+            doc.save(os);
+        }
+    }
 
-            // ----- ENCABEZADO -----
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 22);
-            cs.newLineAtOffset(w / 2f - 70, y - 28);
-            cs.showText("RECIBO DE COBRO");
-            cs.endText();
+    /**
+     * Agrega el recibo al final de {@code doc} (PDF suelto o exportación en lote).
+     * Usa cliente, medios e imputaciones del cobro: tienen que estar cargados.
+     */
+    public void agregarPaginasRecibo(org.apache.pdfbox.pdmodel.PDDocument doc, Cobro cobro)
+            throws java.io.IOException {
+        agregarPaginasRecibo(doc, cobro, pdfRecursosService.crearLogo(doc));
+    }
 
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 13);
-            cs.newLineAtOffset(w / 2f - 30, y - 50);
-            cs.showText("RC-" + String.format("%05d", cobro.getId()));
-            cs.endText();
+    /** Igual, con el logo ya agregado a {@code doc} (null = sin logo), para varios recibos en un PDF. */
+    public void agregarPaginasRecibo(org.apache.pdfbox.pdmodel.PDDocument doc, Cobro cobro,
+            org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject logo) throws java.io.IOException {
+        org.apache.pdfbox.pdmodel.PDPage page = new org.apache.pdfbox.pdmodel.PDPage(
+                org.apache.pdfbox.pdmodel.common.PDRectangle.A4);
+        doc.addPage(page);
+        org.apache.pdfbox.pdmodel.PDPageContentStream cs = new org.apache.pdfbox.pdmodel.PDPageContentStream(doc,
+                page);
 
-            String fecha = cobro.getFecha() != null
-                    ? cobro.getFecha().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy"))
-                    : java.time.LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 10);
-            cs.newLineAtOffset(w - margin - 100, y - 28);
-            cs.showText("Fecha: " + fecha);
-            cs.endText();
+        float w = page.getMediaBox().getWidth();
+        float h = page.getMediaBox().getHeight();
+        float margin = 40f;
+        float y = h - margin;
 
-            // Línea separadora
-            y -= 150;
-            cs.setLineWidth(1f);
-            cs.moveTo(margin, y);
-            cs.lineTo(w - margin, y);
-            cs.stroke();
+        // ----- LOGO -----
+        pdfRecursosService.dibujarLogo(logo, cs, margin, y);
 
-            // ----- EMPRESA -----
-            y -= 22;
-            com.example.Sistema_Gestion.model.Configuracion config = configuracionService.getConfiguracion();
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 10);
-            cs.newLineAtOffset(margin, y);
-            cs.showText(config.getNombreEmpresa() != null ? config.getNombreEmpresa() : "Mi Comercio");
-            cs.endText();
+        // ----- ENCABEZADO -----
+        cs.beginText();
+        cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 22);
+        cs.newLineAtOffset(w / 2f - 70, y - 28);
+        cs.showText("RECIBO DE COBRO");
+        cs.endText();
 
-            y -= 14;
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 8);
-            cs.newLineAtOffset(margin, y);
-            cs.showText("CUIL: " + (config.getCuit() != null ? config.getCuit() : "—"));
-            cs.endText();
+        cs.beginText();
+        cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 13);
+        cs.newLineAtOffset(w / 2f - 30, y - 50);
+        cs.showText("RC-" + String.format("%05d", cobro.getId()));
+        cs.endText();
 
-            y -= 12;
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 8);
-            cs.newLineAtOffset(margin, y);
-            cs.showText("Dirección: " + (config.getDireccion() != null ? config.getDireccion() : "—"));
-            cs.endText();
+        String fecha = cobro.getFecha() != null
+                ? cobro.getFecha().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy"))
+                : java.time.LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+        cs.beginText();
+        cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 10);
+        cs.newLineAtOffset(w - margin - 100, y - 28);
+        cs.showText("Fecha: " + fecha);
+        cs.endText();
 
-            // ----- CLIENTE -----
-            y -= 25;
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 11);
-            cs.newLineAtOffset(margin, y);
-            cs.showText("DATOS DEL CLIENTE");
-            cs.endText();
+        // Línea separadora
+        y -= 150;
+        cs.setLineWidth(1f);
+        cs.moveTo(margin, y);
+        cs.lineTo(w - margin, y);
+        cs.stroke();
 
-            y -= 18;
-            String clienteNombre = cobro.getCliente() != null ? cobro.getCliente().getNombre() : "—";
-            String clienteCuit = (cobro.getCliente() != null && cobro.getCliente().getDocumento() != null)
-                    ? cobro.getCliente().getDocumento()
-                    : "—";
-            drawLabelValue(cs, margin, y, "Cliente:", clienteNombre);
-            y -= 16;
-            drawLabelValue(cs, margin, y, "CUIT:", clienteCuit);
+        // ----- EMPRESA -----
+        y -= 22;
+        y = pdfRecursosService.dibujarEmpresa(cs, margin, y, 8, "Mi Comercio");
 
-            // Línea separadora
-            y -= 18;
-            cs.setLineWidth(0.5f);
-            cs.moveTo(margin, y);
-            cs.lineTo(w - margin, y);
-            cs.stroke();
+        // ----- CLIENTE -----
+        y -= 25;
+        cs.beginText();
+        cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 11);
+        cs.newLineAtOffset(margin, y);
+        cs.showText("DATOS DEL CLIENTE");
+        cs.endText();
 
-            // ----- DETALLE DE VALORES RECIBIDOS -----
-            y -= 20;
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 11);
-            cs.newLineAtOffset(margin, y);
-            cs.showText("VALORES RECIBIDOS");
-            cs.endText();
+        y -= 18;
+        String clienteNombre = cobro.getCliente() != null ? cobro.getCliente().getNombre() : "—";
+        String clienteCuit = (cobro.getCliente() != null && cobro.getCliente().getDocumento() != null)
+                ? cobro.getCliente().getDocumento()
+                : "—";
+        drawLabelValue(cs, margin, y, "Cliente:", clienteNombre);
+        y -= 16;
+        drawLabelValue(cs, margin, y, "CUIT:", clienteCuit);
+
+        // Línea separadora
+        y -= 18;
+        cs.setLineWidth(0.5f);
+        cs.moveTo(margin, y);
+        cs.lineTo(w - margin, y);
+        cs.stroke();
+
+        // ----- DETALLE DE VALORES RECIBIDOS -----
+        y -= 20;
+        cs.beginText();
+        cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 11);
+        cs.newLineAtOffset(margin, y);
+        cs.showText("VALORES RECIBIDOS");
+        cs.endText();
 
-            // Cabecera tabla
-            y -= 20;
-            cs.setNonStrokingColor(new java.awt.Color(230, 230, 230));
-            cs.addRect(margin, y - 18, w - 2 * margin, 18);
-            cs.fill();
-            cs.setNonStrokingColor(java.awt.Color.BLACK);
-            cs.setLineWidth(0.4f);
-            cs.addRect(margin, y - 18, w - 2 * margin, 18);
-            cs.stroke();
+        // Cabecera tabla
+        y -= 20;
+        cs.setNonStrokingColor(new java.awt.Color(230, 230, 230));
+        cs.addRect(margin, y - 18, w - 2 * margin, 18);
+        cs.fill();
+        cs.setNonStrokingColor(java.awt.Color.BLACK);
+        cs.setLineWidth(0.4f);
+        cs.addRect(margin, y - 18, w - 2 * margin, 18);
+        cs.stroke();
 
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 9);
-            cs.newLineAtOffset(margin + 5, y - 13);
-            cs.showText("Medio");
-            cs.endText();
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 9);
-            cs.newLineAtOffset(margin + 120, y - 13);
-            cs.showText("Detalle");
-            cs.endText();
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 9);
-            cs.newLineAtOffset(w - margin - 80, y - 13);
-            cs.showText("Importe");
-            cs.endText();
+        cs.beginText();
+        cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 9);
+        cs.newLineAtOffset(margin + 5, y - 13);
+        cs.showText("Medio");
+        cs.endText();
+        cs.beginText();
+        cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 9);
+        cs.newLineAtOffset(margin + 120, y - 13);
+        cs.showText("Detalle");
+        cs.endText();
+        cs.beginText();
+        cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 9);
+        cs.newLineAtOffset(w - margin - 80, y - 13);
+        cs.showText("Importe");
+        cs.endText();
 
-            y -= 18;
-            if (cobro.getMediosPago() != null) {
-                for (com.example.Sistema_Gestion.model.CobroMedioPago mp : cobro.getMediosPago()) {
-                    cs.setLineWidth(0.2f);
-                    cs.addRect(margin, y - 16, w - 2 * margin, 16);
-                    cs.stroke();
-
-                    String rawMedio = mp.getMedio() != null ? mp.getMedio() : "EFECTIVO";
-                    String medioLabel = rawMedio;
-                    if ("EFECTIVO".equals(rawMedio))
-                        medioLabel = "Efectivo";
-                    else if ("TRANSFERENCIA".equals(rawMedio))
-                        medioLabel = "Transferencia";
-                    else if ("CHEQUE".equals(rawMedio))
-                        medioLabel = "Cheque";
-                    else if ("CHEQUE_ELECTRONICO".equals(rawMedio))
-                        medioLabel = "E-Cheque";
-                    else if ("MERCADO_PAGO".equals(rawMedio))
-                        medioLabel = "Mercado Pago";
-                    else if ("SALDO_A_FAVOR".equals(rawMedio))
-                        medioLabel = "Saldo a Favor";
-                    else if ("DOLAR_BILLETE".equals(rawMedio))
-                        medioLabel = "Dólar Billete";
-
-                    String detalleLabel = "";
-                    if (rawMedio.contains("CHEQUE")) {
-                        detalleLabel = "Banco: " + safe(mp.getBanco())
-                                + " | N°: " + safe(mp.getNumeroCheque())
-                                + " | Cobro: " + (mp.getFechaCobro() != null
-                                        ? mp.getFechaCobro()
-                                                .format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yy"))
-                                        : "—");
-                    } else if ("TRANSFERENCIA".equals(rawMedio)) {
-                        detalleLabel = "Transferencia bancaria";
-                    } else if ("SALDO_A_FAVOR".equals(rawMedio)) {
-                        detalleLabel = "Saldo acreditado de cobros anteriores";
-                    } else if ("DOLAR_BILLETE".equals(rawMedio)) {
-                        if (mp.getImporteUSD() != null && mp.getCotizacionBlue() != null) {
-                            detalleLabel = String.format("USD %.2f (Cotiz: $%.2f)", mp.getImporteUSD(), mp.getCotizacionBlue());
-                        } else {
-                            detalleLabel = "Pago en dólares físicos";
-                        }
+        y -= 18;
+        if (cobro.getMediosPago() != null) {
+            for (com.example.Sistema_Gestion.model.CobroMedioPago mp : cobro.getMediosPago()) {
+                cs.setLineWidth(0.2f);
+                cs.addRect(margin, y - 16, w - 2 * margin, 16);
+                cs.stroke();
+
+                String rawMedio = mp.getMedio() != null ? mp.getMedio() : "EFECTIVO";
+                String medioLabel = rawMedio;
+                if ("EFECTIVO".equals(rawMedio))
+                    medioLabel = "Efectivo";
+                else if ("TRANSFERENCIA".equals(rawMedio))
+                    medioLabel = "Transferencia";
+                else if ("CHEQUE".equals(rawMedio))
+                    medioLabel = "Cheque";
+                else if ("CHEQUE_ELECTRONICO".equals(rawMedio))
+                    medioLabel = "E-Cheque";
+                else if ("MERCADO_PAGO".equals(rawMedio))
+                    medioLabel = "Mercado Pago";
+                else if ("SALDO_A_FAVOR".equals(rawMedio))
+                    medioLabel = "Saldo a Favor";
+                else if ("DOLAR_BILLETE".equals(rawMedio))
+                    medioLabel = "Dólar Billete";
+
+                String detalleLabel = "";
+                if (rawMedio.contains("CHEQUE")) {
+                    detalleLabel = "Banco: " + safe(mp.getBanco())
+                            + " | N°: " + safe(mp.getNumeroCheque())
+                            + " | Cobro: " + (mp.getFechaCobro() != null
+                                    ? mp.getFechaCobro()
+                                            .format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yy"))
+                                    : "—");
+                } else if ("TRANSFERENCIA".equals(rawMedio)) {
+                    detalleLabel = "Transferencia bancaria";
+                } else if ("SALDO_A_FAVOR".equals(rawMedio)) {
+                    detalleLabel = "Saldo acreditado de cobros anteriores";
+                } else if ("DOLAR_BILLETE".equals(rawMedio)) {
+                    if (mp.getImporteUSD() != null && mp.getCotizacionBlue() != null) {
+                        detalleLabel = String.format("USD %.2f (Cotiz: $%.2f)", mp.getImporteUSD(), mp.getCotizacionBlue());
+                    } else {
+                        detalleLabel = "Pago en dólares físicos";
                     }
-
-                    cs.beginText();
-                    cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 9);
-                    cs.newLineAtOffset(margin + 5, y - 11);
-                    cs.showText(medioLabel);
-                    cs.endText();
-
-                    cs.beginText();
-                    cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 8);
-                    cs.newLineAtOffset(margin + 120, y - 11);
-                    cs.showText(detalleLabel);
-                    cs.endText();
-
-                    String importeStr = "$ " + (mp.getImporte() != null
-                            ? mp.getImporte().setScale(2, java.math.RoundingMode.HALF_UP).toPlainString()
-                            : "0.00");
-                    cs.beginText();
-                    cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 9);
-                    cs.newLineAtOffset(w - margin - 78, y - 11);
-                    cs.showText(importeStr);
-                    cs.endText();
-
-                    y -= 18;
                 }
+
+                cs.beginText();
+                cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 9);
+                cs.newLineAtOffset(margin + 5, y - 11);
+                cs.showText(medioLabel);
+                cs.endText();
+
+                cs.beginText();
+                cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 8);
+                cs.newLineAtOffset(margin + 120, y - 11);
+                cs.showText(detalleLabel);
+                cs.endText();
+
+                String importeStr = "$ " + (mp.getImporte() != null
+                        ? mp.getImporte().setScale(2, java.math.RoundingMode.HALF_UP).toPlainString()
+                        : "0.00");
+                cs.beginText();
+                cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 9);
+                cs.newLineAtOffset(w - margin - 78, y - 11);
+                cs.showText(importeStr);
+                cs.endText();
+
+                y -= 18;
             }
+        }
 
-            // Total cobrado
-            y -= 8;
-            cs.setLineWidth(1f);
-            cs.moveTo(margin, y);
-            cs.lineTo(w - margin, y);
-            cs.stroke();
-            y -= 18;
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 12);
-            cs.newLineAtOffset(w - margin - 200, y);
-            String totalStr = "TOTAL RECIBIDO: $ " + (cobro.getTotalCobrado() != null
-                    ? cobro.getTotalCobrado().setScale(2, java.math.RoundingMode.HALF_UP).toPlainString()
-                    : "0.00");
-            cs.showText(totalStr);
-            cs.endText();
+        // Total cobrado
+        y -= 8;
+        cs.setLineWidth(1f);
+        cs.moveTo(margin, y);
+        cs.lineTo(w - margin, y);
+        cs.stroke();
+        y -= 18;
+        cs.beginText();
+        cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 12);
+        cs.newLineAtOffset(w - margin - 200, y);
+        String totalStr = "TOTAL RECIBIDO: $ " + (cobro.getTotalCobrado() != null
+                ? cobro.getTotalCobrado().setScale(2, java.math.RoundingMode.HALF_UP).toPlainString()
+                : "0.00");
+        cs.showText(totalStr);
+        cs.endText();
 
-            // Monto en letras
-            y -= 16;
-            String enLetras = "Son pesos: " + montoEnLetras(cobro.getTotalCobrado());
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_OBLIQUE, 9);
-            cs.newLineAtOffset(margin, y);
-            cs.showText(enLetras);
-            cs.endText();
+        // Monto en letras
+        y -= 16;
+        String enLetras = "Son pesos: " + montoEnLetras(cobro.getTotalCobrado());
+        cs.beginText();
+        cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_OBLIQUE, 9);
+        cs.newLineAtOffset(margin, y);
+        cs.showText(enLetras);
+        cs.endText();
 
-            // Línea separadora
-            y -= 12;
-            cs.setLineWidth(0.5f);
-            cs.moveTo(margin, y);
-            cs.lineTo(w - margin, y);
-            cs.stroke();
+        // Línea separadora
+        y -= 12;
+        cs.setLineWidth(0.5f);
+        cs.moveTo(margin, y);
+        cs.lineTo(w - margin, y);
+        cs.stroke();
 
-            // ----- IMPUTACIÓN A REMITOS -----
-            y -= 20;
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 11);
-            cs.newLineAtOffset(margin, y);
-            cs.showText("APLICADO A / CANCELACIÓN DE DEUDA");
-            cs.endText();
+        // ----- IMPUTACIÓN A REMITOS -----
+        y -= 20;
+        cs.beginText();
+        cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 11);
+        cs.newLineAtOffset(margin, y);
+        cs.showText("APLICADO A / CANCELACIÓN DE DEUDA");
+        cs.endText();
 
-            y -= 18;
-            if (cobro.getRemitos() != null && !cobro.getRemitos().isEmpty()) {
-                for (com.example.Sistema_Gestion.model.CobroRemito cr : cobro.getRemitos()) {
-                    if (cr.getRemito() == null)
-                        continue;
-                    cs.setLineWidth(0.2f);
-                    cs.addRect(margin, y - 14, w - 2 * margin, 14);
-                    cs.stroke();
-                    cs.beginText();
-                    cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 9);
-                    cs.newLineAtOffset(margin + 5, y - 10);
-                    cs.showText("Remito N° " + cr.getRemito().getNumero());
-                    cs.endText();
-                    String montoImput = "$ " + (cr.getImporte() != null
-                            ? cr.getImporte().setScale(2, java.math.RoundingMode.HALF_UP).toPlainString()
-                            : "—");
-                    cs.beginText();
-                    cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 9);
-                    cs.newLineAtOffset(w - margin - 78, y - 10);
-                    cs.showText(montoImput);
-                    cs.endText();
-                    y -= 16;
-                }
-            } else {
+        y -= 18;
+        if (cobro.getRemitos() != null && !cobro.getRemitos().isEmpty()) {
+            for (com.example.Sistema_Gestion.model.CobroRemito cr : cobro.getRemitos()) {
+                if (cr.getRemito() == null)
+                    continue;
+                cs.setLineWidth(0.2f);
+                cs.addRect(margin, y - 14, w - 2 * margin, 14);
+                cs.stroke();
                 cs.beginText();
                 cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 9);
                 cs.newLineAtOffset(margin + 5, y - 10);
-                cs.showText("Pago a cuenta sin imputación específica");
+                cs.showText("Remito N° " + cr.getRemito().getNumero());
                 cs.endText();
-                y -= 16;
-            }
-
-            // Observaciones
-            if (cobro.getObservaciones() != null && !cobro.getObservaciones().isBlank()) {
-                y -= 10;
+                String montoImput = "$ " + (cr.getImporte() != null
+                        ? cr.getImporte().setScale(2, java.math.RoundingMode.HALF_UP).toPlainString()
+                        : "—");
                 cs.beginText();
                 cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 9);
-                cs.newLineAtOffset(margin, y);
-                cs.showText("Observaciones: ");
+                cs.newLineAtOffset(w - margin - 78, y - 10);
+                cs.showText(montoImput);
                 cs.endText();
-                y -= 13;
-                // Partir el texto en líneas para que no se salga del margen
-                String obsText = safe(cobro.getObservaciones());
-                int maxCharsPerLine = 95; // aprox para fuente 9 con el ancho A4
-                String[] words = obsText.split(" ");
-                StringBuilder currentLine = new StringBuilder();
-                java.util.List<String> obsLines = new java.util.ArrayList<>();
-                for (String word : words) {
-                    if (currentLine.length() + word.length() + 1 > maxCharsPerLine) {
-                        obsLines.add(currentLine.toString().trim());
-                        currentLine = new StringBuilder();
-                    }
-                    currentLine.append(word).append(" ");
-                }
-                if (currentLine.length() > 0) obsLines.add(currentLine.toString().trim());
-                cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 9);
-                for (String line : obsLines) {
-                    cs.beginText();
-                    cs.newLineAtOffset(margin + 5, y);
-                    cs.showText(line);
-                    cs.endText();
-                    y -= 12;
-                }
-                y -= 4;
+                y -= 16;
             }
-
-
-            // ----- FIRMA -----
-            y -= 40;
-            cs.moveTo(w - margin - 150, y - 2);
-            cs.lineTo(w - margin - 10, y - 2);
-            cs.stroke();
+        } else {
             cs.beginText();
             cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 9);
-            cs.newLineAtOffset(w - margin - 120, y - 14);
-            cs.showText("Firma / Sello empresa");
+            cs.newLineAtOffset(margin + 5, y - 10);
+            cs.showText("Pago a cuenta sin imputación específica");
             cs.endText();
+            y -= 16;
+        }
 
-            // Pie
+        // Observaciones
+        if (cobro.getObservaciones() != null && !cobro.getObservaciones().isBlank()) {
+            y -= 10;
             cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 7);
-            cs.newLineAtOffset(w / 2f - 130, 30);
-            cs.showText("DOCUMENTO NO VÁLIDO COMO FACTURA – Los cheques están sujetos a acreditación bancaria.");
+            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 9);
+            cs.newLineAtOffset(margin, y);
+            cs.showText("Observaciones: ");
             cs.endText();
-
-            cs.close();
-            doc.save(os);
+            y -= 13;
+            // Partir el texto en líneas para que no se salga del margen
+            String obsText = safe(cobro.getObservaciones());
+            int maxCharsPerLine = 95; // aprox para fuente 9 con el ancho A4
+            String[] words = obsText.split(" ");
+            StringBuilder currentLine = new StringBuilder();
+            java.util.List<String> obsLines = new java.util.ArrayList<>();
+            for (String word : words) {
+                if (currentLine.length() + word.length() + 1 > maxCharsPerLine) {
+                    obsLines.add(currentLine.toString().trim());
+                    currentLine = new StringBuilder();
+                }
+                currentLine.append(word).append(" ");
+            }
+            if (currentLine.length() > 0) obsLines.add(currentLine.toString().trim());
+            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 9);
+            for (String line : obsLines) {
+                cs.beginText();
+                cs.newLineAtOffset(margin + 5, y);
+                cs.showText(line);
+                cs.endText();
+                y -= 12;
+            }
+            y -= 4;
         }
+
+
+        // ----- FIRMA -----
+        y -= 40;
+        cs.moveTo(w - margin - 150, y - 2);
+        cs.lineTo(w - margin - 10, y - 2);
+        cs.stroke();
+        cs.beginText();
+        cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 9);
+        cs.newLineAtOffset(w - margin - 120, y - 14);
+        cs.showText("Firma / Sello empresa");
+        cs.endText();
+
+        // Pie
+        cs.beginText();
+        cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 7);
+        cs.newLineAtOffset(w / 2f - 130, 30);
+        cs.showText("DOCUMENTO NO VÁLIDO COMO FACTURA – Los cheques están sujetos a acreditación bancaria.");
+        cs.endText();
+
+        cs.close();
     }
 
     private void drawLabelValue(org.apache.pdfbox.pdmodel.PDPageContentStream cs, float x, float y,
-            String label, String value) throws Exception {
+            String label, String value) throws java.io.IOException {
         cs.beginText();
         cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 10);
         cs.newLineAtOffset(x, y);
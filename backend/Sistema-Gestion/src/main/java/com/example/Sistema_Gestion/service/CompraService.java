@@ -1,14 +1,19 @@
 package com.example.Sistema_Gestion.service;
 
+import com.example.Sistema_Gestion.dto.PaginaCursor;
 import com.example.Sistema_Gestion.model.Compra;
 import com.example.Sistema_Gestion.model.CompraItem;
 import com.example.Sistema_Gestion.model.MovimientoTesoreria;
+import com.example.Sistema_Gestion.model.Numerador;
 import com.example.Sistema_Gestion.model.PagoProveedorCompra;
 import com.example.Sistema_Gestion.repository.CompraRepository;
 import com.example.Sistema_Gestion.repository.MovimientoTesoreriaRepository;
 import com.example.Sistema_Gestion.repository.PagoProveedorCompraRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,22 +29,24 @@ public class CompraService {
     private final ProductoService productoService;
     private final PagoProveedorCompraRepository pagoProveedorCompraRepository;
     private final MovimientoTesoreriaRepository movimientoTesoreriaRepository;
+    private final NumeradorService numeradorService;
 
     public CompraService(CompraRepository compraRepository,
             @Lazy ProductoService productoService,
             PagoProveedorCompraRepository pagoProveedorCompraRepository,
-            MovimientoTesoreriaRepository movimientoTesoreriaRepository) {
+            MovimientoTesoreriaRepository movimientoTesoreriaRepository,
+            NumeradorService numeradorService) {
         this.compraRepository = compraRepository;
         this.productoService = productoService;
         this.pagoProveedorCompraRepository = pagoProveedorCompraRepository;
         this.movimientoTesoreriaRepository = movimientoTesoreriaRepository;
+        this.numeradorService = numeradorService;
     }
 
     @Transactional
     public Compra registrarCompra(Compra compra) {
         // Generar número secuencial
-        Long numero = compraRepository.findMaxNumero() != null ? compraRepository.findMaxNumero() + 1 : 1L;
-        compra.setNumero(numero);
+        compra.setNumero(numeradorService.siguiente(Numerador.TipoDocumento.COMPRA));
 
         // Estado inicial
         boolean sinPrecios = compra.getTotal() == null || compra.getTotal().compareTo(BigDecimal.ZERO) == 0;
@@ -54,13 +61,15 @@ public class CompraService {
         Compra savedCompra = compraRepository.save(compra);
 
         // Actualizar stock
+        StockBatch stock = new StockBatch();
         if (savedCompra.getItems() != null) {
             for (CompraItem item : savedCompra.getItems()) {
                 if (item.getProducto() != null && item.getCantidad() != null) {
-                    productoService.aumentarStock(item.getProducto().getId(), item.getCantidad());
+                    stock.sumar(item.getProducto().getId(), item.getCantidad());
                 }
             }
         }
+        productoService.aplicarStock(stock);
 
         // NOTA: Se removió la automatización de registrar en Tesorería aquí.
         // Ahora una compra CONFIRMADA solo aumenta el stock y la cuenta corriente.
@@ -70,11 +79,13 @@ public class CompraService {
 
     @Transactional
     public Compra actualizarCompra(Long id, Compra compraActualizada) {
-        return compraRepository.findById(id).map(compraExistente -> {
-            // Revertir stock viejo (usamos forzar para permitir negativos técnicos en reversión)
+        return compraRepository.findDetalleById(id).map(compraExistente -> {
+            // Revertir stock viejo (usamos forzar para permitir negativos técnicos en reversión).
+            // La reversión y el stock nuevo se netean en un único batch al final.
+            StockBatch stock = new StockBatch();
             if (compraExistente.getItems() != null) {
                 for (CompraItem item : compraExistente.getItems()) {
-                    productoService.forzarDescontarStock(item.getProducto().getId(), item.getCantidad());
+                    stock.restar(item.getProducto().getId(), item.getCantidad());
                 }
             }
 
@@ -111,8 +122,9 @@ public class CompraService {
 
             // Aplicar stock nuevo
             for (CompraItem item : saved.getItems()) {
-                productoService.aumentarStock(item.getProducto().getId(), item.getCantidad());
+                stock.sumar(item.getProducto().getId(), item.getCantidad());
             }
+            productoService.forzarStock(stock);
 
             // NOTA: Se removió la automatización de registrar/actualizar en Tesorería aquí.
 
@@ -122,25 +134,62 @@ public class CompraService {
 
     // Método registrarEgresoTesoreria removido.
 
+    @Transactional(readOnly = true)
     public List<Compra> listarTodas() {
-        return compraRepository.findAll();
+        List<Compra> compras = compraRepository.findAll();
+        compras.forEach(c -> Hibernate.initialize(c.getItems()));
+        return compras;
     }
 
     public Optional<Compra> buscarPorId(Long id) {
-        return compraRepository.findById(id);
+        return compraRepository.findDetalleById(id);
     }
 
     public List<Compra> listarPorProveedor(Long proveedorId) {
         return compraRepository.findByProveedorIdOrderByFechaDesc(proveedorId);
     }
 
+    @Transactional(readOnly = true)
     public org.springframework.data.domain.Page<Compra> listarPorProveedorPaginado(Long proveedorId, org.springframework.data.domain.Pageable pageable) {
-        return compraRepository.findByProveedorId(proveedorId, pageable);
+        org.springframework.data.domain.Page<Compra> pagina = compraRepository.findByProveedorId(proveedorId, pageable);
+        // Los ítems de la página se cargan en lotes (@BatchSize), sin paginar en memoria
+        pagina.forEach(c -> Hibernate.initialize(c.getItems()));
+        return pagina;
+    }
+
+    /** Listado por cursor (fecha, id) descendente; {@code proveedorId} es opcional. */
+    @Transactional(readOnly = true)
+    public PaginaCursor<Compra> listarPorCursor(String cursor, Integer limite, Long proveedorId) {
+        int tamanio = PaginaCursor.limitar(limite);
+        PaginaCursor.Posicion desde = PaginaCursor.Posicion.decodificar(cursor);
+        Pageable filas = PageRequest.of(0, tamanio + 1);
+
+        List<Compra> compras;
+        if (proveedorId == null) {
+            if (desde == null) {
+                compras = compraRepository.findAllByOrderByFechaDescIdDesc(filas);
+            } else if (desde.tieneFecha()) {
+                compras = compraRepository.buscarAntesDe(desde.getFechaComoMomento(), desde.getId(), filas);
+            } else {
+                compras = compraRepository.buscarSinFechaAntesDe(desde.getId(), filas);
+            }
+        } else {
+            if (desde == null) {
+                compras = compraRepository.findByProveedorIdOrderByFechaDescIdDesc(proveedorId, filas);
+            } else if (desde.tieneFecha()) {
+                compras = compraRepository.buscarPorProveedorAntesDe(proveedorId, desde.getFechaComoMomento(), desde.getId(), filas);
+            } else {
+                compras = compraRepository.buscarPorProveedorSinFechaAntesDe(proveedorId, desde.getId(), filas);
+            }
+        }
+        PaginaCursor<Compra> pagina = PaginaCursor.de(compras, tamanio, c -> new PaginaCursor.Posicion(c.getFecha(), c.getId()));
+        pagina.getItems().forEach(c -> Hibernate.initialize(c.getItems()));
+        return pagina;
     }
 
     @Transactional
     public void eliminarCompra(Long id) {
-        compraRepository.findById(id).ifPresent(compra -> {
+        compraRepository.findDetalleById(id).ifPresent(compra -> {
             // Eliminar vínculos con pagos
             List<PagoProveedorCompra> vinculaciones = pagoProveedorCompraRepository.findByCompraId(id);
             if (!vinculaciones.isEmpty()) {
@@ -156,14 +205,16 @@ public class CompraService {
             }
 
             // Revertir stock (usamos forzar para permitir negativos técnicos en anulación de compra)
+            StockBatch stock = new StockBatch();
             if (compra.getItems() != null) {
                 for (CompraItem item : compra.getItems()) {
                     if (item.getProducto() != null && item.getCantidad() != null) {
-                        productoService.forzarDescontarStock(item.getProducto().getId(), item.getCantidad());
+                        stock.restar(item.getProducto().getId(), item.getCantidad());
                     }
                 }
             }
+            productoService.forzarStock(stock);
             compraRepository.delete(compra);
         });
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package com.example.Sistema_Gestion.service;
 import com.example.Sistema_Gestion.model.Configuracion;
 import com.example.Sistema_Gestion.repository.ConfiguracionRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,11 +14,15 @@ import java.math.BigDecimal;
 public class ConfiguracionService {
 
     private final ConfiguracionRepository configuracionRepository;
-    private final ProductoService productoService;
+    private final SincronizacionPreciosService sincronizacionPreciosService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ConfiguracionService(ConfiguracionRepository configuracionRepository, ProductoService productoService) {
+    public ConfiguracionService(ConfiguracionRepository configuracionRepository,
+            SincronizacionPreciosService sincronizacionPreciosService,
+            ApplicationEventPublisher eventPublisher) {
         this.configuracionRepository = configuracionRepository;
-        this.productoService = productoService;
+        this.sincronizacionPreciosService = sincronizacionPreciosService;
+        this.eventPublisher = eventPublisher;
     }
 
     public Configuracion getConfiguracion() {
@@ -49,6 +54,8 @@ public class ConfiguracionService {
         actual.setStockMinimoGlobal(nueva.getStockMinimoGlobal());
 
         Configuracion guardada = configuracionRepository.save(actual);
+        // Los datos de la empresa cacheados para los PDF se descartan al confirmar
+        eventPublisher.publishEvent(new ConfiguracionActualizada());
 
         // Usar compareTo con stripTrailingZeros() para evitar falsos negativos de escala en BigDecimal
         boolean cotizacionCambio = cotizacionNueva != null && (
@@ -57,8 +64,8 @@ public class ConfiguracionService {
         );
 
         if (cotizacionCambio) {
-            log.info("[Config] Cotización cambió de {} a {}. Sincronizando precios en pesos...", cotizacionAnterior, cotizacionNueva);
-            productoService.sincronizarPreciosPesosConUSD(cotizacionNueva);
+            log.info("[Config] Cotización cambió de {} a {}. Se programa la sincronización de precios en pesos.", cotizacionAnterior, cotizacionNueva);
+            sincronizacionPreciosService.solicitar(cotizacionNueva);
         } else {
             log.info("[Config] Cotización no cambió, no se sincronizan precios.");
         }
@@ -76,4 +83,8 @@ public class ConfiguracionService {
         def.setStockMinimoGlobal(5);
         return configuracionRepository.save(def);
     }
+
+    /** Se publica al guardar cambios de la configuración. */
+    public static class ConfiguracionActualizada {
+    }
 }
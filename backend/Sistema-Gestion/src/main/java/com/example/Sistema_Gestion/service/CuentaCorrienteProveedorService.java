@@ -0,0 +1,352 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.dto.CompraCuentaView;
+import com.example.Sistema_Gestion.dto.CompraItemCuentaView;
+import com.example.Sistema_Gestion.dto.MovimientoCuentaProveedor;
+import com.example.Sistema_Gestion.dto.PagoCuentaView;
+import com.example.Sistema_Gestion.model.Proveedor;
+import com.example.Sistema_Gestion.repository.CompraRepository;
+import com.example.Sistema_Gestion.repository.PagoProveedorRepository;
+import com.example.Sistema_Gestion.repository.ProveedorRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Estado de cuenta corriente de un proveedor. Compras y pagos del período se leen con dos cursores
+ * (keyset por fecha e id, de a {@value #TAMANIO_LOTE}) y se intercalan por fecha; cada fila sale con
+ * el saldo acumulado ARS o USD hacia un {@link Destino} (JSON de la respuesta o PDF) a medida que se
+ * arma, así la memoria no depende de la cantidad de movimientos.
+ * A igual fecha la compra va antes que el pago; los pagos cuentan desde el inicio del día.
+ */
+@Service
+public class CuentaCorrienteProveedorService {
+
+    private static final int TAMANIO_LOTE = 200;
+    private static final DateTimeFormatter FECHA = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    private final ProveedorRepository proveedorRepository;
+    private final CompraRepository compraRepository;
+    private final PagoProveedorRepository pagoProveedorRepository;
+    private final ObjectMapper objectMapper;
+
+    public CuentaCorrienteProveedorService(ProveedorRepository proveedorRepository,
+            CompraRepository compraRepository,
+            PagoProveedorRepository pagoProveedorRepository,
+            ObjectMapper objectMapper) {
+        this.proveedorRepository = proveedorRepository;
+        this.compraRepository = compraRepository;
+        this.pagoProveedorRepository = pagoProveedorRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Recibe el estado de cuenta en orden: inicio, cada movimiento y fin (con totales y saldos finales). */
+    public interface Destino {
+        void inicio(EstadoCuenta estado) throws IOException;
+
+        void movimiento(MovimientoCuentaProveedor movimiento) throws IOException;
+
+        void fin(EstadoCuenta estado) throws IOException;
+    }
+
+    /** Falla antes de empezar a escribir la respuesta si el pedido no es válido. */
+    public void validar(Long proveedorId, LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new RuntimeException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        if (!proveedorRepository.existsById(proveedorId)) {
+            throw new RuntimeException("Proveedor no encontrado");
+        }
+    }
+
+    /**
+     * Recorre el estado de cuenta hacia el destino y devuelve los totales. Todo en una transacción de
+     * lectura: saldos iniciales y movimientos salen de la misma foto de la base.
+     */
+    @Transactional(readOnly = true)
+    public EstadoCuenta recorrer(Long proveedorId, LocalDate desde, LocalDate hasta, Destino destino)
+            throws IOException {
+        Proveedor prov = proveedorRepository.findById(proveedorId)
+                .orElseThrow(() -> new RuntimeException("Proveedor no encontrado"));
+        LocalDateTime desdeDT = desde.atStartOfDay();
+        LocalDateTime hastaDT = hasta.atTime(LocalTime.MAX);
+
+        BigDecimal saldoInicialARS = compraRepository.totalCompradoARSAntesDe(proveedorId, desdeDT)
+                .subtract(pagoProveedorRepository.totalPagadoARSAntesDe(proveedorId, desde));
+        BigDecimal saldoInicialUSD = compraRepository.totalCompradoUSDAntesDe(proveedorId, desdeDT)
+                .subtract(pagoProveedorRepository.totalPagadoUSDAntesDe(proveedorId, desde));
+
+        EstadoCuenta estado = new EstadoCuenta(prov, desde, hasta, saldoInicialARS, saldoInicialUSD);
+        destino.inicio(estado);
+
+        Cursor<CompraCuentaView> compras = new Cursor<>(ultima -> cargarCompras(proveedorId,
+                ultima != null ? ultima.getFecha() : desdeDT, ultima != null ? ultima.getId() : 0L, hastaDT));
+        Cursor<PagoCuentaView> pagos = new Cursor<>(ultimo -> pagoProveedorRepository.cuentaCorrienteDespuesDe(
+                proveedorId, ultimo != null ? ultimo.getFecha() : desde, ultimo != null ? ultimo.getId() : 0L,
+                hasta, PageRequest.of(0, TAMANIO_LOTE)));
+
+        CompraCuentaView compra = compras.actual();
+        PagoCuentaView pago = pagos.actual();
+        while (compra != null || pago != null) {
+            if (pago == null || (compra != null && !compra.getFecha().isAfter(pago.getFecha().atStartOfDay()))) {
+                emitirCompra(compra, estado, destino);
+                compras.avanzar();
+                compra = compras.actual();
+            } else {
+                emitirPago(pago, estado, destino);
+                pagos.avanzar();
+                pago = pagos.actual();
+            }
+        }
+
+        destino.fin(estado);
+        return estado;
+    }
+
+    /**
+     * El estado de cuenta como JSON, escrito a medida que se recorre. Mismos campos que devolvía el
+     * reporte armado en memoria: proveedor, periodo, saldos iniciales, movimientos, totales y saldos finales.
+     */
+    @Transactional(readOnly = true)
+    public void escribirJson(Long proveedorId, LocalDate desde, LocalDate hasta, OutputStream os)
+            throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(os)) {
+            recorrer(proveedorId, desde, hasta, new DestinoJson(json));
+        }
+    }
+
+    /** Lote de compras con sus ítems (una consulta para todos los ítems del lote). */
+    private List<CompraCuentaView> cargarCompras(Long proveedorId, LocalDateTime fecha, Long id,
+            LocalDateTime hasta) {
+        List<CompraCuentaView> compras = compraRepository.cuentaCorrienteDespuesDe(proveedorId, fecha, id, hasta,
+                PageRequest.of(0, TAMANIO_LOTE));
+        if (!compras.isEmpty()) {
+            Map<Long, CompraCuentaView> porId = new HashMap<>();
+            compras.forEach(c -> porId.put(c.getId(), c));
+            for (CompraItemCuentaView item : compraRepository.itemsCuentaCorriente(porId.keySet())) {
+                porId.get(item.getCompraId()).getItems().add(item);
+            }
+        }
+        return compras;
+    }
+
+    private void emitirCompra(CompraCuentaView c, EstadoCuenta estado, Destino destino) throws IOException {
+        boolean usd = "USD".equals(c.getMoneda());
+        String moneda = c.getMoneda() != null ? c.getMoneda() : "ARS";
+        String remitoProv = (c.getAnotaciones() != null && !c.getAnotaciones().isEmpty()) ? c.getAnotaciones()
+                : "RM-" + c.getNumero();
+
+        destino.movimiento(MovimientoCuentaProveedor.compra(c.getFecha().format(FECHA), remitoProv, c.getId(),
+                moneda, estado.saldo(usd)));
+
+        if (c.getItems().isEmpty()) {
+            BigDecimal debe = importe(usd ? c.getTotalDolares() : c.getTotal());
+            destino.movimiento(MovimientoCuentaProveedor.detalle("ITEM", "Compra de mercadería", null, null, debe,
+                    moneda, estado.debitar(usd, debe)));
+            return;
+        }
+
+        for (CompraItemCuentaView it : c.getItems()) {
+            BigDecimal debe = usd
+                    ? (it.getPrecioUnitarioUSD() != null && it.getCantidad() != null
+                            ? it.getPrecioUnitarioUSD().multiply(new BigDecimal(it.getCantidad())) : BigDecimal.ZERO)
+                    : importe(it.getSubtotal());
+            destino.movimiento(MovimientoCuentaProveedor.detalle("ITEM", it.getProductoNombre(), it.getCantidad(),
+                    usd ? it.getPrecioUnitarioUSD() : it.getPrecioUnitario(), debe, moneda,
+                    estado.debitar(usd, debe)));
+        }
+
+        if (Boolean.TRUE.equals(c.getIncluyeIva()) && c.getIvaImporte() != null
+                && c.getIvaImporte().compareTo(BigDecimal.ZERO) > 0) {
+            BigDecimal valorIva = c.getIvaImporte();
+            if (usd && c.getTipoCambio() != null && c.getTipoCambio().compareTo(BigDecimal.ZERO) > 0) {
+                // El IVA se guarda en pesos: en una compra en dólares se muestra convertido
+                valorIva = c.getIvaImporte().divide(c.getTipoCambio(), 2, RoundingMode.HALF_UP);
+            }
+            destino.movimiento(MovimientoCuentaProveedor.detalle("IVA", "IVA (" + c.getPorcentajeIva() + "%)", null,
+                    null, valorIva, moneda, estado.debitar(usd, valorIva)));
+        }
+    }
+
+    private void emitirPago(PagoCuentaView p, EstadoCuenta estado, Destino destino) throws IOException {
+        boolean usd = "USD".equals(p.getMoneda());
+        BigDecimal haber = importe(usd ? p.getImporteDolares() : p.getImporte());
+        String descripcion = "COMPROBANTE DE PAGO N° " + p.getId()
+                + (p.getObservaciones() != null ? " (" + p.getObservaciones() + ")" : "");
+
+        destino.movimiento(MovimientoCuentaProveedor.pago(p.getFecha().format(FECHA), p.getId(), descripcion, haber,
+                p.getMoneda() != null ? p.getMoneda() : "ARS", estado.acreditar(usd, haber))
+                .conMedio(p.getMedio(), p.getMonedaPago() != null ? p.getMonedaPago() : "ARS", p.getBanco(),
+                        p.getNumeroCheque(), p.getFechaVenc() != null ? p.getFechaVenc().format(FECHA) : null));
+    }
+
+    /** Importes faltantes en datos viejos (total, total en dólares, subtotal) cuentan como cero. */
+    private static BigDecimal importe(BigDecimal valor) {
+        return valor != null ? valor : BigDecimal.ZERO;
+    }
+
+    /**
+     * Cursor sobre una consulta ordenada por keyset: pide el lote siguiente a la última fila leída
+     * (null en el primero) cuando se termina el actual. Un lote incompleto es el último.
+     */
+    private static class Cursor<T> {
+        private final Function<T, List<T>> siguienteLote;
+        private List<T> lote = List.of();
+        private int posicion;
+        private boolean agotado;
+
+        Cursor(Function<T, List<T>> siguienteLote) {
+            this.siguienteLote = siguienteLote;
+        }
+
+        /** Fila actual, o null si no hay más. */
+        T actual() {
+            if (posicion == lote.size() && !agotado) {
+                T ultima = lote.isEmpty() ? null : lote.get(lote.size() - 1);
+                lote = siguienteLote.apply(ultima);
+                posicion = 0;
+                agotado = lote.size() < TAMANIO_LOTE;
+            }
+            return posicion < lote.size() ? lote.get(posicion) : null;
+        }
+
+        void avanzar() {
+            posicion++;
+        }
+    }
+
+    /** Escribe el estado de cuenta como objeto JSON; los movimientos van en un array a medida que llegan. */
+    private static class DestinoJson implements Destino {
+        private final JsonGenerator json;
+
+        DestinoJson(JsonGenerator json) {
+            this.json = json;
+        }
+
+        @Override
+        public void inicio(EstadoCuenta estado) throws IOException {
+            json.writeStartObject();
+            json.writeObjectFieldStart("proveedor");
+            json.writeNumberField("id", estado.getProveedorId());
+            json.writeStringField("nombre", estado.getProveedorNombre());
+            json.writeStringField("cuit", estado.getProveedorCuit());
+            json.writeEndObject();
+            json.writeObjectFieldStart("periodo");
+            json.writeStringField("desde", estado.getDesde().toString());
+            json.writeStringField("hasta", estado.getHasta().toString());
+            json.writeEndObject();
+            json.writeObjectField("saldoInicial", estado.getSaldoInicialARS());
+            json.writeObjectField("saldoInicialARS", estado.getSaldoInicialARS());
+            json.writeObjectField("saldoInicialUSD", estado.getSaldoInicialUSD());
+            json.writeArrayFieldStart("movimientos");
+        }
+
+        @Override
+        public void movimiento(MovimientoCuentaProveedor movimiento) throws IOException {
+            json.writeObject(movimiento);
+        }
+
+        @Override
+        public void fin(EstadoCuenta estado) throws IOException {
+            json.writeEndArray();
+            json.writeObjectField("totalComprasARS", estado.getTotalComprasARS());
+            json.writeObjectField("totalComprasUSD", estado.getTotalComprasUSD());
+            json.writeObjectField("totalPagosARS", estado.getTotalPagosARS());
+            json.writeObjectField("totalPagosUSD", estado.getTotalPagosUSD());
+            json.writeObjectField("saldoFinal", estado.getSaldoARS());
+            json.writeObjectField("saldoFinalARS", estado.getSaldoARS());
+            json.writeObjectField("saldoFinalUSD", estado.getSaldoUSD());
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Encabezado y acumulados del estado de cuenta. Durante el recorrido los saldos son los corrientes;
+     * al llegar a {@link Destino#fin} son los finales.
+     */
+    public static class EstadoCuenta {
+        private final Long proveedorId;
+        private final String proveedorNombre;
+        private final String proveedorCuit;
+        private final LocalDate desde;
+        private final LocalDate hasta;
+        private final BigDecimal saldoInicialARS;
+        private final BigDecimal saldoInicialUSD;
+        private BigDecimal saldoARS;
+        private BigDecimal saldoUSD;
+        private BigDecimal totalComprasARS = BigDecimal.ZERO;
+        private BigDecimal totalComprasUSD = BigDecimal.ZERO;
+        private BigDecimal totalPagosARS = BigDecimal.ZERO;
+        private BigDecimal totalPagosUSD = BigDecimal.ZERO;
+
+        EstadoCuenta(Proveedor prov, LocalDate desde, LocalDate hasta, BigDecimal saldoInicialARS,
+                BigDecimal saldoInicialUSD) {
+            this.proveedorId = prov.getId();
+            this.proveedorNombre = prov.getNombre();
+            this.proveedorCuit = prov.getCuit() != null ? prov.getCuit() : "";
+            this.desde = desde;
+            this.hasta = hasta;
+            this.saldoInicialARS = saldoInicialARS;
+            this.saldoInicialUSD = saldoInicialUSD;
+            this.saldoARS = saldoInicialARS;
+            this.saldoUSD = saldoInicialUSD;
+        }
+
+        BigDecimal saldo(boolean usd) {
+            return usd ? saldoUSD : saldoARS;
+        }
+
+        /** Suma una compra al saldo y a los totales; devuelve el saldo nuevo. */
+        BigDecimal debitar(boolean usd, BigDecimal importe) {
+            if (usd) {
+                saldoUSD = saldoUSD.add(importe);
+                totalComprasUSD = totalComprasUSD.add(importe);
+            } else {
+                saldoARS = saldoARS.add(importe);
+                totalComprasARS = totalComprasARS.add(importe);
+            }
+            return saldo(usd);
+        }
+
+        /** Resta un pago del saldo y lo suma a los totales; devuelve el saldo nuevo. */
+        BigDecimal acreditar(boolean usd, BigDecimal importe) {
+            if (usd) {
+                saldoUSD = saldoUSD.subtract(importe);
+                totalPagosUSD = totalPagosUSD.add(importe);
+            } else {
+                saldoARS = saldoARS.subtract(importe);
+                totalPagosARS = totalPagosARS.add(importe);
+            }
+            return saldo(usd);
+        }
+
+        public Long getProveedorId() { return proveedorId; }
+        public String getProveedorNombre() { return proveedorNombre; }
+        public String getProveedorCuit() { return proveedorCuit; }
+        public LocalDate getDesde() { return desde; }
+        public LocalDate getHasta() { return hasta; }
+        public BigDecimal getSaldoInicialARS() { return saldoInicialARS; }
+        public BigDecimal getSaldoInicialUSD() { return saldoInicialUSD; }
+        public BigDecimal getSaldoARS() { return saldoARS; }
+        public BigDecimal getSaldoUSD() { return saldoUSD; }
+        public BigDecimal getTotalComprasARS() { return totalComprasARS; }
+        public BigDecimal getTotalComprasUSD() { return totalComprasUSD; }
+        public BigDecimal getTotalPagosARS() { return totalPagosARS; }
+        public BigDecimal getTotalPagosUSD() { return totalPagosUSD; }
+    }
+}
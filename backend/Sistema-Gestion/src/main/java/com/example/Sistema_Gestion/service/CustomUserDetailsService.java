@@ -2,6 +2,7 @@ package com.example.Sistema_Gestion.service;
 
 import com.example.Sistema_Gestion.model.Usuario;
 import com.example.Sistema_Gestion.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,24 +11,72 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Carga usuarios para Spring Security. El filtro JWT la consulta en cada request, así que los datos
+ * se cachean por un tiempo corto (app.security.usuarios.cache-ttl-ms, con un máximo de entradas);
+ * al cambiar credenciales hay que llamar a {@link #invalidar(String)}.
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UsuarioRepository usuarioRepository;
+    private final long ttlMs;
+    private final int maxEntradas;
+    private final Map<String, UsuarioCacheado> cache = new ConcurrentHashMap<>();
 
-    public CustomUserDetailsService(UsuarioRepository usuarioRepository) {
+    public CustomUserDetailsService(UsuarioRepository usuarioRepository,
+            @Value("${app.security.usuarios.cache-ttl-ms:60000}") long ttlMs,
+            @Value("${app.security.usuarios.cache-max:1000}") int maxEntradas) {
         this.usuarioRepository = usuarioRepository;
+        this.ttlMs = ttlMs;
+        this.maxEntradas = Math.max(1, maxEntradas);
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Usuario usuario = usuarioRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+        long ahora = System.currentTimeMillis();
+        UsuarioCacheado cacheado = cache.get(username);
+        if (cacheado == null || cacheado.expiraEn < ahora) {
+            Usuario usuario = usuarioRepository.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+            cacheado = new UsuarioCacheado(usuario.getUsername(), usuario.getPassword(), usuario.getRole(), ahora + ttlMs);
+            if (ttlMs > 0) guardar(username, cacheado, ahora);
+        }
 
+        // Siempre una instancia nueva: Spring Security borra la contraseña del User autenticado
         return new User(
-                usuario.getUsername(),
-                usuario.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority(usuario.getRole())));
+                cacheado.username,
+                cacheado.password,
+                Collections.singletonList(new SimpleGrantedAuthority(cacheado.role)));
+    }
+
+    /** Descarta el usuario cacheado (cambio de nombre, contraseña o rol). */
+    public void invalidar(String username) {
+        if (username != null) cache.remove(username);
+    }
+
+    private void guardar(String username, UsuarioCacheado cacheado, long ahora) {
+        if (cache.size() >= maxEntradas) {
+            cache.values().removeIf(c -> c.expiraEn < ahora);
+            if (cache.size() >= maxEntradas) cache.clear();
+        }
+        cache.put(username, cacheado);
+    }
+
+    private static class UsuarioCacheado {
+        final String username;
+        final String password;
+        final String role;
+        final long expiraEn;
+
+        UsuarioCacheado(String username, String password, String role, long expiraEn) {
+            this.username = username;
+            this.password = password;
+            this.role = role;
+            this.expiraEn = expiraEn;
+        }
     }
 }
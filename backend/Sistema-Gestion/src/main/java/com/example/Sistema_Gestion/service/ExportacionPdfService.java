@@ -0,0 +1,338 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.Cobro;
+import com.example.Sistema_Gestion.model.Remito;
+import com.example.Sistema_Gestion.model.Remito.EstadoRemito;
+import com.example.Sistema_Gestion.repository.CobroRepository;
+import com.example.Sistema_Gestion.repository.RemitoRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exportación en lote de remitos y recibos de cobro a un ZIP (un PDF por documento) o a un único PDF.
+ * Los documentos se leen por cursor en lotes de {@value #TAMANIO_LOTE}, cada lote en una consulta con
+ * sus ítems / imputaciones, y la salida se escribe a medida que se genera: la memoria no depende de
+ * la cantidad de documentos.
+ * En el ZIP los PDF se generan en un pool acotado, con pocos documentos en vuelo por exportación y
+ * una cola de app.exportacion.pdf.cola documentos entre todas: si no queda lugar para una exportación
+ * más se rechaza al pedirla (429). El PDF único se arma en un solo hilo sobre archivo temporal (las
+ * páginas van a un mismo documento), en el pool de GeneracionDocumentosService que atiende la descarga.
+ * PDFBox no escribe un PDF por partes: los contenidos de página van al archivo temporal, pero el árbol
+ * de objetos de cada página queda en memoria hasta el save (unos 4,5 KB por remito de 10 ítems, medido:
+ * 8 MB con 1000 remitos, 21 MB con 4000). Unir PDF parciales con PDFMergerUtility tampoco lo evita,
+ * porque el documento destino también guarda todas las páginas hasta el save. Por eso el PDF único
+ * admite hasta app.exportacion.pdf.max-documentos-unico documentos; para más se usa el ZIP.
+ */
+@Service
+@Slf4j
+public class ExportacionPdfService {
+
+    private static final int TAMANIO_LOTE = 50;
+
+    public enum Documentos {
+        REMITOS, RECIBOS, TODOS
+    }
+
+    public enum Formato {
+        ZIP, PDF
+    }
+
+    private final RemitoRepository remitoRepository;
+    private final CobroRepository cobroRepository;
+    private final RemitoService remitoService;
+    private final CobroService cobroService;
+    private final PdfRecursosService pdfRecursosService;
+    private final TransactionTemplate lectura;
+    private final ThreadPoolExecutor executor;
+    private final int enVueloMaximo;
+    private final int maxDocumentosPdfUnico;
+
+    public ExportacionPdfService(RemitoRepository remitoRepository, CobroRepository cobroRepository,
+            RemitoService remitoService, CobroService cobroService, PdfRecursosService pdfRecursosService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.exportacion.pdf.hilos:2}") int hilos,
+            @Value("${app.exportacion.pdf.cola:8}") int cola,
+            @Value("${app.exportacion.pdf.max-documentos-unico:5000}") int maxDocumentosPdfUnico) {
+        this.remitoRepository = remitoRepository;
+        this.cobroRepository = cobroRepository;
+        this.remitoService = remitoService;
+        this.cobroService = cobroService;
+        this.pdfRecursosService = pdfRecursosService;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.maxDocumentosPdfUnico = Math.max(1, maxDocumentosPdfUnico);
+
+        int tamanio = Math.max(1, hilos);
+        this.enVueloMaximo = tamanio * 2;
+        // Cada exportación encola como mucho enVueloMaximo documentos; la cola admite al menos una.
+        // Si dos exportaciones pasan juntas la verificación y la llenan, el documento que no entra
+        // se genera en el hilo de la descarga en lugar de cortarla.
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(tamanio, tamanio, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(enVueloMaximo, cola)),
+                r -> new Thread(r, "exportacion-pdf-" + contador.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Falla si el pool del ZIP no tiene lugar para otra exportación, antes de empezar a escribir la respuesta.
+     *
+     * @throws RejectedExecutionException si ya hay demasiadas exportaciones en curso
+     */
+    public void verificarCapacidad(Formato formato) {
+        if (formato == Formato.ZIP && executor.getQueue().remainingCapacity() < enVueloMaximo) {
+            throw new RejectedExecutionException("Exportaciones en curso: cola del pool llena");
+        }
+    }
+
+    /**
+     * Falla si el filtro no es válido, si no hay documentos o si son demasiados para un PDF único,
+     * antes de empezar a escribir la respuesta.
+     */
+    public void validar(Filtro filtro, Formato formato) {
+        if (filtro.getDesde() != null && filtro.getHasta() != null && filtro.getDesde().isAfter(filtro.getHasta())) {
+            throw new RuntimeException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        // Para el ZIP alcanza con saber si hay alguno; para el PDF único se cuenta hasta pasar el máximo
+        PageRequest limite = PageRequest.of(0, formato == Formato.PDF ? maxDocumentosPdfUnico + 1 : 1);
+        int remitos = filtro.incluyeRemitos() ? remitoRepository.idsParaExportar(0L, filtro.getClienteId(),
+                filtro.getEstado(), filtro.getDesde(), filtro.getHasta(), limite).size() : 0;
+        int recibos = filtro.incluyeRecibos() ? cobroRepository.idsParaExportar(0L, filtro.getClienteId(),
+                filtro.getDesde(), filtro.getHasta(), limite).size() : 0;
+        if (remitos + recibos == 0) {
+            throw new RuntimeException("No hay documentos para exportar con ese filtro");
+        }
+        if (formato == Formato.PDF && remitos + recibos > maxDocumentosPdfUnico) {
+            throw new RuntimeException("El PDF único admite hasta " + maxDocumentosPdfUnico
+                    + " documentos: acote el filtro o exporte en formato ZIP");
+        }
+    }
+
+    public void exportar(Filtro filtro, Formato formato, OutputStream os) throws IOException {
+        long inicio = System.currentTimeMillis();
+        int total = formato == Formato.PDF ? exportarPdf(filtro, os) : exportarZip(filtro, os);
+        log.info("Exportación {} de {} documentos ({} ms)", formato, total, System.currentTimeMillis() - inicio);
+    }
+
+    private int exportarZip(Filtro filtro, OutputStream os) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(os);
+        // Los PDF ya vienen comprimidos: comprimir más sólo gasta CPU
+        zip.setLevel(Deflater.BEST_SPEED);
+        Deque<Future<PdfGenerado>> enVuelo = new ArrayDeque<>();
+        try {
+            int total = recorrer(filtro, lote -> {
+                for (Documento documento : lote) {
+                    enVuelo.add(executor.submit(() -> generar(documento)));
+                    if (enVuelo.size() >= enVueloMaximo) {
+                        escribir(zip, enVuelo.poll());
+                    }
+                }
+            });
+            while (!enVuelo.isEmpty()) {
+                escribir(zip, enVuelo.poll());
+            }
+            zip.finish();
+            return total;
+        } finally {
+            // Si se cortó la descarga, lo que quedaba en el pool no se genera
+            enVuelo.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private int exportarPdf(Filtro filtro, OutputStream os) throws IOException {
+        try (PDDocument doc = new PDDocument(MemoryUsageSetting.setupTempFileOnly())) {
+            // Un solo logo para todas las páginas del documento
+            PDImageXObject logo = pdfRecursosService.crearLogo(doc);
+            AtomicInteger agregados = new AtomicInteger();
+            int total = recorrer(filtro, lote -> {
+                // validar ya lo controló; esto cubre documentos dados de alta durante la exportación
+                if (agregados.addAndGet(lote.size()) > maxDocumentosPdfUnico) {
+                    throw new IOException("La exportación superó el máximo de " + maxDocumentosPdfUnico
+                            + " documentos del PDF único");
+                }
+                for (Documento documento : lote) {
+                    documento.dibujo.agregar(doc, logo);
+                }
+            });
+            doc.save(os);
+            return total;
+        }
+    }
+
+    private PdfGenerado generar(Documento documento) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 * 1024);
+        try (PDDocument doc = new PDDocument()) {
+            documento.dibujo.agregar(doc, pdfRecursosService.crearLogo(doc));
+            doc.save(bytes);
+        }
+        return new PdfGenerado(documento.nombre, bytes.toByteArray());
+    }
+
+    private void escribir(ZipOutputStream zip, Future<PdfGenerado> futuro) throws IOException {
+        PdfGenerado pdf;
+        try {
+            pdf = futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Exportación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("No se pudo generar un PDF de la exportación", e.getCause());
+        }
+        zip.putNextEntry(new ZipEntry(pdf.nombre));
+        zip.write(pdf.contenido);
+        zip.closeEntry();
+    }
+
+    /** Pasa los documentos del filtro en lotes, remitos primero y después recibos. Devuelve el total. */
+    private int recorrer(Filtro filtro, ConsumidorLote consumidor) throws IOException {
+        int total = 0;
+        if (filtro.incluyeRemitos()) {
+            long ultimo = 0;
+            List<Remito> remitos;
+            while (!(remitos = cargarRemitos(filtro, ultimo)).isEmpty()) {
+                List<Documento> lote = new ArrayList<>(remitos.size());
+                for (Remito remito : remitos) {
+                    // El número puede faltar en remitos viejos; el nombre dentro del ZIP tiene que ser único
+                    String nombre = remito.getNumero() != null ? String.valueOf(remito.getNumero()) : "id" + remito.getId();
+                    lote.add(new Documento("remitos/remito_" + nombre + ".pdf",
+                            (doc, logo) -> remitoService.agregarPaginasRemito(doc, remito, logo)));
+                }
+                consumidor.procesar(lote);
+                total += lote.size();
+                ultimo = remitos.get(remitos.size() - 1).getId();
+            }
+        }
+        if (filtro.incluyeRecibos()) {
+            long ultimo = 0;
+            List<Cobro> cobros;
+            while (!(cobros = cargarCobros(filtro, ultimo)).isEmpty()) {
+                List<Documento> lote = new ArrayList<>(cobros.size());
+                for (Cobro cobro : cobros) {
+                    lote.add(new Documento("recibos/recibo_cobro_" + cobro.getId() + ".pdf",
+                            (doc, logo) -> cobroService.agregarPaginasRecibo(doc, cobro, logo)));
+                }
+                consumidor.procesar(lote);
+                total += lote.size();
+                ultimo = cobros.get(cobros.size() - 1).getId();
+            }
+        }
+        return total;
+    }
+
+    /** Remitos con cliente, ítems y productos: no se vuelve a la base al dibujarlos. */
+    private List<Remito> cargarRemitos(Filtro filtro, long despuesDe) {
+        return lectura.execute(status -> {
+            List<Long> ids = remitoRepository.idsParaExportar(despuesDe, filtro.getClienteId(), filtro.getEstado(),
+                    filtro.getDesde(), filtro.getHasta(), PageRequest.of(0, TAMANIO_LOTE));
+            return ids.isEmpty() ? List.of() : remitoRepository.findDetalleByIdInOrderByIdAsc(ids);
+        });
+    }
+
+    /** Cobros con cliente, imputaciones y medios de pago (estos en una consulta por lote, @BatchSize). */
+    private List<Cobro> cargarCobros(Filtro filtro, long despuesDe) {
+        return lectura.execute(status -> {
+            List<Long> ids = cobroRepository.idsParaExportar(despuesDe, filtro.getClienteId(),
+                    filtro.getDesde(), filtro.getHasta(), PageRequest.of(0, TAMANIO_LOTE));
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            List<Cobro> cobros = cobroRepository.findDetalleByIdInOrderByIdAsc(ids);
+            cobros.forEach(c -> Hibernate.initialize(c.getMediosPago()));
+            return cobros;
+        });
+    }
+
+    @PreDestroy
+    void detener() {
+        executor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface Dibujo {
+        void agregar(PDDocument doc, PDImageXObject logo) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ConsumidorLote {
+        void procesar(List<Documento> lote) throws IOException;
+    }
+
+    private static class Documento {
+        final String nombre;
+        final Dibujo dibujo;
+
+        Documento(String nombre, Dibujo dibujo) {
+            this.nombre = nombre;
+            this.dibujo = dibujo;
+        }
+    }
+
+    private static class PdfGenerado {
+        final String nombre;
+        final byte[] contenido;
+
+        PdfGenerado(String nombre, byte[] contenido) {
+            this.nombre = nombre;
+            this.contenido = contenido;
+        }
+    }
+
+    /** Filtro de la exportación; los campos null no filtran. El estado sólo aplica a remitos. */
+    public static class Filtro {
+        private final Documentos documentos;
+        private final Long clienteId;
+        private final EstadoRemito estado;
+        private final LocalDate desde;
+        private final LocalDate hasta;
+
+        public Filtro(Documentos documentos, Long clienteId, EstadoRemito estado, LocalDate desde, LocalDate hasta) {
+            this.documentos = documentos != null ? documentos : Documentos.TODOS;
+            this.clienteId = clienteId;
+            this.estado = estado;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        public boolean incluyeRemitos() {
+            return documentos != Documentos.RECIBOS;
+        }
+
+        public boolean incluyeRecibos() {
+            return documentos != Documentos.REMITOS;
+        }
+
+        public Documentos getDocumentos() { return documentos; }
+        public Long getClienteId() { return clienteId; }
+        public EstadoRemito getEstado() { return estado; }
+        public LocalDate getDesde() { return desde; }
+        public LocalDate getHasta() { return hasta; }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.Sistema_Gestion.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Pool acotado (bulkhead) para generar PDF y Excel. Las descargas en streaming corren acá
+ * (ver WebConfig.configureAsyncSupport) y también los reportes pesados, que se encolan como
+ * trabajos: la respuesta es 202 con el id y el archivo se descarga cuando está listo.
+ * Con los hilos ocupados y la cola llena se rechaza (429): los reportes no le quitan hilos ni
+ * memoria a cobros y ventas.
+ * Los trabajos viven en memoria y su archivo se borra a los app.reportes.trabajos.ttl-min minutos.
+ */
+@Service
+@Slf4j
+public class GeneracionDocumentosService {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final Map<String, TrabajoReporte> trabajos = new ConcurrentHashMap<>();
+    private final long ttlMinutos;
+    private final long diasDirecto;
+
+    public GeneracionDocumentosService(@Value("${app.documentos.hilos:4}") int hilos,
+            @Value("${app.documentos.cola:16}") int cola,
+            @Value("${app.reportes.trabajos.ttl-min:30}") long ttlMinutos,
+            @Value("${app.reportes.dias-directo:93}") long diasDirecto) {
+        this.ttlMinutos = Math.max(1, ttlMinutos);
+        this.diasDirecto = Math.max(1, diasDirecto);
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(Math.max(1, hilos));
+        this.executor.setMaxPoolSize(Math.max(1, hilos));
+        this.executor.setQueueCapacity(Math.max(0, cola));
+        this.executor.setThreadNamePrefix("generacion-documentos-");
+        this.executor.initialize();
+    }
+
+    /** Executor de las respuestas asíncronas de Spring MVC (StreamingResponseBody). */
+    public AsyncTaskExecutor getExecutor() {
+        return executor;
+    }
+
+    /** Un reporte de más de app.reportes.dias-directo días se encola en lugar de descargarse directo. */
+    public boolean esReportePesado(LocalDate desde, LocalDate hasta) {
+        return ChronoUnit.DAYS.between(desde, hasta) + 1 > diasDirecto;
+    }
+
+    @FunctionalInterface
+    public interface Generador {
+        void generar(OutputStream os) throws IOException;
+    }
+
+    /**
+     * Encola la generación a un archivo temporal. Devuelve el trabajo en estado PENDIENTE.
+     *
+     * @throws RejectedExecutionException si el pool y su cola están llenos
+     */
+    public TrabajoReporte encolar(String nombreArchivo, Generador generador) {
+        TrabajoReporte trabajo = new TrabajoReporte(UUID.randomUUID().toString(), nombreArchivo);
+        trabajos.put(trabajo.getId(), trabajo);
+        try {
+            executor.execute(() -> generar(trabajo, generador));
+        } catch (RejectedExecutionException e) {
+            trabajos.remove(trabajo.getId());
+            throw e;
+        }
+        return trabajo;
+    }
+
+    public Optional<TrabajoReporte> buscar(String id) {
+        return Optional.ofNullable(trabajos.get(id));
+    }
+
+    /** Borra los trabajos terminados hace más de ttlMinutos, con sus archivos. Devuelve la cantidad. */
+    public int purgarVencidos() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(ttlMinutos);
+        int borrados = 0;
+        for (TrabajoReporte trabajo : trabajos.values()) {
+            if (trabajo.getTerminado() != null && trabajo.getTerminado().isBefore(limite)) {
+                trabajos.remove(trabajo.getId());
+                borrarArchivo(trabajo);
+                borrados++;
+            }
+        }
+        return borrados;
+    }
+
+    private void generar(TrabajoReporte trabajo, Generador generador) {
+        long inicio = System.currentTimeMillis();
+        trabajo.estado = EstadoTrabajo.EN_PROCESO;
+        try {
+            Path archivo = Files.createTempFile("reporte-", ".tmp");
+            trabajo.archivo = archivo;
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(archivo))) {
+                generador.generar(os);
+            }
+            trabajo.estado = EstadoTrabajo.LISTO;
+            log.info("Reporte {} ({}) generado en {} ms", trabajo.getId(), trabajo.getNombreArchivo(),
+                    System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            log.error("Error generando el reporte {} ({})", trabajo.getId(), trabajo.getNombreArchivo(), e);
+            trabajo.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            trabajo.estado = EstadoTrabajo.ERROR;
+            borrarArchivo(trabajo);
+        } finally {
+            trabajo.terminado = LocalDateTime.now();
+        }
+    }
+
+    private void borrarArchivo(TrabajoReporte trabajo) {
+        if (trabajo.archivo != null) {
+            try {
+                Files.deleteIfExists(trabajo.archivo);
+            } catch (IOException e) {
+                log.warn("No se pudo borrar el archivo del reporte {}: {}", trabajo.getId(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        executor.shutdown();
+        trabajos.values().forEach(this::borrarArchivo);
+    }
+
+    public enum EstadoTrabajo {
+        PENDIENTE, EN_PROCESO, LISTO, ERROR
+    }
+
+    /** Reporte encolado; el archivo sólo se puede descargar en estado LISTO. */
+    public static class TrabajoReporte {
+        private final String id;
+        private final String nombreArchivo;
+        private final LocalDateTime creado = LocalDateTime.now();
+        private volatile EstadoTrabajo estado = EstadoTrabajo.PENDIENTE;
+        private volatile String error;
+        private volatile LocalDateTime terminado;
+        private volatile Path archivo;
+
+        TrabajoReporte(String id, String nombreArchivo) {
+            this.id = id;
+            this.nombreArchivo = nombreArchivo;
+        }
+
+        public String getId() { return id; }
+        public String getNombreArchivo() { return nombreArchivo; }
+        public LocalDateTime getCreado() { return creado; }
+        public EstadoTrabajo getEstado() { return estado; }
+        public String getError() { return error; }
+        public LocalDateTime getTerminado() { return terminado; }
+
+        /** Archivo generado, o vacío si todavía no está listo. */
+        public Optional<Path> archivoListo() {
+            return estado == EstadoTrabajo.LISTO ? Optional.ofNullable(archivo) : Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.ClaveIdempotencia;
+import com.example.Sistema_Gestion.repository.ClaveIdempotenciaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Registro idempotente de documentos con el header Idempotency-Key.
+ * La primera solicitud con una clave la reserva (fila EN_PROCESO, confirmada aparte), ejecuta la
+ * operación y guarda la respuesta. Las repeticiones con la misma clave devuelven esa respuesta sin
+ * volver a ejecutar; si llegan mientras la primera sigue corriendo, esperan a que termine.
+ * Si la operación falla la clave se libera, así el reintento vuelve a ejecutarse. Si la operación
+ * se confirmó pero su respuesta no se puede serializar, la clave se completa con un 500: el documento
+ * ya existe y un reintento no debe repetirlo. Si la solicitud
+ * original se corta sin completar ni liberar la clave (el proceso se cayó), un reintento la reclama
+ * una vez pasado {@code app.idempotencia.reserva-max-segundos} desde la reserva y la ejecuta.
+ * Sin clave la operación se ejecuta siempre, como antes.
+ */
+@Service
+@Slf4j
+public class IdempotenciaService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String HEADER_REPETIDA = "Idempotent-Replayed";
+
+    private static final int LARGO_MAXIMO_CLAVE = 100;
+    private static final long INTERVALO_ESPERA_MS = 100;
+    /** Mismo cuerpo que el 500 de GlobalExceptionHandler. */
+    private static final String RESPUESTA_ERROR = "{\"error\":\"Ocurrió un error inesperado en el servidor\",\"status\":500}";
+
+    private final ClaveIdempotenciaRepository repository;
+    private final ObjectMapper objectMapper;
+    private final long ttlHoras;
+    private final long esperaMaximaMs;
+    private final long reservaMaximaSegundos;
+
+    public IdempotenciaService(ClaveIdempotenciaRepository repository, ObjectMapper objectMapper,
+            @Value("${app.idempotencia.ttl-horas:24}") long ttlHoras,
+            @Value("${app.idempotencia.espera-max-ms:30000}") long esperaMaximaMs,
+            @Value("${app.idempotencia.reserva-max-segundos:300}") long reservaMaximaSegundos) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttlHoras = Math.max(1, ttlHoras);
+        this.esperaMaximaMs = Math.max(0, esperaMaximaMs);
+        this.reservaMaximaSegundos = Math.max(1, reservaMaximaSegundos);
+    }
+
+    /**
+     * @param clave     valor del header (puede ser null)
+     * @param operacion nombre corto de la operación; la misma clave no se acepta en otra operación
+     * @param solicitud body recibido, para detectar la misma clave con otros datos
+     * @param accion    la operación; se llama como mucho una vez por clave
+     */
+    public ResponseEntity<?> ejecutar(String clave, String operacion, Object solicitud, Supplier<?> accion) {
+        if (clave == null || clave.isBlank()) {
+            return ResponseEntity.ok(accion.get());
+        }
+        clave = clave.trim();
+        if (clave.length() > LARGO_MAXIMO_CLAVE) {
+            throw new RuntimeException("Idempotency-Key demasiado larga (máximo " + LARGO_MAXIMO_CLAVE + " caracteres)");
+        }
+
+        String hash = hash(solicitud);
+        LocalDateTime ahora = ahora();
+        while (!reservar(clave, operacion, hash, ahora)) {
+            ResponseEntity<?> original = esperarOriginal(clave, operacion, hash);
+            if (original != null) {
+                return original;
+            }
+            // La solicitud original falló y liberó la clave, o la abandonó: ésta se ejecuta en su lugar
+            ahora = ahora();
+        }
+
+        Object resultado;
+        try {
+            resultado = accion.get();
+        } catch (RuntimeException e) {
+            repository.liberar(clave, ahora);
+            throw e;
+        }
+
+        // La operación ya se confirmó: si la respuesta no se puede armar la clave se completa igual
+        HttpStatus estado = HttpStatus.OK;
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(resultado);
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.error("{}: la operación con clave {} se confirmó pero no se pudo serializar la respuesta",
+                    operacion, clave, e);
+            estado = HttpStatus.INTERNAL_SERVER_ERROR;
+            json = RESPUESTA_ERROR;
+        }
+
+        try {
+            if (repository.completar(clave, ahora, estado.value(), json) == 0) {
+                log.warn("{}: la reserva de la clave {} fue reclamada por un reintento antes de completarse",
+                        operacion, clave);
+            }
+        } catch (RuntimeException e) {
+            // La operación ya se confirmó: no se libera la clave, un reintento debe esperar y no repetirla
+            log.error("{}: no se pudo guardar la respuesta de la clave {}", operacion, clave, e);
+        }
+        return respuestaJson(json, estado.value(), false);
+    }
+
+    /** Borra las claves vencidas en lotes. Devuelve la cantidad borrada. */
+    public int purgarVencidas(int lote) {
+        LocalDateTime ahora = LocalDateTime.now();
+        int total = 0;
+        int borradas;
+        do {
+            borradas = repository.borrarVencidas(ahora, lote);
+            total += borradas;
+        } while (borradas == lote);
+        return total;
+    }
+
+    private boolean reservar(String clave, String operacion, String hash, LocalDateTime ahora) {
+        LocalDateTime expiraEn = ahora.plusHours(ttlHoras);
+        if (repository.reservar(clave, operacion, hash, ahora, expiraEn) == 1) {
+            return true;
+        }
+        // Una clave vencida se puede volver a usar
+        if (repository.borrarSiVencida(clave, ahora) == 1) {
+            return repository.reservar(clave, operacion, hash, ahora, expiraEn) == 1;
+        }
+        // Una reserva abandonada (la solicitud original no terminó) la toma esta solicitud
+        if (repository.reclamarAbandonada(clave, operacion, hash, limiteReserva(ahora), ahora, expiraEn) == 1) {
+            log.warn("{}: la clave {} seguía en proceso desde hace más de {} s, se vuelve a ejecutar",
+                    operacion, clave, reservaMaximaSegundos);
+            return true;
+        }
+        return false;
+    }
+
+    private LocalDateTime limiteReserva(LocalDateTime ahora) {
+        return ahora.minusSeconds(reservaMaximaSegundos);
+    }
+
+    /** Hora actual con la precisión de la columna (microsegundos), para identificar la reserva. */
+    private static LocalDateTime ahora() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * Espera a que termine la solicitud que reservó la clave y devuelve su respuesta,
+     * o null si falló y la clave quedó libre o si su reserva ya se puede reclamar.
+     */
+    private ResponseEntity<?> esperarOriginal(String clave, String operacion, String hash) {
+        long limite = System.currentTimeMillis() + esperaMaximaMs;
+        while (true) {
+            Optional<ClaveIdempotencia> existente = repository.findById(clave);
+            if (existente.isEmpty()) {
+                return null;
+            }
+            ClaveIdempotencia registro = existente.get();
+            if (!registro.getOperacion().equals(operacion) || !registro.getHashSolicitud().equals(hash)) {
+                throw new RuntimeException("La Idempotency-Key ya se usó con otros datos");
+            }
+            if (registro.getEstado() == ClaveIdempotencia.Estado.COMPLETADA) {
+                log.info("{}: solicitud repetida con clave {}, se devuelve la respuesta original", operacion, clave);
+                return respuestaJson(registro.getRespuesta(), registro.getCodigoEstado(), true);
+            }
+            if (registro.getCreatedAt().isBefore(limiteReserva(ahora()))) {
+                return null;
+            }
+            if (System.currentTimeMillis() >= limite) {
+                throw new RuntimeException("La operación original con esta clave todavía está en proceso. Intente nuevamente.");
+            }
+            try {
+                Thread.sleep(INTERVALO_ESPERA_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Operación interrumpida");
+            }
+        }
+    }
+
+    private ResponseEntity<String> respuestaJson(String json, Integer codigoEstado, boolean repetida) {
+        int codigo = codigoEstado != null ? codigoEstado : HttpStatus.OK.value();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(codigo).contentType(MediaType.APPLICATION_JSON);
+        if (repetida) {
+            builder.header(HEADER_REPETIDA, "true");
+        }
+        return builder.body(json);
+    }
+
+    private String hash(Object solicitud) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(solicitud);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("No se pudo procesar la solicitud", e);
+        }
+    }
+}
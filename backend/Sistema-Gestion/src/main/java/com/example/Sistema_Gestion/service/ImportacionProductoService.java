@@ -0,0 +1,194 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.dto.ImportacionResultado;
+import com.example.Sistema_Gestion.model.ImportacionProducto;
+import com.example.Sistema_Gestion.model.ImportacionProducto.EstadoImportacion;
+import com.example.Sistema_Gestion.repository.ImportacionProductoRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Importaciones de productos en segundo plano. El archivo subido se copia a disco, se registra
+ * el trabajo en importacion_producto y se procesa en un pool acotado; el progreso se guarda
+ * después de cada lote y se consulta por id.
+ * Si el pool y su cola están llenos, la importación se rechaza en lugar de encolarse sin límite.
+ */
+@Service
+@Slf4j
+public class ImportacionProductoService {
+
+    private final ImportacionProductoRepository importacionRepository;
+    private final ProductoImportador productoImportador;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor executor;
+    private final int abandonadaTrasMin;
+
+    public ImportacionProductoService(ImportacionProductoRepository importacionRepository,
+            ProductoImportador productoImportador,
+            ObjectMapper objectMapper,
+            @Value("${app.importacion.hilos:1}") int hilos,
+            @Value("${app.importacion.cola:5}") int cola,
+            @Value("${app.importacion.abandonada-tras-min:30}") int abandonadaTrasMin) {
+        this.importacionRepository = importacionRepository;
+        this.productoImportador = productoImportador;
+        this.objectMapper = objectMapper;
+        this.abandonadaTrasMin = Math.max(1, abandonadaTrasMin);
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, hilos), Math.max(1, hilos), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, cola)),
+                r -> new Thread(r, "importacion-productos-" + contador.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Registra la importación y la encola. Devuelve el trabajo en estado PENDIENTE.
+     *
+     * @throws RejectedExecutionException si ya hay demasiadas importaciones en curso
+     */
+    public ImportacionProducto iniciar(MultipartFile file) throws IOException {
+        // El stream del multipart se cierra al terminar el request: se copia a un temporal propio
+        Path temporal = Files.createTempFile("importacion-productos-", ".xlsx");
+        try {
+            file.transferTo(temporal);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+
+        ImportacionProducto importacion = importacionRepository.save(new ImportacionProducto(file.getOriginalFilename()));
+        Long id = importacion.getId();
+        try {
+            executor.execute(() -> ejecutar(id, temporal));
+        } catch (RejectedExecutionException e) {
+            Files.deleteIfExists(temporal);
+            importacion.setEstado(EstadoImportacion.FALLIDA);
+            importacion.setMensajeError("Rechazada: hay demasiadas importaciones en curso");
+            importacion.setFinishedAt(LocalDateTime.now());
+            importacionRepository.save(importacion);
+            throw e;
+        }
+
+        log.info("Importación de productos {} encolada ({})", id, file.getOriginalFilename());
+        return importacion;
+    }
+
+    public Optional<ImportacionProducto> buscarPorId(Long id) {
+        return importacionRepository.findById(id);
+    }
+
+    /**
+     * Cierra como fallidas las importaciones pendientes o en proceso que no registran actividad hace más de
+     * app.importacion.abandonada-tras-min minutos, para que el cliente no espere indefinidamente.
+     * Un trabajo vivo se guarda después de cada lote, así que no se tocan los de otras instancias que siguen
+     * corriendo. Se ejecuta al iniciar y periódicamente (ImportacionProductoTask).
+     *
+     * @return cantidad de importaciones cerradas
+     */
+    public int cerrarInterrumpidas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        int cerradas = importacionRepository.cerrarAbandonadas(
+                EnumSet.of(EstadoImportacion.PENDIENTE, EstadoImportacion.EN_PROCESO),
+                ahora.minusMinutes(abandonadaTrasMin), EstadoImportacion.FALLIDA,
+                "Interrumpida: sin actividad durante " + abandonadaTrasMin + " minutos (reinicio o caída del servidor)",
+                ahora);
+        if (cerradas > 0) {
+            log.warn("Importaciones de productos interrumpidas: {}", cerradas);
+        }
+        return cerradas;
+    }
+
+    /** Al iniciar. Es void: Spring publicaría como evento cualquier valor que devuelva un listener. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cerrarInterrumpidasAlIniciar() {
+        cerrarInterrumpidas();
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+
+    private void ejecutar(Long id, Path archivo) {
+        ImportacionProducto importacion = importacionRepository.findById(id).orElse(null);
+        if (importacion == null || importacion.getEstado() != EstadoImportacion.PENDIENTE) {
+            // Se cerró como interrumpida mientras esperaba en la cola
+            borrarTemporal(id, archivo);
+            return;
+        }
+
+        try {
+            importacion.setEstado(EstadoImportacion.EN_PROCESO);
+            importacion.setStartedAt(LocalDateTime.now());
+            importacion = importacionRepository.save(importacion);
+
+            ImportacionProducto enCurso = importacion;
+            ImportacionResultado resultado = productoImportador.importar(archivo, parcial -> {
+                copiarContadores(parcial, enCurso);
+                importacionRepository.save(enCurso);
+            });
+
+            copiarContadores(resultado, importacion);
+            importacion.setErrores(aJson(resultado));
+            importacion.setEstado(EstadoImportacion.COMPLETADA);
+        } catch (Exception e) {
+            log.error("Importación de productos {} fallida", id, e);
+            importacion.setEstado(EstadoImportacion.FALLIDA);
+            importacion.setMensajeError(recortar(e.getMessage()));
+        } finally {
+            importacion.setFinishedAt(LocalDateTime.now());
+            importacionRepository.save(importacion);
+            borrarTemporal(id, archivo);
+        }
+    }
+
+    private void borrarTemporal(Long id, Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el temporal de la importación {}: {}", id, e.getMessage());
+        }
+    }
+
+    private void copiarContadores(ImportacionResultado resultado, ImportacionProducto importacion) {
+        importacion.setFilasLeidas(resultado.getFilasLeidas());
+        importacion.setInsertados(resultado.getInsertados());
+        importacion.setActualizados(resultado.getActualizados());
+        importacion.setTotalErrores(resultado.getTotalErrores());
+        importacion.setDuracionMs(resultado.getDuracionMs());
+        importacion.setFilasPorSegundo(resultado.getFilasPorSegundo());
+    }
+
+    private String aJson(ImportacionResultado resultado) {
+        try {
+            return objectMapper.writeValueAsString(resultado.getErrores());
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudieron serializar los errores de la importación: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private String recortar(String mensaje) {
+        if (mensaje == null) return "Error inesperado";
+        return mensaje.length() > 1000 ? mensaje.substring(0, 1000) : mensaje;
+    }
+}
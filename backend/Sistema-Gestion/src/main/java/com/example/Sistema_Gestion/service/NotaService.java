@@ -1,7 +1,9 @@
 package com.example.Sistema_Gestion.service;
 
+import com.example.Sistema_Gestion.dto.VersionPdf;
 import com.example.Sistema_Gestion.model.Cliente;
 import com.example.Sistema_Gestion.model.Nota;
+import com.example.Sistema_Gestion.model.Numerador;
 import com.example.Sistema_Gestion.repository.ClienteRepository;
 import com.example.Sistema_Gestion.repository.NotaRepository;
 import org.springframework.stereotype.Service;
@@ -10,18 +12,25 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class NotaService {
 
     private final NotaRepository notaRepository;
     private final ClienteRepository clienteRepository;
-    private final ConfiguracionService configuracionService;
+    private final PdfRecursosService pdfRecursosService;
+    private final NumeradorService numeradorService;
+    private final SaldoClienteService saldoClienteService;
 
-    public NotaService(NotaRepository notaRepository, ClienteRepository clienteRepository, ConfiguracionService configuracionService) {
+    public NotaService(NotaRepository notaRepository, ClienteRepository clienteRepository,
+            PdfRecursosService pdfRecursosService, NumeradorService numeradorService,
+            SaldoClienteService saldoClienteService) {
         this.notaRepository = notaRepository;
         this.clienteRepository = clienteRepository;
-        this.configuracionService = configuracionService;
+        this.pdfRecursosService = pdfRecursosService;
+        this.numeradorService = numeradorService;
+        this.saldoClienteService = saldoClienteService;
     }
 
     public List<Nota> buscarPorCliente(Long clienteId) {
@@ -43,10 +52,7 @@ public class NotaService {
         nota.setMonto(monto);
         nota.setMotivo(motivo);
         nota.setFecha(LocalDate.now());
-        
-        // El número puede ser autogenerado o usar el count
-        long count = notaRepository.count();
-        nota.setNumero(count + 1);
+        nota.setNumero(numeradorService.siguiente(Numerador.TipoDocumento.NOTA));
 
         if (tipo == Nota.TipoNota.CREDITO) {
             nota.setEstado(Nota.EstadoNota.PAGADA); // Las NC se aplican al saldo global, no se "pagan"
@@ -54,26 +60,46 @@ public class NotaService {
             nota.setEstado(Nota.EstadoNota.PENDIENTE);
         }
 
-        return notaRepository.save(nota);
+        Nota saved = notaRepository.save(nota);
+        saldoClienteService.registrarMovimiento(cliente.getId(), saldoClienteService.impacto(saved));
+        return saved;
     }
     
     @Transactional
     public void actualizarEstadoPostCobro(Nota nota, BigDecimal totalCobrado) {
+        if (aplicarEstadoPostCobro(nota, totalCobrado)) {
+            notaRepository.save(nota);
+        }
+    }
+
+    /** Marca la nota de débito como PAGADA en memoria si quedó cubierta; devuelve si cambió. */
+    public boolean aplicarEstadoPostCobro(Nota nota, BigDecimal totalCobrado) {
         if (nota.getTipo() == Nota.TipoNota.DEBITO && totalCobrado.compareTo(nota.getMonto()) >= 0) {
             nota.setEstado(Nota.EstadoNota.PAGADA);
-            notaRepository.save(nota);
+            return true;
         }
+        return false;
     }
 
     @Transactional
     public void anularNota(Long id) {
         Nota nota = notaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Nota no encontrada"));
+        BigDecimal impactoAnterior = saldoClienteService.impacto(nota);
         nota.setEstado(Nota.EstadoNota.ANULADA);
         notaRepository.save(nota);
+
+        if (nota.getCliente() != null) {
+            saldoClienteService.registrarMovimiento(nota.getCliente().getId(), impactoAnterior.negate());
+        }
+    }
+
+    /** Número y marca de versión para servir el PDF desde el cache sin cargar la nota. */
+    public Optional<VersionPdf> versionPdf(Long notaId) {
+        return notaRepository.versionPdf(notaId);
     }
 
-    public void generarPdfNota(Long notaId, java.io.OutputStream os, byte[] logoBytes) throws Exception {
+    public void generarPdfNota(Long notaId, java.io.OutputStream os) throws java.io.IOException {
         Nota nota = notaRepository.findById(notaId)
                 .orElseThrow(() -> new RuntimeException("Nota no encontrada: " + notaId));
 
@@ -88,12 +114,7 @@ public class NotaService {
             float y = h - margin;
 
             // ----- LOGO -----
-            if (logoBytes != null) {
-                try {
-                    org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject logo = org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject.createFromByteArray(doc, logoBytes, "logo");
-                    cs.drawImage(logo, margin, y - 120, 140, 140);
-                } catch (Exception ignored) {}
-            }
+            pdfRecursosService.dibujarLogo(doc, cs, margin, y);
 
             // ----- ENCABEZADO -----
             String tipoDocumento = nota.getTipo() == Nota.TipoNota.DEBITO ? "NOTA DE DÉBITO" : "NOTA DE CRÉDITO";
@@ -130,26 +151,7 @@ public class NotaService {
 
             // ----- EMPRESA -----
             y -= 22;
-            com.example.Sistema_Gestion.model.Configuracion config = configuracionService.getConfiguracion();
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 10);
-            cs.newLineAtOffset(margin, y);
-            cs.showText(config.getNombreEmpresa() != null ? config.getNombreEmpresa() : "Mi Empresa");
-            cs.endText();
-
-            y -= 14;
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 8);
-            cs.newLineAtOffset(margin, y);
-            cs.showText("CUIL: " + (config.getCuit() != null ? config.getCuit() : "—"));
-            cs.endText();
-
-            y -= 12;
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 8);
-            cs.newLineAtOffset(margin, y);
-            cs.showText("Dirección: " + (config.getDireccion() != null ? config.getDireccion() : "—"));
-            cs.endText();
+            y = pdfRecursosService.dibujarEmpresa(cs, margin, y, 8, "Mi Empresa");
 
             // ----- CLIENTE -----
             y -= 25;
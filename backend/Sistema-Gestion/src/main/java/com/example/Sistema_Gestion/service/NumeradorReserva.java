@@ -0,0 +1,69 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.Numerador;
+import com.example.Sistema_Gestion.model.Numerador.TipoDocumento;
+import com.example.Sistema_Gestion.repository.CompraRepository;
+import com.example.Sistema_Gestion.repository.NotaProveedorRepository;
+import com.example.Sistema_Gestion.repository.NumeradorRepository;
+import com.example.Sistema_Gestion.repository.RemitoRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Reserva bloques de números en la tabla numerador. Corre en su propia transacción
+ * para que el bloque quede tomado aunque el documento que lo pidió haga rollback
+ * (los números perdidos quedan como huecos, nunca se repiten).
+ */
+@Component
+public class NumeradorReserva {
+
+    private final NumeradorRepository numeradorRepository;
+    private final RemitoRepository remitoRepository;
+    private final CompraRepository compraRepository;
+    private final NotaProveedorRepository notaRepository;
+
+    public NumeradorReserva(NumeradorRepository numeradorRepository,
+            RemitoRepository remitoRepository,
+            CompraRepository compraRepository,
+            NotaProveedorRepository notaRepository) {
+        this.numeradorRepository = numeradorRepository;
+        this.remitoRepository = remitoRepository;
+        this.compraRepository = compraRepository;
+        this.notaRepository = notaRepository;
+    }
+
+    /**
+     * Toma {@code cantidad} números consecutivos para el tipo indicado y devuelve el primero.
+     * La fila del numerador queda bloqueada hasta el commit, así dos instancias nunca
+     * reciben el mismo bloque. Si la fila no existe se inicializa desde el MAX(numero) actual.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long reservar(TipoDocumento tipo, int cantidad) {
+        Optional<Numerador> existente = numeradorRepository.findByTipoForUpdate(tipo);
+        if (existente.isEmpty()) {
+            // INSERT explícito: un save sobre la fila que otra instancia acaba de crear haría un merge
+            // (UPDATE) y entregaría el mismo bloque; así falla por clave duplicada y NumeradorService reintenta
+            long desde = maximoActual(tipo) + 1;
+            numeradorRepository.crear(tipo.name(), desde + cantidad);
+            return desde;
+        }
+
+        Numerador numerador = existente.get();
+        long desde = numerador.getProximo();
+        numerador.setProximo(desde + cantidad);
+        numeradorRepository.saveAndFlush(numerador);
+        return desde;
+    }
+
+    private long maximoActual(TipoDocumento tipo) {
+        Long max = switch (tipo) {
+            case REMITO -> remitoRepository.findMaxNumero();
+            case COMPRA -> compraRepository.findMaxNumero();
+            case NOTA -> notaRepository.findMaxNumero();
+        };
+        return max != null ? max : 0L;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.Numerador.TipoDocumento;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Numeración de documentos (remitos, compras, notas) con cache hi/lo: cada instancia
+ * reserva un bloque de números en la tabla numerador y los entrega desde memoria.
+ * Sólo se toca la base cuando el bloque se agota.
+ */
+@Service
+@Slf4j
+public class NumeradorService {
+
+    private final NumeradorReserva numeradorReserva;
+    private final int tamanioBloque;
+    private final Map<TipoDocumento, Bloque> bloques = new EnumMap<>(TipoDocumento.class);
+
+    public NumeradorService(NumeradorReserva numeradorReserva,
+            @Value("${app.numerador.bloque:20}") int tamanioBloque) {
+        this.numeradorReserva = numeradorReserva;
+        this.tamanioBloque = Math.max(1, tamanioBloque);
+        for (TipoDocumento tipo : TipoDocumento.values()) {
+            bloques.put(tipo, new Bloque());
+        }
+    }
+
+    /** Devuelve el próximo número para el tipo de documento. Puede dejar huecos, nunca repite. */
+    public Long siguiente(TipoDocumento tipo) {
+        Bloque bloque = bloques.get(tipo);
+        synchronized (bloque) {
+            if (bloque.agotado()) {
+                bloque.reiniciar(reservarBloque(tipo), tamanioBloque);
+            }
+            return bloque.tomar();
+        }
+    }
+
+    private long reservarBloque(TipoDocumento tipo) {
+        try {
+            return numeradorReserva.reservar(tipo, tamanioBloque);
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia creó la fila del numerador al mismo tiempo: reintentar sobre la fila existente
+            log.debug("Numerador {} inicializado en paralelo, reintentando reserva", tipo);
+            return numeradorReserva.reservar(tipo, tamanioBloque);
+        }
+    }
+
+    /** Rango [proximo, limite) de números ya reservados por esta instancia. */
+    private static final class Bloque {
+        private long proximo;
+        private long limite;
+
+        boolean agotado() {
+            return proximo >= limite;
+        }
+
+        void reiniciar(long desde, int cantidad) {
+            proximo = desde;
+            limite = desde + cantidad;
+        }
+
+        long tomar() {
+            return proximo++;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.Sistema_Gestion.service;
 
+import com.example.Sistema_Gestion.dto.VersionPdf;
 import com.example.Sistema_Gestion.model.*;
 import com.example.Sistema_Gestion.repository.*;
 import org.springframework.stereotype.Service;
@@ -7,9 +8,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Servicio para gestionar pagos realizados A proveedores.
@@ -27,23 +30,40 @@ public class PagoProveedorService {
     private final CompraRepository compraRepository;
     private final TesoreriaService tesoreriaService;
     private final ProveedorRepository proveedorRepository;
-    private final ConfiguracionService configuracionService;
+    private final PdfRecursosService pdfRecursosService;
     private final NotaProveedorRepository notaProveedorRepository;
+    private final ReintentoConcurrencia reintentoConcurrencia;
 
     public PagoProveedorService(PagoProveedorRepository pagoProveedorRepository,
             PagoProveedorCompraRepository pagoProveedorCompraRepository,
             CompraRepository compraRepository,
             TesoreriaService tesoreriaService,
             ProveedorRepository proveedorRepository,
-            ConfiguracionService configuracionService,
-            NotaProveedorRepository notaProveedorRepository) {
+            PdfRecursosService pdfRecursosService,
+            NotaProveedorRepository notaProveedorRepository,
+            ReintentoConcurrencia reintentoConcurrencia) {
         this.pagoProveedorRepository = pagoProveedorRepository;
         this.pagoProveedorCompraRepository = pagoProveedorCompraRepository;
         this.compraRepository = compraRepository;
         this.tesoreriaService = tesoreriaService;
         this.proveedorRepository = proveedorRepository;
-        this.configuracionService = configuracionService;
+        this.pdfRecursosService = pdfRecursosService;
         this.notaProveedorRepository = notaProveedorRepository;
+        this.reintentoConcurrencia = reintentoConcurrencia;
+    }
+
+    /**
+     * {@link #registrarPago} en su propia transacción, repetido si otro pago simultáneo modificó
+     * las mismas compras (conflicto de versión).
+     */
+    public PagoProveedor registrarPagoConReintentos(PagoProveedor pago, Map<Long, BigDecimal> importesPorCompra) {
+        return reintentoConcurrencia.ejecutar("Registrar pago a proveedor",
+                () -> registrarPago(pago, importesPorCompra),
+                () -> {
+                    // Quitar lo que asignó el intento que hizo rollback
+                    pago.setId(null);
+                    pago.setCompras(new ArrayList<>());
+                });
     }
 
     /**
@@ -113,14 +133,23 @@ public class PagoProveedorService {
         
         tesoreriaService.registrarMovimiento(mov);
 
-        // Distribuir entre compras
-        if (importesPorCompra != null) {
+        // Distribuir entre compras. Las compras se leen juntas y con versión forzada: si otro pago
+        // simultáneo toca alguna, uno de los dos falla al confirmar y se reintenta (ver registrarPagoConReintentos)
+        if (importesPorCompra != null && !importesPorCompra.isEmpty()) {
+            Map<Long, Compra> compras = compraRepository.buscarParaPago(importesPorCompra.keySet()).stream()
+                    .collect(Collectors.toMap(Compra::getId, c -> c));
+
             for (Map.Entry<Long, BigDecimal> entry : importesPorCompra.entrySet()) {
                 Long compraId = entry.getKey();
                 BigDecimal importe = entry.getValue();
 
-                Compra compra = compraRepository.findById(compraId)
-                        .orElseThrow(() -> new RuntimeException("Compra no encontrada: " + compraId));
+                Compra compra = compras.get(compraId);
+                if (compra == null) {
+                    throw new RuntimeException("Compra no encontrada: " + compraId);
+                }
+
+                // Lo pagado antes se lee antes de agregar la imputación nueva (el auto-flush la sumaría)
+                BigDecimal totalPagadoAntes = pagoProveedorCompraRepository.totalPagadoPorCompra(compraId);
 
                 // Registrar el importe aplicado a esta compra
                 PagoProveedorCompra pc = new PagoProveedorCompra();
@@ -130,9 +159,7 @@ public class PagoProveedorService {
                 savedPago.getCompras().add(pc);
 
                 // Recalcular deuda de esta compra y actualizar su estado
-                BigDecimal totalPagadoAntes = pagoProveedorCompraRepository.totalPagadoPorCompra(compraId);
-                BigDecimal totalPagadoAhora = totalPagadoAntes.add(importe);
-                actualizarEstadoCompra(compra, totalPagadoAhora);
+                actualizarEstadoCompra(compra, totalPagadoAntes.add(importe));
             }
         }
 
@@ -258,7 +285,12 @@ public class PagoProveedorService {
 
     // =================== PDF: ORDEN DE PAGO ===================
 
-    public void generarPdfOrdenPago(Long pagoId, java.io.OutputStream os, byte[] logoBytes) throws Exception {
+    /** Marca de versión de la orden de pago para servirla desde el cache sin cargar el pago. */
+    public Optional<VersionPdf> versionPdfOrdenPago(Long pagoId) {
+        return pagoProveedorRepository.versionPdf(pagoId);
+    }
+
+    public void generarPdfOrdenPago(Long pagoId, java.io.OutputStream os) throws java.io.IOException {
         PagoProveedor pago = pagoProveedorRepository.findById(pagoId)
                 .orElseThrow(() -> new RuntimeException("Pago no encontrado: " + pagoId));
 
@@ -273,13 +305,7 @@ public class PagoProveedorService {
             float y = h - margin;
 
             // ----- LOGO -----
-            if (logoBytes != null) {
-                try {
-                    org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject logo =
-                            org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject.createFromByteArray(doc, logoBytes, "logo");
-                    cs.drawImage(logo, margin, y - 120, 140, 140);
-                } catch (Exception ignored) {}
-            }
+            pdfRecursosService.dibujarLogo(doc, cs, margin, y);
 
             // ----- ENCABEZADO -----
             cs.beginText();
@@ -310,26 +336,7 @@ public class PagoProveedorService {
 
             // ----- EMPRESA -----
             y -= 22;
-            com.example.Sistema_Gestion.model.Configuracion config = configuracionService.getConfiguracion();
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 10);
-            cs.newLineAtOffset(margin, y);
-            cs.showText(config.getNombreEmpresa() != null ? config.getNombreEmpresa() : "Mi Empresa");
-            cs.endText();
-
-            y -= 14;
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 8);
-            cs.newLineAtOffset(margin, y);
-            cs.showText("CUIL: " + (config.getCuit() != null ? config.getCuit() : "—"));
-            cs.endText();
-
-            y -= 12;
-            cs.beginText();
-            cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA, 8);
-            cs.newLineAtOffset(margin, y);
-            cs.showText("Dirección: " + (config.getDireccion() != null ? config.getDireccion() : "—"));
-            cs.endText();
+            y = pdfRecursosService.dibujarEmpresa(cs, margin, y, 8, "Mi Empresa");
 
             // ----- PROVEEDOR -----
             y -= 25;
@@ -505,7 +512,7 @@ public class PagoProveedorService {
     }
 
     private void drawLabelValueOP(org.apache.pdfbox.pdmodel.PDPageContentStream cs, float x, float y,
-            String label, String value) throws Exception {
+            String label, String value) throws java.io.IOException {
         cs.beginText();
         cs.setFont(org.apache.pdfbox.pdmodel.font.PDType1Font.HELVETICA_BOLD, 10);
         cs.newLineAtOffset(x, y); cs.showText(label); cs.endText();
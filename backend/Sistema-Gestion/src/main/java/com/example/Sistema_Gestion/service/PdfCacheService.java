@@ -0,0 +1,332 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.dto.VersionPdf;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PDFs de documentos (remito, recibo, orden de pago, nota) guardados en disco.
+ * La clave sale del tipo e id del documento, su marca de versión (ver VersionPdf) y la huella de
+ * PdfRecursosService: si cambia algo de lo que se imprime cambia la clave, así que nunca se sirve un
+ * PDF viejo. La misma clave es el ETag: con If-None-Match coincidente se responde 304 sin leer nada.
+ * El total en disco está acotado; al pasarse se borran los menos usados (LRU). El directorio se vacía
+ * al iniciar, así una versión nueva de la aplicación con otro diseño no sirve PDFs anteriores.
+ */
+@Service
+@Slf4j
+public class PdfCacheService {
+
+    private static final String EXTENSION = ".pdf";
+    private static final String EXTENSION_TEMPORAL = ".tmp";
+
+    private final PdfRecursosService pdfRecursosService;
+    private final Path directorio;
+    private final long maximoBytes;
+
+    /** Nombre de archivo → tamaño, en orden de uso (el primero es el menos usado). */
+    private final LinkedHashMap<String, Long> archivos = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytesTotales;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong noModificados = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+
+    public PdfCacheService(PdfRecursosService pdfRecursosService,
+            @Value("${app.pdf.cache.dir:${java.io.tmpdir}/sistema-gestion-pdf}") String directorio,
+            @Value("${app.pdf.cache.max-mb:200}") long maximoMb) throws IOException {
+        this.pdfRecursosService = pdfRecursosService;
+        this.directorio = Path.of(directorio);
+        this.maximoBytes = Math.max(1, maximoMb) * 1024 * 1024;
+        Files.createDirectories(this.directorio);
+        vaciar();
+    }
+
+    @FunctionalInterface
+    public interface Generador {
+        void generar(OutputStream os) throws IOException;
+    }
+
+    /**
+     * Respuesta del PDF: 304 si el cliente ya lo tiene, el archivo guardado si existe, o el generado
+     * (que se guarda mientras se envía).
+     *
+     * @param tipo        remito, recibo, orden-pago, nota; parte de la clave y del nombre del archivo
+     * @param ifNoneMatch header If-None-Match recibido (puede ser null)
+     */
+    public ResponseEntity<StreamingResponseBody> servir(String tipo, Long id, VersionPdf version, String nombreDescarga,
+            String ifNoneMatch, Generador generador) {
+        String clave = clave(tipo, id, version);
+        String etag = "\"" + clave + "\"";
+        if (coincide(ifNoneMatch, etag)) {
+            noModificados.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl()).build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", nombreDescarga);
+        headers.setETag(etag);
+        headers.setCacheControl(cacheControl());
+
+        String archivo = tipo + "-" + id + "-" + clave + EXTENSION;
+        Long tamanio = usar(archivo);
+        if (tamanio != null) {
+            try {
+                InputStream in = Files.newInputStream(directorio.resolve(archivo));
+                aciertos.incrementAndGet();
+                headers.setContentLength(tamanio);
+                StreamingResponseBody body = os -> {
+                    try (in) {
+                        in.transferTo(os);
+                    }
+                };
+                return new ResponseEntity<>(body, headers, HttpStatus.OK);
+            } catch (IOException e) {
+                // Borrado por fuera: se vuelve a generar
+                quitar(archivo);
+            }
+        }
+
+        fallos.incrementAndGet();
+        StreamingResponseBody body = os -> generarYGuardar(archivo, tipo + "-" + id + "-", os, generador);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    public Map<String, Object> getEstadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("aciertos", aciertos.get());
+        estadisticas.put("noModificados", noModificados.get());
+        estadisticas.put("fallos", fallos.get());
+        estadisticas.put("desalojos", desalojos.get());
+        synchronized (this) {
+            estadisticas.put("archivos", archivos.size());
+            estadisticas.put("bytes", bytesTotales);
+        }
+        estadisticas.put("maximoBytes", maximoBytes);
+        return estadisticas;
+    }
+
+    private String clave(String tipo, Long id, VersionPdf version) {
+        String datos = tipo + "|" + id + "|" + version.getMarca() + "|" + pdfRecursosService.huella();
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(datos.getBytes(StandardCharsets.UTF_8));
+            // 128 bits alcanzan para distinguir versiones del mismo documento
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean coincide(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String valor : ifNoneMatch.split(",")) {
+            valor = valor.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*") || valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CacheControl cacheControl() {
+        // El navegador puede guardarlo pero tiene que revalidar con el ETag en cada descarga
+        return CacheControl.noCache().cachePrivate();
+    }
+
+    /**
+     * Escribe el PDF a la respuesta y a un temporal; si se generó completo, el temporal pasa a ser el
+     * archivo del cache. Un error de disco no corta la descarga: sólo no se guarda.
+     */
+    private void generarYGuardar(String archivo, String prefijoDocumento, OutputStream os, Generador generador)
+            throws IOException {
+        Path temporal = Files.createTempFile(directorio, prefijoDocumento, EXTENSION_TEMPORAL);
+        boolean completo = false;
+        CopiaADisco copia = new CopiaADisco(os, new BufferedOutputStream(Files.newOutputStream(temporal)));
+        try {
+            generador.generar(copia);
+            completo = copia.cerrarArchivo();
+        } finally {
+            copia.cerrarArchivo();
+            if (completo) {
+                guardar(temporal, archivo, prefijoDocumento);
+            } else {
+                Files.deleteIfExists(temporal);
+            }
+        }
+    }
+
+    private void guardar(Path temporal, String archivo, String prefijoDocumento) {
+        List<String> aBorrar = new ArrayList<>();
+        try {
+            long tamanio = Files.size(temporal);
+            if (tamanio > maximoBytes) {
+                Files.deleteIfExists(temporal);
+                return;
+            }
+            Files.move(temporal, directorio.resolve(archivo), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                // Las versiones anteriores del mismo documento ya no se van a pedir
+                for (Iterator<Map.Entry<String, Long>> it = archivos.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<String, Long> entrada = it.next();
+                    if (entrada.getKey().startsWith(prefijoDocumento) && !entrada.getKey().equals(archivo)) {
+                        bytesTotales -= entrada.getValue();
+                        aBorrar.add(entrada.getKey());
+                        it.remove();
+                    }
+                }
+                Long anterior = archivos.put(archivo, tamanio);
+                bytesTotales += tamanio - (anterior != null ? anterior : 0);
+                for (Iterator<Map.Entry<String, Long>> it = archivos.entrySet().iterator();
+                        bytesTotales > maximoBytes && it.hasNext(); ) {
+                    Map.Entry<String, Long> entrada = it.next();
+                    bytesTotales -= entrada.getValue();
+                    aBorrar.add(entrada.getKey());
+                    desalojos.incrementAndGet();
+                    it.remove();
+                }
+            }
+        } catch (IOException e) {
+            // Otro pedido guardó el mismo PDF o falta espacio: se sigue sin cache para éste
+            log.debug("No se pudo guardar el PDF {} en el cache: {}", archivo, e.getMessage());
+            borrar(temporal);
+        }
+        aBorrar.forEach(nombre -> borrar(directorio.resolve(nombre)));
+    }
+
+    /** Tamaño del archivo si está en el cache (y lo marca como usado), o null. */
+    private synchronized Long usar(String archivo) {
+        return archivos.get(archivo);
+    }
+
+    private void quitar(String archivo) {
+        synchronized (this) {
+            Long tamanio = archivos.remove(archivo);
+            if (tamanio != null) {
+                bytesTotales -= tamanio;
+            }
+        }
+        borrar(directorio.resolve(archivo));
+    }
+
+    private void borrar(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            // En Windows falla si se está enviando; queda huérfano hasta el próximo inicio
+            log.debug("No se pudo borrar {} del cache de PDF: {}", archivo, e.getMessage());
+        }
+    }
+
+    private void vaciar() throws IOException {
+        int borrados = 0;
+        try (DirectoryStream<Path> contenido = Files.newDirectoryStream(directorio,
+                "*{" + EXTENSION + "," + EXTENSION_TEMPORAL + "}")) {
+            for (Path archivo : contenido) {
+                borrar(archivo);
+                borrados++;
+            }
+        }
+        log.info("Cache de PDF en {} (máximo {} MB); {} archivos anteriores borrados", directorio,
+                maximoBytes / (1024 * 1024), borrados);
+    }
+
+    /**
+     * Copia lo que se envía al cliente en el archivo del cache. Si falla el disco se deja de copiar
+     * y el archivo se descarta, pero la respuesta sigue.
+     */
+    private static class CopiaADisco extends OutputStream {
+        private final OutputStream respuesta;
+        private OutputStream archivo;
+        private boolean archivoValido = true;
+
+        CopiaADisco(OutputStream respuesta, OutputStream archivo) {
+            this.respuesta = respuesta;
+            this.archivo = archivo;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            respuesta.write(b);
+            if (archivo != null) {
+                try {
+                    archivo.write(b);
+                } catch (IOException e) {
+                    descartarArchivo();
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            respuesta.write(b, off, len);
+            if (archivo != null) {
+                try {
+                    archivo.write(b, off, len);
+                } catch (IOException e) {
+                    descartarArchivo();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            respuesta.flush();
+        }
+
+        /** Cierra el archivo; devuelve true si quedó completo. */
+        boolean cerrarArchivo() {
+            if (archivo != null) {
+                try {
+                    archivo.close();
+                } catch (IOException e) {
+                    archivoValido = false;
+                }
+                archivo = null;
+            }
+            return archivoValido;
+        }
+
+        private void descartarArchivo() {
+            archivoValido = false;
+            try {
+                archivo.close();
+            } catch (IOException ignorada) {
+                // El archivo se borra igual
+            }
+            archivo = null;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.Configuracion;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+/**
+ * Recursos compartidos por los PDF (remito, recibo, nota, orden de pago, cuenta corriente del proveedor).
+ * El logo ({@code app.pdf.logo-path}; vacío = sin logo) se lee y prepara una sola vez, achicado si es más
+ * grande de lo que se imprime, y se codifica como imagen PDF (stream Flate o DCT más su máscara de
+ * transparencia). Cada documento copia esos streams ya comprimidos: no se decodifica ni se vuelve a
+ * comprimir el PNG por PDF, que era casi todo el tiempo de generar un remito o recibo suelto.
+ * Se vuelve a preparar si cambia el archivo.
+ * Un documento con varios remitos o recibos (la exportación en lote unida en un PDF) crea el logo una vez
+ * con {@link #crearLogo} y lo pasa a cada uno, así todas las páginas usan la misma imagen.
+ * Los datos de la empresa se leen una vez y se descartan cuando se actualiza la Configuracion.
+ * Las fuentes son las estándar de PDF (PDType1Font), que no se embeben ni se cargan por documento.
+ */
+@Service
+@Slf4j
+public class PdfRecursosService {
+
+    private final ConfiguracionService configuracionService;
+    private final Path rutaLogo;
+    private final int ladoMaximoLogo;
+
+    private volatile LogoPreparado logo;
+    private DatosEmpresa empresa;
+
+    public PdfRecursosService(ConfiguracionService configuracionService,
+            @Value("${app.pdf.logo-path:}") String rutaLogo,
+            @Value("${app.pdf.logo-lado-max:600}") int ladoMaximoLogo) {
+        this.configuracionService = configuracionService;
+        this.rutaLogo = rutaLogo == null || rutaLogo.isBlank() ? null : Path.of(rutaLogo.trim());
+        this.ladoMaximoLogo = Math.max(50, ladoMaximoLogo);
+    }
+
+    /** Dibuja el logo de 140x140 en la esquina superior izquierda; sin logo no dibuja nada. */
+    public void dibujarLogo(PDDocument doc, PDPageContentStream cs, float x, float y) {
+        dibujarLogo(crearLogo(doc), cs, x, y);
+    }
+
+    /** Igual que {@link #dibujarLogo(PDDocument, PDPageContentStream, float, float)} con el logo ya creado. */
+    public void dibujarLogo(PDImageXObject imagen, PDPageContentStream cs, float x, float y) {
+        if (imagen == null) {
+            return;
+        }
+        try {
+            cs.drawImage(imagen, x, y - 120, 140, 140);
+        } catch (IOException e) {
+            log.warn("No se pudo dibujar el logo en el PDF: {}", e.getMessage());
+        }
+    }
+
+    /** Logo agregado a {@code doc}, o null si no hay archivo de logo o no se pudo leer. */
+    public PDImageXObject crearLogo(PDDocument doc) {
+        LogoPreparado preparado = logoVigente();
+        if (preparado == null || preparado.bytes == null) {
+            return null;
+        }
+        try {
+            if (preparado.codificado != null) {
+                return new PDImageXObject(new PDStream(preparado.codificado.copiarEn(doc)), null);
+            }
+            return PDImageXObject.createFromByteArray(doc, preparado.bytes, "logo");
+        } catch (IOException e) {
+            log.warn("No se pudo agregar el logo al PDF: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Bloque con nombre, CUIL y dirección de la empresa, empezando en {@code y}.
+     * Devuelve la posición de la última línea.
+     */
+    public float dibujarEmpresa(PDPageContentStream cs, float x, float y, float tamanioDetalle,
+            String nombrePorDefecto) throws IOException {
+        DatosEmpresa datos = empresa();
+        cs.beginText();
+        cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
+        cs.newLineAtOffset(x, y);
+        cs.showText(datos.getNombreEmpresa() != null ? datos.getNombreEmpresa() : nombrePorDefecto);
+        cs.endText();
+
+        y -= 14;
+        cs.beginText();
+        cs.setFont(PDType1Font.HELVETICA, tamanioDetalle);
+        cs.newLineAtOffset(x, y);
+        cs.showText("CUIL: " + (datos.getCuit() != null ? datos.getCuit() : "—"));
+        cs.endText();
+
+        y -= 12;
+        cs.beginText();
+        cs.setFont(PDType1Font.HELVETICA, tamanioDetalle);
+        cs.newLineAtOffset(x, y);
+        cs.showText("Dirección: " + (datos.getDireccion() != null ? datos.getDireccion() : "—"));
+        cs.endText();
+        return y;
+    }
+
+    /**
+     * Cambia cuando cambia algo que se imprime en todos los PDF (datos de la empresa o archivo del logo):
+     * PdfCacheService la incluye en la clave de cada PDF guardado.
+     */
+    public String huella() {
+        DatosEmpresa datos = empresa();
+        String logoModificado = "sin-logo";
+        if (rutaLogo != null) {
+            try {
+                logoModificado = rutaLogo + "@" + Files.getLastModifiedTime(rutaLogo).toMillis();
+            } catch (IOException e) {
+                // Archivo inexistente: los PDF salen sin logo
+            }
+        }
+        return datos.getNombreEmpresa() + "|" + datos.getCuit() + "|" + datos.getDireccion() + "|"
+                + logoModificado + "|" + ladoMaximoLogo;
+    }
+
+    public synchronized DatosEmpresa empresa() {
+        if (empresa == null) {
+            empresa = new DatosEmpresa(configuracionService.getConfiguracion());
+        }
+        return empresa;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void alActualizarConfiguracion(ConfiguracionService.ConfiguracionActualizada evento) {
+        empresa = null;
+    }
+
+    private LogoPreparado logoVigente() {
+        if (rutaLogo == null) {
+            return null;
+        }
+        FileTime modificado;
+        try {
+            modificado = Files.getLastModifiedTime(rutaLogo);
+        } catch (IOException e) {
+            return null;
+        }
+        LogoPreparado actual = logo;
+        if (actual != null && actual.modificado.equals(modificado)) {
+            return actual;
+        }
+        synchronized (this) {
+            if (logo == null || !logo.modificado.equals(modificado)) {
+                byte[] bytes = preparar();
+                logo = new LogoPreparado(modificado, bytes, codificar(bytes));
+            }
+            return logo;
+        }
+    }
+
+    /** Bytes del logo listos para embeber: el archivo tal cual, o un PNG achicado si es más grande de lo que se imprime. */
+    private byte[] preparar() {
+        long inicio = System.currentTimeMillis();
+        try {
+            byte[] archivo = Files.readAllBytes(rutaLogo);
+            BufferedImage original = ImageIO.read(new ByteArrayInputStream(archivo));
+            if (original == null) {
+                throw new IOException("formato de imagen no soportado");
+            }
+            byte[] bytes = archivo;
+            if (Math.max(original.getWidth(), original.getHeight()) > ladoMaximoLogo) {
+                ByteArrayOutputStream png = new ByteArrayOutputStream();
+                ImageIO.write(achicar(original), "png", png);
+                bytes = png.toByteArray();
+            }
+            log.info("Logo para PDF preparado: {} bytes ({} ms)", bytes.length, System.currentTimeMillis() - inicio);
+            return bytes;
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudo cargar el logo para los PDF ({}): {}", rutaLogo, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * El logo como imagen PDF, para copiarlo a cada documento. Si la imagen usa algo que no se puede
+     * copiar así (un recurso anidado), null: cada documento la vuelve a crear desde los bytes.
+     */
+    private StreamCodificado codificar(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try (PDDocument temporal = new PDDocument()) {
+            return new StreamCodificado(PDImageXObject.createFromByteArray(temporal, bytes, "logo").getCOSObject());
+        } catch (IOException | RuntimeException e) {
+            log.warn("El logo se va a codificar en cada PDF: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /** Se dibuja a 140 pt: más resolución que ladoMaximoLogo sólo agranda cada PDF. */
+    private BufferedImage achicar(BufferedImage original) {
+        int lado = Math.max(original.getWidth(), original.getHeight());
+        double escala = lado > ladoMaximoLogo ? (double) ladoMaximoLogo / lado : 1d;
+        int ancho = Math.max(1, (int) Math.round(original.getWidth() * escala));
+        int alto = Math.max(1, (int) Math.round(original.getHeight() * escala));
+        boolean transparencia = original.getColorModel().hasAlpha();
+        BufferedImage destino = new BufferedImage(ancho, alto,
+                transparencia ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(original, 0, 0, ancho, alto, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    private static class LogoPreparado {
+        final FileTime modificado;
+        final byte[] bytes;
+        final StreamCodificado codificado;
+
+        LogoPreparado(FileTime modificado, byte[] bytes, StreamCodificado codificado) {
+            this.modificado = modificado;
+            this.bytes = bytes;
+            this.codificado = codificado;
+        }
+    }
+
+    /**
+     * Stream de imagen tal como queda en el PDF: los bytes comprimidos, su diccionario (filtro, tamaño,
+     * espacio de color) y la máscara de transparencia (SMask), que es otro stream igual.
+     * Es de sólo lectura; cada documento recibe su propia copia.
+     */
+    private static class StreamCodificado {
+        private final COSDictionary diccionario = new COSDictionary();
+        private final byte[] datos;
+        private final StreamCodificado mascara;
+
+        StreamCodificado(COSStream stream) throws IOException {
+            for (Map.Entry<COSName, COSBase> entrada : stream.entrySet()) {
+                if (!COSName.LENGTH.equals(entrada.getKey()) && !COSName.SMASK.equals(entrada.getKey())) {
+                    diccionario.setItem(entrada.getKey(), copiar(entrada.getValue()));
+                }
+            }
+            try (InputStream crudo = stream.createRawInputStream()) {
+                datos = crudo.readAllBytes();
+            }
+            COSStream smask = stream.getCOSStream(COSName.SMASK);
+            mascara = smask != null ? new StreamCodificado(smask) : null;
+        }
+
+        /** Crea el stream en {@code doc} con los mismos bytes, sin pasar por los filtros. */
+        COSStream copiarEn(PDDocument doc) throws IOException {
+            COSStream stream = doc.getDocument().createCOSStream();
+            for (Map.Entry<COSName, COSBase> entrada : diccionario.entrySet()) {
+                stream.setItem(entrada.getKey(), copiar(entrada.getValue()));
+            }
+            try (OutputStream salida = stream.createRawOutputStream()) {
+                salida.write(datos);
+            }
+            if (mascara != null) {
+                stream.setItem(COSName.SMASK, mascara.copiarEn(doc));
+            }
+            return stream;
+        }
+
+        /** Copia profunda de nombres, números, textos, arreglos y diccionarios; otro stream no se admite. */
+        private static COSBase copiar(COSBase valor) throws IOException {
+            if (valor instanceof COSObject referencia) {
+                return copiar(referencia.getObject());
+            }
+            if (valor instanceof COSStream) {
+                throw new IOException("la imagen tiene un stream anidado");
+            }
+            if (valor instanceof COSArray arreglo) {
+                COSArray copia = new COSArray();
+                for (int i = 0; i < arreglo.size(); i++) {
+                    copia.add(copiar(arreglo.get(i)));
+                }
+                return copia;
+            }
+            if (valor instanceof COSDictionary dict) {
+                COSDictionary copia = new COSDictionary();
+                for (Map.Entry<COSName, COSBase> entrada : dict.entrySet()) {
+                    copia.setItem(entrada.getKey(), copiar(entrada.getValue()));
+                }
+                return copia;
+            }
+            if (valor instanceof COSString texto) {
+                return new COSString(texto.getBytes());
+            }
+            // COSName, COSInteger, COSFloat, COSBoolean y COSNull no cambian
+            return valor;
+        }
+    }
+
+    /** Datos de la empresa que se imprimen en el encabezado. */
+    public static class DatosEmpresa {
+        private final String nombreEmpresa;
+        private final String cuit;
+        private final String direccion;
+        private final String telefono;
+
+        public DatosEmpresa(Configuracion config) {
+            this.nombreEmpresa = config.getNombreEmpresa();
+            this.cuit = config.getCuit();
+            this.direccion = config.getDireccion();
+            this.telefono = config.getTelefono();
+        }
+
+        public String getNombreEmpresa() { return nombreEmpresa; }
+        public String getCuit() { return cuit; }
+        public String getDireccion() { return direccion; }
+        public String getTelefono() { return telefono; }
+    }
+}
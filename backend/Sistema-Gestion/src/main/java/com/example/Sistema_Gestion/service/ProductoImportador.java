@@ -0,0 +1,284 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.dto.ImportacionResultado;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Importación masiva de productos desde Excel (xlsx).
+ * La hoja se lee con el parser SAX de POI (sin cargar el libro en memoria), las filas se agrupan
+ * en lotes, se buscan los SKU existentes del lote con una sola consulta y se insertan/actualizan
+ * con batch JDBC. Cada lote se confirma en su propia transacción: un lote fallido no frena al resto.
+ *
+ * Columnas: SKU, Nombre, Descripción, Stock, Precio Costo, Precio Venta, Unidad, Vencimiento, IVA %, Utilidad %.
+ * Las columnas numéricas vacías no modifican el valor existente del producto.
+ * Quien llama puede recibir el resultado parcial después de cada lote para informar progreso.
+ */
+@Service
+@Slf4j
+public class ProductoImportador {
+
+    private static final int TAMANIO_LOTE = 1000;
+
+    private static final String SQL_INSERT = "INSERT INTO producto (sku, nombre, descripcion, stock, precio_costo, " +
+            "precio_venta, unidad_medida, activo, porcentaje_iva, porcentaje_utilidad) VALUES (?, ?, ?, ?, ?, ?, ?, true, ?, ?)";
+
+    private static final String SQL_UPDATE = "UPDATE producto SET nombre = ?, descripcion = ?, unidad_medida = ?, " +
+            "stock = COALESCE(?, stock), precio_costo = COALESCE(?, precio_costo), precio_venta = COALESCE(?, precio_venta), " +
+            "porcentaje_iva = COALESCE(?, porcentaje_iva), porcentaje_utilidad = COALESCE(?, porcentaje_utilidad) WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductoImportador(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Importa un xlsx ya guardado en disco. {@code progreso} se invoca en el mismo hilo
+     * después de confirmar cada lote, con los contadores acumulados hasta ese momento.
+     */
+    public ImportacionResultado importar(Path archivo, Consumer<ImportacionResultado> progreso) throws IOException {
+        long inicio = System.currentTimeMillis();
+        ImportacionResultado resultado = new ImportacionResultado();
+        LectorFilas lector = new LectorFilas(resultado, progreso, inicio);
+
+        try (OPCPackage pkg = OPCPackage.open(archivo.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable estilos = reader.getStylesTable();
+            ReadOnlySharedStringsTable textos = new ReadOnlySharedStringsTable(pkg);
+
+            Iterator<InputStream> hojas = reader.getSheetsData();
+            if (hojas.hasNext()) {
+                try (InputStream hoja = hojas.next()) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(estilos, null, textos, lector, new ValorCrudoFormatter(), false));
+                    parser.parse(new InputSource(hoja));
+                }
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("No se pudo leer el archivo Excel: " + e.getMessage(), e);
+        }
+        lector.procesarLote();
+
+        resultado.registrarDuracion(System.currentTimeMillis() - inicio);
+        log.info("Importación de productos: {} filas, {} nuevos, {} actualizados, {} errores en {} ms ({} filas/s)",
+                resultado.getFilasLeidas(), resultado.getInsertados(), resultado.getActualizados(),
+                resultado.getTotalErrores(), resultado.getDuracionMs(), Math.round(resultado.getFilasPorSegundo()));
+        return resultado;
+    }
+
+    /**
+     * Guarda un lote en una transacción. Si falla, el lote se revierte entero y se reintenta
+     * fila por fila (cada una en su transacción) para reportar sólo las filas con error.
+     */
+    private void guardarLote(Map<String, FilaProducto> lote, ImportacionResultado resultado) {
+        if (lote.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> guardar(lote.values(), resultado));
+        } catch (RuntimeException e) {
+            log.warn("Importación de productos: falló un lote de {} filas, se reintenta fila por fila: {}",
+                    lote.size(), e.getMessage());
+            for (FilaProducto f : lote.values()) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> guardar(List.of(f), resultado));
+                } catch (RuntimeException errorFila) {
+                    resultado.agregarError(f.fila, f.sku, "No se pudo guardar: " + causaRaiz(errorFila));
+                }
+            }
+        }
+    }
+
+    /**
+     * Una consulta para los SKU existentes, un batch de UPDATE y uno de INSERT. Los SKU se comparan
+     * sin distinguir mayúsculas, igual que la collation _ci de la columna en MySQL.
+     * Los contadores se suman sólo si el batch terminó (el commit lo hace quien llama).
+     */
+    private void guardar(Collection<FilaProducto> filas, ImportacionResultado resultado) {
+        Map<String, Long> existentes = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, sku FROM producto WHERE sku IN (:skus)",
+                new MapSqlParameterSource("skus", filas.stream().map(f -> f.sku).toList()),
+                rs -> { existentes.put(clave(rs.getString("sku")), rs.getLong("id")); });
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (FilaProducto f : filas) {
+            Long id = existentes.get(clave(f.sku));
+            if (id != null) {
+                updates.add(new Object[] { f.nombre, f.descripcion, f.unidad, f.stock, f.precioCosto,
+                        f.precioVenta, f.iva, f.utilidad, id });
+            } else {
+                inserts.add(new Object[] { f.sku, f.nombre, f.descripcion, f.stock != null ? f.stock : 0,
+                        f.precioCosto, f.precioVenta, f.unidad,
+                        f.iva != null ? f.iva : BigDecimal.ZERO, f.utilidad != null ? f.utilidad : BigDecimal.ZERO });
+            }
+        }
+
+        if (!updates.isEmpty()) jdbcTemplate.batchUpdate(SQL_UPDATE, updates);
+        if (!inserts.isEmpty()) jdbcTemplate.batchUpdate(SQL_INSERT, inserts);
+        resultado.sumarActualizados(updates.size());
+        resultado.sumarInsertados(inserts.size());
+    }
+
+    private static String clave(String sku) {
+        return sku.toLowerCase(Locale.ROOT);
+    }
+
+    private static String causaRaiz(Throwable e) {
+        Throwable causa = NestedExceptionUtils.getMostSpecificCause(e);
+        return causa.getMessage() != null ? causa.getMessage() : causa.getClass().getSimpleName();
+    }
+
+    /** Recibe las celdas del parser SAX, arma cada fila y despacha lotes de TAMANIO_LOTE. */
+    private class LectorFilas implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final ImportacionResultado resultado;
+        private final Consumer<ImportacionResultado> progreso;
+        private final long inicio;
+        private final Map<String, FilaProducto> lote = new LinkedHashMap<>();
+        private final String[] celdas = new String[10];
+        private int filaActual;
+        private int columnaActual;
+
+        LectorFilas(ImportacionResultado resultado, Consumer<ImportacionResultado> progreso, long inicio) {
+            this.resultado = resultado;
+            this.progreso = progreso;
+            this.inicio = inicio;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            filaActual = rowNum;
+            columnaActual = -1;
+            Arrays.fill(celdas, null);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            columnaActual = cellReference != null ? new CellReference(cellReference).getCol() : columnaActual + 1;
+            if (columnaActual < celdas.length && formattedValue != null && !formattedValue.isBlank()) {
+                celdas[columnaActual] = formattedValue.trim();
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum == 0 || celdas[0] == null) return; // Encabezado o fila sin SKU
+
+            resultado.sumarFilaLeida();
+            int filaExcel = rowNum + 1;
+            String sku = celdas[0];
+            try {
+                FilaProducto f = new FilaProducto();
+                f.fila = filaExcel;
+                f.sku = sku;
+                f.nombre = celdas[1];
+                f.descripcion = celdas[2];
+                f.stock = entero(celdas[3], "Stock");
+                f.precioCosto = decimal(celdas[4], "Precio Costo");
+                f.precioVenta = decimal(celdas[5], "Precio Venta");
+                f.unidad = celdas[6];
+                f.iva = decimal(celdas[8], "IVA %");
+                f.utilidad = decimal(celdas[9], "Utilidad %");
+
+                if (f.nombre == null) {
+                    resultado.agregarError(filaExcel, sku, "El nombre es obligatorio");
+                    return;
+                }
+                lote.put(clave(sku), f); // Si el SKU se repite en el lote (sin distinguir mayúsculas), gana la última fila
+            } catch (NumberFormatException e) {
+                resultado.agregarError(filaExcel, sku, e.getMessage());
+                return;
+            }
+
+            if (lote.size() >= TAMANIO_LOTE) {
+                procesarLote();
+            }
+        }
+
+        void procesarLote() {
+            if (lote.isEmpty()) return;
+            guardarLote(lote, resultado);
+            lote.clear();
+            resultado.registrarDuracion(System.currentTimeMillis() - inicio);
+            progreso.accept(resultado);
+        }
+
+        private Integer entero(String valor, String columna) {
+            BigDecimal numero = decimal(valor, columna);
+            return numero != null ? numero.intValue() : null;
+        }
+
+        private BigDecimal decimal(String valor, String columna) {
+            if (valor == null) return null;
+            try {
+                return new BigDecimal(valor);
+            } catch (NumberFormatException e) {
+                throw new NumberFormatException("Valor inválido en " + columna + ": '" + valor + "'");
+            }
+        }
+    }
+
+    private static class FilaProducto {
+        int fila;
+        String sku;
+        String nombre;
+        String descripcion;
+        Integer stock;
+        BigDecimal precioCosto;
+        BigDecimal precioVenta;
+        String unidad;
+        BigDecimal iva;
+        BigDecimal utilidad;
+    }
+
+    /**
+     * Devuelve los números tal como están guardados (sin separadores de miles ni símbolos de formato),
+     * así "1.234,50" formateado en la planilla llega como 1234.5. Los enteros llegan sin decimales (SKU numéricos).
+     */
+    private static class ValorCrudoFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+        }
+    }
+}
@@ -2,31 +2,64 @@ package com.example.Sistema_Gestion.service;
 
 import com.example.Sistema_Gestion.model.Producto;
 import com.example.Sistema_Gestion.repository.ProductoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.hibernate.Hibernate;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Slf4j
 public class ProductoService {
 
     private final ProductoRepository productoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final EntityManager entityManager;
 
-    public ProductoService(ProductoRepository productoRepository) {
+    /** Filas que el exportador SXSSF mantiene en memoria; el resto se vuelca a disco. */
+    private static final int FILAS_EN_MEMORIA_EXPORTACION = 200;
+
+    /** Filas por ida a la base en los drivers que respetan un fetchSize positivo (H2, PostgreSQL...). */
+    private static final int FILAS_POR_LECTURA = 500;
+
+    public ProductoService(ProductoRepository productoRepository, JdbcTemplate jdbcTemplate,
+            EntityManager entityManager) {
         this.productoRepository = productoRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(tamanioLecturaStreaming(jdbcTemplate));
+    }
+
+    /**
+     * Connector/J ignora un fetchSize positivo salvo con useCursorFetch=true, que además fuerza
+     * useServerPrepStmts en todas las conexiones. Por eso con MySQL se usa el valor especial
+     * Integer.MIN_VALUE, que pide al driver un resultado en streaming (fila por fila). Mientras se
+     * recorre, la conexión no puede ejecutar otras sentencias. Otros drivers rechazan ese valor
+     * (H2 lanza excepción) y reciben un fetchSize normal.
+     */
+    private static int tamanioLecturaStreaming(JdbcTemplate jdbcTemplate) {
+        String driver = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDriverName());
+        return driver != null && driver.startsWith("MySQL Connector") ? Integer.MIN_VALUE : FILAS_POR_LECTURA;
     }
 
     public List<Producto> listarTodos() {
@@ -59,42 +92,119 @@ public class ProductoService {
         productoRepository.deleteById(id);
     }
 
+    /**
+     * Descuenta stock con un UPDATE condicional (stock >= cantidad) en la base.
+     * Dos ventas simultáneas del mismo producto no pueden sobrevender: solo una de ellas
+     * afecta la fila cuando el stock no alcanza para ambas.
+     */
     @Transactional
     public boolean descontarStock(Long productoId, Integer cantidad) {
         if (cantidad == null || cantidad <= 0) return false;
-        
-        return productoRepository.findById(productoId).map(producto -> {
-            Integer stockActual = producto.getStock() != null ? producto.getStock() : 0;
 
-            if (stockActual >= cantidad) {
-                producto.setStock(stockActual - cantidad);
-                productoRepository.save(producto);
-                return true;
-            }
-            return false;
-        }).orElse(false);
+        boolean descontado = productoRepository.descontarStockSiDisponible(productoId, cantidad) == 1;
+        releerSiCargado(productoId);
+        return descontado;
     }
 
     @Transactional
     public void aumentarStock(Long productoId, Integer cantidad) {
         if (cantidad == null || cantidad <= 0) return;
-        
-        productoRepository.findById(productoId).ifPresent(producto -> {
-            Integer stockActual = producto.getStock() != null ? producto.getStock() : 0;
-            producto.setStock(stockActual + cantidad);
-            productoRepository.save(producto);
-        });
+
+        productoRepository.aumentarStock(productoId, cantidad);
+        releerSiCargado(productoId);
     }
 
     @Transactional
     public void forzarDescontarStock(Long productoId, Integer cantidad) {
         if (cantidad == null || cantidad <= 0) return;
-        
-        productoRepository.findById(productoId).ifPresent(producto -> {
-            Integer stockActual = producto.getStock() != null ? producto.getStock() : 0;
-            producto.setStock(stockActual - cantidad);
-            productoRepository.save(producto);
-        });
+
+        productoRepository.forzarDescontarStock(productoId, cantidad);
+        releerSiCargado(productoId);
+    }
+
+    /**
+     * Los UPDATE de stock van directo a la base: si la transacción ya tenía el producto cargado,
+     * se relee para que no siga viendo el stock anterior.
+     */
+    private void releerSiCargado(Long productoId) {
+        Producto p = cargado(productoId);
+        if (p != null) {
+            entityManager.refresh(p);
+        }
+    }
+
+    /**
+     * El producto si ya está cargado en el contexto de persistencia, o null. getReference devuelve la
+     * entidad administrada si existe y, si no, un proxy sin inicializar (no consulta la base).
+     */
+    private Producto cargado(Long productoId) {
+        Producto referencia = entityManager.getReference(Producto.class, productoId);
+        return Hibernate.isInitialized(referencia) ? referencia : null;
+    }
+
+    /**
+     * Aplica todos los movimientos de stock de un documento de una sola vez (todo o nada).
+     * Bloquea los productos involucrados en orden de ID con una única consulta, valida que
+     * ninguno quede con stock negativo y recién entonces cambia el stock en las entidades:
+     * Hibernate envía los UPDATE en un batch JDBC al hacer flush, y el resto de la transacción
+     * ve el stock nuevo.
+     *
+     * @throws IllegalStateException si algún producto no existe o no tiene stock suficiente
+     */
+    @Transactional
+    public void aplicarStock(StockBatch batch) {
+        aplicarStockBatch(batch, false);
+    }
+
+    /**
+     * Igual que {@link #aplicarStock(StockBatch)} pero sin validar el stock mínimo
+     * (reversiones de compras, donde se permiten negativos técnicos).
+     */
+    @Transactional
+    public void forzarStock(StockBatch batch) {
+        aplicarStockBatch(batch, true);
+    }
+
+    private void aplicarStockBatch(StockBatch batch, boolean permitirNegativos) {
+        if (batch == null || batch.isEmpty()) return;
+
+        Map<Long, Integer> deltas = batch.getDeltas();
+        Set<Long> yaCargados = new HashSet<>();
+        for (Long id : deltas.keySet()) {
+            if (cargado(id) != null) {
+                yaCargados.add(id);
+            }
+        }
+        List<Producto> productos = productoRepository.findAllByIdForUpdate(deltas.keySet());
+
+        if (productos.size() != deltas.size()) {
+            List<Long> encontrados = productos.stream().map(Producto::getId).toList();
+            Long faltante = deltas.keySet().stream().filter(id -> !encontrados.contains(id)).findFirst().orElse(null);
+            throw new IllegalStateException("Producto no encontrado: " + faltante);
+        }
+
+        for (Producto p : productos) {
+            // La consulta con bloqueo no recarga las entidades que la transacción ya tenía: su stock
+            // puede ser anterior a otro commit, así que se releen (también con bloqueo)
+            if (yaCargados.contains(p.getId())) {
+                entityManager.refresh(p, LockModeType.PESSIMISTIC_WRITE);
+            }
+            int delta = deltas.get(p.getId());
+            int stockActual = p.getStock() != null ? p.getStock() : 0;
+            if (!permitirNegativos && delta < 0 && stockActual + delta < 0) {
+                throw new IllegalStateException(
+                        "Stock insuficiente para el producto: '" + p.getNombre() + "'. " +
+                        "Disponible: " + stockActual + ", requerido: " + (-delta) + ".");
+            }
+        }
+
+        // Recién con todo validado se cambian las entidades; las filas siguen bloqueadas hasta el commit
+        for (Producto p : productos) {
+            int delta = deltas.get(p.getId());
+            if (delta != 0) {
+                p.setStock((p.getStock() != null ? p.getStock() : 0) + delta);
+            }
+        }
     }
 
     @Transactional
@@ -162,76 +272,68 @@ public class ProductoService {
         return summary;
     }
 
+    /**
+     * Aumenta (o baja) los precios con un único UPDATE sobre la tabla, sin cargar productos en memoria.
+     * MySQL redondea DECIMAL exacto con ROUND(x, 2) alejándose de cero, igual que HALF_UP.
+     * Filtros opcionales: prefijo de SKU y proveedor (productos comprados alguna vez a ese proveedor).
+     *
+     * @param tipo COSTO, VENTA o AMBOS
+     * @return cantidad de productos alcanzados por el filtro
+     */
     @Transactional
-    public void actualizarPreciosMasivo(Double porcentaje, String tipo) {
-        List<Producto> productos = productoRepository.findAll();
+    public int actualizarPreciosMasivo(Double porcentaje, String tipo, String skuPrefijo, Long proveedorId) {
+        if (porcentaje == null) {
+            throw new RuntimeException("El porcentaje es obligatorio");
+        }
         BigDecimal factor = BigDecimal.valueOf(1 + (porcentaje / 100));
 
-        for (Producto p : productos) {
-            if ("COSTO".equals(tipo) || "AMBOS".equals(tipo)) {
-                if (p.getPrecioCosto() != null) {
-                    p.setPrecioCosto(p.getPrecioCosto().multiply(factor).setScale(2, RoundingMode.HALF_UP));
-                }
-                if (p.getPrecioCostoUSD() != null) {
-                    p.setPrecioCostoUSD(p.getPrecioCostoUSD().multiply(factor).setScale(2, RoundingMode.HALF_UP));
-                }
-            }
-            if ("VENTA".equals(tipo) || "AMBOS".equals(tipo)) {
-                if (p.getPrecioVenta() != null) {
-                    p.setPrecioVenta(p.getPrecioVenta().multiply(factor).setScale(2, RoundingMode.HALF_UP));
-                }
-                if (p.getPrecioVentaUSD() != null) {
-                    p.setPrecioVentaUSD(p.getPrecioVentaUSD().multiply(factor).setScale(2, RoundingMode.HALF_UP));
-                }
-            }
+        List<String> columnas = new ArrayList<>();
+        if ("COSTO".equals(tipo) || "AMBOS".equals(tipo)) {
+            columnas.add("precio_costo");
+            columnas.add("precio_costo_usd");
         }
-        productoRepository.saveAll(productos);
-    }
-
-    @Transactional
-    public void sincronizarPreciosPesosConUSD(BigDecimal nuevaCotizacion) {
-        if (nuevaCotizacion == null || nuevaCotizacion.compareTo(BigDecimal.ZERO) <= 0) {
-            log.warn("[Sync] Cotización inválida o cero, no se sincronizan precios.");
-            return;
+        if ("VENTA".equals(tipo) || "AMBOS".equals(tipo)) {
+            columnas.add("precio_venta");
+            columnas.add("precio_venta_usd");
         }
-
-        List<Producto> productos = productoRepository.findAll();
-        log.info("[Sync] Sincronizando precios. Total productos: {}, cotización: {}", productos.size(), nuevaCotizacion);
-
-        int actualizados = 0;
-        for (Producto p : productos) {
-            boolean pModificado = false;
-
-            if (p.getPrecioCostoUSD() != null && p.getPrecioCostoUSD().compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal nuevoCosto = p.getPrecioCostoUSD().multiply(nuevaCotizacion).setScale(2, RoundingMode.HALF_UP);
-                log.debug("[Sync] Producto '{}': precioCostoUSD={} -> precioCosto={}", p.getNombre(), p.getPrecioCostoUSD(), nuevoCosto);
-                p.setPrecioCosto(nuevoCosto);
-                pModificado = true;
-            }
-
-            if (p.getPrecioVentaUSD() != null && p.getPrecioVentaUSD().compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal nuevoVenta = p.getPrecioVentaUSD().multiply(nuevaCotizacion).setScale(2, RoundingMode.HALF_UP);
-                log.debug("[Sync] Producto '{}': precioVentaUSD={} -> precioVenta={}", p.getNombre(), p.getPrecioVentaUSD(), nuevoVenta);
-                p.setPrecioVenta(nuevoVenta);
-                pModificado = true;
-            }
-
-            if (pModificado) {
-                actualizados++;
-            }
+        if (columnas.isEmpty()) {
+            throw new RuntimeException("Tipo de precio inválido: " + tipo);
         }
 
-        log.info("[Sync] Productos con precios USD actualizados: {}/{}", actualizados, productos.size());
-        if (actualizados > 0) {
-            productoRepository.saveAll(productos);
-            log.info("[Sync] Guardado exitoso en base de datos.");
-        } else {
-            log.warn("[Sync] Ningún producto tiene precios en USD cargados. No se actualizó nada. Verificá que los productos tengan precioCostoUSD o precioVentaUSD definidos.");
+        StringBuilder sql = new StringBuilder("UPDATE producto SET ");
+        List<Object> params = new ArrayList<>();
+        for (int i = 0; i < columnas.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(columnas.get(i)).append(" = ROUND(").append(columnas.get(i)).append(" * ?, 2)");
+            params.add(factor);
+        }
+        sql.append(" WHERE 1 = 1");
+        if (skuPrefijo != null && !skuPrefijo.isBlank()) {
+            sql.append(" AND sku LIKE ? ESCAPE '!'");
+            params.add(skuPrefijo.trim().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%");
+        }
+        if (proveedorId != null) {
+            sql.append(" AND id IN (SELECT ci.producto_id FROM compra_item ci JOIN compra c ON c.id = ci.compra_id")
+                    .append(" WHERE c.proveedor_id = ?)");
+            params.add(proveedorId);
         }
+
+        long inicio = System.currentTimeMillis();
+        int actualizados = jdbcTemplate.update(sql.toString(), params.toArray());
+        log.info("Actualización masiva de precios ({} {}%, sku '{}', proveedor {}): {} productos en {} ms",
+                tipo, porcentaje, skuPrefijo, proveedorId, actualizados, System.currentTimeMillis() - inicio);
+        return actualizados;
     }
 
-    public byte[] exportarExcel() throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+    /**
+     * Escribe el catálogo completo en formato xlsx directamente sobre {@code os}.
+     * Las filas se leen con un cursor JDBC en streaming y se vuelcan con un workbook SXSSF
+     * que sólo mantiene en memoria una ventana de filas, así el consumo no depende del tamaño del catálogo.
+     */
+    public void exportarExcel(OutputStream os) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(FILAS_EN_MEMORIA_EXPORTACION);
+        workbook.setCompressTempFiles(true);
+        try {
             Sheet sheet = workbook.createSheet("Productos");
 
             Row headerRow = sheet.createRow(0);
@@ -242,94 +344,29 @@ public class ProductoService {
                 cell.setCellValue(columns[i]);
             }
 
-            List<Producto> productos = productoRepository.findAll();
-            int rowIdx = 1;
-            for (Producto p : productos) {
-                Row row = sheet.createRow(rowIdx++);
-                row.createCell(0).setCellValue(p.getSku());
-                row.createCell(1).setCellValue(p.getNombre());
-                row.createCell(2).setCellValue(p.getDescripcion());
-                row.createCell(3).setCellValue(p.getStock() != null ? p.getStock() : 0);
-                row.createCell(4).setCellValue(p.getPrecioCosto() != null ? p.getPrecioCosto().doubleValue() : 0);
-                row.createCell(5).setCellValue(p.getPrecioVenta() != null ? p.getPrecioVenta().doubleValue() : 0);
-                row.createCell(6).setCellValue(p.getUnidadMedida());
-                row.createCell(7)
-                        .setCellValue(p.getFechaVencimiento() != null ? p.getFechaVencimiento().toString() : "");
-                row.createCell(8).setCellValue(p.getPorcentajeIva() != null ? p.getPorcentajeIva().doubleValue() : 0);
-                row.createCell(9).setCellValue(p.getPorcentajeUtilidad() != null ? p.getPorcentajeUtilidad().doubleValue() : 0);
-            }
-
-            workbook.write(out);
-            return out.toByteArray();
-        }
-    }
-
-    @Transactional
-    public void importarExcel(InputStream is) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(is)) {
-            Sheet sheet = workbook.getSheetAt(0);
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null)
-                    continue;
-
-                String sku = getCellValueAsString(row.getCell(0));
-                if (sku == null || sku.isEmpty())
-                    continue;
-
-                Producto p = productoRepository.findBySku(sku).orElse(new Producto());
-                p.setSku(sku);
-                p.setNombre(getCellValueAsString(row.getCell(1)));
-                p.setDescripcion(getCellValueAsString(row.getCell(2)));
-
-                Cell stockCell = row.getCell(3);
-                if (stockCell != null) {
-                    if (stockCell.getCellType() == CellType.NUMERIC) {
-                        p.setStock((int) stockCell.getNumericCellValue());
-                    }
-                }
-
-                Cell costoCell = row.getCell(4);
-                if (costoCell != null) {
-                    if (costoCell.getCellType() == CellType.NUMERIC) {
-                        p.setPrecioCosto(BigDecimal.valueOf(costoCell.getNumericCellValue()));
-                    }
-                }
-
-                Cell ventaCell = row.getCell(5);
-                if (ventaCell != null) {
-                    if (ventaCell.getCellType() == CellType.NUMERIC) {
-                        p.setPrecioVenta(BigDecimal.valueOf(ventaCell.getNumericCellValue()));
-                    }
-                }
-
-                p.setUnidadMedida(getCellValueAsString(row.getCell(6)));
-
-                Cell ivaCell = row.getCell(8);
-                if (ivaCell != null && ivaCell.getCellType() == CellType.NUMERIC) {
-                    p.setPorcentajeIva(BigDecimal.valueOf(ivaCell.getNumericCellValue()));
-                }
-
-                Cell utilidadCell = row.getCell(9);
-                if (utilidadCell != null && utilidadCell.getCellType() == CellType.NUMERIC) {
-                    p.setPorcentajeUtilidad(BigDecimal.valueOf(utilidadCell.getNumericCellValue()));
-                }
-
-                productoRepository.save(p);
-            }
-        }
-    }
-
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null)
-            return null;
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                return String.valueOf((long) cell.getNumericCellValue());
-            default:
-                return null;
+            int[] rowIdx = { 1 };
+            streamingJdbcTemplate.query(
+                    "SELECT sku, nombre, descripcion, stock, precio_costo, precio_venta, unidad_medida, " +
+                    "fecha_vencimiento, porcentaje_iva, porcentaje_utilidad FROM producto ORDER BY id",
+                    rs -> {
+                        Row row = sheet.createRow(rowIdx[0]++);
+                        row.createCell(0).setCellValue(rs.getString("sku"));
+                        row.createCell(1).setCellValue(rs.getString("nombre"));
+                        row.createCell(2).setCellValue(rs.getString("descripcion"));
+                        row.createCell(3).setCellValue(rs.getInt("stock"));
+                        row.createCell(4).setCellValue(rs.getDouble("precio_costo"));
+                        row.createCell(5).setCellValue(rs.getDouble("precio_venta"));
+                        row.createCell(6).setCellValue(rs.getString("unidad_medida"));
+                        Date vencimiento = rs.getDate("fecha_vencimiento");
+                        row.createCell(7).setCellValue(vencimiento != null ? vencimiento.toLocalDate().toString() : "");
+                        row.createCell(8).setCellValue(rs.getDouble("porcentaje_iva"));
+                        row.createCell(9).setCellValue(rs.getDouble("porcentaje_utilidad"));
+                    });
+
+            workbook.write(os);
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
     }
 }
\ No newline at end of file
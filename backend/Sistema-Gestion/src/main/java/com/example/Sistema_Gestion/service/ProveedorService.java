@@ -1,30 +1,27 @@
 package com.example.Sistema_Gestion.service;
 
-import com.example.Sistema_Gestion.model.Compra;
-import com.example.Sistema_Gestion.model.CompraItem;
-import com.example.Sistema_Gestion.model.PagoProveedor;
+import com.example.Sistema_Gestion.dto.MovimientoCuentaProveedor;
 import com.example.Sistema_Gestion.model.Proveedor;
 import com.example.Sistema_Gestion.model.Nota;
+import com.example.Sistema_Gestion.model.Numerador;
 import com.example.Sistema_Gestion.repository.ProveedorRepository;
 import com.example.Sistema_Gestion.repository.CompraRepository;
 import com.example.Sistema_Gestion.repository.PagoProveedorRepository;
 import com.example.Sistema_Gestion.repository.NotaProveedorRepository;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Stream;
 
 import java.util.List;
 
@@ -35,15 +32,24 @@ public class ProveedorService {
     private final CompraRepository compraRepository;
     private final PagoProveedorRepository pagoProveedorRepository;
     private final NotaProveedorRepository notaProveedorRepository;
+    private final NumeradorService numeradorService;
+    private final PdfRecursosService pdfRecursosService;
+    private final CuentaCorrienteProveedorService cuentaCorrienteService;
 
     public ProveedorService(ProveedorRepository proveedorRepository,
             CompraRepository compraRepository,
             PagoProveedorRepository pagoProveedorRepository,
-            NotaProveedorRepository notaProveedorRepository) {
+            NotaProveedorRepository notaProveedorRepository,
+            NumeradorService numeradorService,
+            PdfRecursosService pdfRecursosService,
+            CuentaCorrienteProveedorService cuentaCorrienteService) {
         this.proveedorRepository = proveedorRepository;
         this.compraRepository = compraRepository;
         this.pagoProveedorRepository = pagoProveedorRepository;
         this.notaProveedorRepository = notaProveedorRepository;
+        this.numeradorService = numeradorService;
+        this.pdfRecursosService = pdfRecursosService;
+        this.cuentaCorrienteService = cuentaCorrienteService;
     }
 
     public List<Proveedor> listarTodos() {
@@ -52,13 +58,9 @@ public class ProveedorService {
 
     public List<Map<String, Object>> listarTodosConSaldo() {
         List<Proveedor> todos = proveedorRepository.findAll();
+        Map<Long, DeudaProveedor> deudas = calcularDeudas();
         return todos.stream().map(p -> {
-            BigDecimal comprasARS = compraRepository.findTotalCompradoARS(p.getId());
-            BigDecimal pagosARS = pagoProveedorRepository.totalPagadoARSPorProveedor(p.getId());
-            BigDecimal notasARS = notaProveedorRepository.totalCreditosARSPorProveedor(p.getId());
-            BigDecimal comprasUSD = compraRepository.findTotalCompradoUSD(p.getId());
-            BigDecimal pagosUSD = pagoProveedorRepository.totalPagadoUSDPorProveedor(p.getId());
-            BigDecimal notasUSD = notaProveedorRepository.totalCreditosUSDPorProveedor(p.getId());
+            DeudaProveedor deuda = deudas.getOrDefault(p.getId(), new DeudaProveedor());
 
             Map<String, Object> m = new HashMap<>();
             m.put("id", p.getId());
@@ -69,12 +71,50 @@ public class ProveedorService {
             m.put("direccion", p.getDireccion());
             m.put("condicionIva", p.getCondicionIva());
             m.put("notas", p.getNotas());
-            m.put("deudaARS", comprasARS.subtract(pagosARS).subtract(notasARS));
-            m.put("deudaUSD", comprasUSD.subtract(pagosUSD).subtract(notasUSD));
+            m.put("deudaARS", deuda.ars);
+            m.put("deudaUSD", deuda.usd);
             return m;
         }).toList();
     }
 
+    /**
+     * Deuda ARS/USD de todos los proveedores con una consulta agrupada por tabla
+     * (compras, pagos y notas de crédito), en lugar de seis consultas por proveedor.
+     * Mismas reglas que las consultas individuales: ARS incluye moneda nula en compras y pagos.
+     * Las consultas descartan documentos sin proveedor, que no suman a la deuda de nadie.
+     */
+    private Map<Long, DeudaProveedor> calcularDeudas() {
+        Map<Long, DeudaProveedor> deudas = new HashMap<>();
+
+        for (Object[] fila : compraRepository.totalesAgrupadosPorProveedorYMoneda()) {
+            DeudaProveedor d = deudas.computeIfAbsent((Long) fila[0], id -> new DeudaProveedor());
+            String moneda = (String) fila[1];
+            if (moneda == null || "ARS".equals(moneda)) d.ars = d.ars.add((BigDecimal) fila[2]);
+            else if ("USD".equals(moneda)) d.usd = d.usd.add((BigDecimal) fila[3]);
+        }
+
+        for (Object[] fila : pagoProveedorRepository.totalesAgrupadosPorProveedorYMoneda()) {
+            DeudaProveedor d = deudas.computeIfAbsent((Long) fila[0], id -> new DeudaProveedor());
+            String moneda = (String) fila[1];
+            if (moneda == null || "ARS".equals(moneda)) d.ars = d.ars.subtract((BigDecimal) fila[2]);
+            else if ("USD".equals(moneda)) d.usd = d.usd.subtract((BigDecimal) fila[3]);
+        }
+
+        for (Object[] fila : notaProveedorRepository.totalCreditosAgrupadosPorProveedorYMoneda()) {
+            DeudaProveedor d = deudas.computeIfAbsent((Long) fila[0], id -> new DeudaProveedor());
+            String moneda = (String) fila[1];
+            if ("ARS".equals(moneda)) d.ars = d.ars.subtract((BigDecimal) fila[2]);
+            else if ("USD".equals(moneda)) d.usd = d.usd.subtract((BigDecimal) fila[2]);
+        }
+
+        return deudas;
+    }
+
+    private static class DeudaProveedor {
+        BigDecimal ars = BigDecimal.ZERO;
+        BigDecimal usd = BigDecimal.ZERO;
+    }
+
     public Proveedor guardar(Proveedor proveedor) {
         // Limpieza de datos
         if (proveedor.getNombre() != null) proveedor.setNombre(proveedor.getNombre().trim());
@@ -123,249 +163,65 @@ public class ProveedorService {
     }
 
     public Map<String, Object> getDashboardSummary() {
-        List<Proveedor> todos = proveedorRepository.findAll();
+        Map<Long, DeudaProveedor> deudas = calcularDeudas();
 
-        BigDecimal deudaTotalARS = todos.stream()
-                .map(p -> compraRepository.findTotalCompradoARS(p.getId())
-                        .subtract(pagoProveedorRepository.totalPagadoARSPorProveedor(p.getId()))
-                        .subtract(notaProveedorRepository.totalCreditosARSPorProveedor(p.getId())))
+        BigDecimal deudaTotalARS = deudas.values().stream()
+                .map(d -> d.ars)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        BigDecimal deudaTotalUSD = todos.stream()
-                .map(p -> compraRepository.findTotalCompradoUSD(p.getId())
-                        .subtract(pagoProveedorRepository.totalPagadoUSDPorProveedor(p.getId()))
-                        .subtract(notaProveedorRepository.totalCreditosUSDPorProveedor(p.getId())))
+        BigDecimal deudaTotalUSD = deudas.values().stream()
+                .map(d -> d.usd)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         Map<String, Object> summary = new HashMap<>();
         summary.put("cuentasPorPagar", deudaTotalARS); // Mantenemos retrocompatibilidad parcial o renombramos
         summary.put("cuentasPorPagarARS", deudaTotalARS);
         summary.put("cuentasPorPagarUSD", deudaTotalUSD);
-        summary.put("totalProveedores", todos.size());
+        summary.put("totalProveedores", proveedorRepository.count());
 
         return summary;
     }
 
-    @org.springframework.transaction.annotation.Transactional(readOnly = true)
-    public Map<String, Object> generarReporteCuentaCorriente(Long proveedorId, LocalDate desde, LocalDate hasta) {
-        Proveedor prov = proveedorRepository.findById(proveedorId).orElseThrow();
-        LocalDateTime desdeDT = desde.atStartOfDay();
-        LocalDateTime hastaDT = hasta.atTime(LocalTime.MAX);
-
-        // 1. Saldos Iniciales
-        BigDecimal comprasPreARS = compraRepository.totalCompradoARSAntesDe(proveedorId, desdeDT);
-        BigDecimal pagosPreARS = pagoProveedorRepository.totalPagadoARSAntesDe(proveedorId, desde);
-        BigDecimal saldoInicialARS = comprasPreARS.subtract(pagosPreARS);
-
-        BigDecimal comprasPreUSD = compraRepository.totalCompradoUSDAntesDe(proveedorId, desdeDT);
-        BigDecimal pagosPreUSD = pagoProveedorRepository.totalPagadoUSDAntesDe(proveedorId, desde);
-        BigDecimal saldoInicialUSD = comprasPreUSD.subtract(pagosPreUSD);
-
-        // 2. Movimientos del periodo
-        List<Compra> compras = compraRepository.findByProveedorIdAndFechaBetweenOrderByFechaAsc(proveedorId, desdeDT,
-                hastaDT);
-        List<PagoProveedor> pagos = pagoProveedorRepository.findByProveedorIdAndFechaBetweenOrderByFechaAsc(proveedorId,
-                desde, hasta).stream().filter(p -> !Boolean.TRUE.equals(p.getAnulado())).toList();
-
-        BigDecimal currentSaldoARS = saldoInicialARS;
-        BigDecimal currentSaldoUSD = saldoInicialUSD;
-        List<Map<String, Object>> movs = new ArrayList<>();
-
-        // Unificar y ordenar por fecha para calcular saldo acumulado
-        List<Object> unificado = Stream.concat(compras.stream(), pagos.stream())
-                .sorted((o1, o2) -> {
-                    LocalDateTime f1 = (o1 instanceof Compra) ? ((Compra) o1).getFecha()
-                            : ((PagoProveedor) o1).getFecha().atStartOfDay();
-                    LocalDateTime f2 = (o2 instanceof Compra) ? ((Compra) o2).getFecha()
-                            : ((PagoProveedor) o2).getFecha().atStartOfDay();
-                    return f1.compareTo(f2);
-                }).toList();
-
-        BigDecimal totalComprasARS = BigDecimal.ZERO;
-        BigDecimal totalPagosARS = BigDecimal.ZERO;
-        BigDecimal totalComprasUSD = BigDecimal.ZERO;
-        BigDecimal totalPagosUSD = BigDecimal.ZERO;
-
-        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        for (Object item : unificado) {
-            if (item instanceof Compra c) {
-                String remitoProv = (c.getAnotaciones() != null && !c.getAnotaciones().isEmpty()) ? c.getAnotaciones()
-                        : "RM-" + c.getNumero();
-                
-                boolean isUSD = "USD".equals(c.getMoneda());
-
-                // 1. Fila de Encabezado de la Compra/Remito
-                Map<String, Object> header = new HashMap<>();
-                header.put("fecha", c.getFecha().format(dtf));
-                header.put("tipo", "COMPRA");
-                header.put("numeroDocumento", remitoProv);
-                header.put("descripcion", "REMITO N° " + remitoProv);
-                header.put("isHeader", true);
-                header.put("idOriginal", c.getId());
-                header.put("tipoOriginal", "COMPRA");
-                header.put("debe", BigDecimal.ZERO);
-                header.put("haber", BigDecimal.ZERO);
-                header.put("moneda", c.getMoneda() != null ? c.getMoneda() : "ARS");
-                header.put("saldo", isUSD ? currentSaldoUSD : currentSaldoARS);
-                movs.add(header);
-
-                if (c.getItems() != null && !c.getItems().isEmpty()) {
-                    for (CompraItem it : c.getItems()) {
-                        Map<String, Object> m = new HashMap<>();
-                        m.put("fecha", ""); // No repetimos para ítems
-                        m.put("tipo", "ITEM");
-                        m.put("numeroDocumento", "");
-                        m.put("descripcion", it.getProducto().getNombre());
-                        m.put("cantidad", it.getCantidad());
-                        m.put("precioUnitario", isUSD ? it.getPrecioUnitarioUSD() : it.getPrecioUnitario());
-                        m.put("debe", isUSD ? (it.getPrecioUnitarioUSD() != null ? it.getPrecioUnitarioUSD().multiply(new BigDecimal(it.getCantidad())) : BigDecimal.ZERO) : it.getSubtotal());
-                        m.put("haber", BigDecimal.ZERO);
-                        m.put("moneda", c.getMoneda() != null ? c.getMoneda() : "ARS");
-                        m.put("isHeader", false);
-
-                        if(isUSD) {
-                            currentSaldoUSD = currentSaldoUSD.add((BigDecimal) m.get("debe"));
-                            totalComprasUSD = totalComprasUSD.add((BigDecimal) m.get("debe"));
-                        } else {
-                            currentSaldoARS = currentSaldoARS.add((BigDecimal) m.get("debe"));
-                            totalComprasARS = totalComprasARS.add((BigDecimal) m.get("debe"));
-                        }
-                        
-                        m.put("saldo", isUSD ? currentSaldoUSD : currentSaldoARS);
-                        movs.add(m);
-                    }
-                    // Si tiene IVA
-                    if (Boolean.TRUE.equals(c.getIncluyeIva()) && c.getIvaImporte() != null && c.getIvaImporte().compareTo(BigDecimal.ZERO) > 0) {
-                        Map<String, Object> mIva = new HashMap<>();
-                        mIva.put("fecha", "");
-                        mIva.put("tipo", "IVA");
-                        mIva.put("numeroDocumento", "");
-                        mIva.put("descripcion", "IVA (" + c.getPorcentajeIva() + "%)");
-                        
-                        BigDecimal valorIva = c.getIvaImporte();
-                        if(isUSD && c.getTipoCambio() != null && c.getTipoCambio().compareTo(BigDecimal.ZERO) > 0) {
-                             // Si esta en usd, el iva guardado suele ser en pesos, lo convertimos de vuelta para mostrar u omitimos, aca lo intentamos mostrar
-                             valorIva = c.getIvaImporte().divide(c.getTipoCambio(), 2, java.math.RoundingMode.HALF_UP);
-                        }
-
-                        mIva.put("debe", valorIva);
-                        mIva.put("haber", BigDecimal.ZERO);
-                        mIva.put("moneda", c.getMoneda() != null ? c.getMoneda() : "ARS");
-                        mIva.put("isHeader", false);
-
-                        if(isUSD) {
-                            currentSaldoUSD = currentSaldoUSD.add(valorIva);
-                            totalComprasUSD = totalComprasUSD.add(valorIva);
-                        } else {
-                            currentSaldoARS = currentSaldoARS.add(valorIva);
-                            totalComprasARS = totalComprasARS.add(valorIva);
-                        }
-                        
-                        mIva.put("saldo", isUSD ? currentSaldoUSD : currentSaldoARS);
-                        movs.add(mIva);
-                    }
-                } else {
-                    Map<String, Object> m = new HashMap<>();
-                    m.put("fecha", "");
-                    m.put("tipo", "ITEM");
-                    m.put("numeroDocumento", "");
-                    m.put("descripcion", "Compra de mercadería");
-                    m.put("debe", isUSD ? c.getTotalDolares() : c.getTotal());
-                    m.put("haber", BigDecimal.ZERO);
-                    m.put("moneda", c.getMoneda() != null ? c.getMoneda() : "ARS");
-                    m.put("isHeader", false);
-
-                    if(isUSD) {
-                        currentSaldoUSD = currentSaldoUSD.add((BigDecimal) m.get("debe"));
-                        totalComprasUSD = totalComprasUSD.add((BigDecimal) m.get("debe"));
-                    } else {
-                        currentSaldoARS = currentSaldoARS.add((BigDecimal) m.get("debe"));
-                        totalComprasARS = totalComprasARS.add((BigDecimal) m.get("debe"));
-                    }
-                    m.put("saldo", isUSD ? currentSaldoUSD : currentSaldoARS);
-                    movs.add(m);
-                }
-            } else {
-                PagoProveedor p = (PagoProveedor) item;
-                boolean isUSD = "USD".equals(p.getMoneda());
-                Map<String, Object> m = new HashMap<>();
-                m.put("fecha", p.getFecha().format(dtf));
-                m.put("tipo", "PAGO");
-                m.put("numeroDocumento", "PAGO-" + p.getId());
-                m.put("descripcion", "COMPROBANTE DE PAGO N° " + p.getId()
-                        + (p.getObservaciones() != null ? " (" + p.getObservaciones() + ")" : ""));
-                m.put("debe", BigDecimal.ZERO);
-                m.put("haber", isUSD ? p.getImporteDolares() : p.getImporte());
-                m.put("isHeader", true); // Pagos como nivel principal
-                m.put("idOriginal", p.getId());
-                m.put("tipoOriginal", "PAGO");
-                m.put("moneda", p.getMoneda() != null ? p.getMoneda() : "ARS");
-
-                m.put("medio", p.getMedio());
-                m.put("monedaPago", p.getMonedaPago() != null ? p.getMonedaPago() : "ARS");
-                m.put("banco", p.getBanco());
-                m.put("numeroCheque", p.getNumeroCheque());
-                m.put("fechaVenc", p.getFechaVenc() != null ? p.getFechaVenc().format(dtf) : null);
-
-                if(isUSD) {
-                    currentSaldoUSD = currentSaldoUSD.subtract((BigDecimal) m.get("haber"));
-                    totalPagosUSD = totalPagosUSD.add((BigDecimal) m.get("haber"));
-                } else {
-                    currentSaldoARS = currentSaldoARS.subtract((BigDecimal) m.get("haber"));
-                    totalPagosARS = totalPagosARS.add((BigDecimal) m.get("haber"));
-                }
-
-                m.put("saldo", isUSD ? currentSaldoUSD : currentSaldoARS);
-                movs.add(m);
+    /**
+     * Estado de cuenta en PDF: las filas se dibujan a medida que las entrega CuentaCorrienteProveedorService,
+     * sin armar la lista completa; las páginas terminadas pasan a archivo temporal pasado 1 MB.
+     */
+    public void exportarReportePdf(Long proveedorId, LocalDate desde, LocalDate hasta, OutputStream os)
+            throws IOException {
+        try (PDDocument doc = new PDDocument(MemoryUsageSetting.setupMixed(1024 * 1024))) {
+            ReportePdf reporte = new ReportePdf(doc);
+            try {
+                cuentaCorrienteService.recorrer(proveedorId, desde, hasta, reporte);
+            } finally {
+                reporte.cerrar();
             }
+            doc.save(os);
         }
-
-        Map<String, Object> res = new HashMap<>();
-        res.put("proveedor", Map.of("id", prov.getId(), "nombre", prov.getNombre(), "cuit",
-                prov.getCuit() != null ? prov.getCuit() : ""));
-        res.put("periodo", Map.of("desde", desde.toString(), "hasta", hasta.toString()));
-        res.put("saldoInicial", saldoInicialARS); // default ARS for compat
-        res.put("saldoInicialARS", saldoInicialARS);
-        res.put("saldoInicialUSD", saldoInicialUSD);
-        res.put("movimientos", movs);
-        res.put("totalComprasARS", totalComprasARS);
-        res.put("totalComprasUSD", totalComprasUSD);
-        res.put("totalPagosARS", totalPagosARS);
-        res.put("totalPagosUSD", totalPagosUSD);
-        res.put("saldoFinal", currentSaldoARS); // default ARS for compat
-        res.put("saldoFinalARS", currentSaldoARS);
-        res.put("saldoFinalUSD", currentSaldoUSD);
-
-        return res;
     }
 
-    @org.springframework.transaction.annotation.Transactional(readOnly = true)
-    @SuppressWarnings("unchecked")
-    public void exportarReportePdf(Long proveedorId, LocalDate desde, LocalDate hasta, OutputStream os,
-            byte[] logoBytes) throws Exception {
-        Map<String, Object> data = generarReporteCuentaCorriente(proveedorId, desde, hasta);
-        Map<String, String> prov = (Map<String, String>) data.get("proveedor");
-        List<Map<String, Object>> movimientos = (List<Map<String, Object>>) data.get("movimientos");
+    /** Dibuja el estado de cuenta fila por fila; lleva la página y la posición actual. */
+    private class ReportePdf implements CuentaCorrienteProveedorService.Destino {
+        private static final float MARGIN = 40;
 
-        try (PDDocument doc = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.A4);
-            doc.addPage(page);
-            PDPageContentStream cs = new PDPageContentStream(doc, page);
+        private final PDDocument doc;
+        private PDPageContentStream cs;
+        private float w;
+        private float h;
+        private float y;
+        private boolean primeraFila = true;
+
+        ReportePdf(PDDocument doc) {
+            this.doc = doc;
+        }
 
-            float w = page.getMediaBox().getWidth();
-            float h = page.getMediaBox().getHeight();
-            float margin = 40;
-            float y = h - margin;
+        @Override
+        public void inicio(CuentaCorrienteProveedorService.EstadoCuenta estado) throws IOException {
+            nuevaPagina();
+            float margin = MARGIN;
 
             // --- ENCABEZADO PREMIUM ---
             // 1. Logo (Esquina superior izquierda)
-            if (logoBytes != null) {
-                try {
-                    PDImageXObject pdImage = PDImageXObject.createFromByteArray(doc, logoBytes, "logo");
-                    cs.drawImage(pdImage, margin, y - 120, 140, 140);
-                } catch (Exception e) {
-                }
-            }
+            pdfRecursosService.dibujarLogo(doc, cs, margin, y);
 
             // 2. Título (Centrado)
             cs.beginText();
@@ -378,7 +234,7 @@ public class ProveedorService {
 
             // 3. Período (Esquina superior derecha)
             DateTimeFormatter headerDtf = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-            String periodoText = desde.format(headerDtf) + " - " + hasta.format(headerDtf);
+            String periodoText = estado.getDesde().format(headerDtf) + " - " + estado.getHasta().format(headerDtf);
             cs.beginText();
             cs.setFont(PDType1Font.HELVETICA, 9);
             float pWidth = PDType1Font.HELVETICA.getStringWidth(periodoText) / 1000 * 9;
@@ -397,185 +253,143 @@ public class ProveedorService {
             cs.beginText();
             cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
             cs.newLineAtOffset(margin + 10, y - 15);
-            cs.showText(sanitizeForPdf("PROVEEDOR: " + prov.get("nombre")));
+            cs.showText(sanitizeForPdf("PROVEEDOR: " + estado.getProveedorNombre()));
             cs.newLineAtOffset(0, -15);
             cs.setFont(PDType1Font.HELVETICA, 10);
-            cs.showText(sanitizeForPdf("CUIT: " + prov.get("cuit")));
+            cs.showText(sanitizeForPdf("CUIT: " + estado.getProveedorCuit()));
             cs.endText();
 
             y -= 85;
             // --- TABLA DE MOVIMIENTOS ---
-            // Header de Tabla (Gris medio)
-            cs.setNonStrokingColor(new java.awt.Color(108, 117, 125)); // Medium gray
-            cs.addRect(margin, y - 20, w - 2 * margin, 20);
-            cs.fill();
-            cs.setNonStrokingColor(java.awt.Color.WHITE);
-
-            cs.beginText();
-            cs.setFont(PDType1Font.HELVETICA_BOLD, 8);
-            cs.newLineAtOffset(margin + 5, y - 13);
-            cs.showText("Fecha / Detalle del Documento");
-            cs.newLineAtOffset(255, 0);
-            cs.showText("Cant.");
-            cs.newLineAtOffset(50, 0);
-            cs.showText("Debe");
-            cs.newLineAtOffset(60, 0);
-            cs.showText("Haber");
-            cs.newLineAtOffset(60, 0);
-            cs.showText("Saldo");
-            cs.endText();
-
+            encabezadoTabla();
             y -= 20;
             cs.setFont(PDType1Font.HELVETICA, 8);
-            for (int i = 0; i < movimientos.size(); i++) {
-                Map<String, Object> m = movimientos.get(i);
-
-                if (y < 100) { // Aumentado el margen de seguridad para evitar cortes feos
-                    cs.close();
-                    page = new PDPage(PDRectangle.A4);
-                    doc.addPage(page);
-                    cs = new PDPageContentStream(doc, page);
-                    y = h - margin;
-
-                    // Repetir header en nueva página con el color suave
-                    cs.setNonStrokingColor(new java.awt.Color(108, 117, 125));
-                    cs.addRect(margin, y - 20, w - 2 * margin, 20);
-                    cs.fill();
-                    cs.setNonStrokingColor(java.awt.Color.WHITE);
-                    cs.beginText();
-                    cs.setFont(PDType1Font.HELVETICA_BOLD, 8);
-                    cs.newLineAtOffset(margin + 5, y - 13);
-                    cs.showText("Fecha / Detalle del Documento");
-                    cs.newLineAtOffset(255, 0);
-                    cs.showText("Cant.");
-                    cs.newLineAtOffset(50, 0);
-                    cs.showText("Debe");
-                    cs.newLineAtOffset(60, 0);
-                    cs.showText("Haber");
+        }
+
+        @Override
+        public void movimiento(MovimientoCuentaProveedor m) throws IOException {
+            float margin = MARGIN;
+            if (y < 100) { // Aumentado el margen de seguridad para evitar cortes feos
+                cs.close();
+                nuevaPagina();
+                // Repetir header en nueva página con el color suave
+                encabezadoTabla();
+                y -= 25; // Un poco más de espacio tras el header repetido
+            }
+
+            // Espacio extra antes de un nuevo bloque de remito para evitar solapamientos y
+            // mejorar legibilidad
+            if (m.isHeader() && !primeraFila) {
+                y -= 10;
+            }
+            primeraFila = false;
+
+            if (m.isHeader()) {
+                String fullDesc = sanitizeForPdf(m.getDescripcion());
+                if ("USD".equals(m.getMoneda())) {
+                    fullDesc = "[U$D] " + fullDesc;
+                }
+                List<String> descLines = splitText(fullDesc, PDType1Font.HELVETICA_BOLD, 8, 280);
+                int extraLines = Math.max(0, descLines.size() - 1);
+                float boxExtraHeight = extraLines * 12;
+
+                // Header de Bloque (Remito o Pago)
+                cs.setNonStrokingColor(new java.awt.Color(248, 249, 250));
+                cs.addRect(margin, y - 20 - boxExtraHeight, w - 2 * margin, 20 + boxExtraHeight);
+                cs.fill();
+                cs.setNonStrokingColor(java.awt.Color.BLACK);
+
+                cs.beginText();
+                cs.setFont(PDType1Font.HELVETICA_BOLD, 8);
+                cs.newLineAtOffset(margin + 5, y - 13);
+
+                String primeraLineaText = m.getFecha() + "  -  " + (descLines.isEmpty() ? "" : descLines.get(0));
+                cs.showText(primeraLineaText);
+
+                if ("PAGO".equals(m.getTipo())) {
+                    cs.newLineAtOffset(365, 0);
+                    cs.showText(String.format("%.2f", m.getHaber().doubleValue()));
                     cs.newLineAtOffset(60, 0);
-                    cs.showText("Saldo");
-                    cs.endText();
-                    y -= 25; // Un poco más de espacio tras el header repetido
+                    cs.showText(String.format("%.2f", m.getSaldo().doubleValue()));
+                    cs.newLineAtOffset(-425, 0); // Vuelve a la izquierda
+                } else if ("COMPRA".equals(m.getTipo())) {
+                    cs.newLineAtOffset(425, 0);
+                    cs.showText(String.format("%.2f", m.getSaldo().doubleValue()));
+                    cs.newLineAtOffset(-425, 0); // Vuelve a la izquierda
                 }
 
-                boolean isHeader = (boolean) m.getOrDefault("isHeader", false);
-
-                // Espacio extra antes de un nuevo bloque de remito para evitar solapamientos y
-                // mejorar legibilidad
-                if (isHeader && i > 0) {
-                    y -= 10;
+                // Imprimir lineas restantes de la descripción
+                for (int j = 1; j < descLines.size(); j++) {
+                    cs.newLineAtOffset(0, -12);
+                    cs.showText(descLines.get(j));
                 }
+                cs.endText();
 
-                if (isHeader) {
-                    
-                    String fullDesc = sanitizeForPdf((String) m.get("descripcion"));
-                    if ("USD".equals(m.get("moneda"))) {
-                        fullDesc = "[U$D] " + fullDesc;
-                    }
-                    List<String> descLines = splitText(fullDesc, PDType1Font.HELVETICA_BOLD, 8, 280); 
-                    int extraLines = Math.max(0, descLines.size() - 1);
-                    float boxExtraHeight = extraLines * 12;
+                y -= boxExtraHeight; // Actualizamos offset Y
 
-                    // Header de Bloque (Remito o Pago)
-                    cs.setNonStrokingColor(new java.awt.Color(248, 249, 250));
-                    cs.addRect(margin, y - 20 - boxExtraHeight, w - 2 * margin, 20 + boxExtraHeight);
-                    cs.fill();
-                    cs.setNonStrokingColor(java.awt.Color.BLACK);
+                if ("PAGO".equals(m.getTipo()) && m.getMedio() != null) {
+                    String medio = m.getMedio();
 
+                    y -= 12;
                     cs.beginText();
-                    cs.setFont(PDType1Font.HELVETICA_BOLD, 8);
-                    cs.newLineAtOffset(margin + 5, y - 13);
-
-                    String primeraLineaText = m.get("fecha") + "  -  " + (descLines.isEmpty() ? "" : descLines.get(0));
-                    cs.showText(primeraLineaText);
-
-                    if ("PAGO".equals(m.get("tipo"))) {
-                        cs.newLineAtOffset(365, 0);
-                        cs.showText(String.format("%.2f", ((BigDecimal) m.get("haber")).doubleValue()));
-                        cs.newLineAtOffset(60, 0);
-                        cs.showText(String.format("%.2f", ((BigDecimal) m.get("saldo")).doubleValue()));
-                        cs.newLineAtOffset(-425, 0); // Vuelve a la izquierda
-                    } else if ("COMPRA".equals(m.get("tipo"))) {
-                        cs.newLineAtOffset(425, 0);
-                        cs.showText(String.format("%.2f", ((BigDecimal) m.get("saldo")).doubleValue()));
-                        cs.newLineAtOffset(-425, 0); // Vuelve a la izquierda
-                    }
-
-                    // Imprimir lineas restantes de la descripción
-                    for (int j = 1; j < descLines.size(); j++) {
-                        cs.newLineAtOffset(0, -12);
-                        // Alinear con el inicio del texto original, después de la fecha (aprox 60 pt)
-                        cs.showText(descLines.get(j));
+                    cs.setFont(PDType1Font.HELVETICA_OBLIQUE, 7);
+                    cs.newLineAtOffset(margin + 20, y - 10);
+                    cs.setNonStrokingColor(new java.awt.Color(100, 100, 100)); // Gris oscurecido
+
+                    String subLinea = "Medio de Pago: " + medio.replace("_", " ");
+                    if (medio.contains("CHEQUE")) {
+                        subLinea += "  |  Detalles de Cheque:";
+                        if (m.getBanco() != null) subLinea += "  Banco: " + m.getBanco();
+                        if (m.getNumeroCheque() != null) subLinea += "  Nro: " + m.getNumeroCheque();
+                        if (m.getFechaVenc() != null) subLinea += "  Vence: " + m.getFechaVenc();
                     }
+                    cs.showText(sanitizeForPdf(subLinea));
                     cs.endText();
+                    cs.setNonStrokingColor(java.awt.Color.BLACK); // Reseteamos color negro normal
+                }
+            } else {
+                cs.setNonStrokingColor(java.awt.Color.BLACK);
+                cs.beginText();
+                cs.setFont(PDType1Font.HELVETICA, 8);
+                cs.newLineAtOffset(margin + 20, y - 13); // Identación visual limpia
+
+                String desc = m.getDescripcion();
+                if ("USD".equals(m.getMoneda())) {
+                    desc = "[U$D] " + desc;
+                }
+                cs.showText(sanitizeForPdf(truncate(desc, 55)));
 
-                    y -= boxExtraHeight; // Actualizamos offset Y
-
-
-                    if ("PAGO".equals(m.get("tipo")) && m.get("medio") != null) {
-                        String medio = (String) m.get("medio");
-                        
-                        y -= 12;
-                        cs.beginText();
-                        cs.setFont(PDType1Font.HELVETICA_OBLIQUE, 7);
-                        cs.newLineAtOffset(margin + 20, y - 10);
-                        cs.setNonStrokingColor(new java.awt.Color(100, 100, 100)); // Gris oscurecido
-                        
-                        String subLinea = "Medio de Pago: " + medio.replace("_", " ");
-                        if (medio.contains("CHEQUE")) {
-                            subLinea += "  |  Detalles de Cheque:";
-                            if (m.get("banco") != null) subLinea += "  Banco: " + m.get("banco");
-                            if (m.get("numeroCheque") != null) subLinea += "  Nro: " + m.get("numeroCheque");
-                            if (m.get("fechaVenc") != null) subLinea += "  Vence: " + m.get("fechaVenc");
-                        }
-                        cs.showText(sanitizeForPdf(subLinea));
-                        cs.endText();
-                        cs.setNonStrokingColor(java.awt.Color.BLACK); // Reseteamos color negro normal
-                    }
-                } else {
-                    cs.setNonStrokingColor(java.awt.Color.BLACK);
-                    cs.beginText();
-                    cs.setFont(PDType1Font.HELVETICA, 8);
-                    cs.newLineAtOffset(margin + 20, y - 13); // Identación visual limpia
-                    
-                    String desc = (String) m.get("descripcion");
-                    if ("USD".equals(m.get("moneda"))) {
-                        desc = "[U$D] " + desc;
-                    }
-                    cs.showText(sanitizeForPdf(truncate(desc, 55)));
-
-                    cs.newLineAtOffset(240, 0);
-                    cs.showText(m.get("cantidad") != null ? m.get("cantidad").toString() : "-");
-
-                    cs.newLineAtOffset(50, 0);
-                    cs.showText(String.format("%.2f", ((BigDecimal) m.get("debe")).doubleValue()));
+                cs.newLineAtOffset(240, 0);
+                cs.showText(m.getCantidad() != null ? m.getCantidad().toString() : "-");
 
-                    cs.newLineAtOffset(120, 0);
-                    cs.showText(String.format("%.2f", ((BigDecimal) m.get("saldo")).doubleValue()));
-                    cs.endText();
-                }
+                cs.newLineAtOffset(50, 0);
+                cs.showText(String.format("%.2f", m.getDebe().doubleValue()));
 
-                y -= 20;
-                cs.setLineWidth(0.2f);
-                cs.setStrokingColor(new java.awt.Color(230, 230, 230));
-                cs.moveTo(margin, y);
-                cs.lineTo(w - margin, y);
-                cs.stroke();
+                cs.newLineAtOffset(120, 0);
+                cs.showText(String.format("%.2f", m.getSaldo().doubleValue()));
+                cs.endText();
             }
 
+            y -= 20;
+            cs.setLineWidth(0.2f);
+            cs.setStrokingColor(new java.awt.Color(230, 230, 230));
+            cs.moveTo(margin, y);
+            cs.lineTo(w - margin, y);
+            cs.stroke();
+        }
+
+        @Override
+        public void fin(CuentaCorrienteProveedorService.EstadoCuenta estado) throws IOException {
             // --- CUADRO DE TOTALES FINALES ---
             y -= 40;
             if (y < 120) {
                 cs.close();
-                page = new PDPage(PDRectangle.A4);
-                doc.addPage(page);
-                cs = new PDPageContentStream(doc, page);
-                y = h - margin;
+                nuevaPagina();
             }
 
             float boxWidth = 230;
             float boxHeight = 75;
-            float boxX = w - margin - boxWidth;
+            float boxX = w - MARGIN - boxWidth;
 
             cs.setNonStrokingColor(new java.awt.Color(252, 252, 252));
             cs.addRect(boxX, y - boxHeight, boxWidth, boxHeight);
@@ -591,28 +405,64 @@ public class ProveedorService {
             cs.newLineAtOffset(boxX + 10, y - 20);
             cs.showText("Total Compras (ARS) (+):");
             cs.newLineAtOffset(130, 0);
-            cs.showText("$ " + String.format("%.2f", ((BigDecimal) data.get("totalComprasARS")).doubleValue()));
+            cs.showText("$ " + String.format("%.2f", estado.getTotalComprasARS().doubleValue()));
 
             cs.newLineAtOffset(-130, -15);
             cs.showText("Total Pagos (ARS) (-):");
             cs.newLineAtOffset(130, 0);
-            cs.showText("$ " + String.format("%.2f", ((BigDecimal) data.get("totalPagosARS")).doubleValue()));
+            cs.showText("$ " + String.format("%.2f", estado.getTotalPagosARS().doubleValue()));
 
             cs.newLineAtOffset(-130, -20);
             cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
             cs.showText("SALDO FINAL ARS:");
             cs.newLineAtOffset(115, 0);
-            cs.showText(" $ " + String.format("%.2f", ((BigDecimal) data.get("saldoFinalARS")).doubleValue()));
-            
+            cs.showText(" $ " + String.format("%.2f", estado.getSaldoARS().doubleValue()));
+
             cs.newLineAtOffset(-115, -15);
             cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
             cs.showText("SALDO FINAL USD:");
             cs.newLineAtOffset(115, 0);
-            cs.showText(" U$D " + String.format("%.2f", ((BigDecimal) data.get("saldoFinalUSD")).doubleValue()));
+            cs.showText(" U$D " + String.format("%.2f", estado.getSaldoUSD().doubleValue()));
             cs.endText();
+        }
 
-            cs.close();
-            doc.save(os);
+        /** Cierra el contenido de la última página (también si el recorrido falló). */
+        void cerrar() throws IOException {
+            if (cs != null) {
+                cs.close();
+                cs = null;
+            }
+        }
+
+        private void nuevaPagina() throws IOException {
+            PDPage page = new PDPage(PDRectangle.A4);
+            doc.addPage(page);
+            cs = new PDPageContentStream(doc, page);
+            w = page.getMediaBox().getWidth();
+            h = page.getMediaBox().getHeight();
+            y = h - MARGIN;
+        }
+
+        private void encabezadoTabla() throws IOException {
+            // Header de Tabla (Gris medio)
+            cs.setNonStrokingColor(new java.awt.Color(108, 117, 125)); // Medium gray
+            cs.addRect(MARGIN, y - 20, w - 2 * MARGIN, 20);
+            cs.fill();
+            cs.setNonStrokingColor(java.awt.Color.WHITE);
+
+            cs.beginText();
+            cs.setFont(PDType1Font.HELVETICA_BOLD, 8);
+            cs.newLineAtOffset(MARGIN + 5, y - 13);
+            cs.showText("Fecha / Detalle del Documento");
+            cs.newLineAtOffset(255, 0);
+            cs.showText("Cant.");
+            cs.newLineAtOffset(50, 0);
+            cs.showText("Debe");
+            cs.newLineAtOffset(60, 0);
+            cs.showText("Haber");
+            cs.newLineAtOffset(60, 0);
+            cs.showText("Saldo");
+            cs.endText();
         }
     }
 
@@ -681,8 +531,7 @@ public class ProveedorService {
             nota.setFecha(LocalDate.now());
         }
 
-        Long maxNumero = notaProveedorRepository.findMaxNumero();
-        nota.setNumero(maxNumero != null ? maxNumero + 1 : 1);
+        nota.setNumero(numeradorService.siguiente(Numerador.TipoDocumento.NOTA));
 
         return notaProveedorRepository.save(nota);
     }
@@ -0,0 +1,75 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.exception.ConflictoConcurrenciaException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta una operación en su propia transacción y la repite si choca con otra operación
+ * concurrente (conflicto de @Version o bloqueo/deadlock en MySQL). Cada intento vuelve a leer
+ * y validar los documentos, así el segundo ve lo que confirmó el primero.
+ * Si ya hay una transacción en curso no se reintenta: decide quien la abrió. Agotados los
+ * intentos lanza {@link ConflictoConcurrenciaException} (409).
+ */
+@Component
+@Slf4j
+public class ReintentoConcurrencia {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int intentos;
+    private final long esperaMs;
+
+    public ReintentoConcurrencia(PlatformTransactionManager transactionManager,
+            @Value("${app.concurrencia.intentos:3}") int intentos,
+            @Value("${app.concurrencia.espera-ms:50}") long esperaMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.intentos = Math.max(1, intentos);
+        this.esperaMs = Math.max(0, esperaMs);
+    }
+
+    /**
+     * @param operacion         nombre para el log
+     * @param accion            la operación; se ejecuta dentro de la transacción del intento
+     * @param antesDeReintentar deja los objetos de entrada como antes del intento fallido
+     *                          (ids y colecciones asignados por la transacción que hizo rollback)
+     */
+    public <T> T ejecutar(String operacion, Supplier<T> accion, Runnable antesDeReintentar) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return accion.get();
+        }
+
+        for (int intento = 1; ; intento++) {
+            try {
+                return transactionTemplate.execute(status -> accion.get());
+            } catch (ConcurrencyFailureException e) {
+                if (intento >= intentos) {
+                    log.warn("{}: conflicto de concurrencia tras {} intentos", operacion, intento);
+                    throw new ConflictoConcurrenciaException(
+                            "Otra operación modificó los mismos documentos al mismo tiempo. Intente nuevamente.", e);
+                }
+                log.info("{}: conflicto de concurrencia, reintento {} de {}", operacion, intento + 1, intentos);
+                antesDeReintentar.run();
+                esperar(intento);
+            }
+        }
+    }
+
+    private void esperar(int intento) {
+        if (esperaMs == 0) return;
+        try {
+            // Espera creciente con algo de azar para que los dos que chocaron no vuelvan a coincidir
+            Thread.sleep(esperaMs * intento + ThreadLocalRandom.current().nextLong(esperaMs + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Operación interrumpida");
+        }
+    }
+}
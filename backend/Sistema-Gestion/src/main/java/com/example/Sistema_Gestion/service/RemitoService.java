@@ -1,21 +1,29 @@
 package com.example.Sistema_Gestion.service;
 
+import com.example.Sistema_Gestion.dto.PaginaCursor;
+import com.example.Sistema_Gestion.dto.RemitoListView;
+import com.example.Sistema_Gestion.dto.VersionPdf;
+import com.example.Sistema_Gestion.model.Numerador;
 import com.example.Sistema_Gestion.model.Remito;
 import com.example.Sistema_Gestion.model.RemitoItem;
 import com.example.Sistema_Gestion.repository.RemitoRepository;
+import org.hibernate.Hibernate;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -23,51 +31,83 @@ import java.util.Map;
 import java.util.Optional;
 import org.springframework.dao.DataIntegrityViolationException;
 
-import com.example.Sistema_Gestion.model.Configuracion;
 
 @Service
 public class RemitoService {
 
     private final RemitoRepository remitoRepository;
     private final ProductoService productoService;
-    private final ConfiguracionService configuracionService;
+    private final PdfRecursosService pdfRecursosService;
+    private final NumeradorService numeradorService;
+    private final SaldoClienteService saldoClienteService;
+    private final VentasDiariasService ventasDiariasService;
 
     public RemitoService(RemitoRepository remitoRepository,
             ProductoService productoService,
-            ConfiguracionService configuracionService) {
+            PdfRecursosService pdfRecursosService,
+            NumeradorService numeradorService,
+            SaldoClienteService saldoClienteService,
+            VentasDiariasService ventasDiariasService) {
         this.remitoRepository = remitoRepository;
         this.productoService = productoService;
-        this.configuracionService = configuracionService;
+        this.pdfRecursosService = pdfRecursosService;
+        this.numeradorService = numeradorService;
+        this.saldoClienteService = saldoClienteService;
+        this.ventasDiariasService = ventasDiariasService;
     }
 
+    @Transactional(readOnly = true)
     public Page<Remito> listarTodos(Pageable pageable) {
-        return remitoRepository.findAll(pageable);
+        Page<Remito> pagina = remitoRepository.findAll(pageable);
+        // Los ítems de la página se cargan en lotes (@BatchSize), sin paginar en memoria
+        pagina.forEach(r -> Hibernate.initialize(r.getItems()));
+        return pagina;
+    }
+
+    /** Listado por cursor (fecha, id) descendente; {@code estado} es opcional. */
+    @Transactional(readOnly = true)
+    public PaginaCursor<Remito> listarPorCursor(String cursor, Integer limite, Remito.EstadoRemito estado) {
+        int tamanio = PaginaCursor.limitar(limite);
+        PaginaCursor.Posicion desde = PaginaCursor.Posicion.decodificar(cursor);
+        Pageable filas = PageRequest.of(0, tamanio + 1);
+
+        List<Remito> remitos;
+        if (estado == null) {
+            if (desde == null) {
+                remitos = remitoRepository.findAllByOrderByFechaDescIdDesc(filas);
+            } else if (desde.tieneFecha()) {
+                remitos = remitoRepository.buscarAntesDe(desde.getFechaComoDia(), desde.getId(), filas);
+            } else {
+                remitos = remitoRepository.buscarSinFechaAntesDe(desde.getId(), filas);
+            }
+        } else {
+            if (desde == null) {
+                remitos = remitoRepository.findByEstadoOrderByFechaDescIdDesc(estado, filas);
+            } else if (desde.tieneFecha()) {
+                remitos = remitoRepository.buscarPorEstadoAntesDe(estado, desde.getFechaComoDia(), desde.getId(), filas);
+            } else {
+                remitos = remitoRepository.buscarPorEstadoSinFechaAntesDe(estado, desde.getId(), filas);
+            }
+        }
+        PaginaCursor<Remito> pagina = PaginaCursor.de(remitos, tamanio, r -> new PaginaCursor.Posicion(r.getFecha(), r.getId()));
+        pagina.getItems().forEach(r -> Hibernate.initialize(r.getItems()));
+        return pagina;
     }
 
     public List<Remito> listarPorEstado(Remito.EstadoRemito estado) {
         return remitoRepository.findByEstadoOrderByFechaDesc(estado);
     }
 
-    public List<Remito> listarPorCliente(Long clienteId) {
-        return remitoRepository.findByClienteIdOrderByFechaDesc(clienteId);
+    public List<RemitoListView> listarPorCliente(Long clienteId) {
+        return remitoRepository.listarVistaPorCliente(clienteId);
     }
 
     public Optional<Remito> buscarPorId(Long id) {
         return remitoRepository.findById(id);
     }
 
-    @Transactional(readOnly = true)
     public Optional<Remito> buscarPorIdConItems(Long id) {
-        Optional<Remito> opt = remitoRepository.findById(id);
-        opt.ifPresent(r -> {
-            r.getItems().size(); // Inicializa la lista lazy
-            for (RemitoItem item : r.getItems()) {
-                if (item.getProducto() != null) {
-                    item.getProducto().getNombre(); // Forzar carga del producto LAZY
-                }
-            }
-        });
-        return opt;
+        return remitoRepository.findDetalleById(id);
     }
 
     /**
@@ -76,8 +116,7 @@ public class RemitoService {
      */
     @Transactional
     public Remito generarRemito(Remito remito) {
-        Long max = remitoRepository.findMaxNumero();
-        remito.setNumero((max != null && max > 0) ? max + 1 : 1L);
+        remito.setNumero(numeradorService.siguiente(Numerador.TipoDocumento.REMITO));
         remito.setEstado(Remito.EstadoRemito.PENDIENTE);
 
         if (remito.getItems() != null) {
@@ -88,7 +127,8 @@ public class RemitoService {
 
         Remito saved = remitoRepository.save(remito);
 
-        // Gestión de stock al momento de crear el remito
+        // Gestión de stock al momento de crear el remito: todas las líneas en un solo batch
+        StockBatch stock = new StockBatch();
         if (saved.getItems() != null) {
             for (RemitoItem item : saved.getItems()) {
                 // VALIDACIÓN DE CANTIDAD > 0
@@ -99,18 +139,11 @@ public class RemitoService {
                 }
 
                 if (item.getProducto() != null) {
-                    boolean ok = productoService.descontarStock(
-                            item.getProducto().getId(),
-                            item.getCantidad().intValue());
-                    if (!ok) {
-                        throw new IllegalStateException(
-                            "Stock insuficiente para el producto: '" +
-                            item.getProducto().getNombre() + "'. " +
-                            "Revisá el stock disponible antes de registrar el remito.");
-                    }
+                    stock.restar(item.getProducto().getId(), item.getCantidad().intValue());
                 }
             }
         }
+        productoService.aplicarStock(stock);
         return saved;
     }
 
@@ -124,11 +157,12 @@ public class RemitoService {
      */
     @Transactional
     public Remito valorizar(Long remitoId, Map<Long, BigDecimal> precios, BigDecimal cotizacionDolar) {
-        Remito remito = remitoRepository.findById(remitoId)
+        Remito remito = remitoRepository.findDetalleById(remitoId)
                 .orElseThrow(() -> new RuntimeException("Remito no encontrado: " + remitoId));
 
         // Se permite re-valorizar incluso si está cobrado para corregir errores excepcionales.
         // El estado volverá a VALORIZADO automáticamente líneas abajo.
+        BigDecimal impactoAnterior = saldoClienteService.impacto(remito);
 
         BigDecimal total = BigDecimal.ZERO;
         for (RemitoItem item : remito.getItems()) {
@@ -147,7 +181,9 @@ public class RemitoService {
         remito.setFechaValorizacion(LocalDateTime.now());
         remito.setEstado(Remito.EstadoRemito.VALORIZADO);
 
-        return remitoRepository.save(remito);
+        Remito saved = remitoRepository.save(remito);
+        registrarImpacto(clienteId(saved), saved.getFecha(), impactoAnterior, saved);
+        return saved;
     }
 
     /**
@@ -157,48 +193,58 @@ public class RemitoService {
     @Transactional
     public void actualizarEstadoPostCobro(Remito remito, BigDecimal totalCobradoEnRemito) {
         if (remito.getTotal() == null) return;
+        aplicarEstadoPostCobro(remito, totalCobradoEnRemito);
+        remitoRepository.saveAndFlush(remito);
+    }
 
-        // Tolerancia de 0.01 para evitar problemas de redondeo
-        BigDecimal totalRemito = remito.getTotal();
-        BigDecimal diferencia = totalRemito.subtract(totalCobradoEnRemito);
+    /**
+     * Sólo cambia el estado en memoria (COBRADO si quedó saldado, si no VALORIZADO); el remito
+     * gestionado se guarda con el flush de la transacción que llama.
+     */
+    public void aplicarEstadoPostCobro(Remito remito, BigDecimal totalCobradoEnRemito) {
+        if (remito.getTotal() == null) return;
 
-        if (diferencia.compareTo(new BigDecimal("0.01")) <= 0) {
-            remito.setEstado(Remito.EstadoRemito.COBRADO);
-            remitoRepository.saveAndFlush(remito);
-        } else {
-            remito.setEstado(Remito.EstadoRemito.VALORIZADO);
-            remitoRepository.saveAndFlush(remito);
-        }
+        // Tolerancia de 0.01 para evitar problemas de redondeo
+        BigDecimal diferencia = remito.getTotal().subtract(totalCobradoEnRemito);
+        remito.setEstado(diferencia.compareTo(new BigDecimal("0.01")) <= 0
+                ? Remito.EstadoRemito.COBRADO
+                : Remito.EstadoRemito.VALORIZADO);
     }
 
-    public List<Remito> listarPendientesPorCliente(Long clienteId) {
-        return remitoRepository.findByClienteIdAndEstadoOrderByFechaDesc(clienteId, Remito.EstadoRemito.VALORIZADO);
+    public List<RemitoListView> listarPendientesPorCliente(Long clienteId) {
+        return remitoRepository.listarVistaPorClienteYEstado(clienteId, Remito.EstadoRemito.VALORIZADO);
     }
 
     @Transactional
     public Remito marcarComoCobrado(Long id) {
-        Remito remito = remitoRepository.findById(id)
+        Remito remito = remitoRepository.findDetalleById(id)
                 .orElseThrow(() -> new RuntimeException("Remito no encontrado: " + id));
+        BigDecimal impactoAnterior = saldoClienteService.impacto(remito);
         remito.setEstado(Remito.EstadoRemito.COBRADO);
-        return remitoRepository.save(remito);
+        Remito saved = remitoRepository.save(remito);
+        registrarImpacto(clienteId(saved), saved.getFecha(), impactoAnterior, saved);
+        return saved;
     }
 
     @Transactional
     public void eliminarRemito(Long id) {
-        Remito remito = remitoRepository.findById(id)
+        Remito remito = remitoRepository.findDetalleById(id)
                 .orElseThrow(() -> new RuntimeException("Remito no encontrado"));
+        Long clienteId = clienteId(remito);
+        LocalDate fecha = remito.getFecha();
+        BigDecimal impacto = saldoClienteService.impacto(remito);
 
         // Revertir stock
+        StockBatch stock = new StockBatch();
         if (remito.getItems() != null) {
             for (RemitoItem item : remito.getItems()) {
                 if (item.getProducto() != null && item.getCantidad() != null) {
                     // Era una salida (restó stock), al eliminar sumamos
-                    productoService.aumentarStock(
-                            item.getProducto().getId(),
-                            item.getCantidad().intValue());
+                    stock.sumar(item.getProducto().getId(), item.getCantidad().intValue());
                 }
             }
         }
+        productoService.aplicarStock(stock);
 
         try {
             remitoRepository.delete(remito);
@@ -206,19 +252,26 @@ public class RemitoService {
         } catch (DataIntegrityViolationException e) {
             throw new RuntimeException("No se puede eliminar el remito porque ya tiene cobros asociados. Por favor, anule o elimine los cobros primero.");
         }
+        saldoClienteService.registrarMovimiento(clienteId, impacto.negate());
+        ventasDiariasService.registrarCambioVenta(fecha, impacto, fecha, BigDecimal.ZERO);
     }
 
     @Transactional
     public Remito actualizarRemito(Remito remitoDraft) {
         // 1. Obtener el remito real de la DB (gestionado por Hibernate)
-        Remito remitoPersistido = remitoRepository.findById(remitoDraft.getId())
+        Remito remitoPersistido = remitoRepository.findDetalleById(remitoDraft.getId())
                 .orElseThrow(() -> new RuntimeException("Remito no encontrado"));
+        Long clienteAnterior = clienteId(remitoPersistido);
+        LocalDate fechaAnterior = remitoPersistido.getFecha();
+        BigDecimal impactoAnterior = saldoClienteService.impacto(remitoPersistido);
 
-        // 2. Revertir stock de los ítems existentes antes de borrarlos
+        // 2. Revertir stock de los ítems existentes antes de borrarlos.
+        // La reversión y el nuevo descuento se netean en un único batch por producto.
+        StockBatch stock = new StockBatch();
         if (remitoPersistido.getItems() != null) {
             for (RemitoItem item : remitoPersistido.getItems()) {
                 if (item.getProducto() != null && item.getCantidad() != null) {
-                    productoService.aumentarStock(item.getProducto().getId(), item.getCantidad().intValue());
+                    stock.sumar(item.getProducto().getId(), item.getCantidad().intValue());
                 }
             }
             // 3. Limpiar la colección (orphanRemoval=true en Remito.java se encargará del DELETE)
@@ -246,331 +299,340 @@ public class RemitoService {
                 remitoPersistido.addItem(newItem);
                 
                 if (newItem.getProducto() != null) {
-                    boolean ok = productoService.descontarStock(
-                        newItem.getProducto().getId(), 
-                        newItem.getCantidad().intValue()
-                    );
-                    if (!ok) {
-                        throw new RuntimeException("Stock insuficiente para el producto: " + 
-                            (newItem.getProducto() != null ? newItem.getProducto().getNombre() : "Desconocido"));
-                    }
+                    stock.restar(newItem.getProducto().getId(), newItem.getCantidad().intValue());
                 }
             }
         }
+        productoService.aplicarStock(stock);
 
         remitoPersistido.preUpdate();
-        return remitoRepository.save(remitoPersistido);
-    }
-    public void generarPdfRemito(Remito remito, OutputStream os, byte[] logoBytes) throws Exception {
-        try (PDDocument doc = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.A4);
-            doc.addPage(page);
+        Remito saved = remitoRepository.save(remitoPersistido);
 
-            PDPageContentStream cs = new PDPageContentStream(doc, page);
-            float w = page.getMediaBox().getWidth();
-            float h = page.getMediaBox().getHeight();
-            float margin = 40;
-            float x = margin;
-            float y = h - margin;
-
-            // --- HEADER SECTION ---
-            float currentY = h - margin;
-            
-            // 1. Logo (Top Left)
-            if (logoBytes != null) {
-                try {
-                    PDImageXObject pdImage = PDImageXObject.createFromByteArray(doc, logoBytes, "logo");
-                    cs.drawImage(pdImage, x, currentY - 120, 140, 140);
-                } catch (Exception ex) {
-                    // Ignorar error de logo
-                }
-            }
-
-            // 2. Título "REMITO" (Centrado y Grande)
-            cs.beginText();
-            cs.setFont(PDType1Font.HELVETICA_BOLD, 22);
-            cs.newLineAtOffset(w / 2f - 40, currentY - 30);
-            cs.showText("REMITO");
-            cs.endText();
-
-            // 3. Número de remito (Debajo del título)
-            cs.beginText();
-            cs.setFont(PDType1Font.HELVETICA_BOLD, 12);
-            cs.newLineAtOffset(w / 2f - 20, currentY - 55);
-            cs.showText("N° " + remito.getNumero());
-            cs.endText();
-
-            // 4. Fecha (Alineada a la derecha)
-            String fecha = remito.getFecha() != null
-                    ? remito.getFecha().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"))
-                    : LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-            cs.beginText();
-            cs.setFont(PDType1Font.HELVETICA, 10);
-            cs.newLineAtOffset(w - margin - 90, currentY - 30);
-            cs.showText("Fecha: " + fecha);
-            cs.endText();
+        // Si cambió el cliente o la fecha, el importe ya contabilizado se mueve con el remito
+        BigDecimal impacto = saldoClienteService.impacto(saved);
+        saldoClienteService.registrarCambio(clienteAnterior, impactoAnterior, clienteId(saved), impacto);
+        ventasDiariasService.registrarCambioVenta(fechaAnterior, impactoAnterior, saved.getFecha(), impacto);
+        return saved;
+    }
 
-            // --- LÍNEA DE SEPARACIÓN SUPERIOR ---
-            currentY -= 150;
-            cs.setLineWidth(1.2f);
-            cs.moveTo(x, currentY);
-            cs.lineTo(w - margin, currentY);
-            cs.stroke();
-
-            // --- DATOS DE LA EMPRESA (Debajo de la línea, antes de los datos del cliente) ---
-            currentY -= 20;
-            Configuracion config = configuracionService.getConfiguracion();
-            
-            cs.beginText();
-            cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
-            cs.newLineAtOffset(x, currentY);
-            cs.showText(config.getNombreEmpresa() != null ? config.getNombreEmpresa() : "Agro-Ferretería");
-            cs.endText();
+    /** Informa a la cuenta corriente y a las ventas diarias el cambio de importe contabilizado del remito. */
+    private void registrarImpacto(Long clienteId, LocalDate fecha, BigDecimal impactoAnterior, Remito remito) {
+        BigDecimal impacto = saldoClienteService.impacto(remito);
+        saldoClienteService.registrarCambio(clienteId, impactoAnterior, clienteId, impacto);
+        ventasDiariasService.registrarCambioVenta(fecha, impactoAnterior, fecha, impacto);
+    }
 
-            currentY -= 14;
-            cs.beginText();
-            cs.setFont(PDType1Font.HELVETICA, 9);
-            cs.newLineAtOffset(x, currentY);
-            cs.showText("CUIL: " + (config.getCuit() != null ? config.getCuit() : "—"));
-            cs.endText();
+    private Long clienteId(Remito remito) {
+        return remito.getCliente() != null ? remito.getCliente().getId() : null;
+    }
 
-            currentY -= 12;
-            cs.beginText();
-            cs.setFont(PDType1Font.HELVETICA, 9);
-            cs.newLineAtOffset(x, currentY);
-            cs.showText("Dirección: " + (config.getDireccion() != null ? config.getDireccion() : "—"));
-            cs.endText();
+    /**
+     * Número y marca de versión para servir el PDF desde el cache sin cargar el remito.
+     * El PDF imprime el nombre actual de cada producto: renombrar uno cambia la marca.
+     */
+    public Optional<VersionPdf> versionPdf(Long id) {
+        return remitoRepository.versionPdf(id).map(v -> {
+            StringBuilder marca = new StringBuilder(v.getMarca());
+            for (String nombre : remitoRepository.nombresProductos(id)) {
+                marca.append('\n').append(nombre != null ? nombre : "");
+            }
+            return new VersionPdf(v.getNumero(), marca.toString());
+        });
+    }
 
-            // --- LÍNEA DE SEPARACIÓN PARA SECCIÓN CLIENTE ---
-            currentY -= 15;
-            cs.setLineWidth(0.5f);
-            cs.moveTo(x, currentY);
-            cs.lineTo(w - margin, currentY);
-            cs.stroke();
+    public void generarPdfRemito(Remito remito, OutputStream os) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            agregarPaginasRemito(doc, remito);
+            doc.save(os);
+        }
+    }
 
-            // --- SECCIÓN: DATOS DEL CLIENTE ---
-            currentY -= 20;
-            cs.beginText();
-            cs.setFont(PDType1Font.HELVETICA_BOLD, 12);
-            cs.newLineAtOffset(x, currentY);
-            cs.showText("DATOS DEL CLIENTE");
-            cs.endText();
+    /** Agrega las páginas del remito al final de {@code doc} (PDF suelto o exportación en lote). */
+    public void agregarPaginasRemito(PDDocument doc, Remito remito) throws IOException {
+        agregarPaginasRemito(doc, remito, pdfRecursosService.crearLogo(doc));
+    }
 
-            // Sincronizar 'y' y establecer inicio de tabla de info
-            y = currentY;
-            float infoStartY = y - 25;
-            String[][] clienteData = {
-                    { "Nombre:", safeString(remito.getClienteNombre()) },
-                    { "Dirección:", safeString(remito.getClienteDireccion()) },
-                    { "Código Postal:", safeString(remito.getClienteCodigoPostal()) },
-                    { "Condición IVA:",
-                            safeString(remito.getClienteAclaracion()).isEmpty() ? "Consumidor Final"
-                                    : formatCondicionIva(remito.getClienteAclaracion()) }
-            };
-
-            float labelX = x;
-            float valueX = x + 100;
-
-            for (String[] data : clienteData) {
-                if (!data[1].isEmpty()) {
-                    // Label
-                    cs.beginText();
-                    cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
-                    cs.newLineAtOffset(labelX, infoStartY);
-                    cs.showText(data[0]);
-                    cs.endText();
+    /** Igual, con el logo ya agregado a {@code doc} (null = sin logo), para varios remitos en un PDF. */
+    public void agregarPaginasRemito(PDDocument doc, Remito remito, PDImageXObject logo) throws IOException {
+        PDPage page = new PDPage(PDRectangle.A4);
+        doc.addPage(page);
+
+        PDPageContentStream cs = new PDPageContentStream(doc, page);
+        float w = page.getMediaBox().getWidth();
+        float h = page.getMediaBox().getHeight();
+        float margin = 40;
+        float x = margin;
+        float y = h - margin;
+
+        // --- HEADER SECTION ---
+        float currentY = h - margin;
+        
+        // 1. Logo (Top Left)
+        pdfRecursosService.dibujarLogo(logo, cs, x, currentY);
+
+        // 2. Título "REMITO" (Centrado y Grande)
+        cs.beginText();
+        cs.setFont(PDType1Font.HELVETICA_BOLD, 22);
+        cs.newLineAtOffset(w / 2f - 40, currentY - 30);
+        cs.showText("REMITO");
+        cs.endText();
+
+        // 3. Número de remito (Debajo del título)
+        cs.beginText();
+        cs.setFont(PDType1Font.HELVETICA_BOLD, 12);
+        cs.newLineAtOffset(w / 2f - 20, currentY - 55);
+        cs.showText("N° " + remito.getNumero());
+        cs.endText();
+
+        // 4. Fecha (Alineada a la derecha)
+        String fecha = remito.getFecha() != null
+                ? remito.getFecha().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"))
+                : LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+        cs.beginText();
+        cs.setFont(PDType1Font.HELVETICA, 10);
+        cs.newLineAtOffset(w - margin - 90, currentY - 30);
+        cs.showText("Fecha: " + fecha);
+        cs.endText();
+
+        // --- LÍNEA DE SEPARACIÓN SUPERIOR ---
+        currentY -= 150;
+        cs.setLineWidth(1.2f);
+        cs.moveTo(x, currentY);
+        cs.lineTo(w - margin, currentY);
+        cs.stroke();
+
+        // --- DATOS DE LA EMPRESA (Debajo de la línea, antes de los datos del cliente) ---
+        currentY -= 20;
+        currentY = pdfRecursosService.dibujarEmpresa(cs, x, currentY, 9, "Agro-Ferretería");
+
+        // --- LÍNEA DE SEPARACIÓN PARA SECCIÓN CLIENTE ---
+        currentY -= 15;
+        cs.setLineWidth(0.5f);
+        cs.moveTo(x, currentY);
+        cs.lineTo(w - margin, currentY);
+        cs.stroke();
+
+        // --- SECCIÓN: DATOS DEL CLIENTE ---
+        currentY -= 20;
+        cs.beginText();
+        cs.setFont(PDType1Font.HELVETICA_BOLD, 12);
+        cs.newLineAtOffset(x, currentY);
+        cs.showText("DATOS DEL CLIENTE");
+        cs.endText();
+
+        // Sincronizar 'y' y establecer inicio de tabla de info
+        y = currentY;
+        float infoStartY = y - 25;
+        String[][] clienteData = {
+                { "Nombre:", safeString(remito.getClienteNombre()) },
+                { "Dirección:", safeString(remito.getClienteDireccion()) },
+                { "Código Postal:", safeString(remito.getClienteCodigoPostal()) },
+                { "Condición IVA:",
+                        safeString(remito.getClienteAclaracion()).isEmpty() ? "Consumidor Final"
+                                : formatCondicionIva(remito.getClienteAclaracion()) }
+        };
+
+        float labelX = x;
+        float valueX = x + 100;
+
+        for (String[] data : clienteData) {
+            if (!data[1].isEmpty()) {
+                // Label
+                cs.beginText();
+                cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
+                cs.newLineAtOffset(labelX, infoStartY);
+                cs.showText(data[0]);
+                cs.endText();
 
-                    // Value
-                    cs.beginText();
-                    cs.setFont(PDType1Font.HELVETICA, 10);
-                    cs.newLineAtOffset(valueX, infoStartY);
-                    cs.showText(data[1]);
-                    cs.endText();
+                // Value
+                cs.beginText();
+                cs.setFont(PDType1Font.HELVETICA, 10);
+                cs.newLineAtOffset(valueX, infoStartY);
+                cs.showText(data[1]);
+                cs.endText();
 
-                    infoStartY -= 18;
-                }
+                infoStartY -= 18;
             }
+        }
 
-            // Línea separadora antes de la tabla de items
-            infoStartY -= 15;
-            cs.setLineWidth(0.5f);
-            cs.moveTo(x, infoStartY);
-            cs.lineTo(w - margin, infoStartY);
-            cs.stroke();
-
-            // TABLA DE ITEMS - Estilo profesional
-            float tableTop = infoStartY - 20;
-
-            // Header de la tabla
-            cs.setNonStrokingColor(new java.awt.Color(240, 240, 240));
-            cs.addRect(x, tableTop - 25, w - 2 * margin, 25);
-            cs.fill();
-            cs.setNonStrokingColor(java.awt.Color.BLACK);
-
-            // Bordes del header
-            cs.setLineWidth(0.5f);
-            cs.addRect(x, tableTop - 25, w - 2 * margin, 25);
-            cs.stroke();
-
-            // Columnas
-            float colCantX = x + 10;
-            float colDescX = x + 80;
-            boolean showPrices = (Remito.EstadoRemito.VALORIZADO.equals(remito.getEstado()) || Remito.EstadoRemito.COBRADO.equals(remito.getEstado())) && remito.getTotal() != null;
-            float colPreX = w - margin - 150;
-            float colSubX = w - margin - 70;
-
-            // Títulos de columnas
+        // Línea separadora antes de la tabla de items
+        infoStartY -= 15;
+        cs.setLineWidth(0.5f);
+        cs.moveTo(x, infoStartY);
+        cs.lineTo(w - margin, infoStartY);
+        cs.stroke();
+
+        // TABLA DE ITEMS - Estilo profesional
+        float tableTop = infoStartY - 20;
+
+        // Header de la tabla
+        cs.setNonStrokingColor(new java.awt.Color(240, 240, 240));
+        cs.addRect(x, tableTop - 25, w - 2 * margin, 25);
+        cs.fill();
+        cs.setNonStrokingColor(java.awt.Color.BLACK);
+
+        // Bordes del header
+        cs.setLineWidth(0.5f);
+        cs.addRect(x, tableTop - 25, w - 2 * margin, 25);
+        cs.stroke();
+
+        // Columnas
+        float colCantX = x + 10;
+        float colDescX = x + 80;
+        boolean showPrices = (Remito.EstadoRemito.VALORIZADO.equals(remito.getEstado()) || Remito.EstadoRemito.COBRADO.equals(remito.getEstado())) && remito.getTotal() != null;
+        float colPreX = w - margin - 150;
+        float colSubX = w - margin - 70;
+
+        // Títulos de columnas
+        cs.beginText();
+        cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
+        cs.newLineAtOffset(colCantX, tableTop - 15);
+        cs.showText("CANTIDAD");
+        cs.endText();
+
+        cs.beginText();
+        cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
+        cs.newLineAtOffset(colDescX, tableTop - 15);
+        cs.showText("DESCRIPCIÓN");
+        cs.endText();
+
+        if (showPrices) {
             cs.beginText();
             cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
-            cs.newLineAtOffset(colCantX, tableTop - 15);
-            cs.showText("CANTIDAD");
+            cs.newLineAtOffset(colPreX, tableTop - 15);
+            cs.showText("P. UNIT.");
             cs.endText();
 
             cs.beginText();
             cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
-            cs.newLineAtOffset(colDescX, tableTop - 15);
-            cs.showText("DESCRIPCIÓN");
+            cs.newLineAtOffset(colSubX, tableTop - 15);
+            cs.showText("SUBTOTAL");
             cs.endText();
+        }
 
-            if (showPrices) {
+        // Filas de items
+        float rowY = tableTop - 30;
+        if (remito.getItems() != null && !remito.getItems().isEmpty()) {
+            for (RemitoItem it : remito.getItems()) {
+                // Fila con borde sutil
+                cs.setLineWidth(0.2f);
+                cs.addRect(x, rowY - 20, w - 2 * margin, 20);
+                cs.stroke();
+
+                // Cantidad
+                String cantidad = formatCantidad(it.getCantidad());
                 cs.beginText();
-                cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
-                cs.newLineAtOffset(colPreX, tableTop - 15);
-                cs.showText("P. UNIT.");
+                cs.setFont(PDType1Font.HELVETICA, 10);
+                cs.newLineAtOffset(colCantX, rowY - 15);
+                cs.showText(cantidad);
                 cs.endText();
 
+                // Descripción
+                String desc = (it.getProducto() != null && it.getProducto().getNombre() != null)
+                        ? it.getProducto().getNombre()
+                        : safeString(it.getNotas());
                 cs.beginText();
-                cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
-                cs.newLineAtOffset(colSubX, tableTop - 15);
-                cs.showText("SUBTOTAL");
+                cs.setFont(PDType1Font.HELVETICA, 10);
+                cs.newLineAtOffset(colDescX, rowY - 15);
+                cs.showText(desc);
                 cs.endText();
-            }
 
-            // Filas de items
-            float rowY = tableTop - 30;
-            if (remito.getItems() != null && !remito.getItems().isEmpty()) {
-                for (RemitoItem it : remito.getItems()) {
-                    // Fila con borde sutil
-                    cs.setLineWidth(0.2f);
-                    cs.addRect(x, rowY - 20, w - 2 * margin, 20);
-                    cs.stroke();
-
-                    // Cantidad
-                    String cantidad = formatCantidad(it.getCantidad());
+                if (showPrices && it.getPrecioUnitario() != null) {
                     cs.beginText();
                     cs.setFont(PDType1Font.HELVETICA, 10);
-                    cs.newLineAtOffset(colCantX, rowY - 15);
-                    cs.showText(cantidad);
+                    cs.newLineAtOffset(colPreX, rowY - 15);
+                    cs.showText("$" + new java.text.DecimalFormat("#,##0.00").format(it.getPrecioUnitario()));
                     cs.endText();
 
-                    // Descripción
-                    String desc = (it.getProducto() != null && it.getProducto().getNombre() != null)
-                            ? it.getProducto().getNombre()
-                            : safeString(it.getNotas());
                     cs.beginText();
                     cs.setFont(PDType1Font.HELVETICA, 10);
-                    cs.newLineAtOffset(colDescX, rowY - 15);
-                    cs.showText(desc);
+                    cs.newLineAtOffset(colSubX, rowY - 15);
+                    java.math.BigDecimal subtotal = it.getCantidad().multiply(it.getPrecioUnitario());
+                    cs.showText("$" + new java.text.DecimalFormat("#,##0.00").format(subtotal));
                     cs.endText();
+                }
 
-                    if (showPrices && it.getPrecioUnitario() != null) {
-                        cs.beginText();
-                        cs.setFont(PDType1Font.HELVETICA, 10);
-                        cs.newLineAtOffset(colPreX, rowY - 15);
-                        cs.showText("$" + new java.text.DecimalFormat("#,##0.00").format(it.getPrecioUnitario()));
-                        cs.endText();
-
-                        cs.beginText();
-                        cs.setFont(PDType1Font.HELVETICA, 10);
-                        cs.newLineAtOffset(colSubX, rowY - 15);
-                        java.math.BigDecimal subtotal = it.getCantidad().multiply(it.getPrecioUnitario());
-                        cs.showText("$" + new java.text.DecimalFormat("#,##0.00").format(subtotal));
-                        cs.endText();
-                    }
-
-                    rowY -= 22;
+                rowY -= 22;
 
-                    // Verificar si necesita nueva página
-                    if (rowY < 150) {
-                        cs.close();
-                        page = new PDPage(PDRectangle.A4);
-                        doc.addPage(page);
-                        cs = new PDPageContentStream(doc, page);
-                        rowY = h - margin - 40;
-                        x = margin;
-                    }
+                // Verificar si necesita nueva página
+                if (rowY < 150) {
+                    cs.close();
+                    page = new PDPage(PDRectangle.A4);
+                    doc.addPage(page);
+                    cs = new PDPageContentStream(doc, page);
+                    rowY = h - margin - 40;
+                    x = margin;
                 }
             }
+        }
 
-            // SECCIÓN INFERIOR — nueva página si hay poco espacio
-            float bottomY = rowY - 30;
-            if (bottomY < 180) {
-                cs.close();
-                page = new PDPage(PDRectangle.A4);
-                doc.addPage(page);
-                cs = new PDPageContentStream(doc, page);
-                bottomY = h - margin - 40;
-            }
+        // SECCIÓN INFERIOR — nueva página si hay poco espacio
+        float bottomY = rowY - 30;
+        if (bottomY < 180) {
+            cs.close();
+            page = new PDPage(PDRectangle.A4);
+            doc.addPage(page);
+            cs = new PDPageContentStream(doc, page);
+            bottomY = h - margin - 40;
+        }
 
-            // Observaciones (si existen)
-            String observaciones = remito.getObservaciones() == null ? "" : remito.getObservaciones();
-            if (!observaciones.isEmpty()) {
+        // Observaciones (si existen)
+        String observaciones = remito.getObservaciones() == null ? "" : remito.getObservaciones();
+        if (!observaciones.isEmpty()) {
+            cs.beginText();
+            cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
+            cs.newLineAtOffset(x, bottomY);
+            cs.showText("Observaciones:");
+            cs.endText();
+
+            bottomY -= 15;
+            String[] obsLines = splitText(observaciones, 80);
+            cs.setFont(PDType1Font.HELVETICA, 9);
+            for (String line : obsLines) {
                 cs.beginText();
-                cs.setFont(PDType1Font.HELVETICA_BOLD, 10);
                 cs.newLineAtOffset(x, bottomY);
-                cs.showText("Observaciones:");
+                cs.showText("• " + line);
                 cs.endText();
-
-                bottomY -= 15;
-                String[] obsLines = splitText(observaciones, 80);
-                cs.setFont(PDType1Font.HELVETICA, 9);
-                for (String line : obsLines) {
-                    cs.beginText();
-                    cs.newLineAtOffset(x, bottomY);
-                    cs.showText("• " + line);
-                    cs.endText();
-                    bottomY -= 12;
-                }
-                bottomY -= 10;
+                bottomY -= 12;
             }
+            bottomY -= 10;
+        }
 
-            // Línea separadora antes del total
-            cs.setLineWidth(0.5f);
-            cs.moveTo(x, bottomY);
-            cs.lineTo(w - margin, bottomY);
-            cs.stroke();
-
-            // Total a pagar
-            bottomY -= 25;
-            cs.beginText();
-            cs.setFont(PDType1Font.HELVETICA_BOLD, 11);
-            cs.newLineAtOffset(x, bottomY);
-            if (showPrices) {
-                cs.showText("TOTAL A PAGAR: $" + new java.text.DecimalFormat("#,##0.00").format(remito.getTotal()));
-            } else {
-                cs.showText("TOTAL A PAGAR: $ ___________________");
-            }
-            cs.endText();
+        // Línea separadora antes del total
+        cs.setLineWidth(0.5f);
+        cs.moveTo(x, bottomY);
+        cs.lineTo(w - margin, bottomY);
+        cs.stroke();
+
+        // Total a pagar
+        bottomY -= 25;
+        cs.beginText();
+        cs.setFont(PDType1Font.HELVETICA_BOLD, 11);
+        cs.newLineAtOffset(x, bottomY);
+        if (showPrices) {
+            cs.showText("TOTAL A PAGAR: $" + new java.text.DecimalFormat("#,##0.00").format(remito.getTotal()));
+        } else {
+            cs.showText("TOTAL A PAGAR: $ ___________________");
+        }
+        cs.endText();
 
-            // Firma - alineada a la derecha
-            bottomY -= 30;
-            float firmaX = w - margin - 150;
-            cs.beginText();
-            cs.setFont(PDType1Font.HELVETICA, 10);
-            cs.newLineAtOffset(firmaX, bottomY);
-            cs.showText("Firma:");
-            cs.endText();
+        // Firma - alineada a la derecha
+        bottomY -= 30;
+        float firmaX = w - margin - 150;
+        cs.beginText();
+        cs.setFont(PDType1Font.HELVETICA, 10);
+        cs.newLineAtOffset(firmaX, bottomY);
+        cs.showText("Firma:");
+        cs.endText();
 
-            // Línea para firma
-            cs.setLineWidth(0.8f);
-            cs.moveTo(firmaX + 30, bottomY - 2);
-            cs.lineTo(firmaX + 150, bottomY - 2);
-            cs.stroke();
+        // Línea para firma
+        cs.setLineWidth(0.8f);
+        cs.moveTo(firmaX + 30, bottomY - 2);
+        cs.lineTo(firmaX + 150, bottomY - 2);
+        cs.stroke();
 
 
-            cs.close();
-            doc.save(os);
-        }
+        cs.close();
     }
 
     // Método helper para formatear la condición de IVA
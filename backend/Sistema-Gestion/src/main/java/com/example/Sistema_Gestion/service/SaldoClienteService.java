@@ -0,0 +1,194 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.Cobro;
+import com.example.Sistema_Gestion.model.Nota;
+import com.example.Sistema_Gestion.model.Remito;
+import com.example.Sistema_Gestion.model.SaldoCliente;
+import com.example.Sistema_Gestion.repository.CobroRepository;
+import com.example.Sistema_Gestion.repository.NotaRepository;
+import com.example.Sistema_Gestion.repository.RemitoRepository;
+import com.example.Sistema_Gestion.repository.SaldoClienteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cuenta corriente materializada de clientes (tabla saldo_cliente).
+ * Saldo = remitos contabilizados + notas de débito - cobros - notas de crédito.
+ * Remitos, cobros y notas informan su impacto acá dentro de la misma transacción;
+ * la conciliación nocturna recalcula desde los documentos y corrige cualquier desvío.
+ */
+@Service
+@Slf4j
+public class SaldoClienteService {
+
+    private final SaldoClienteRepository saldoClienteRepository;
+    private final RemitoRepository remitoRepository;
+    private final CobroRepository cobroRepository;
+    private final NotaRepository notaRepository;
+
+    public SaldoClienteService(SaldoClienteRepository saldoClienteRepository,
+            RemitoRepository remitoRepository,
+            CobroRepository cobroRepository,
+            NotaRepository notaRepository) {
+        this.saldoClienteRepository = saldoClienteRepository;
+        this.remitoRepository = remitoRepository;
+        this.cobroRepository = cobroRepository;
+        this.notaRepository = notaRepository;
+    }
+
+    /** Saldo actual del cliente con una sola lectura por clave primaria. */
+    public BigDecimal obtenerSaldo(Long clienteId) {
+        return saldoClienteRepository.findById(clienteId)
+                .map(SaldoCliente::getSaldo)
+                .orElseGet(() -> calcularDesdeOrigen(clienteId));
+    }
+
+    /**
+     * Igual que {@link #obtenerSaldo(Long)} pero bloquea la fila hasta el fin de la transacción,
+     * para validar operaciones que consumen saldo (p. ej. SALDO_A_FAVOR) sin carreras.
+     */
+    @Transactional
+    public BigDecimal bloquearSaldo(Long clienteId) {
+        Optional<SaldoCliente> fila = saldoClienteRepository.findByClienteIdForUpdate(clienteId);
+        if (fila.isEmpty()) {
+            inicializar(clienteId);
+            fila = saldoClienteRepository.findByClienteIdForUpdate(clienteId);
+        }
+        return fila.orElseThrow().getSaldo();
+    }
+
+    /**
+     * Aplica un delta al saldo del cliente. Debe llamarse después de modificar el documento:
+     * si el cliente todavía no tiene fila, se crea recalculando desde el origen (que ya incluye el cambio).
+     */
+    @Transactional
+    public void registrarMovimiento(Long clienteId, BigDecimal delta) {
+        if (clienteId == null || delta == null || delta.signum() == 0) return;
+
+        if (saldoClienteRepository.sumarSaldo(clienteId, delta, LocalDateTime.now()) == 0
+                && !inicializar(clienteId)) {
+            // Otra transacción creó la fila mientras tanto, sin ver este cambio: se suma sobre la suya
+            saldoClienteRepository.sumarSaldo(clienteId, delta, LocalDateTime.now());
+        }
+    }
+
+    /** Mueve el impacto de un documento que pudo cambiar de importe, estado o cliente. */
+    @Transactional
+    public void registrarCambio(Long clienteAntes, BigDecimal impactoAntes, Long clienteDespues, BigDecimal impactoDespues) {
+        if (Objects.equals(clienteAntes, clienteDespues)) {
+            registrarMovimiento(clienteDespues, impactoDespues.subtract(impactoAntes));
+        } else {
+            registrarMovimiento(clienteAntes, impactoAntes.negate());
+            registrarMovimiento(clienteDespues, impactoDespues);
+        }
+    }
+
+    /** Un remito suma a la deuda sólo una vez valorizado (VALORIZADO o COBRADO). */
+    public BigDecimal impacto(Remito remito) {
+        boolean contabilizado = remito.getEstado() == Remito.EstadoRemito.VALORIZADO
+                || remito.getEstado() == Remito.EstadoRemito.COBRADO;
+        return contabilizado && remito.getTotal() != null ? remito.getTotal() : BigDecimal.ZERO;
+    }
+
+    public BigDecimal impacto(Cobro cobro) {
+        if (Boolean.TRUE.equals(cobro.getAnulado()) || cobro.getTotalCobrado() == null) return BigDecimal.ZERO;
+        return cobro.getTotalCobrado().negate();
+    }
+
+    public BigDecimal impacto(Nota nota) {
+        if (nota.getEstado() == Nota.EstadoNota.ANULADA || nota.getMonto() == null) return BigDecimal.ZERO;
+        return nota.getTipo() == Nota.TipoNota.DEBITO ? nota.getMonto() : nota.getMonto().negate();
+    }
+
+    /** Recalcula el saldo de un cliente desde remitos, cobros y notas. */
+    public BigDecimal calcularDesdeOrigen(Long clienteId) {
+        BigDecimal deudaTotal = remitoRepository.totalContabilizadoPorCliente(clienteId);
+        BigDecimal totalCobrado = cobroRepository.totalCobradoPorCliente(clienteId);
+
+        BigDecimal notasDebito = notaRepository.totalDebitoPorCliente(clienteId);
+        BigDecimal notasCredito = notaRepository.totalCreditoPorCliente(clienteId);
+
+        return deudaTotal.add(notasDebito).subtract(totalCobrado).subtract(notasCredito);
+    }
+
+    /**
+     * Recalcula todos los saldos con tres consultas agrupadas y corrige las filas desfasadas.
+     * Cada desvío se vuelve a verificar con la fila bloqueada antes de corregirlo, para no
+     * pisar movimientos que se confirmaron mientras corría la conciliación.
+     *
+     * @return cantidad de clientes corregidos
+     */
+    @Transactional
+    public int conciliar() {
+        Map<Long, BigDecimal> esperado = new HashMap<>();
+        acumular(esperado, remitoRepository.totalContabilizadoAgrupadoPorCliente(), false);
+        acumular(esperado, cobroRepository.totalCobradoAgrupadoPorCliente(), true);
+        acumular(esperado, notaRepository.netoNotasAgrupadoPorCliente(), false);
+
+        Map<Long, BigDecimal> materializado = new HashMap<>();
+        for (SaldoCliente s : saldoClienteRepository.findAll()) {
+            materializado.put(s.getClienteId(), s.getSaldo());
+        }
+
+        Set<Long> clientes = new HashSet<>(esperado.keySet());
+        clientes.addAll(materializado.keySet());
+
+        int corregidos = 0;
+        BigDecimal desvioTotal = BigDecimal.ZERO;
+        for (Long clienteId : clientes) {
+            BigDecimal actual = materializado.getOrDefault(clienteId, BigDecimal.ZERO);
+            if (actual.compareTo(esperado.getOrDefault(clienteId, BigDecimal.ZERO)) == 0) continue;
+
+            SaldoCliente fila = saldoClienteRepository.findByClienteIdForUpdate(clienteId)
+                    .orElseGet(() -> new SaldoCliente(clienteId, BigDecimal.ZERO));
+            BigDecimal recalculado = calcularDesdeOrigen(clienteId);
+            BigDecimal desvio = recalculado.subtract(fila.getSaldo());
+            if (desvio.signum() == 0) continue;
+
+            log.warn("Saldo del cliente {} desfasado: materializado {}, calculado {} (desvío {})",
+                    clienteId, fila.getSaldo(), recalculado, desvio);
+            fila.setSaldo(recalculado);
+            saldoClienteRepository.save(fila);
+            corregidos++;
+            desvioTotal = desvioTotal.add(desvio.abs());
+        }
+
+        log.info("Conciliación de saldos de clientes: {} revisados, {} corregidos, desvío absoluto total {}",
+                clientes.size(), corregidos, desvioTotal);
+        return corregidos;
+    }
+
+    private void acumular(Map<Long, BigDecimal> destino, List<Object[]> filas, boolean restar) {
+        for (Object[] fila : filas) {
+            BigDecimal importe = (BigDecimal) fila[1];
+            destino.merge((Long) fila[0], restar ? importe.negate() : importe, BigDecimal::add);
+        }
+    }
+
+    /**
+     * Crea la fila del cliente y la carga desde el origen. La fila queda bloqueada hasta el commit.
+     * Si dos transacciones la crean a la vez, sólo una la inserta y la otra recibe false.
+     */
+    private boolean inicializar(Long clienteId) {
+        // Que las consultas de origen vean los cambios pendientes de esta transacción
+        saldoClienteRepository.flush();
+        if (saldoClienteRepository.insertarSiNoExiste(clienteId, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        SaldoCliente fila = saldoClienteRepository.findByClienteIdForUpdate(clienteId).orElseThrow();
+        fila.setSaldo(calcularDesdeOrigen(clienteId));
+        saldoClienteRepository.saveAndFlush(fila);
+        return true;
+    }
+}
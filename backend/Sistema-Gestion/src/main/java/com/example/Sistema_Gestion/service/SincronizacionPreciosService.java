@@ -0,0 +1,187 @@
+package com.example.Sistema_Gestion.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Recalcula los precios en pesos de los productos con precio en USD cuando cambia la cotización.
+ * Corre en segundo plano, en lotes por rango de id con un UPDATE por lote (cada lote se confirma solo).
+ * Varios cambios de cotización seguidos se agrupan en una sola corrida con el último valor:
+ * si llega uno nuevo mientras corre, la corrida en curso se abandona y se reprograma.
+ */
+@Service
+@Slf4j
+public class SincronizacionPreciosService {
+
+    private static final String SQL_LOTE = "UPDATE producto SET " +
+            "precio_costo = CASE WHEN precio_costo_usd > 0 THEN ROUND(precio_costo_usd * ?, 2) ELSE precio_costo END, " +
+            "precio_venta = CASE WHEN precio_venta_usd > 0 THEN ROUND(precio_venta_usd * ?, 2) ELSE precio_venta END " +
+            "WHERE id > ? AND id <= ? AND (precio_costo_usd > 0 OR precio_venta_usd > 0)";
+
+    public enum EstadoSincronizacion {
+        INACTIVA,
+        PROGRAMADA,
+        EN_PROCESO
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int tamanioLote;
+    private final long demoraMs;
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final AtomicReference<BigDecimal> cotizacionPendiente = new AtomicReference<>();
+    private final AtomicBoolean programada = new AtomicBoolean();
+    private final AtomicLong solicitudes = new AtomicLong();
+    private final AtomicLong ejecuciones = new AtomicLong();
+    private final AtomicLong interrumpidas = new AtomicLong();
+
+    private volatile EstadoSincronizacion estado = EstadoSincronizacion.INACTIVA;
+    private volatile BigDecimal cotizacionEnCurso;
+    private volatile long productosEnCurso;
+    private volatile BigDecimal ultimaCotizacion;
+    private volatile LocalDateTime ultimoInicio;
+    private volatile LocalDateTime ultimoFin;
+    private volatile long ultimosProductos;
+    private volatile long ultimaDuracionMs;
+    private volatile String ultimoError;
+
+    public SincronizacionPreciosService(JdbcTemplate jdbcTemplate,
+            @Value("${app.precios.sincronizacion.lote:2000}") int tamanioLote,
+            @Value("${app.precios.sincronizacion.demora-ms:2000}") long demoraMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tamanioLote = Math.max(1, tamanioLote);
+        this.demoraMs = Math.max(0, demoraMs);
+        this.executor = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "sincronizacion-precios"));
+    }
+
+    /**
+     * Pide una resincronización con la cotización dada. Si hay una transacción activa, se programa
+     * recién cuando confirma, para no recalcular precios con una cotización que terminó en rollback.
+     */
+    public void solicitar(BigDecimal cotizacion) {
+        if (cotizacion == null || cotizacion.signum() <= 0) {
+            log.warn("[Sync] Cotización inválida o cero, no se sincronizan precios.");
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    programar(cotizacion);
+                }
+            });
+        } else {
+            programar(cotizacion);
+        }
+    }
+
+    /** Estado actual y métricas de la última corrida (para el endpoint de estado). */
+    public Map<String, Object> getEstado() {
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("estado", estado);
+        resultado.put("cotizacionEnCurso", cotizacionEnCurso);
+        resultado.put("productosEnCurso", productosEnCurso);
+        resultado.put("cotizacionPendiente", cotizacionPendiente.get());
+        resultado.put("ultimaCotizacion", ultimaCotizacion);
+        resultado.put("ultimoInicio", ultimoInicio);
+        resultado.put("ultimoFin", ultimoFin);
+        resultado.put("ultimosProductosActualizados", ultimosProductos);
+        resultado.put("ultimaDuracionMs", ultimaDuracionMs);
+        resultado.put("ultimoError", ultimoError);
+        resultado.put("solicitudes", solicitudes.get());
+        resultado.put("ejecuciones", ejecuciones.get());
+        resultado.put("interrumpidas", interrumpidas.get());
+        return resultado;
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+
+    private void programar(BigDecimal cotizacion) {
+        solicitudes.incrementAndGet();
+        cotizacionPendiente.set(cotizacion);
+        if (programada.compareAndSet(false, true)) {
+            if (estado == EstadoSincronizacion.INACTIVA) estado = EstadoSincronizacion.PROGRAMADA;
+            executor.schedule(this::ejecutar, demoraMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void ejecutar() {
+        programada.set(false);
+        BigDecimal cotizacion = cotizacionPendiente.getAndSet(null);
+        if (cotizacion == null) {
+            // La tomó la corrida anterior
+            if (!programada.get()) estado = EstadoSincronizacion.INACTIVA;
+            return;
+        }
+
+        long inicio = System.currentTimeMillis();
+        estado = EstadoSincronizacion.EN_PROCESO;
+        cotizacionEnCurso = cotizacion;
+        productosEnCurso = 0;
+        ultimoInicio = LocalDateTime.now();
+        ejecuciones.incrementAndGet();
+
+        try {
+            List<Map<String, Object>> rango = jdbcTemplate.queryForList("SELECT MIN(id) AS desde, MAX(id) AS hasta FROM producto");
+            Number desde = (Number) rango.get(0).get("desde");
+            Number hasta = (Number) rango.get(0).get("hasta");
+
+            long actualizados = 0;
+            int lotes = 0;
+            boolean interrumpida = false;
+            if (desde != null) {
+                for (long id = desde.longValue() - 1; id < hasta.longValue(); id += tamanioLote) {
+                    if (cotizacionPendiente.get() != null) {
+                        // Llegó otra cotización: la corrida ya programada recalcula todo con el valor nuevo
+                        interrumpida = true;
+                        break;
+                    }
+                    actualizados += jdbcTemplate.update(SQL_LOTE, cotizacion, cotizacion, id, id + tamanioLote);
+                    productosEnCurso = actualizados;
+                    lotes++;
+                }
+            }
+
+            long duracion = System.currentTimeMillis() - inicio;
+            if (interrumpida) {
+                interrumpidas.incrementAndGet();
+                log.info("[Sync] Sincronización con cotización {} reemplazada por una nueva tras {} lotes ({} productos, {} ms)",
+                        cotizacion, lotes, actualizados, duracion);
+            } else {
+                ultimaCotizacion = cotizacion;
+                ultimosProductos = actualizados;
+                ultimaDuracionMs = duracion;
+                ultimoFin = LocalDateTime.now();
+                ultimoError = null;
+                log.info("[Sync] Precios en pesos sincronizados con cotización {}: {} productos en {} lotes, {} ms",
+                        cotizacion, actualizados, lotes, duracion);
+            }
+        } catch (RuntimeException e) {
+            ultimoError = e.getMessage();
+            ultimoFin = LocalDateTime.now();
+            log.error("[Sync] Error sincronizando precios con cotización {}", cotizacion, e);
+        } finally {
+            cotizacionEnCurso = null;
+            estado = programada.get() ? EstadoSincronizacion.PROGRAMADA : EstadoSincronizacion.INACTIVA;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.Sistema_Gestion.service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Agrupa todos los movimientos de stock de un documento (remito, compra) para aplicarlos juntos.
+ * Los deltas se acumulan por producto y se mantienen ordenados por ID, que es el orden
+ * en el que ProductoService bloquea las filas (así dos documentos concurrentes no se cruzan).
+ */
+public class StockBatch {
+
+    private final Map<Long, Integer> deltas = new TreeMap<>();
+
+    public StockBatch sumar(Long productoId, Integer cantidad) {
+        return agregar(productoId, cantidad);
+    }
+
+    public StockBatch restar(Long productoId, Integer cantidad) {
+        return agregar(productoId, cantidad != null ? -cantidad : null);
+    }
+
+    private StockBatch agregar(Long productoId, Integer delta) {
+        if (productoId == null || delta == null || delta == 0) return this;
+        deltas.merge(productoId, delta, Integer::sum);
+        return this;
+    }
+
+    /** Mapa productoId -> delta neto (positivo suma, negativo resta), ordenado por ID. */
+    public Map<Long, Integer> getDeltas() {
+        return Collections.unmodifiableMap(deltas);
+    }
+
+    public boolean isEmpty() {
+        return deltas.values().stream().allMatch(d -> d == 0);
+    }
+}
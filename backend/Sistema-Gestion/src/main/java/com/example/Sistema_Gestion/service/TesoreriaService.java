@@ -1,7 +1,10 @@
 package com.example.Sistema_Gestion.service;
 
+import com.example.Sistema_Gestion.dto.PaginaCursor;
 import com.example.Sistema_Gestion.model.MovimientoTesoreria;
 import com.example.Sistema_Gestion.repository.MovimientoTesoreriaRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -37,6 +40,10 @@ public class TesoreriaService {
         return movimientoRepository.save(movimiento);
     }
 
+    public List<MovimientoTesoreria> registrarMovimientos(List<MovimientoTesoreria> movimientos) {
+        return movimientoRepository.saveAll(movimientos);
+    }
+
     public List<MovimientoTesoreria> listarTodos() {
         return movimientoRepository.findAll();
     }
@@ -45,6 +52,18 @@ public class TesoreriaService {
         return movimientoRepository.findAll(pageable);
     }
 
+    /** Listado por cursor (fecha, id) descendente. */
+    public PaginaCursor<MovimientoTesoreria> listarPorCursor(String cursor, Integer limite) {
+        int tamanio = PaginaCursor.limitar(limite);
+        PaginaCursor.Posicion desde = PaginaCursor.Posicion.decodificar(cursor);
+        Pageable filas = PageRequest.of(0, tamanio + 1);
+
+        List<MovimientoTesoreria> movimientos = desde == null
+                ? movimientoRepository.findAllByOrderByFechaDescIdDesc(filas)
+                : movimientoRepository.buscarAntesDe(desde.getFechaComoMomento(), desde.getId(), filas);
+        return PaginaCursor.de(movimientos, tamanio, m -> new PaginaCursor.Posicion(m.getFecha(), m.getId()));
+    }
+
     public List<MovimientoTesoreria> listarPorRango(LocalDateTime desde, LocalDateTime hasta) {
         return movimientoRepository.findByFechaBetween(desde, hasta);
     }
@@ -333,7 +352,7 @@ public class TesoreriaService {
 
     public List<MovimientoTesoreria> buscarChequesPorCliente(Long clienteId) {
         List<Long> cobroIds = cobroService.listarPorCliente(clienteId).stream()
-                .map(com.example.Sistema_Gestion.model.Cobro::getId)
+                .map(com.example.Sistema_Gestion.dto.CobroResumenView::getId)
                 .toList();
         
         List<MovimientoTesoreria> results = new ArrayList<>();
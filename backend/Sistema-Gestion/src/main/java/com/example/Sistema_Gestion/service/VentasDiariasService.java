@@ -0,0 +1,91 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.VentasDiarias;
+import com.example.Sistema_Gestion.repository.CobroRepository;
+import com.example.Sistema_Gestion.repository.RemitoRepository;
+import com.example.Sistema_Gestion.repository.VentasDiariasRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Acumulados diarios de ventas y cobros (tabla ventas_diarias) para el dashboard.
+ * Remitos y cobros informan sus deltas en la misma transacción; las consultas del
+ * dashboard son sumas por rango de fechas sobre la clave primaria.
+ */
+@Service
+@Slf4j
+public class VentasDiariasService {
+
+    private final VentasDiariasRepository ventasDiariasRepository;
+    private final RemitoRepository remitoRepository;
+    private final CobroRepository cobroRepository;
+
+    public VentasDiariasService(VentasDiariasRepository ventasDiariasRepository,
+            RemitoRepository remitoRepository,
+            CobroRepository cobroRepository) {
+        this.ventasDiariasRepository = ventasDiariasRepository;
+        this.remitoRepository = remitoRepository;
+        this.cobroRepository = cobroRepository;
+    }
+
+    /** Mueve el importe contabilizado de un remito que pudo cambiar de total, estado o fecha. */
+    @Transactional
+    public void registrarCambioVenta(LocalDate fechaAntes, BigDecimal antes, LocalDate fechaDespues, BigDecimal despues) {
+        if (Objects.equals(fechaAntes, fechaDespues)) {
+            sumar(fechaDespues, despues.subtract(antes), BigDecimal.ZERO);
+        } else {
+            sumar(fechaAntes, antes.negate(), BigDecimal.ZERO);
+            sumar(fechaDespues, despues, BigDecimal.ZERO);
+        }
+    }
+
+    @Transactional
+    public void registrarCobro(LocalDate fecha, BigDecimal delta) {
+        sumar(fecha, BigDecimal.ZERO, delta);
+    }
+
+    /** Cuentas por cobrar y ventas de hoy, últimos 7 días y mes en curso. */
+    public Map<String, Object> getDashboardSummary() {
+        LocalDate hoy = LocalDate.now();
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("cuentasPorCobrar", ventasDiariasRepository.cuentasPorCobrar());
+        summary.put("ventasHoy", ventasDiariasRepository.totalVentasEntre(hoy, hoy));
+        summary.put("ventasSemana", ventasDiariasRepository.totalVentasDesde(hoy.minusDays(7)));
+        summary.put("ventasMes", ventasDiariasRepository.totalVentasDesde(hoy.withDayOfMonth(1)));
+        return summary;
+    }
+
+    public boolean estaVacio() {
+        return ventasDiariasRepository.count() == 0;
+    }
+
+    /** Regenera todos los acumulados desde remitos y cobros (carga inicial o corrección manual). */
+    @Transactional
+    public void reconstruir() {
+        Map<LocalDate, VentasDiarias> dias = new TreeMap<>();
+        for (Object[] fila : remitoRepository.totalContabilizadoAgrupadoPorFecha()) {
+            dias.computeIfAbsent((LocalDate) fila[0], VentasDiarias::new).setTotalVentas((BigDecimal) fila[1]);
+        }
+        for (Object[] fila : cobroRepository.totalCobradoAgrupadoPorFecha()) {
+            dias.computeIfAbsent((LocalDate) fila[0], VentasDiarias::new).setTotalCobrado((BigDecimal) fila[1]);
+        }
+
+        ventasDiariasRepository.deleteAllInBatch();
+        ventasDiariasRepository.saveAll(dias.values());
+        log.info("Acumulados de ventas diarias reconstruidos: {} días", dias.size());
+    }
+
+    private void sumar(LocalDate fecha, BigDecimal ventas, BigDecimal cobrado) {
+        if (fecha == null || (ventas.signum() == 0 && cobrado.signum() == 0)) return;
+        ventasDiariasRepository.sumar(fecha, ventas, cobrado);
+    }
+}
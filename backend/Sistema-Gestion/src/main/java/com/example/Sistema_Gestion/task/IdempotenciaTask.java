@@ -0,0 +1,31 @@
+package com.example.Sistema_Gestion.task;
+
+import com.example.Sistema_Gestion.service.IdempotenciaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class IdempotenciaTask {
+
+    private static final int LOTE = 1000;
+
+    private final IdempotenciaService idempotenciaService;
+
+    public IdempotenciaTask(IdempotenciaService idempotenciaService) {
+        this.idempotenciaService = idempotenciaService;
+    }
+
+    /**
+     * Se ejecuta cada hora, a los 20 minutos.
+     * Borra las Idempotency-Key vencidas (app.idempotencia.ttl-horas).
+     */
+    @Scheduled(cron = "0 20 * * * *")
+    public void purgarClavesVencidas() {
+        int borradas = idempotenciaService.purgarVencidas(LOTE);
+        if (borradas > 0) {
+            log.info("Idempotencia: {} claves vencidas borradas", borradas);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.Sistema_Gestion.task;
+
+import com.example.Sistema_Gestion.service.ImportacionProductoService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ImportacionProductoTask {
+
+    private final ImportacionProductoService importacionProductoService;
+
+    public ImportacionProductoTask(ImportacionProductoService importacionProductoService) {
+        this.importacionProductoService = importacionProductoService;
+    }
+
+    /**
+     * Se ejecuta cada 10 minutos.
+     * Cierra las importaciones de productos que quedaron abandonadas por una instancia caída o reiniciada.
+     */
+    @Scheduled(cron = "0 */10 * * * *")
+    public void cerrarImportacionesAbandonadas() {
+        importacionProductoService.cerrarInterrumpidas();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.Sistema_Gestion.task;
+
+import com.example.Sistema_Gestion.service.SaldoClienteService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SaldoClienteTask {
+
+    private final SaldoClienteService saldoClienteService;
+
+    public SaldoClienteTask(SaldoClienteService saldoClienteService) {
+        this.saldoClienteService = saldoClienteService;
+    }
+
+    /**
+     * Se ejecuta todos los días a las 03:00 AM.
+     * Recalcula la cuenta corriente de todos los clientes desde remitos, cobros y notas,
+     * corrige los saldos materializados desfasados y deja el desvío en el log.
+     */
+    @Scheduled(cron = "0 0 3 * * *")
+    public void conciliarSaldosClientes() {
+        saldoClienteService.conciliar();
+    }
+}
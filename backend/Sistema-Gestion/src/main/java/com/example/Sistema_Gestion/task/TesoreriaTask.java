@@ -1,21 +1,29 @@
 package com.example.Sistema_Gestion.task;
 
-import com.example.Sistema_Gestion.model.MovimientoTesoreria;
 import com.example.Sistema_Gestion.repository.MovimientoTesoreriaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 @Component
+@Slf4j
 public class TesoreriaTask {
 
     private final MovimientoTesoreriaRepository movimientoRepository;
+    private final int tamanioLote;
 
-    public TesoreriaTask(MovimientoTesoreriaRepository movimientoRepository) {
+    public TesoreriaTask(MovimientoTesoreriaRepository movimientoRepository,
+            @Value("${app.tesoreria.cheques.lote:1000}") int tamanioLote) {
         this.movimientoRepository = movimientoRepository;
+        this.tamanioLote = Math.max(1, tamanioLote);
     }
 
     /**
@@ -24,22 +32,52 @@ public class TesoreriaTask {
      * cobrados.
      */
     @Scheduled(cron = "0 1 0 * * *")
-    @Transactional
     public void procesarCobroAutomaticoCheques() {
-        LocalDate hoy = LocalDate.now();
-
-        // Buscar movimientos tipo CHEQUE o CHEQUE_ELECTRONICO, no anulados, no cobrados
-        // aún,
-        // cuya fecha de cobro sea hoy o anterior.
-        List<MovimientoTesoreria> chequesParaCobrar = movimientoRepository.findAll().stream()
-                .filter(m -> !m.getAnulado() && !m.getCobrado())
-                .filter(m -> "CHEQUE".equals(m.getMedioPago()) || "CHEQUE_ELECTRONICO".equals(m.getMedioPago()))
-                .filter(m -> m.getFechaCobro() != null && !m.getFechaCobro().isAfter(hoy))
-                .toList();
-
-        for (MovimientoTesoreria cheque : chequesParaCobrar) {
-            cheque.setCobrado(true);
-            movimientoRepository.save(cheque);
+        procesarChequesHasta(LocalDate.now());
+    }
+
+    /**
+     * Recuperación al iniciar: si la aplicación estuvo apagada a la hora del proceso nocturno,
+     * procesa los cheques de los días perdidos (todo lo que tenga fecha de cobro hasta hoy).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recuperarCobrosPendientes() {
+        procesarChequesHasta(LocalDate.now());
+    }
+
+    /**
+     * Marca como cobrados, en lotes con UPDATE masivo, los cheques no anulados ni cobrados
+     * cuya fecha de cobro sea {@code hasta} o anterior. Devuelve la cantidad de cheques actualizados.
+     */
+    public int procesarChequesHasta(LocalDate hasta) {
+        long inicio = System.currentTimeMillis();
+
+        List<Object[]> resumen = movimientoRepository.resumenChequesACobrar(hasta);
+        long pendientes = resumen.isEmpty() || resumen.get(0)[0] == null ? 0 : (Long) resumen.get(0)[0];
+        if (pendientes == 0) {
+            log.debug("Cobro automático de cheques: sin cheques pendientes al {}", hasta);
+            return 0;
+        }
+
+        LocalDate masAntiguo = (LocalDate) resumen.get(0)[1];
+        long diasAtrasados = ChronoUnit.DAYS.between(masAntiguo, hasta);
+        if (diasAtrasados > 0) {
+            log.info("Cobro automático de cheques: recuperando {} días (fecha de cobro más antigua {})",
+                    diasAtrasados, masAntiguo);
         }
+
+        int actualizados = 0;
+        int lotes = 0;
+        int enLote;
+        LocalDateTime ahora = LocalDateTime.now();
+        do {
+            enLote = movimientoRepository.marcarChequesCobrados(hasta, ahora, tamanioLote);
+            actualizados += enLote;
+            lotes++;
+        } while (enLote == tamanioLote);
+
+        log.info("Cobro automático de cheques: {} pendientes, {} marcados como cobrados en {} lotes ({} ms)",
+                pendientes, actualizados, lotes, System.currentTimeMillis() - inicio);
+        return actualizados;
     }
 }
@@ -0,0 +1,29 @@
+package com.example.Sistema_Gestion.task;
+
+import com.example.Sistema_Gestion.service.GeneracionDocumentosService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class TrabajoReporteTask {
+
+    private final GeneracionDocumentosService generacionDocumentosService;
+
+    public TrabajoReporteTask(GeneracionDocumentosService generacionDocumentosService) {
+        this.generacionDocumentosService = generacionDocumentosService;
+    }
+
+    /**
+     * Se ejecuta cada 5 minutos.
+     * Borra los reportes encolados que terminaron hace más de app.reportes.trabajos.ttl-min minutos.
+     */
+    @Scheduled(cron = "0 */5 * * * *")
+    public void purgarTrabajosVencidos() {
+        int borrados = generacionDocumentosService.purgarVencidos();
+        if (borrados > 0) {
+            log.info("Reportes: {} trabajos vencidos borrados", borrados);
+        }
+    }
+}
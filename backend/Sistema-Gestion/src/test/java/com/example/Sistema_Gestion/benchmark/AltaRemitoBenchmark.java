@@ -0,0 +1,92 @@
+package com.example.Sistema_Gestion.benchmark;
+
+import com.example.Sistema_Gestion.model.Producto;
+import com.example.Sistema_Gestion.model.Remito;
+import com.example.Sistema_Gestion.model.RemitoItem;
+import com.example.Sistema_Gestion.repository.ProductoRepository;
+import com.example.Sistema_Gestion.repository.RemitoRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alta de un remito de 100 líneas, en filas insertadas por segundo. batchSize=1 reproduce el
+ * INSERT de a una fila de antes; 50 es el batch que aplica PersistenciaConfig con ids de id_generador.
+ * Con H2 en memoria la diferencia es menor que contra MySQL, donde cada sentencia es una ida a la red.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AltaRemitoBenchmark {
+
+    private static final int LINEAS = 100;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext contexto;
+    private RemitoRepository remitoRepository;
+    private ProductoRepository productoRepository;
+    private TransactionTemplate transaccion;
+    private final List<Long> productos = new ArrayList<>();
+    private long numero;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar("spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        remitoRepository = contexto.getBean(RemitoRepository.class);
+        productoRepository = contexto.getBean(ProductoRepository.class);
+        transaccion = contexto.getBean(TransactionTemplate.class);
+
+        for (int i = 0; i < LINEAS; i++) {
+            Producto p = new Producto();
+            p.setSku("BENCH-" + i);
+            p.setNombre("Producto " + i);
+            productos.add(productoRepository.save(p).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINEAS)
+    public void altaRemito() {
+        transaccion.executeWithoutResult(estado -> {
+            Remito remito = new Remito();
+            remito.setNumero(++numero);
+            for (Long productoId : productos) {
+                RemitoItem item = new RemitoItem();
+                item.setRemito(remito);
+                item.setProducto(productoRepository.getReferenceById(productoId));
+                item.setCantidad(BigDecimal.ONE);
+                item.setPrecioUnitario(BigDecimal.TEN);
+                remito.getItems().add(item);
+            }
+            remitoRepository.save(remito);
+        });
+    }
+}
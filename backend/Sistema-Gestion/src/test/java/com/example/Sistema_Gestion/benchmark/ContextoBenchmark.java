@@ -0,0 +1,27 @@
+package com.example.Sistema_Gestion.benchmark;
+
+import com.example.Sistema_Gestion.SistemaGestionApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Levanta la aplicación sin servidor web con el perfil "test" (H2 en modo MySQL).
+ * Para medir contra MySQL pasar -Dspring.datasource.url=... apuntando a una base
+ * descartable: el perfil usa ddl-auto=create-drop.
+ */
+final class ContextoBenchmark {
+
+    private ContextoBenchmark() {
+    }
+
+    static ConfigurableApplicationContext iniciar(String... propiedades) {
+        return new SpringApplicationBuilder(SistemaGestionApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("logging.level.root=WARN")
+                .properties(propiedades)
+                .logStartupInfo(false)
+                .run();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.Sistema_Gestion.benchmark;
+
+import com.example.Sistema_Gestion.service.ProductoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exportación del catálogo a Excel con 10k, 100k y 500k productos. Latencia por exportación;
+ * para el consumo de memoria correr con {@code -prof gc} (gc.alloc.rate.norm = bytes por exportación).
+ * Con H2 la base vive en el mismo heap: para medir el streaming del driver usar MySQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ExportacionExcelBenchmark {
+
+    @Param({"10000", "100000", "500000"})
+    private int productos;
+
+    private ConfigurableApplicationContext contexto;
+    private ProductoService productoService;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar();
+        productoService = contexto.getBean(ProductoService.class);
+        JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+
+        List<Object[]> lote = new ArrayList<>();
+        for (int i = 0; i < productos; i++) {
+            lote.add(new Object[] { "BENCH-" + i, "Producto de prueba " + i, "Descripción del producto " + i,
+                    i % 500, 100 + i % 1000, 150 + i % 1000 });
+            if (lote.size() == 1000 || i == productos - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO producto (sku, nombre, descripcion, stock, precio_costo, "
+                        + "precio_venta, activo, porcentaje_iva, porcentaje_utilidad) VALUES (?, ?, ?, ?, ?, ?, TRUE, 21, 50)",
+                        lote);
+                lote.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public long exportarExcel() throws IOException {
+        Descarte salida = new Descarte();
+        productoService.exportarExcel(salida);
+        return salida.bytes;
+    }
+
+    /** Cuenta los bytes del xlsx sin guardarlos. */
+    private static final class Descarte extends OutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.Sistema_Gestion.benchmark;
+
+import com.example.Sistema_Gestion.model.Cliente;
+import com.example.Sistema_Gestion.model.Cobro;
+import com.example.Sistema_Gestion.model.CobroMedioPago;
+import com.example.Sistema_Gestion.model.CobroRemito;
+import com.example.Sistema_Gestion.model.Nota;
+import com.example.Sistema_Gestion.model.PagoProveedor;
+import com.example.Sistema_Gestion.model.Producto;
+import com.example.Sistema_Gestion.model.Proveedor;
+import com.example.Sistema_Gestion.model.Remito;
+import com.example.Sistema_Gestion.model.RemitoItem;
+import com.example.Sistema_Gestion.repository.ClienteRepository;
+import com.example.Sistema_Gestion.repository.CobroRepository;
+import com.example.Sistema_Gestion.repository.NotaRepository;
+import com.example.Sistema_Gestion.repository.PagoProveedorRepository;
+import com.example.Sistema_Gestion.repository.ProductoRepository;
+import com.example.Sistema_Gestion.repository.ProveedorRepository;
+import com.example.Sistema_Gestion.repository.RemitoRepository;
+import com.example.Sistema_Gestion.service.CobroService;
+import com.example.Sistema_Gestion.service.NotaService;
+import com.example.Sistema_Gestion.service.PagoProveedorService;
+import com.example.Sistema_Gestion.service.RemitoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF sueltos por segundo de cada generador (remito, recibo, nota y orden de pago), con un logo PNG
+ * con transparencia de 1200x1200 (se prepara a 600x600). Cada operación lee el documento y arma el PDF,
+ * como la primera descarga antes de que lo guarde PdfCacheService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfBenchmark {
+
+    private static final int LINEAS = 20;
+
+    @Param({"remito", "recibo", "nota", "ordenPago"})
+    private String generador;
+
+    private ConfigurableApplicationContext contexto;
+    private Path logo;
+    private TransactionTemplate transaccion;
+    private RemitoService remitoService;
+    private RemitoRepository remitoRepository;
+    private CobroService cobroService;
+    private NotaService notaService;
+    private PagoProveedorService pagoProveedorService;
+    private Long remitoId;
+    private Long cobroId;
+    private Long notaId;
+    private Long pagoId;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        logo = Files.createTempFile("logo-benchmark", ".png");
+        ImageIO.write(logo(1200), "png", logo.toFile());
+        contexto = ContextoBenchmark.iniciar("app.pdf.logo-path=" + logo);
+        transaccion = contexto.getBean(TransactionTemplate.class);
+        remitoService = contexto.getBean(RemitoService.class);
+        remitoRepository = contexto.getBean(RemitoRepository.class);
+        cobroService = contexto.getBean(CobroService.class);
+        notaService = contexto.getBean(NotaService.class);
+        pagoProveedorService = contexto.getBean(PagoProveedorService.class);
+
+        Cliente cliente = new Cliente();
+        cliente.setNombre("Cliente");
+        cliente = contexto.getBean(ClienteRepository.class).save(cliente);
+
+        ProductoRepository productoRepository = contexto.getBean(ProductoRepository.class);
+        Remito remito = new Remito();
+        remito.setNumero(1L);
+        remito.setCliente(cliente);
+        remito.setEstado(Remito.EstadoRemito.VALORIZADO);
+        for (int i = 0; i < LINEAS; i++) {
+            Producto p = new Producto();
+            p.setSku("BENCH-" + i);
+            p.setNombre("Producto " + i);
+            RemitoItem item = new RemitoItem();
+            item.setRemito(remito);
+            item.setProducto(productoRepository.save(p));
+            item.setCantidad(BigDecimal.ONE);
+            item.setPrecioUnitario(BigDecimal.TEN);
+            item.setSubtotal(BigDecimal.TEN);
+            remito.getItems().add(item);
+        }
+        remito.setTotal(BigDecimal.TEN.multiply(BigDecimal.valueOf(LINEAS)));
+        remito = remitoRepository.save(remito);
+        remitoId = remito.getId();
+
+        Cobro cobro = new Cobro();
+        cobro.setCliente(cliente);
+        cobro.setTotalCobrado(remito.getTotal());
+        CobroRemito imputacion = new CobroRemito();
+        imputacion.setCobro(cobro);
+        imputacion.setRemito(remito);
+        imputacion.setImporte(remito.getTotal());
+        cobro.getRemitos().add(imputacion);
+        CobroMedioPago medio = new CobroMedioPago();
+        medio.setCobro(cobro);
+        medio.setMedio("EFECTIVO");
+        medio.setImporte(remito.getTotal());
+        cobro.getMediosPago().add(medio);
+        cobroId = contexto.getBean(CobroRepository.class).save(cobro).getId();
+
+        Nota nota = new Nota();
+        nota.setNumero(1L);
+        nota.setTipo(Nota.TipoNota.DEBITO);
+        nota.setCliente(cliente);
+        nota.setMonto(new BigDecimal("150"));
+        nota.setMotivo("Diferencia de precio");
+        notaId = contexto.getBean(NotaRepository.class).save(nota).getId();
+
+        Proveedor proveedor = new Proveedor();
+        proveedor.setNombre("Proveedor");
+        PagoProveedor pago = new PagoProveedor();
+        pago.setProveedor(contexto.getBean(ProveedorRepository.class).save(proveedor));
+        pago.setFecha(java.time.LocalDate.now());
+        pago.setImporte(new BigDecimal("300"));
+        pago.setMedio("TRANSFERENCIA");
+        pagoId = contexto.getBean(PagoProveedorRepository.class).save(pago).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws IOException {
+        contexto.close();
+        Files.deleteIfExists(logo);
+    }
+
+    @Benchmark
+    public int generarPdf() {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        transaccion.executeWithoutResult(estado -> {
+            try {
+                switch (generador) {
+                    case "remito" -> remitoService.generarPdfRemito(remitoRepository.findDetalleById(remitoId).orElseThrow(), os);
+                    case "recibo" -> cobroService.generarPdfRecibo(cobroId, os);
+                    case "nota" -> notaService.generarPdfNota(notaId, os);
+                    default -> pagoProveedorService.generarPdfOrdenPago(pagoId, os);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return os.size();
+    }
+
+    /** Logo de prueba: degradé con ruido y bordes transparentes, que no se comprime a casi nada. */
+    private static BufferedImage logo(int lado) {
+        BufferedImage imagen = new BufferedImage(lado, lado, BufferedImage.TYPE_INT_ARGB);
+        Random azar = new Random(42);
+        for (int y = 0; y < lado; y++) {
+            for (int x = 0; x < lado; x++) {
+                int alfa = Math.min(255, Math.min(Math.min(x, y), Math.min(lado - x, lado - y)) * 2);
+                int rgb = ((x * 255 / lado) << 16) | ((y * 255 / lado) << 8) | azar.nextInt(64);
+                imagen.setRGB(x, y, (alfa << 24) | rgb);
+            }
+        }
+        Graphics2D g = imagen.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillOval(lado / 4, lado / 4, lado / 2, lado / 2);
+        g.dispose();
+        return imagen;
+    }
+}
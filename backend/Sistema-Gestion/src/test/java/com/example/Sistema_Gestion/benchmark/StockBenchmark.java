@@ -0,0 +1,85 @@
+package com.example.Sistema_Gestion.benchmark;
+
+import com.example.Sistema_Gestion.model.Producto;
+import com.example.Sistema_Gestion.repository.ProductoRepository;
+import com.example.Sistema_Gestion.service.ProductoService;
+import com.example.Sistema_Gestion.service.StockBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Descuento de stock de un remito: un StockBatch (un UPDATE por lote) contra
+ * descontarStock por ítem (un UPDATE por línea), dentro de una transacción.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockBenchmark {
+
+    @Param({"20", "150"})
+    private int lineas;
+
+    private ConfigurableApplicationContext contexto;
+    private ProductoService productoService;
+    private TransactionTemplate transaccion;
+    private final List<Long> productos = new ArrayList<>();
+    private StockBatch batch;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar();
+        productoService = contexto.getBean(ProductoService.class);
+        transaccion = contexto.getBean(TransactionTemplate.class);
+        ProductoRepository repository = contexto.getBean(ProductoRepository.class);
+
+        batch = new StockBatch();
+        for (int i = 0; i < lineas; i++) {
+            Producto p = new Producto();
+            p.setSku("BENCH-" + lineas + "-" + i);
+            p.setNombre("Producto " + i);
+            p.setStock(Integer.MAX_VALUE / 2);
+            Long id = repository.save(p).getId();
+            productos.add(id);
+            batch.restar(id, 1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public void stockBatch() {
+        transaccion.executeWithoutResult(estado -> productoService.aplicarStock(batch));
+    }
+
+    @Benchmark
+    public void porItem() {
+        transaccion.executeWithoutResult(estado -> {
+            for (Long id : productos) {
+                productoService.descontarStock(id, 1);
+            }
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.Sistema_Gestion.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaginaCursorTest {
+
+    @Test
+    void cursorConFechaIdaYVuelta() {
+        LocalDate dia = LocalDate.of(2024, 3, 15);
+        PaginaCursor.Posicion p = PaginaCursor.Posicion.decodificar(new PaginaCursor.Posicion(dia, 42L).codificar());
+        assertTrue(p.tieneFecha());
+        assertEquals(dia, p.getFechaComoDia());
+        assertEquals(42L, p.getId());
+
+        LocalDateTime momento = LocalDateTime.of(2024, 3, 15, 10, 30, 5);
+        p = PaginaCursor.Posicion.decodificar(new PaginaCursor.Posicion(momento, 7L).codificar());
+        assertEquals(momento, p.getFechaComoMomento());
+        assertEquals(7L, p.getId());
+    }
+
+    @Test
+    void cursorSinFechaIdaYVuelta() {
+        PaginaCursor.Posicion p = PaginaCursor.Posicion.decodificar(new PaginaCursor.Posicion(null, 9L).codificar());
+        assertFalse(p.tieneFecha());
+        assertNull(p.getFechaComoDia());
+        assertNull(p.getFechaComoMomento());
+        assertEquals(9L, p.getId());
+    }
+
+    @Test
+    void sinCursorEsPrimeraPagina() {
+        assertNull(PaginaCursor.Posicion.decodificar(null));
+        assertNull(PaginaCursor.Posicion.decodificar("  "));
+    }
+
+    @Test
+    void cursoresMalformadosSeRechazan() {
+        for (String cursor : new String[] { "no es base64!", codificar("sin-separador"), codificar("2024-03-15|abc"),
+                codificar("2024-03-15|") }) {
+            assertThrows(RuntimeException.class, () -> PaginaCursor.Posicion.decodificar(cursor), cursor);
+        }
+        PaginaCursor.Posicion fechaInvalida = PaginaCursor.Posicion.decodificar(codificar("2024-13-45|3"));
+        assertThrows(RuntimeException.class, fechaInvalida::getFechaComoDia);
+        assertThrows(RuntimeException.class, fechaInvalida::getFechaComoMomento);
+    }
+
+    @Test
+    void laFilaExtraSoloIndicaQueHayMas() {
+        PaginaCursor<Integer> pagina = PaginaCursor.de(List.of(3, 2, 1), 2, n -> new PaginaCursor.Posicion(null, n.longValue()));
+        assertEquals(List.of(3, 2), pagina.getItems());
+        assertTrue(pagina.isHayMas());
+        assertEquals(2L, PaginaCursor.Posicion.decodificar(pagina.getSiguienteCursor()).getId());
+
+        PaginaCursor<Integer> ultima = PaginaCursor.de(List.of(1), 2, n -> new PaginaCursor.Posicion(null, n.longValue()));
+        assertFalse(ultima.isHayMas());
+        assertNull(ultima.getSiguienteCursor());
+    }
+
+    private static String codificar(String valor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+}
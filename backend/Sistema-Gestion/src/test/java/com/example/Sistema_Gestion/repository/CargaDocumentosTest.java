@@ -0,0 +1,328 @@
+package com.example.Sistema_Gestion.repository;
+
+import com.example.Sistema_Gestion.model.Cliente;
+import com.example.Sistema_Gestion.model.Cobro;
+import com.example.Sistema_Gestion.model.CobroMedioPago;
+import com.example.Sistema_Gestion.model.CobroRemito;
+import com.example.Sistema_Gestion.model.Compra;
+import com.example.Sistema_Gestion.model.CompraItem;
+import com.example.Sistema_Gestion.model.Producto;
+import com.example.Sistema_Gestion.model.Proveedor;
+import com.example.Sistema_Gestion.model.Remito;
+import com.example.Sistema_Gestion.model.RemitoItem;
+import com.example.Sistema_Gestion.dto.CobroResumenView;
+import com.example.Sistema_Gestion.dto.CompraResumenDTO;
+import com.example.Sistema_Gestion.dto.PaginaCursor;
+import com.example.Sistema_Gestion.dto.RemitoResumenDTO;
+import com.example.Sistema_Gestion.service.CobroService;
+import com.example.Sistema_Gestion.service.CompraService;
+import com.example.Sistema_Gestion.service.NotaService;
+import com.example.Sistema_Gestion.service.NumeradorService;
+import com.example.Sistema_Gestion.service.PdfRecursosService;
+import com.example.Sistema_Gestion.service.ProductoService;
+import com.example.Sistema_Gestion.service.ReintentoConcurrencia;
+import com.example.Sistema_Gestion.service.RemitoService;
+import com.example.Sistema_Gestion.service.SaldoClienteService;
+import com.example.Sistema_Gestion.service.TesoreriaService;
+import com.example.Sistema_Gestion.service.VentasDiariasService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cuenta las sentencias SQL (estadísticas de Hibernate) al cargar remitos, compras y cobros con sus
+ * asociaciones: con los grafos de entidades y @BatchSize no deben crecer con la cantidad de documentos.
+ * Además de los repositorios se cubren los caminos de servicio que usan los controladores
+ * (listados, detalle y armado de DTO o JSON), donde un acceso perezoso sin inicializar sumaría consultas.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({ RemitoService.class, CompraService.class, CobroService.class })
+class CargaDocumentosTest {
+
+    private static final int DOCUMENTOS = 20;
+    private static final int ITEMS_POR_DOCUMENTO = 3;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private RemitoRepository remitoRepository;
+
+    @Autowired
+    private CompraRepository compraRepository;
+
+    @Autowired
+    private CobroRepository cobroRepository;
+
+    @Autowired
+    private RemitoService remitoService;
+
+    @Autowired
+    private CompraService compraService;
+
+    @Autowired
+    private CobroService cobroService;
+
+    @MockitoBean
+    private ProductoService productoService;
+    @MockitoBean
+    private PdfRecursosService pdfRecursosService;
+    @MockitoBean
+    private NumeradorService numeradorService;
+    @MockitoBean
+    private SaldoClienteService saldoClienteService;
+    @MockitoBean
+    private VentasDiariasService ventasDiariasService;
+    @MockitoBean
+    private TesoreriaService tesoreriaService;
+    @MockitoBean
+    private NotaService notaService;
+    @MockitoBean
+    private ReintentoConcurrencia reintentoConcurrencia;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final List<Long> remitoIds = new ArrayList<>();
+    private final List<Long> cobroIds = new ArrayList<>();
+    private Long proveedorId;
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void cargarDocumentos() {
+        List<Producto> productos = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTOS; i++) {
+            Producto p = new Producto();
+            p.setSku("SKU-" + i);
+            p.setNombre("Producto " + i);
+            entityManager.persist(p);
+            productos.add(p);
+        }
+        Cliente cliente = new Cliente();
+        cliente.setNombre("Cliente");
+        entityManager.persist(cliente);
+        Proveedor proveedor = new Proveedor();
+        proveedor.setNombre("Proveedor");
+        entityManager.persist(proveedor);
+        proveedorId = proveedor.getId();
+
+        for (int i = 0; i < DOCUMENTOS; i++) {
+            Remito remito = new Remito();
+            remito.setNumero((long) i + 1);
+            remito.setCliente(cliente);
+            Compra compra = new Compra();
+            compra.setNumero((long) i + 1);
+            compra.setProveedor(proveedor);
+            compra.setItems(new ArrayList<>());
+            for (int j = 0; j < ITEMS_POR_DOCUMENTO; j++) {
+                Producto producto = productos.get((i + j) % DOCUMENTOS);
+                RemitoItem ri = new RemitoItem();
+                ri.setRemito(remito);
+                ri.setProducto(producto);
+                ri.setCantidad(BigDecimal.ONE);
+                remito.getItems().add(ri);
+                CompraItem ci = new CompraItem();
+                ci.setCompra(compra);
+                ci.setProducto(producto);
+                ci.setCantidad(1);
+                ci.setPrecioUnitario(BigDecimal.TEN);
+                ci.setSubtotal(BigDecimal.TEN);
+                compra.getItems().add(ci);
+            }
+            entityManager.persist(remito);
+            entityManager.persist(compra);
+            remitoIds.add(remito.getId());
+
+            Cobro cobro = new Cobro();
+            cobro.setCliente(cliente);
+            cobro.setTotalCobrado(BigDecimal.TEN);
+            CobroRemito cr = new CobroRemito();
+            cr.setCobro(cobro);
+            cr.setRemito(remito);
+            cr.setImporte(BigDecimal.TEN);
+            cobro.getRemitos().add(cr);
+            for (String medio : new String[] { "EFECTIVO", "TRANSFERENCIA" }) {
+                CobroMedioPago m = new CobroMedioPago();
+                m.setCobro(cobro);
+                m.setMedio(medio);
+                m.setImporte(new BigDecimal("5"));
+                cobro.getMediosPago().add(m);
+            }
+            entityManager.persist(cobro);
+            cobroIds.add(cobro.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        estadisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    void remitosConClienteItemsYProductosEnUnaSolaConsulta() {
+        List<Remito> remitos = remitoRepository.findDetalleByIdInOrderByIdAsc(remitoIds);
+
+        assertEquals(DOCUMENTOS * ITEMS_POR_DOCUMENTO, contarProductos(remitos));
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void paginaDeRemitosCargaLosItemsEnUnLote() {
+        List<Remito> remitos = remitoRepository.findAll(PageRequest.of(0, DOCUMENTOS + 1, Sort.by("id"))).getContent();
+        remitos.forEach(r -> Hibernate.initialize(r.getItems()));
+
+        assertEquals(DOCUMENTOS * ITEMS_POR_DOCUMENTO, contarProductos(remitos));
+        // Página (con cliente) + un lote de ítems con sus productos
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void comprasDelProveedorConItemsYProductosEnUnaSolaConsulta() {
+        List<Compra> compras = compraRepository.findByProveedorIdOrderByFechaDesc(proveedorId);
+
+        int productos = 0;
+        for (Compra c : compras) {
+            c.getProveedor().getNombre();
+            for (CompraItem ci : c.getItems()) {
+                ci.getProducto().getNombre();
+                productos++;
+            }
+        }
+        assertEquals(DOCUMENTOS * ITEMS_POR_DOCUMENTO, productos);
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void cobrosConRemitosYMediosEnConsultasConstantes() {
+        List<Cobro> cobros = cobroRepository.findDetalleByIdInOrderByIdAsc(cobroIds);
+        cobros.forEach(c -> {
+            Hibernate.initialize(c.getMediosPago());
+            Hibernate.initialize(c.getNotas());
+        });
+
+        int remitos = 0;
+        int medios = 0;
+        for (Cobro c : cobros) {
+            c.getCliente().getNombre();
+            for (CobroRemito cr : c.getRemitos()) {
+                cr.getRemito().getNumero();
+                remitos++;
+            }
+            medios += c.getMediosPago().size();
+        }
+        assertEquals(DOCUMENTOS, remitos);
+        assertEquals(DOCUMENTOS * 2, medios);
+        // Cobros con cliente y remitos + un lote de medios de pago + un lote de notas
+        assertEquals(3, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void listadosDeRemitosDelServicioConDtoEnConsultasConstantes() {
+        PaginaCursor<RemitoResumenDTO> cursor = remitoService.listarPorCursor(null, DOCUMENTOS, null)
+                .map(RemitoResumenDTO::new);
+        assertEquals(DOCUMENTOS * ITEMS_POR_DOCUMENTO, contarItems(cursor.getItems().stream().map(RemitoResumenDTO::getItems)));
+        // Página (con cliente) + un lote de ítems con sus productos
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+
+        estadisticas.clear();
+        entityManager.clear();
+        Page<RemitoResumenDTO> pagina = remitoService.listarTodos(PageRequest.of(0, DOCUMENTOS, Sort.by("fecha")))
+                .map(RemitoResumenDTO::new);
+        assertEquals(DOCUMENTOS * ITEMS_POR_DOCUMENTO, contarItems(pagina.getContent().stream().map(RemitoResumenDTO::getItems)));
+        // Page suma el conteo total
+        assertEquals(3, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void detalleDeRemitoDelServicioConDtoEnUnaSolaConsulta() {
+        RemitoResumenDTO dto = remitoService.buscarPorIdConItems(remitoIds.get(0)).map(RemitoResumenDTO::new).orElseThrow();
+
+        assertEquals(ITEMS_POR_DOCUMENTO, dto.getItems().size());
+        dto.getItems().forEach(i -> assertNotNull(i.getProducto().getNombre()));
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void listadosDeComprasDelServicioConDtoEnConsultasConstantes() {
+        PaginaCursor<CompraResumenDTO> cursor = compraService.listarPorCursor(null, DOCUMENTOS, proveedorId)
+                .map(CompraResumenDTO::new);
+        assertEquals(DOCUMENTOS * ITEMS_POR_DOCUMENTO, contarItems(cursor.getItems().stream().map(CompraResumenDTO::getItems)));
+        // Página (con proveedor) + un lote de ítems con sus productos
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+
+        estadisticas.clear();
+        entityManager.clear();
+        Page<CompraResumenDTO> pagina = compraService.listarPorProveedorPaginado(proveedorId,
+                PageRequest.of(0, DOCUMENTOS, Sort.by(Sort.Direction.DESC, "fecha"))).map(CompraResumenDTO::new);
+        assertEquals(DOCUMENTOS * ITEMS_POR_DOCUMENTO, contarItems(pagina.getContent().stream().map(CompraResumenDTO::getItems)));
+        // Page suma el conteo total
+        assertEquals(3, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void detalleDeCompraDelServicioConDtoEnUnaSolaConsulta() {
+        Long compraId = compraRepository.findByProveedorIdOrderByFechaDesc(proveedorId).get(0).getId();
+        entityManager.clear();
+        estadisticas.clear();
+
+        CompraResumenDTO dto = compraService.buscarPorId(compraId).map(CompraResumenDTO::new).orElseThrow();
+
+        assertEquals(ITEMS_POR_DOCUMENTO, dto.getItems().size());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void listadoYDetalleDeCobrosDelServicioEnConsultasConstantes() throws Exception {
+        PaginaCursor<CobroResumenView> cursor = cobroService.listarPorCursor(null, DOCUMENTOS, null);
+        assertEquals(DOCUMENTOS, cursor.getItems().size());
+        cursor.getItems().forEach(c -> assertNotNull(c.getClienteNombre()));
+        // Proyección: una sola consulta
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+
+        estadisticas.clear();
+        Cobro cobro = cobroService.buscarPorId(cobroIds.get(0)).orElseThrow();
+        // El controlador devuelve la entidad: el JSON no debe disparar cargas perezosas
+        String json = objectMapper.writeValueAsString(cobro);
+        assertTrue(json.contains("TRANSFERENCIA"));
+        // Cobro con cliente y remitos + medios de pago + notas
+        assertEquals(3, estadisticas.getPrepareStatementCount());
+    }
+
+    private static int contarItems(Stream<? extends List<?>> items) {
+        return items.mapToInt(List::size).sum();
+    }
+
+    private int contarProductos(List<Remito> remitos) {
+        int productos = 0;
+        for (Remito r : remitos) {
+            r.getCliente().getNombre();
+            for (RemitoItem ri : r.getItems()) {
+                ri.getProducto().getNombre();
+                productos++;
+            }
+        }
+        return productos;
+    }
+}
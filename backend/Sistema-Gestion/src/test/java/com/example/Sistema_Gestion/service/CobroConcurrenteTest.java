@@ -0,0 +1,134 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.Cliente;
+import com.example.Sistema_Gestion.model.Cobro;
+import com.example.Sistema_Gestion.model.CobroMedioPago;
+import com.example.Sistema_Gestion.model.Remito;
+import com.example.Sistema_Gestion.repository.ClienteRepository;
+import com.example.Sistema_Gestion.repository.RemitoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cobros simultáneos sobre un mismo remito en la base en memoria (H2), con el reintento real:
+ * cada cobro confirmado sube la versión del remito y los que chocan se repiten releyendo lo cobrado.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.concurrencia.intentos=20",
+        "app.concurrencia.espera-ms=5"
+})
+@Import({ CobroService.class, RemitoService.class, TesoreriaService.class, ReintentoConcurrencia.class })
+class CobroConcurrenteTest {
+
+    @Autowired
+    private CobroService cobroService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private RemitoRepository remitoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private ProductoService productoService;
+    @MockitoBean
+    private PdfRecursosService pdfRecursosService;
+    @MockitoBean
+    private NumeradorService numeradorService;
+    @MockitoBean
+    private SaldoClienteService saldoClienteService;
+    @MockitoBean
+    private VentasDiariasService ventasDiariasService;
+    @MockitoBean
+    private NotaService notaService;
+    @MockitoBean
+    private PagoProveedorService pagoProveedorService;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void cobrosSimultaneosSobreUnRemitoNoCobranDeMas() throws Exception {
+        Cliente cliente = new Cliente();
+        cliente.setNombre("Cliente");
+        cliente = clienteRepository.save(cliente);
+        Remito remito = new Remito();
+        remito.setNumero(1L);
+        remito.setCliente(cliente);
+        remito.setTotal(new BigDecimal("100"));
+        remito.setEstado(Remito.EstadoRemito.VALORIZADO);
+        Long remitoId = remitoRepository.save(remito).getId();
+
+        // Cinco cobros de 25 sobre un remito de 100: entran cuatro y el quinto lo encuentra COBRADO
+        int hilos = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<Cobro>> resultados = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                Cliente clienteCobro = cliente;
+                resultados.add(executor.submit(() -> {
+                    Cobro cobro = new Cobro();
+                    cobro.setCliente(clienteCobro);
+                    CobroMedioPago medio = new CobroMedioPago();
+                    medio.setMedio("EFECTIVO");
+                    medio.setImporte(new BigDecimal("25"));
+                    largada.await();
+                    return cobroService.registrarCobroConReintentos(
+                            cobro, Map.of(remitoId, new BigDecimal("25")), null, new ArrayList<>(List.of(medio)));
+                }));
+            }
+            largada.countDown();
+
+            int confirmados = 0;
+            List<Throwable> rechazados = new ArrayList<>();
+            for (Future<Cobro> f : resultados) {
+                try {
+                    f.get();
+                    confirmados++;
+                } catch (ExecutionException e) {
+                    rechazados.add(e.getCause());
+                }
+            }
+
+            assertEquals(4, confirmados);
+            assertEquals(1, rechazados.size());
+            assertInstanceOf(IllegalStateException.class, rechazados.get(0));
+            assertTrue(rechazados.get(0).getMessage().contains("debe estar VALORIZADO"));
+
+            assertEquals("COBRADO", jdbcTemplate.queryForObject(
+                    "SELECT estado FROM remito WHERE id = ?", String.class, remitoId));
+            assertEquals(0, new BigDecimal("100").compareTo(jdbcTemplate.queryForObject(
+                    "SELECT SUM(importe) FROM cobro_remito WHERE remito_id = ?", BigDecimal.class, remitoId)));
+            assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cobro", Integer.class));
+        } finally {
+            executor.shutdown();
+            for (String tabla : new String[] { "movimiento_tesoreria", "cobro_medio_pago", "cobro_remito", "cobro",
+                    "remito", "cliente" }) {
+                jdbcTemplate.update("DELETE FROM " + tabla);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.Cliente;
+import com.example.Sistema_Gestion.model.Cobro;
+import com.example.Sistema_Gestion.model.CobroMedioPago;
+import com.example.Sistema_Gestion.model.CobroRemito;
+import com.example.Sistema_Gestion.model.Remito;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cobro sobre muchos remitos en la base en memoria (H2), contando las sentencias SQL. El slice JPA no
+ * carga PersistenciaConfig: el batch JDBC y el optimizador de ids se configuran igual que allí.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.properties.hibernate.order_updates=true",
+        "spring.jpa.properties.hibernate.id.optimizer.pooled.preferred=pooled-lo"
+})
+@Import({ CobroService.class, RemitoService.class, TesoreriaService.class })
+class CobroServiceTest {
+
+    @Autowired
+    private CobroService cobroService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private ProductoService productoService;
+    @MockitoBean
+    private PdfRecursosService pdfRecursosService;
+    @MockitoBean
+    private NumeradorService numeradorService;
+    @MockitoBean
+    private SaldoClienteService saldoClienteService;
+    @MockitoBean
+    private VentasDiariasService ventasDiariasService;
+    @MockitoBean
+    private NotaService notaService;
+    @MockitoBean
+    private PagoProveedorService pagoProveedorService;
+    @MockitoBean
+    private ReintentoConcurrencia reintentoConcurrencia;
+
+    @ParameterizedTest
+    @ValueSource(ints = { 10, 50 })
+    void registrarCobroSobreMuchosRemitosUsaSentenciasConstantes(int cantidadRemitos) {
+        Cliente cliente = new Cliente();
+        cliente.setNombre("Cliente");
+        entityManager.persist(cliente);
+
+        List<Long> remitoIds = new ArrayList<>();
+        for (int i = 0; i < cantidadRemitos; i++) {
+            Remito r = new Remito();
+            r.setNumero((long) i + 1);
+            r.setCliente(cliente);
+            r.setTotal(new BigDecimal("100"));
+            r.setEstado(Remito.EstadoRemito.VALORIZADO);
+            entityManager.persist(r);
+            remitoIds.add(r.getId());
+        }
+        // Remito 1: ya tenía 40 cobrados en un cobro anterior
+        Cobro anterior = new Cobro();
+        anterior.setCliente(cliente);
+        anterior.setTotalCobrado(new BigDecimal("40"));
+        CobroRemito previo = new CobroRemito();
+        previo.setCobro(anterior);
+        previo.setRemito(entityManager.find(Remito.class, remitoIds.get(0)));
+        previo.setImporte(new BigDecimal("40"));
+        anterior.getRemitos().add(previo);
+        entityManager.persist(anterior);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Remito 1 se completa con 60; remito 2 queda con saldo; el resto se cobra entero
+        Map<Long, BigDecimal> importesPorRemito = new LinkedHashMap<>();
+        for (Long id : remitoIds) {
+            importesPorRemito.put(id, new BigDecimal("100"));
+        }
+        importesPorRemito.put(remitoIds.get(0), new BigDecimal("60"));
+        importesPorRemito.put(remitoIds.get(1), new BigDecimal("50"));
+        BigDecimal total = importesPorRemito.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        Cobro cobro = new Cobro();
+        cobro.setCliente(entityManager.getReference(Cliente.class, cliente.getId()));
+        List<CobroMedioPago> medios = new ArrayList<>();
+        for (String medio : new String[] { "EFECTIVO", "TRANSFERENCIA" }) {
+            CobroMedioPago m = new CobroMedioPago();
+            m.setMedio(medio);
+            m.setImporte(total.divide(BigDecimal.valueOf(2)));
+            medios.add(m);
+        }
+
+        Statistics estadisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        Cobro resultado = cobroService.registrarCobro(cobro, importesPorRemito, null, medios);
+        entityManager.flush();
+
+        // Lecturas de remitos y totales previos, el cobro y los movimientos de tesorería (IDENTITY), y en
+        // el flush un batch por tabla (cobro_remito, cobro_medio_pago, remito): nada crece con los remitos
+        assertEquals(9, estadisticas.getPrepareStatementCount());
+
+        assertEquals(cantidadRemitos, resultado.getRemitos().size());
+        assertEquals(0, total.compareTo(resultado.getTotalCobrado()));
+        assertEquals("COBRADO", estado(remitoIds.get(0)));
+        assertEquals("VALORIZADO", estado(remitoIds.get(1)));
+        assertEquals("COBRADO", estado(remitoIds.get(cantidadRemitos - 1)));
+        assertEquals(cantidadRemitos + 1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cobro_remito", Integer.class));
+    }
+
+    private String estado(Long remitoId) {
+        return jdbcTemplate.queryForObject("SELECT estado FROM remito WHERE id = ?", String.class, remitoId);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.Cliente;
+import com.example.Sistema_Gestion.model.Remito;
+import com.example.Sistema_Gestion.service.ExportacionPdfService.Documentos;
+import com.example.Sistema_Gestion.service.ExportacionPdfService.Filtro;
+import com.example.Sistema_Gestion.service.ExportacionPdfService.Formato;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Máximo de documentos del PDF único (sus páginas quedan en memoria hasta guardarlo). */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.exportacion.pdf.max-documentos-unico=3"
+})
+@Import(ExportacionPdfService.class)
+class ExportacionPdfServiceTest {
+
+    @Autowired
+    private ExportacionPdfService exportacionPdfService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private RemitoService remitoService;
+    @MockitoBean
+    private CobroService cobroService;
+    @MockitoBean
+    private PdfRecursosService pdfRecursosService;
+
+    @Test
+    void elPdfUnicoRechazaMasDocumentosQueElMaximoYElZipNo() {
+        Cliente cliente = new Cliente();
+        cliente.setNombre("Cliente");
+        entityManager.persist(cliente);
+        for (int i = 0; i < 4; i++) {
+            Remito r = new Remito();
+            r.setNumero((long) i + 1);
+            r.setCliente(cliente);
+            r.setTotal(new BigDecimal("100"));
+            r.setEstado(i == 0 ? Remito.EstadoRemito.COBRADO : Remito.EstadoRemito.VALORIZADO);
+            entityManager.persist(r);
+        }
+        entityManager.flush();
+
+        Filtro todos = new Filtro(Documentos.REMITOS, null, null, null, null);
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> exportacionPdfService.validar(todos, Formato.PDF));
+        assertTrue(e.getMessage().contains("hasta 3 documentos"));
+        assertDoesNotThrow(() -> exportacionPdfService.validar(todos, Formato.ZIP));
+
+        // Acotado por estado quedan 3: entra en el PDF único
+        Filtro valorizados = new Filtro(Documentos.REMITOS, null, Remito.EstadoRemito.VALORIZADO, null, null);
+        assertDoesNotThrow(() -> exportacionPdfService.validar(valorizados, Formato.PDF));
+    }
+}
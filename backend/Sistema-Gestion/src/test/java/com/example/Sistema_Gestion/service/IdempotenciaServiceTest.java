@@ -0,0 +1,157 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.ClaveIdempotencia;
+import com.example.Sistema_Gestion.repository.ClaveIdempotenciaRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.ResponseEntity;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Claves que quedaron EN_PROCESO porque la solicitud original se cortó (H2 en modo MySQL por el INSERT IGNORE). */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.url=jdbc:h2:mem:idempotencia;MODE=MySQL;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class IdempotenciaServiceTest {
+
+    private static final String CLAVE = "clave-1";
+    private static final String OPERACION = "COBRO";
+    private static final Map<String, Object> SOLICITUD = Map.of("clienteId", 7, "importe", "100");
+
+    @Autowired
+    private ClaveIdempotenciaRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private IdempotenciaService service;
+
+    @BeforeEach
+    void crearServicio() {
+        // Sin espera: un reintento con la original todavía en curso falla enseguida
+        service = new IdempotenciaService(repository, objectMapper, 24, 0, 60);
+    }
+
+    @Test
+    void reservaAbandonadaSeReclamaYSeEjecutaDeNuevo() throws Exception {
+        LocalDateTime reservaOriginal = LocalDateTime.now().minusMinutes(10).truncatedTo(ChronoUnit.MICROS);
+        reservarComoOriginal(reservaOriginal);
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        ResponseEntity<?> respuesta = service.ejecutar(CLAVE, OPERACION, SOLICITUD,
+                () -> Map.of("id", ejecuciones.incrementAndGet()));
+
+        assertEquals(1, ejecuciones.get());
+        assertEquals("{\"id\":1}", respuesta.getBody());
+        ClaveIdempotencia registro = releer();
+        assertEquals(ClaveIdempotencia.Estado.COMPLETADA, registro.getEstado());
+        assertTrue(registro.getCreatedAt().isAfter(reservaOriginal));
+
+        // Si la original vuelve tarde no pisa ni libera la respuesta del reintento
+        assertEquals(0, repository.completar(CLAVE, reservaOriginal, 200, "{\"id\":99}"));
+        assertEquals(0, repository.liberar(CLAVE, reservaOriginal));
+        assertEquals("{\"id\":1}", releer().getRespuesta());
+
+        // Los reintentos siguientes devuelven la respuesta guardada sin ejecutar
+        ResponseEntity<?> repetida = service.ejecutar(CLAVE, OPERACION, SOLICITUD,
+                () -> Map.of("id", ejecuciones.incrementAndGet()));
+        assertEquals(1, ejecuciones.get());
+        assertEquals("true", repetida.getHeaders().getFirst(IdempotenciaService.HEADER_REPETIDA));
+    }
+
+    @Test
+    void reservaRecienteNoSeReclama() throws Exception {
+        reservarComoOriginal(LocalDateTime.now().minusSeconds(5).truncatedTo(ChronoUnit.MICROS));
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.ejecutar(CLAVE, OPERACION, SOLICITUD,
+                () -> Map.of("id", ejecuciones.incrementAndGet())));
+
+        assertTrue(e.getMessage().contains("todavía está en proceso"));
+        assertEquals(0, ejecuciones.get());
+        ClaveIdempotencia registro = releer();
+        assertEquals(ClaveIdempotencia.Estado.EN_PROCESO, registro.getEstado());
+        assertNull(registro.getRespuesta());
+    }
+
+    @Test
+    void reservaAbandonadaConOtrosDatosNoSeReclama() throws Exception {
+        reservarComoOriginal(LocalDateTime.now().minusMinutes(10).truncatedTo(ChronoUnit.MICROS));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.ejecutar(CLAVE, OPERACION,
+                Map.of("clienteId", 8, "importe", "100"), () -> Map.of("id", 1)));
+
+        assertEquals("La Idempotency-Key ya se usó con otros datos", e.getMessage());
+        assertEquals(ClaveIdempotencia.Estado.EN_PROCESO, releer().getEstado());
+    }
+
+    @Test
+    void operacionQueFallaLiberaLaClave() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> service.ejecutar(CLAVE, OPERACION, SOLICITUD, () -> {
+            ejecuciones.incrementAndGet();
+            throw new IllegalStateException("El remito debe estar VALORIZADO");
+        }));
+        assertTrue(repository.findById(CLAVE).isEmpty());
+
+        ResponseEntity<?> reintento = service.ejecutar(CLAVE, OPERACION, SOLICITUD,
+                () -> Map.of("id", ejecuciones.incrementAndGet()));
+        assertEquals(2, ejecuciones.get());
+        assertEquals("{\"id\":2}", reintento.getBody());
+    }
+
+    @Test
+    void respuestaQueNoSeSerializaCompletaLaClaveConError() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+        // Confirmada la operación, Jackson no sabe serializar el resultado (bean sin propiedades)
+        ResponseEntity<?> respuesta = service.ejecutar(CLAVE, OPERACION, SOLICITUD, () -> {
+            ejecuciones.incrementAndGet();
+            return new Object();
+        });
+
+        assertEquals(500, respuesta.getStatusCode().value());
+        ClaveIdempotencia registro = releer();
+        assertEquals(ClaveIdempotencia.Estado.COMPLETADA, registro.getEstado());
+        assertEquals(500, registro.getCodigoEstado());
+
+        // El reintento no vuelve a registrar el documento: recibe el mismo 500
+        ResponseEntity<?> repetida = service.ejecutar(CLAVE, OPERACION, SOLICITUD, () -> {
+            ejecuciones.incrementAndGet();
+            return Map.of("id", 1);
+        });
+        assertEquals(1, ejecuciones.get());
+        assertEquals(500, repetida.getStatusCode().value());
+        assertEquals("true", repetida.getHeaders().getFirst(IdempotenciaService.HEADER_REPETIDA));
+    }
+
+    /** Fila que deja una solicitud que reservó la clave y se cortó antes de terminar. */
+    private void reservarComoOriginal(LocalDateTime reservadaEn) throws Exception {
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(objectMapper.writeValueAsBytes(SOLICITUD)));
+        assertEquals(1, repository.reservar(CLAVE, OPERACION, hash, reservadaEn, reservadaEn.plusHours(24)));
+    }
+
+    private ClaveIdempotencia releer() {
+        entityManager.clear();
+        return repository.findById(CLAVE).orElseThrow();
+    }
+}
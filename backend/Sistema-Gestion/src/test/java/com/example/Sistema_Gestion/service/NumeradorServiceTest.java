@@ -0,0 +1,109 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.Numerador.TipoDocumento;
+import com.example.Sistema_Gestion.repository.NumeradorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Numeración concurrente sobre la tabla numerador real (H2). */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@Import(NumeradorReserva.class)
+class NumeradorServiceTest {
+
+    @Autowired
+    private NumeradorReserva numeradorReserva;
+
+    @Autowired
+    private NumeradorRepository numeradorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void altasConcurrentesNoRepitenNumerosDeRemitosComprasNiNotas() throws Exception {
+        // Dos instancias de la aplicación compartiendo la misma tabla, con bloques chicos
+        // para forzar muchas reservas; las filas no existen y se crean en paralelo
+        NumeradorService instanciaA = new NumeradorService(numeradorReserva, 5);
+        NumeradorService instanciaB = new NumeradorService(numeradorReserva, 5);
+
+        int hilos = 9;
+        int porHilo = 100;
+        Map<TipoDocumento, Set<Long>> numeros = new EnumMap<>(TipoDocumento.class);
+        for (TipoDocumento tipo : TipoDocumento.values()) {
+            numeros.put(tipo, ConcurrentHashMap.newKeySet());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Callable<Void>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                NumeradorService servicio = h % 2 == 0 ? instanciaA : instanciaB;
+                TipoDocumento tipo = TipoDocumento.values()[h % TipoDocumento.values().length];
+                tareas.add(() -> {
+                    largada.await();
+                    for (int i = 0; i < porHilo; i++) {
+                        assertTrue(numeros.get(tipo).add(servicio.siguiente(tipo)), "Número repetido de " + tipo);
+                    }
+                    return null;
+                });
+            }
+            List<Future<Void>> resultados = new ArrayList<>();
+            for (Callable<Void> tarea : tareas) {
+                resultados.add(executor.submit(tarea));
+            }
+            largada.countDown();
+            for (Future<Void> f : resultados) {
+                f.get();
+            }
+
+            int porTipo = hilos / TipoDocumento.values().length * porHilo;
+            for (TipoDocumento tipo : TipoDocumento.values()) {
+                assertEquals(porTipo, numeros.get(tipo).size(), "Cantidad de números de " + tipo);
+                // Ningún número queda por encima de lo que la tabla tiene reservado
+                long proximo = numeradorRepository.findById(tipo).orElseThrow().getProximo();
+                assertTrue(numeros.get(tipo).stream().allMatch(n -> n >= 1 && n < proximo));
+            }
+        } finally {
+            executor.shutdown();
+            numeradorRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void cadaTipoTieneSuPropiaSecuencia() {
+        // La reserva corre en REQUIRES_NEW: la fila tiene que estar confirmada para que la vea
+        jdbcTemplate.update("INSERT INTO numerador (tipo, proximo) VALUES ('COMPRA', 100)");
+        try {
+            NumeradorService servicio = new NumeradorService(numeradorReserva, 5);
+
+            assertEquals(100L, servicio.siguiente(TipoDocumento.COMPRA));
+            assertEquals(1L, servicio.siguiente(TipoDocumento.NOTA));
+            assertEquals(101L, servicio.siguiente(TipoDocumento.COMPRA));
+            assertEquals(105L, numeradorRepository.findById(TipoDocumento.COMPRA).orElseThrow().getProximo());
+        } finally {
+            numeradorRepository.deleteAll();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.Sistema_Gestion.service;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.Mockito.mock;
+
+/** El logo se codifica una vez y cada PDF recibe una copia de los streams comprimidos. */
+class PdfRecursosServiceTest {
+
+    @TempDir
+    private Path directorio;
+
+    @Test
+    void cadaDocumentoRecibeElLogoYaCodificadoConSuTransparencia() throws Exception {
+        // 800x800 con un borde transparente: se achica a 400 y lleva máscara (SMask)
+        BufferedImage original = new BufferedImage(800, 800, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 100; y < 700; y++) {
+            for (int x = 100; x < 700; x++) {
+                original.setRGB(x, y, 0xFF000000 | (x * 255 / 800) << 16 | (y * 255 / 800) << 8);
+            }
+        }
+        Path archivo = directorio.resolve("logo.png");
+        ImageIO.write(original, "png", archivo.toFile());
+        PdfRecursosService service = new PdfRecursosService(mock(ConfiguracionService.class), archivo.toString(), 400);
+
+        try (PDDocument primero = new PDDocument(); PDDocument segundo = new PDDocument()) {
+            PDImageXObject logoPrimero = service.crearLogo(primero);
+            PDImageXObject logoSegundo = service.crearLogo(segundo);
+
+            // Cada documento tiene su propio stream con los mismos bytes comprimidos
+            assertNotSame(logoPrimero.getCOSObject(), logoSegundo.getCOSObject());
+            assertArrayEquals(crudo(logoPrimero), crudo(logoSegundo));
+            assertNotNull(logoPrimero.getCOSObject().getCOSStream(COSName.SMASK));
+            assertNotSame(logoPrimero.getCOSObject().getCOSStream(COSName.SMASK),
+                    logoSegundo.getCOSObject().getCOSStream(COSName.SMASK));
+
+            // Guardado y vuelto a abrir, el logo conserva tamaño, colores y transparencia
+            PDPage pagina = new PDPage();
+            segundo.addPage(pagina);
+            try (PDPageContentStream cs = new PDPageContentStream(segundo, pagina)) {
+                service.dibujarLogo(logoSegundo, cs, 40, 800);
+            }
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            segundo.save(pdf);
+            try (PDDocument leido = PDDocument.load(pdf.toByteArray())) {
+                PDPage paginaLeida = leido.getPage(0);
+                COSName nombre = paginaLeida.getResources().getXObjectNames().iterator().next();
+                BufferedImage imagen = ((PDImageXObject) paginaLeida.getResources().getXObject(nombre)).getImage();
+                assertEquals(400, imagen.getWidth());
+                assertEquals(400, imagen.getHeight());
+                assertEquals(0, imagen.getRGB(10, 10) >>> 24);
+                assertEquals(0xFF, imagen.getRGB(200, 200) >>> 24);
+            }
+        }
+    }
+
+    private static byte[] crudo(PDImageXObject imagen) throws Exception {
+        try (InputStream datos = imagen.getCOSObject().createRawInputStream()) {
+            return datos.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.dto.ImportacionResultado;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Importación de productos sobre H2 en modo MySQL con IGNORECASE, que compara los VARCHAR
+ * sin distinguir mayúsculas como la collation _ci de producción.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.url=jdbc:h2:mem:importador;MODE=MySQL;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductoImportador.class)
+class ProductoImportadorTest {
+
+    @Autowired
+    private ProductoImportador importador;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path directorio;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void unaFilaInvalidaNoArrastraAlRestoDelLote() throws IOException {
+        jdbcTemplate.update("INSERT INTO producto (sku, nombre, stock, activo) VALUES ('ABC-1', 'Original', 5, TRUE)");
+        try {
+            Path archivo = planilla(
+                    new String[] { "abc-1", "Renombrado", "8" },
+                    new String[] { "NUEVO-1", "Nuevo", "3" },
+                    new String[] { "LARGO-1", "x".repeat(300), "1" },
+                    new String[] { "NUEVO-2", "Otro nuevo", "" });
+
+            ImportacionResultado resultado = importador.importar(archivo, r -> { });
+
+            assertEquals(4, resultado.getFilasLeidas());
+            assertEquals(1, resultado.getActualizados());
+            assertEquals(2, resultado.getInsertados());
+            assertEquals(1, resultado.getTotalErrores());
+            ImportacionResultado.ErrorFila error = resultado.getErrores().get(0);
+            assertEquals(4, error.getFila());
+            assertEquals("LARGO-1", error.getSku());
+            assertTrue(error.getMensaje().startsWith("No se pudo guardar: "), error.getMensaje());
+            assertTrue(error.getMensaje().length() <= ImportacionResultado.MAX_LARGO_MENSAJE);
+
+            // El SKU en minúsculas actualizó el producto existente en lugar de duplicarlo
+            assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM producto", Integer.class));
+            assertEquals("Renombrado", jdbcTemplate.queryForObject(
+                    "SELECT nombre FROM producto WHERE sku = 'ABC-1'", String.class));
+            assertEquals(8, jdbcTemplate.queryForObject("SELECT stock FROM producto WHERE sku = 'ABC-1'", Integer.class));
+        } finally {
+            jdbcTemplate.update("DELETE FROM producto");
+        }
+    }
+
+    private Path planilla(String[]... filas) throws IOException {
+        Path archivo = directorio.resolve("productos.xlsx");
+        try (XSSFWorkbook libro = new XSSFWorkbook(); OutputStream os = Files.newOutputStream(archivo)) {
+            Sheet hoja = libro.createSheet("Productos");
+            Row encabezado = hoja.createRow(0);
+            String[] columnas = { "SKU", "Nombre", "Stock" };
+            for (int i = 0; i < columnas.length; i++) {
+                encabezado.createCell(i == 2 ? 3 : i).setCellValue(columnas[i]);
+            }
+            for (int i = 0; i < filas.length; i++) {
+                Row row = hoja.createRow(i + 1);
+                row.createCell(0).setCellValue(filas[i][0]);
+                row.createCell(1).setCellValue(filas[i][1]);
+                if (!filas[i][2].isEmpty()) {
+                    row.createCell(3).setCellValue(Double.parseDouble(filas[i][2]));
+                }
+            }
+            libro.write(os);
+        }
+        return archivo;
+    }
+}
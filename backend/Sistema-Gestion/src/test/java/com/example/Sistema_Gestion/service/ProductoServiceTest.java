@@ -0,0 +1,130 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.Producto;
+import com.example.Sistema_Gestion.repository.ProductoRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Movimientos de stock sobre la base en memoria (H2). */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@Import(ProductoService.class)
+class ProductoServiceTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aplicarStockReleeLaEntidadQueLaTransaccionYaTenia() {
+        Producto p = nuevoProducto("Tornillo", 10);
+        entityManager.flush();
+
+        // Otro proceso cambia el stock por fuera: la entidad administrada quedó con 10
+        jdbcTemplate.update("UPDATE producto SET stock = 20 WHERE id = ?", p.getId());
+
+        productoService.aplicarStock(new StockBatch().restar(p.getId(), 3));
+
+        assertEquals(17, p.getStock());
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(17, productoRepository.findById(p.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void stockInsuficienteNoCambiaNingunProducto() {
+        Producto a = nuevoProducto("Arandela", 5);
+        Producto b = nuevoProducto("Tuerca", 1);
+        entityManager.flush();
+
+        StockBatch batch = new StockBatch().restar(a.getId(), 2).restar(b.getId(), 4);
+        assertThrows(IllegalStateException.class, () -> productoService.aplicarStock(batch));
+
+        assertEquals(5, a.getStock());
+        assertEquals(1, b.getStock());
+    }
+
+    @Test
+    void descontarStockActualizaElProductoYaCargado() {
+        Producto p = nuevoProducto("Clavo", 10);
+        entityManager.flush();
+
+        assertTrue(productoService.descontarStock(p.getId(), 4));
+        productoService.aumentarStock(p.getId(), 1);
+        productoService.forzarDescontarStock(p.getId(), 9);
+
+        // El UPDATE va directo a la base; la entidad administrada no queda con el stock viejo
+        assertEquals(-2, p.getStock());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void ventasSimultaneasDelMismoProductoNoSobrevenden() throws Exception {
+        int stockInicial = 50;
+        int hilos = 8;
+        int intentosPorHilo = 20;
+        Producto p = nuevoProducto("Martillo", stockInicial);
+        try {
+            ExecutorService executor = Executors.newFixedThreadPool(hilos);
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<Integer>> resultados = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    int vendidos = 0;
+                    for (int i = 0; i < intentosPorHilo; i++) {
+                        if (productoService.descontarStock(p.getId(), 1)) {
+                            vendidos++;
+                        }
+                    }
+                    return vendidos;
+                }));
+            }
+            largada.countDown();
+            int vendidos = 0;
+            for (Future<Integer> resultado : resultados) {
+                vendidos += resultado.get(60, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+
+            // 160 pedidos de una unidad contra 50 en stock: se venden exactamente 50
+            assertEquals(stockInicial, vendidos);
+            assertEquals(0, productoRepository.findById(p.getId()).orElseThrow().getStock());
+        } finally {
+            productoRepository.deleteById(p.getId());
+        }
+    }
+
+    private Producto nuevoProducto(String nombre, int stock) {
+        Producto p = new Producto();
+        p.setSku("SKU-" + nombre);
+        p.setNombre(nombre);
+        p.setStock(stock);
+        return productoRepository.save(p);
+    }
+}
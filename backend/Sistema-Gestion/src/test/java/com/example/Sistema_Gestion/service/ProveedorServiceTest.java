@@ -0,0 +1,158 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.model.Compra;
+import com.example.Sistema_Gestion.model.Nota;
+import com.example.Sistema_Gestion.model.PagoProveedor;
+import com.example.Sistema_Gestion.model.Proveedor;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Saldos de proveedores sobre la base en memoria (H2), contando las sentencias SQL. */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(ProveedorService.class)
+class ProveedorServiceTest {
+
+    @Autowired
+    private ProveedorService proveedorService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private NumeradorService numeradorService;
+    @MockitoBean
+    private PdfRecursosService pdfRecursosService;
+    @MockitoBean
+    private CuentaCorrienteProveedorService cuentaCorrienteService;
+
+    private long numero;
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 60 })
+    void listarConSaldoUsaCuatroConsultasSinImportarCantidadDeProveedores(int cantidadProveedores) {
+        for (int i = 0; i < cantidadProveedores; i++) {
+            cargarMovimientos(nuevoProveedor("Proveedor " + i));
+        }
+        Statistics estadisticas = estadisticasLimpias();
+
+        List<Map<String, Object>> resultado = proveedorService.listarTodosConSaldo();
+
+        assertEquals(cantidadProveedores, resultado.size());
+        for (Map<String, Object> fila : resultado) {
+            assertMonto("650", fila.get("deudaARS"));
+            assertMonto("200", fila.get("deudaUSD"));
+        }
+        // Proveedores + una consulta agrupada por compras, pagos y notas
+        assertEquals(4, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void elResumenNoSumaComprasNiPagosSinProveedor() {
+        // Datos históricos: la columna admite NULL en la base real. El DDL va primero porque H2 lo confirma
+        jdbcTemplate.execute("ALTER TABLE compra ALTER COLUMN proveedor_id SET NULL");
+        jdbcTemplate.execute("ALTER TABLE pago_proveedor ALTER COLUMN proveedor_id SET NULL");
+
+        cargarMovimientos(nuevoProveedor("Con deuda"));
+        Compra huerfana = nuevaCompra(null, "ARS", "700", "0");
+        PagoProveedor pagoHuerfano = nuevoPago(null, "USD", "0", "40");
+        entityManager.flush();
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM compra WHERE proveedor_id IS NULL AND id = ?)"
+                        + " + (SELECT COUNT(*) FROM pago_proveedor WHERE proveedor_id IS NULL AND id = ?)",
+                Integer.class, huerfana.getId(), pagoHuerfano.getId()));
+        Statistics estadisticas = estadisticasLimpias();
+
+        Map<String, Object> resumen = proveedorService.getDashboardSummary();
+
+        assertMonto("650", resumen.get("cuentasPorPagarARS"));
+        assertMonto("200", resumen.get("cuentasPorPagarUSD"));
+        assertEquals(1L, resumen.get("totalProveedores"));
+        // Tres consultas agrupadas + el conteo de proveedores
+        assertEquals(4, estadisticas.getPrepareStatementCount());
+    }
+
+    /** ARS: 1000 + 50 (moneda nula) - 400 pagado. USD: 300 - 100 de nota de crédito. */
+    private void cargarMovimientos(Proveedor proveedor) {
+        nuevaCompra(proveedor, "ARS", "1000", "0");
+        nuevaCompra(proveedor, null, "50", "0");
+        nuevaCompra(proveedor, "USD", "999", "300");
+        nuevoPago(proveedor, "ARS", "400", "0");
+        PagoProveedor anulado = nuevoPago(proveedor, "ARS", "5000", "0");
+        anulado.setAnulado(true);
+
+        Nota nota = new Nota();
+        nota.setNumero(++numero);
+        nota.setTipo(Nota.TipoNota.CREDITO);
+        nota.setEstado(Nota.EstadoNota.PENDIENTE);
+        nota.setProveedor(proveedor);
+        nota.setFecha(LocalDate.now());
+        nota.setMoneda("USD");
+        nota.setMonto(new BigDecimal("100"));
+        nota.setMotivo("Bonificación");
+        entityManager.persist(nota);
+    }
+
+    private Proveedor nuevoProveedor(String nombre) {
+        Proveedor p = new Proveedor();
+        p.setNombre(nombre);
+        entityManager.persist(p);
+        return p;
+    }
+
+    private Compra nuevaCompra(Proveedor proveedor, String moneda, String total, String totalDolares) {
+        Compra c = new Compra();
+        c.setNumero(++numero);
+        c.setProveedor(proveedor);
+        c.setMoneda(moneda);
+        c.setTotal(new BigDecimal(total));
+        c.setTotalDolares(new BigDecimal(totalDolares));
+        entityManager.persist(c);
+        return c;
+    }
+
+    private PagoProveedor nuevoPago(Proveedor proveedor, String moneda, String importe, String importeDolares) {
+        PagoProveedor p = new PagoProveedor();
+        p.setProveedor(proveedor);
+        p.setFecha(LocalDate.now());
+        p.setMedio("EFECTIVO");
+        p.setMoneda(moneda);
+        p.setImporte(new BigDecimal(importe));
+        p.setImporteDolares(new BigDecimal(importeDolares));
+        entityManager.persist(p);
+        return p;
+    }
+
+    private Statistics estadisticasLimpias() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics estadisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        return estadisticas;
+    }
+
+    private static void assertMonto(String esperado, Object valor) {
+        assertEquals(0, new BigDecimal(esperado).compareTo((BigDecimal) valor), "Monto " + valor);
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.exception.ConflictoConcurrenciaException;
+import com.example.Sistema_Gestion.model.Cliente;
+import com.example.Sistema_Gestion.model.Cobro;
+import com.example.Sistema_Gestion.model.CobroMedioPago;
+import com.example.Sistema_Gestion.model.Compra;
+import com.example.Sistema_Gestion.model.PagoProveedor;
+import com.example.Sistema_Gestion.model.PagoProveedorCompra;
+import com.example.Sistema_Gestion.model.Proveedor;
+import com.example.Sistema_Gestion.model.Remito;
+import com.example.Sistema_Gestion.repository.ClienteRepository;
+import com.example.Sistema_Gestion.repository.CobroNotaRepository;
+import com.example.Sistema_Gestion.repository.CobroRemitoRepository;
+import com.example.Sistema_Gestion.repository.CobroRepository;
+import com.example.Sistema_Gestion.repository.CompraRepository;
+import com.example.Sistema_Gestion.repository.NotaProveedorRepository;
+import com.example.Sistema_Gestion.repository.NotaRepository;
+import com.example.Sistema_Gestion.repository.PagoProveedorCompraRepository;
+import com.example.Sistema_Gestion.repository.PagoProveedorRepository;
+import com.example.Sistema_Gestion.repository.ProveedorRepository;
+import com.example.Sistema_Gestion.repository.RemitoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reintentos de cobros y pagos a proveedor ante un conflicto de versión. Los repositorios simulan
+ * el alta (asignan id) y el guardado final, que falla como al confirmar un documento con versión vieja.
+ */
+class ReintentoConcurrenciaTest {
+
+    private final PlatformTransactionManager transactionManager = transactionManager();
+
+    @Test
+    void cobroEnConflictoSeReintentaLimpioYGuardaUnSoloCobro() {
+        CobroRepository cobroRepository = mock(CobroRepository.class);
+        AtomicInteger conflictos = new AtomicInteger(1);
+        List<Cobro> altas = new ArrayList<>();
+        List<String> estadoEnAlta = new ArrayList<>();
+        when(cobroRepository.save(any(Cobro.class))).thenAnswer(inv -> {
+            Cobro c = inv.getArgument(0);
+            if (c.getId() == null) {
+                estadoEnAlta.add(c.getRemitos().size() + "/" + c.getMediosPago().size() + "/" + c.getNotas().size()
+                        + "/" + c.getMediosPago().stream().filter(m -> m.getCobro() != null || m.getId() != null).count());
+                altas.add(c);
+                c.setId(100L + altas.size());
+                return c;
+            }
+            // Guardado final: la cascada asigna ids a los medios y el flush valida las versiones
+            long idMedio = 1;
+            for (CobroMedioPago m : c.getMediosPago()) {
+                m.setId(idMedio++);
+            }
+            if (conflictos.getAndDecrement() > 0) {
+                throw new ObjectOptimisticLockingFailureException(Remito.class, 1L);
+            }
+            return c;
+        });
+        SaldoClienteService saldoClienteService = mock(SaldoClienteService.class);
+        VentasDiariasService ventasDiariasService = mock(VentasDiariasService.class);
+        CobroService service = cobroService(cobroRepository, saldoClienteService, ventasDiariasService, 3);
+
+        List<CobroMedioPago> medios = List.of(medio("EFECTIVO", "60"), medio("TRANSFERENCIA", "40"));
+        Cobro cobro = nuevoCobro();
+        Cobro resultado = service.registrarCobroConReintentos(cobro, Map.of(1L, new BigDecimal("100")), null, medios);
+
+        // Un alta por intento; el segundo arrancó con el cobro y los medios como antes del primero
+        assertEquals(2, altas.size());
+        assertEquals(List.of("0/0/0/0", "0/0/0/0"), estadoEnAlta);
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+
+        // El intento confirmado guarda un cobro, con su remito y sus medios una sola vez
+        assertSame(cobro, resultado);
+        assertEquals(102L, resultado.getId());
+        assertEquals(1, resultado.getRemitos().size());
+        assertEquals(2, resultado.getMediosPago().size());
+        resultado.getMediosPago().forEach(m -> assertSame(resultado, m.getCobro()));
+        assertEquals(0, new BigDecimal("100").compareTo(resultado.getTotalCobrado()));
+        // Saldo y acumulados sólo se informan en el intento que confirmó
+        verify(saldoClienteService, times(1)).registrarMovimiento(eq(7L), any());
+        verify(ventasDiariasService, times(1)).registrarCobro(any(), any());
+    }
+
+    @Test
+    void cobroQueSigueEnConflictoSeInformaAlAgotarLosIntentos() {
+        CobroRepository cobroRepository = mock(CobroRepository.class);
+        when(cobroRepository.save(any(Cobro.class))).thenAnswer(inv -> {
+            Cobro c = inv.getArgument(0);
+            if (c.getId() == null) {
+                c.setId(100L);
+                return c;
+            }
+            throw new ObjectOptimisticLockingFailureException(Remito.class, 1L);
+        });
+        SaldoClienteService saldoClienteService = mock(SaldoClienteService.class);
+        CobroService service = cobroService(cobroRepository, saldoClienteService, mock(VentasDiariasService.class), 3);
+
+        ConflictoConcurrenciaException e = assertThrows(ConflictoConcurrenciaException.class,
+                () -> service.registrarCobroConReintentos(nuevoCobro(), Map.of(1L, new BigDecimal("100")), null,
+                        List.of(medio("EFECTIVO", "100"))));
+
+        assertTrue(e.getMessage().startsWith("Otra operación modificó los mismos documentos"));
+        verify(transactionManager, times(3)).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(saldoClienteService, never()).registrarMovimiento(anyLong(), any());
+    }
+
+    @Test
+    void pagoEnConflictoSeReintentaLimpioYGuardaUnSoloPago() {
+        PagoProveedorRepository pagoRepository = mock(PagoProveedorRepository.class);
+        AtomicInteger conflictos = new AtomicInteger(1);
+        List<PagoProveedor> altas = new ArrayList<>();
+        List<Integer> imputacionesEnAlta = new ArrayList<>();
+        when(pagoRepository.save(any(PagoProveedor.class))).thenAnswer(inv -> {
+            PagoProveedor p = inv.getArgument(0);
+            if (p.getId() == null) {
+                imputacionesEnAlta.add(p.getCompras().size());
+                altas.add(p);
+                p.setId(200L + altas.size());
+                return p;
+            }
+            if (conflictos.getAndDecrement() > 0) {
+                throw new ObjectOptimisticLockingFailureException(Compra.class, 5L);
+            }
+            return p;
+        });
+
+        CompraRepository compraRepository = mock(CompraRepository.class);
+        Compra compra = new Compra();
+        compra.setId(5L);
+        compra.setTotal(new BigDecimal("300"));
+        compra.setEstado("PENDIENTE");
+        when(compraRepository.buscarParaPago(any())).thenReturn(List.of(compra));
+        PagoProveedorCompraRepository imputaciones = mock(PagoProveedorCompraRepository.class);
+        when(imputaciones.totalPagadoPorCompra(5L)).thenReturn(BigDecimal.ZERO);
+        TesoreriaService tesoreriaService = mock(TesoreriaService.class);
+
+        PagoProveedorService service = new PagoProveedorService(pagoRepository, imputaciones, compraRepository,
+                tesoreriaService, mock(ProveedorRepository.class), mock(PdfRecursosService.class),
+                mock(NotaProveedorRepository.class), new ReintentoConcurrencia(transactionManager, 3, 0));
+
+        Proveedor proveedor = new Proveedor();
+        proveedor.setId(3L);
+        proveedor.setNombre("Proveedor");
+        PagoProveedor pago = new PagoProveedor();
+        pago.setProveedor(proveedor);
+        pago.setMedio("TRANSFERENCIA");
+
+        PagoProveedor resultado = service.registrarPagoConReintentos(pago, Map.of(5L, new BigDecimal("300")));
+
+        assertEquals(2, altas.size());
+        assertEquals(List.of(0, 0), imputacionesEnAlta);
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+
+        assertSame(pago, resultado);
+        assertEquals(202L, resultado.getId());
+        assertEquals(1, resultado.getCompras().size());
+        PagoProveedorCompra imputacion = resultado.getCompras().get(0);
+        assertSame(resultado, imputacion.getPagoProveedor());
+        assertSame(compra, imputacion.getCompra());
+        assertEquals("PAGADA", compra.getEstado());
+    }
+
+    private CobroService cobroService(CobroRepository cobroRepository, SaldoClienteService saldoClienteService,
+            VentasDiariasService ventasDiariasService, int intentos) {
+        RemitoRepository remitoRepository = mock(RemitoRepository.class);
+        // Cada intento relee el remito, como la consulta con versión forzada
+        when(remitoRepository.buscarParaCobro(any())).thenAnswer(inv -> List.of(remitoValorizado()));
+        CobroRemitoRepository cobroRemitoRepository = mock(CobroRemitoRepository.class);
+        when(cobroRemitoRepository.totalCobradoAgrupadoPorRemito(any())).thenReturn(List.of());
+
+        return new CobroService(cobroRepository, cobroRemitoRepository, remitoRepository,
+                mock(RemitoService.class), mock(TesoreriaService.class), mock(ClienteRepository.class),
+                mock(PdfRecursosService.class), mock(NotaRepository.class), mock(CobroNotaRepository.class),
+                mock(NotaService.class), saldoClienteService, ventasDiariasService,
+                new ReintentoConcurrencia(transactionManager, intentos, 0));
+    }
+
+    private static Cobro nuevoCobro() {
+        Cliente cliente = new Cliente();
+        cliente.setId(7L);
+        cliente.setNombre("Cliente");
+        Cobro cobro = new Cobro();
+        cobro.setCliente(cliente);
+        return cobro;
+    }
+
+    private static Remito remitoValorizado() {
+        Remito r = new Remito();
+        r.setId(1L);
+        r.setTotal(new BigDecimal("100"));
+        r.setEstado(Remito.EstadoRemito.VALORIZADO);
+        return r;
+    }
+
+    private static CobroMedioPago medio(String medio, String importe) {
+        CobroMedioPago m = new CobroMedioPago();
+        m.setMedio(medio);
+        m.setImporte(new BigDecimal(importe));
+        return m;
+    }
+
+    private static PlatformTransactionManager transactionManager() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        return transactionManager;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.Sistema_Gestion.service;
+
+import com.example.Sistema_Gestion.dto.PaginaCursor;
+import com.example.Sistema_Gestion.model.Producto;
+import com.example.Sistema_Gestion.model.Remito;
+import com.example.Sistema_Gestion.model.RemitoItem;
+import com.example.Sistema_Gestion.repository.RemitoRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/** Listado por cursor de remitos sobre la base en memoria (H2). */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@Import(RemitoService.class)
+class RemitoServiceTest {
+
+    @Autowired
+    private RemitoService remitoService;
+
+    @Autowired
+    private RemitoRepository remitoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private ProductoService productoService;
+    @MockitoBean
+    private PdfRecursosService pdfRecursosService;
+    @MockitoBean
+    private NumeradorService numeradorService;
+    @MockitoBean
+    private SaldoClienteService saldoClienteService;
+    @MockitoBean
+    private VentasDiariasService ventasDiariasService;
+
+    @Test
+    void elCursorRecorreTodosLosRemitosAunqueFalteLaFecha() {
+        LocalDate[] fechas = {
+                LocalDate.of(2024, 1, 10), null, LocalDate.of(2024, 1, 12), LocalDate.of(2024, 1, 10),
+                null, LocalDate.of(2024, 1, 11), null
+        };
+        List<Remito> esperados = new ArrayList<>();
+        for (int i = 0; i < fechas.length; i++) {
+            Remito r = new Remito();
+            r.setNumero((long) i + 1);
+            r.setFecha(fechas[i]);
+            esperados.add(remitoRepository.save(r));
+        }
+        entityManager.flush();
+        // prePersist completa la fecha: las faltantes se dejan en NULL por SQL, como en datos históricos
+        for (int i = 0; i < fechas.length; i++) {
+            if (fechas[i] == null) {
+                jdbcTemplate.update("UPDATE remito SET fecha = NULL WHERE id = ?", esperados.get(i).getId());
+                esperados.get(i).setFecha(null);
+            }
+        }
+        entityManager.clear();
+        esperados.sort(Comparator.comparing(Remito::getFecha, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(Remito::getId, Comparator.reverseOrder()));
+
+        List<Long> recorridos = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaginaCursor<Remito> pagina = remitoService.listarPorCursor(cursor, 2, null);
+            pagina.getItems().forEach(r -> recorridos.add(r.getId()));
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+
+        assertEquals(esperados.stream().map(Remito::getId).toList(), recorridos);
+    }
+
+    @Test
+    void renombrarUnProductoCambiaLaMarcaDelPdf() {
+        Producto producto = new Producto();
+        producto.setSku("SKU-1");
+        producto.setNombre("Tornillo");
+        entityManager.persist(producto);
+        Remito remito = new Remito();
+        remito.setNumero(1L);
+        RemitoItem item = new RemitoItem();
+        item.setRemito(remito);
+        item.setProducto(producto);
+        item.setCantidad(BigDecimal.ONE);
+        remito.getItems().add(item);
+        entityManager.persist(remito);
+        entityManager.flush();
+
+        String antes = remitoService.versionPdf(remito.getId()).orElseThrow().getMarca();
+        assertEquals(antes, remitoService.versionPdf(remito.getId()).orElseThrow().getMarca());
+
+        // El remito no cambia (misma versión), pero el PDF imprimiría el nombre nuevo
+        jdbcTemplate.update("UPDATE producto SET nombre = 'Tornillo 6mm' WHERE id = ?", producto.getId());
+
+        assertNotEquals(antes, remitoService.versionPdf(remito.getId()).orElseThrow().getMarca());
+    }
+}
@@ -69,6 +69,29 @@ export default function ClienteCtaCteSection({ clienteId }) {
         }
     };
 
+    const downloadDocumentos = async () => {
+        try {
+            const res = await apiFetch(`/api/exportaciones/pdf?clienteId=${clienteId}&documentos=TODOS&formato=ZIP`);
+            if (res.ok) {
+                const blob = await res.blob();
+                const url = window.URL.createObjectURL(blob);
+                const a = document.createElement("a");
+                a.href = url;
+                a.download = `documentos_cliente_${clienteId}.zip`;
+                document.body.appendChild(a);
+                a.click();
+                a.remove();
+                window.URL.revokeObjectURL(url);
+            } else {
+                const data = await res.json().catch(() => ({}));
+                alert(data.error || "Error al descargar los documentos");
+            }
+        } catch (e) {
+            console.error(e);
+            alert("Error de conexión");
+        }
+    };
+
     const fetchCtaCte = useCallback(async () => {
         setLoading(true);
         try {
@@ -169,6 +192,14 @@ export default function ClienteCtaCteSection({ clienteId }) {
                         </button>
                     </div>
                     <button className="btn-secondary" onClick={fetchCtaCte} style={{ padding: "6px 12px", fontSize: "0.85rem" }}>Actualizar</button>
+                    <button
+                        className="btn-secondary"
+                        onClick={downloadDocumentos}
+                        title="Remitos y recibos del cliente en un ZIP"
+                        style={{ padding: "6px 12px", fontSize: "0.85rem" }}
+                    >
+                        <FiDownload /> Remitos y recibos
+                    </button>
                     <button
                         className="btn-primary"
                         onClick={() => setModalNotaOpen(true)}
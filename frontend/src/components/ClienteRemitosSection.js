@@ -8,12 +8,26 @@ const API_REMITOS = "/api/remitos";
 export default function ClienteRemitosSection({ clienteId }) {
     const [remitos, setRemitos] = useState([]);
     const [expandedRows, setExpandedRows] = useState(new Set());
+    // El listado trae sólo cabeceras: los ítems se piden al expandir cada remito
+    const [itemsPorRemito, setItemsPorRemito] = useState({});
 
-    const toggleRow = (id) => {
+    const toggleRow = async (id) => {
         const newExpanded = new Set(expandedRows);
         if (newExpanded.has(id)) newExpanded.delete(id);
         else newExpanded.add(id);
         setExpandedRows(newExpanded);
+
+        if (newExpanded.has(id) && !itemsPorRemito[id]) {
+            try {
+                const res = await apiFetch(`${API_REMITOS}/${id}`);
+                if (res.ok) {
+                    const detalle = await res.json();
+                    setItemsPorRemito(prev => ({ ...prev, [id]: detalle.items || [] }));
+                }
+            } catch (e) {
+                console.error(e);
+            }
+        }
     };
 
     useEffect(() => {
@@ -65,7 +79,7 @@ export default function ClienteRemitosSection({ clienteId }) {
                                                 style={{ padding: "4px 8px", fontSize: "0.75rem", gap: "4px", display: "flex", alignItems: "center" }}
                                                 onClick={() => toggleRow(r.id)}
                                             >
-                                                {expandedRows.has(r.id) ? "▲" : "▼"} {r.items?.length || 0} ítems
+                                                {expandedRows.has(r.id) ? "▲" : "▼"} {r.cantidadItems || 0} ítems
                                             </button>
                                         </td>
                                     </tr>
@@ -83,7 +97,7 @@ export default function ClienteRemitosSection({ clienteId }) {
                                                             </tr>
                                                         </thead>
                                                         <tbody>
-                                                            {r.items?.map((it, idx) => (
+                                                            {itemsPorRemito[r.id]?.map((it, idx) => (
                                                                 <tr key={idx}>
                                                                     <td>{it.producto?.nombre || "Producto desconocido"}</td>
                                                                     <td style={{ textAlign: "center" }}>{it.cantidad}</td>
@@ -1,8 +1,8 @@
-import React, { useState, useEffect } from "react";
+import React, { useState, useEffect, useRef } from "react";
 import { FiDollarSign, FiCreditCard, FiHash, FiUser, FiPlus, FiTrash2 } from "react-icons/fi";
 import { NumericFormat } from 'react-number-format';
 import CamposCheque from "./CamposCheque";
-import { apiFetch } from "../utils/api";
+import { apiFetch, apiFetchIdempotente, nuevaClaveIdempotencia } from "../utils/api";
 
 const API_CLIENTES = "/api/clientes";
 const API_COBROS = "/api/cobros";
@@ -13,6 +13,8 @@ export default function CobroFormModal({ onClose, onSaved, clienteIdPreselected
     const [observaciones, setObservaciones] = useState("");
     const [fecha, setFecha] = useState(new Date().toISOString().split('T')[0]);
     const [loading, setLoading] = useState(false);
+    // Se mantiene si el envío se corta, para que reintentar no duplique el cobro
+    const claveIdempotencia = useRef(null);
     const [saldoAFavor, setSaldoAFavor] = useState(0);
     const [deudas, setDeudas] = useState([]);
     const [importesAplicados, setImportesAplicados] = useState({}); // { type_id: amount }
@@ -202,10 +204,12 @@ export default function CobroFormModal({ onClose, onSaved, clienteIdPreselected
                 }))
             };
 
-            const res = await apiFetch(API_COBROS, {
+            if (!claveIdempotencia.current) claveIdempotencia.current = nuevaClaveIdempotencia();
+            const res = await apiFetchIdempotente(API_COBROS, {
                 method: "POST",
                 body: JSON.stringify(payload)
-            });
+            }, claveIdempotencia.current);
+            claveIdempotencia.current = null;
 
             if (res.ok) {
                 const savedCobro = await res.json();
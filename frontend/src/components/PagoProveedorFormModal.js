@@ -1,8 +1,8 @@
-import React, { useState, useEffect } from "react";
+import React, { useState, useEffect, useRef } from "react";
 import { FiDollarSign, FiCreditCard, FiHash, FiUser, FiX, FiDownload } from "react-icons/fi";
 import { NumericFormat } from 'react-number-format';
 import CamposCheque from "./CamposCheque";
-import { apiFetch } from "../utils/api";
+import { apiFetch, apiFetchIdempotente, nuevaClaveIdempotencia } from "../utils/api";
 
 const API_PROVEEDORES = "/api/proveedores";
 const API_PAGOS = "/api/pagos-proveedor";
@@ -15,6 +15,8 @@ export default function PagoProveedorFormModal({ onClose, onSaved, proveedorIdPr
     const [observaciones, setObservaciones] = useState(pagoEditar?.observaciones || "");
     const [fecha, setFecha] = useState(pagoEditar?.fecha || new Date().toISOString().split('T')[0]);
     const [loading, setLoading] = useState(false);
+    // Se mantiene si el envío se corta, para que reintentar no duplique el pago
+    const claveIdempotencia = useRef(null);
 
     // Campos Bimonetarios
     const [monedaPago, setMonedaPago] = useState(pagoEditar?.monedaPago || "ARS");   // Moneda física del pago
@@ -157,10 +159,14 @@ export default function PagoProveedorFormModal({ onClose, onSaved, proveedorIdPr
             // Si es edición, el backend espera la entidad directamente, no el wrapper RegistrarPagoRequest
             const body = isEdit ? payload.pago : payload;
 
-            const res = await apiFetch(url, {
-                method,
-                body: JSON.stringify(body)
-            });
+            let res;
+            if (isEdit) {
+                res = await apiFetch(url, { method, body: JSON.stringify(body) });
+            } else {
+                if (!claveIdempotencia.current) claveIdempotencia.current = nuevaClaveIdempotencia();
+                res = await apiFetchIdempotente(url, { method, body: JSON.stringify(body) }, claveIdempotencia.current);
+                claveIdempotencia.current = null;
+            }
 
             if (res.ok) {
                 const savedPago = await res.json();
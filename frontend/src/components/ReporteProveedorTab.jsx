@@ -45,16 +45,43 @@ export default function ReporteProveedorTab({ proveedorId, refreshKey }) {
         }
     };
 
+    const guardarPdf = async (res) => {
+        const blob = await res.blob();
+        const url = window.URL.createObjectURL(blob);
+        const a = document.createElement("a");
+        a.href = url;
+        a.download = `reporte_proveedor_${proveedorId}.pdf`;
+        a.click();
+    };
+
+    // Los períodos largos se generan en segundo plano (202): se consulta el trabajo hasta que esté listo
+    const esperarTrabajo = async (trabajoUrl) => {
+        for (;;) {
+            await new Promise(r => setTimeout(r, 1500));
+            const res = await apiFetch(trabajoUrl);
+            if (!res.ok) throw new Error("No se encontró el reporte en proceso");
+            const trabajo = await res.json();
+            if (trabajo.estado === "LISTO") return apiFetch(`${trabajoUrl}/archivo`);
+            if (trabajo.estado === "ERROR") throw new Error(trabajo.error || "Error al generar el reporte");
+        }
+    };
+
     const descargarPdf = async () => {
         try {
-            const res = await apiFetch(`${API_PROVEEDORES}/${proveedorId}/reporte-cuenta-corriente?desde=${desde}&hasta=${hasta}&format=pdf`);
-            const blob = await res.blob();
-            const url = window.URL.createObjectURL(blob);
-            const a = document.createElement("a");
-            a.href = url;
-            a.download = `reporte_proveedor_${proveedorId}.pdf`;
-            a.click();
-        } catch (err) { console.error(err); }
+            let res = await apiFetch(`${API_PROVEEDORES}/${proveedorId}/reporte-cuenta-corriente?desde=${desde}&hasta=${hasta}&format=pdf`);
+            if (res.status === 202) {
+                res = await esperarTrabajo(res.headers.get("Location"));
+            }
+            if (res.ok) {
+                await guardarPdf(res);
+            } else {
+                const err = await res.json().catch(() => ({}));
+                alert("Error: " + (err.error || "No se pudo generar el reporte"));
+            }
+        } catch (err) {
+            console.error(err);
+            alert(err.message || "Error de conexión");
+        }
     };
 
     const fetchReporte = useCallback(async () => {
@@ -1,5 +1,5 @@
-import React, { useState, useEffect } from "react";
-import { apiFetch } from "../utils/api";
+import React, { useState, useEffect, useRef } from "react";
+import { apiFetch, apiFetchIdempotente, nuevaClaveIdempotencia } from "../utils/api";
 import { FiX, FiPlus, FiTrash2, FiCheck, FiZap } from "react-icons/fi";
 import { NumericFormat } from 'react-number-format';
 import "../index.css";
@@ -18,6 +18,8 @@ export default function VentaRapidaModal({ onClose, onSaved }) {
     const [clientes, setClientes] = useState([]);
     const [cotizacionDolar, setCotizacionDolar] = useState(0);
     const [saving, setSaving] = useState(false);
+    // Se mantiene si el envío se corta, para que reintentar no duplique la venta
+    const claveIdempotencia = useRef(null);
     const [loading, setLoading] = useState(true);
 
     const [searchTerms, setSearchTerms] = useState({});
@@ -183,10 +185,12 @@ export default function VentaRapidaModal({ onClose, onSaved }) {
                 cotizacionDolar: cotizacionDolar
             };
 
-            const res = await apiFetch("/api/ventas/rapida", {
+            if (!claveIdempotencia.current) claveIdempotencia.current = nuevaClaveIdempotencia();
+            const res = await apiFetchIdempotente("/api/ventas/rapida", {
                 method: "POST",
                 body: JSON.stringify(payload)
-            });
+            }, claveIdempotencia.current);
+            claveIdempotencia.current = null;
 
             if (!res.ok) {
                 const text = await res.text();
@@ -105,12 +105,30 @@ export default function ConfiguracionPage() {
                 method: "POST",
                 body: formData
             });
-            if (res.ok) {
+            if (res.status === 429) {
+                setToast({ title: "Importación en espera", message: "Hay demasiadas importaciones en curso. Intentá de nuevo en unos minutos.", type: "error" });
+                return;
+            }
+            if (!res.ok) throw new Error("Error al iniciar la importación");
+
+            // La importación corre en segundo plano: se consulta el progreso hasta que termine
+            let importacion = await res.json();
+            while (importacion.estado === "PENDIENTE" || importacion.estado === "EN_PROCESO") {
+                await new Promise((resolve) => setTimeout(resolve, 1500));
+                const estadoRes = await apiFetch(`${API_PRODUCTOS}/importaciones/${importacion.id}`);
+                if (!estadoRes.ok) throw new Error("Error al consultar la importación");
+                importacion = await estadoRes.json();
+            }
+
+            if (importacion.estado === "COMPLETADA") {
+                const errores = importacion.totalErrores > 0 ? ` ${importacion.totalErrores} filas con errores.` : "";
                 setToast({
                     title: "Importación Exitosa",
-                    message: "Los productos se actualizaron desde el Excel. Podés revisar los cambios en el módulo de Mercadería.",
+                    message: `${importacion.insertados} productos nuevos y ${importacion.actualizados} actualizados.${errores} Podés revisar los cambios en el módulo de Mercadería.`,
                     type: "success"
                 });
+            } else {
+                setToast({ title: "Error", message: importacion.mensajeError || "Error al procesar el archivo Excel.", type: "error" });
             }
         } catch (err) {
             setToast({ title: "Error", message: "Error al procesar el archivo Excel.", type: "error" });
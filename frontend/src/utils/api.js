@@ -21,3 +21,32 @@ export const apiFetch = (endpoint, options = {}) => {
 
     return fetch(url, { ...options, headers });
 };
+
+/**
+ * Clave para el header Idempotency-Key de un POST que registra un documento.
+ * Se genera una por envío del formulario y se reusa si hay que reintentar el mismo envío:
+ * el backend devuelve el documento ya registrado en lugar de duplicarlo.
+ */
+export const nuevaClaveIdempotencia = () => {
+    if (window.crypto && typeof window.crypto.randomUUID === "function") {
+        return window.crypto.randomUUID();
+    }
+    // Fuera de HTTPS/localhost randomUUID no existe
+    return `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}-${Math.random().toString(36).slice(2)}`;
+};
+
+/**
+ * POST idempotente: ante un corte de conexión reintenta con la misma clave,
+ * así un reintento no registra dos veces la operación.
+ */
+export const apiFetchIdempotente = async (endpoint, options, clave, reintentos = 2) => {
+    const opciones = { ...options, headers: { ...options.headers, "Idempotency-Key": clave } };
+    for (let intento = 0; ; intento++) {
+        try {
+            return await apiFetch(endpoint, opciones);
+        } catch (err) {
+            if (intento >= reintentos) throw err;
+            await new Promise(resolve => setTimeout(resolve, 500 * (intento + 1)));
+        }
+    }
+};